@@ -0,0 +1,61 @@
+package com.mock.api.cache;
+
+/**
+ * A GET response as kept by the {@link ResponseCache}: status, the UTF-8 body, optionally its gzip
+ * encoding, the {@code Link} header of a collection page, and the endpoint version it was built
+ * from. The arrays are written to the response as they are and must not be modified.
+ */
+public final class CachedResponse
+{
+    private final long version;
+    private final int status;
+    private final byte[] body;
+    private final byte[] gzipped;
+    private final String link;
+
+    public CachedResponse(long version, int status, byte[] body, byte[] gzipped, String link)
+    {
+        this.version = version;
+        this.status = status;
+        this.body = body;
+        this.gzipped = gzipped;
+        this.link = link;
+    }
+
+    public long getVersion()
+    {
+        return version;
+    }
+
+    public int getStatus()
+    {
+        return status;
+    }
+
+    public byte[] getBody()
+    {
+        return body;
+    }
+
+    /**
+     * Returns the gzip encoded body, or null if the body is served uncompressed only.
+     */
+    public byte[] getGzipped()
+    {
+        return gzipped;
+    }
+
+    /**
+     * Returns the {@code Link} header value, or null if the response has none.
+     */
+    public String getLink()
+    {
+        return link;
+    }
+
+    /* Approximate heap taken by the response */
+    long weight()
+    {
+        return body.length + (gzipped == null ? 0 : gzipped.length) + (link == null ? 0 : 2L * link.length());
+    }
+}
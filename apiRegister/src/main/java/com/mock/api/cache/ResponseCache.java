@@ -0,0 +1,285 @@
+package com.mock.api.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of GET responses, keyed by endpoint, registration generation and resource (the ID,
+ * or the query of a collection page) and tagged with the endpoint version they were built from.
+ * <p>
+ * An entry is only served while its version is the endpoint's current one, so writes need no
+ * explicit invalidation: bumping the version makes every older entry of the endpoint a miss,
+ * and those entries age out. An endpoint registered again starts over at a new generation, even
+ * when its store version did not move (a virtual endpoint has no store writes to count), and the
+ * entries of the old registration are evicted. The cache is split into segments, each a
+ * {@link LinkedHashMap} in access order under its own lock, that evict their least recently used
+ * entries once their share of {@code mock.cache.max-weight} (approximate bytes held) is exceeded.
+ * <p>
+ * The strong ETag of a response is derived from the generation, version and content coding alone,
+ * so a conditional request is answered without building or looking up the body. A random per-process
+ * prefix keeps ETags from a previous run from matching.
+ */
+@Component
+public class ResponseCache
+{
+    private static final int SEGMENTS = 16;
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final boolean enabled;
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final String etagPrefix = "\"" + Long.toHexString(ThreadLocalRandom.current().nextLong()) + "-";
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private static final Logger LOG = LogManager.getLogger();
+
+    public ResponseCache(@Value("${mock.cache.enabled:true}") boolean enabled,
+                         @Value("${mock.cache.max-weight:67108864}") long maxWeight)
+    {
+        this.enabled = enabled && maxWeight > 0;
+        for (int i = 0; i < SEGMENTS; i++)
+        {
+            segments[i] = new Segment(Math.max(1, maxWeight / SEGMENTS));
+        }
+        LOG.info("Response cache {}", this.enabled ? "enabled, max weight: " + maxWeight + " bytes" : "disabled");
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Returns the strong ETag of every response of an endpoint registration at the given version.
+     * The gzip encoded representation is a different representation and gets a tag of its own.
+     */
+    public String etag(long generation, long version, boolean gzipped)
+    {
+        return etagPrefix + Long.toHexString(generation) + "." + Long.toHexString(version) + (gzipped ? "-gz\"" : "\"");
+    }
+
+    /**
+     * Returns true if an {@code If-None-Match} header value lists the ETag. The wildcard {@code *}
+     * is not a match here: it only matches a resource that exists, see {@link #matchesAny}.
+     */
+    public static boolean matches(String ifNoneMatch, String etag)
+    {
+        return lists(ifNoneMatch, etag);
+    }
+
+    /**
+     * Returns true if an {@code If-None-Match} header value is the wildcard, which matches any
+     * current representation of a resource that exists.
+     */
+    public static boolean matchesAny(String ifNoneMatch)
+    {
+        return lists(ifNoneMatch, "*");
+    }
+
+    private static boolean lists(String ifNoneMatch, String tag)
+    {
+        if (ifNoneMatch == null)
+        {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(","))
+        {
+            if (candidate.trim().equals(tag))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the cached response for the resource if it was built by the given registration of the
+     * endpoint at the given version.
+     */
+    public CachedResponse get(String endpoint, long generation, String resource, long version)
+    {
+        if (!enabled)
+        {
+            return null;
+        }
+        Key key = new Key(endpoint, generation, resource);
+        CachedResponse response = segmentFor(key).get(key);
+        if (response != null && response.getVersion() == version)
+        {
+            hits.increment();
+            return response;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches a response built at the version read before building it.
+     */
+    public void put(String endpoint, long generation, String resource, CachedResponse response)
+    {
+        if (enabled)
+        {
+            Key key = new Key(endpoint, generation, resource);
+            segmentFor(key).put(key, response);
+        }
+    }
+
+    /**
+     * Drops every cached response of the endpoint, when it is unregistered.
+     */
+    public void evict(String endpoint)
+    {
+        if (enabled)
+        {
+            for (Segment segment : segments)
+            {
+                segment.evict(endpoint);
+            }
+        }
+    }
+
+    public long getHits()
+    {
+        return hits.sum();
+    }
+
+    public long getMisses()
+    {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the approximate number of bytes held.
+     */
+    public long getWeight()
+    {
+        long weight = 0;
+        for (Segment segment : segments)
+        {
+            weight += segment.getWeight();
+        }
+        return weight;
+    }
+
+    private Segment segmentFor(Key key)
+    {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private static long weigh(Key key, CachedResponse response)
+    {
+        return ENTRY_OVERHEAD + 2L * key.resource.length() + response.weight();
+    }
+
+    /* One LRU segment; the LinkedHashMap is only touched under the segment's lock */
+    private static final class Segment
+    {
+        private final long maxWeight;
+        private final LinkedHashMap<Key, CachedResponse> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private long weight;
+
+        private Segment(long maxWeight)
+        {
+            this.maxWeight = maxWeight;
+        }
+
+        private synchronized CachedResponse get(Key key)
+        {
+            return entries.get(key);
+        }
+
+        private synchronized void put(Key key, CachedResponse response)
+        {
+            long entryWeight = weigh(key, response);
+            if (entryWeight > maxWeight)
+            {
+                return;
+            }
+            CachedResponse previous = entries.put(key, response);
+            if (previous != null)
+            {
+                weight -= weigh(key, previous);
+            }
+            weight += entryWeight;
+
+            Iterator<Map.Entry<Key, CachedResponse>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight && eldest.hasNext())
+            {
+                Map.Entry<Key, CachedResponse> entry = eldest.next();
+                weight -= weigh(entry.getKey(), entry.getValue());
+                eldest.remove();
+            }
+        }
+
+        private synchronized void evict(String endpoint)
+        {
+            Iterator<Map.Entry<Key, CachedResponse>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext())
+            {
+                Map.Entry<Key, CachedResponse> entry = iterator.next();
+                if (entry.getKey().endpoint.equals(endpoint))
+                {
+                    weight -= weigh(entry.getKey(), entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+
+        private synchronized long getWeight()
+        {
+            return weight;
+        }
+    }
+
+    private static final class Key
+    {
+        private final String endpoint;
+        private final long generation;
+        private final String resource;
+        private final int hash;
+
+        private Key(String endpoint, long generation, String resource)
+        {
+            this.endpoint = endpoint;
+            this.generation = generation;
+            this.resource = resource;
+            this.hash = 31 * (31 * endpoint.hashCode() + Long.hashCode(generation)) + resource.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key other))
+            {
+                return false;
+            }
+            return hash == other.hash && generation == other.generation && endpoint.equals(other.endpoint)
+                    && resource.equals(other.resource);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public String toString()
+        {
+            return endpoint + "#" + generation + ":" + resource;
+        }
+    }
+}
@@ -7,6 +7,11 @@ public final class ApiConstants
 {
     public static final String API_BASE_PATH    = "/api/";
     public static final String ID_PATH_VARIABLE = "/{id}";
+    public static final String EXPORT_PARAMETER = "export";
+    public static final String IDS_PARAMETER    = "ids";
+    public static final String FIELDS_PARAMETER = "fields";
+    public static final String SORT_PARAMETER   = "sort";
+    public static final String EXPAND_PARAMETER = "expand";
 
     private ApiConstants()
     { /* prevent instantiation */ }
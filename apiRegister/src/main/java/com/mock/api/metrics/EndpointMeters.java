@@ -0,0 +1,293 @@
+package com.mock.api.metrics;
+
+import com.mock.api.shaping.EndpointShaping;
+import com.mock.api.shaping.ResponseShaper.ShapedCall;
+import com.mock.database.store.EndpointStore;
+import com.mock.model.MockApiDefinition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The meters of one registered endpoint, created by {@link EndpointMetrics#register} and removed
+ * from the {@link MeterRegistry} when the endpoint is unregistered. Every meter is tagged with the
+ * endpoint's configured name, never with a request URI, so the number of series is bounded by the
+ * configuration:
+ * <ul>
+ *     <li>{@code mock.endpoint.requests}: timer of the handling of each request, per method, with a
+ *     percentile histogram unless {@code mock.metrics.percentile-histogram=false}; the response
+ *     delay of {@link EndpointShaping} is not part of it</li>
+ *     <li>{@code mock.endpoint.responses}: counter per method and response status</li>
+ *     <li>{@code mock.endpoint.exports}: timer of the streamed exports</li>
+ *     <li>{@code mock.endpoint.throttled}: requests rejected over the throughput limit</li>
+ *     <li>{@code mock.endpoint.cache} and {@code mock.endpoint.cache.hit.ratio}: response cache
+ *     lookups by result, and their hit ratio</li>
+ *     <li>{@code mock.endpoint.entries} and {@code mock.endpoint.bytes}: the stored entries and their
+ *     bytes (for a virtual endpoint, its overrides), see {@link StoreSample}</li>
+ *     <li>{@code mock.store.operations}: timer per store operation, see {@link TimedEndpointStore}</li>
+ * </ul>
+ * Thread-safe.
+ */
+public final class EndpointMeters
+{
+    static final String ENDPOINT_TAG = "endpoint";
+    private static final String METHOD_TAG = "method";
+
+    private final MeterRegistry meterRegistry;
+    private final String endpoint;
+    private final EndpointStore store;
+    private final Map<RequestMethod, Timer> requests = new EnumMap<>(RequestMethod.class);
+    /* Created on the first response with the status, keyed by method ordinal * 1000 + status */
+    private final Map<Integer, Counter> responses = new ConcurrentHashMap<>();
+    private final Timer exports;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    /* Everything registered for the endpoint, to remove it again */
+    private final Queue<Meter> meters = new ConcurrentLinkedQueue<>();
+    /* Set once the meters are removed, after which no meter is registered again; guarded by this */
+    private boolean removed;
+
+    /* The meters of an endpoint when metrics are disabled: nothing is recorded, the store is not wrapped */
+    EndpointMeters(EndpointStore store)
+    {
+        this.meterRegistry = null;
+        this.endpoint = store.getEndpoint();
+        this.store = store;
+        this.exports = null;
+    }
+
+    EndpointMeters(MockApiDefinition definition, EndpointStore store, EndpointShaping shaping,
+                   MeterRegistry meterRegistry, boolean percentileHistogram, long storeSampleNanos)
+    {
+        this.meterRegistry = meterRegistry;
+        this.endpoint = definition.getEndpointName();
+        this.store = new TimedEndpointStore(store, meterRegistry, meters);
+
+        for (RequestMethod method : definition.getMethods())
+        {
+            requests.put(method, add(Timer.builder("mock.endpoint.requests")
+                    .description("Time to handle a request to an endpoint")
+                    .tag(ENDPOINT_TAG, endpoint)
+                    .tag(METHOD_TAG, method.name())
+                    .publishPercentileHistogram(percentileHistogram)
+                    .register(meterRegistry)));
+        }
+        this.exports = add(Timer.builder("mock.endpoint.exports")
+                .description("Time to stream the entries of an endpoint")
+                .tag(ENDPOINT_TAG, endpoint)
+                .register(meterRegistry));
+        if (shaping != null)
+        {
+            add(FunctionCounter.builder("mock.endpoint.throttled", shaping, EndpointShaping::getRejected)
+                    .description("Requests rejected over the throughput limit of an endpoint")
+                    .tag(ENDPOINT_TAG, endpoint)
+                    .register(meterRegistry));
+        }
+
+        add(FunctionCounter.builder("mock.endpoint.cache", cacheHits, LongAdder::sum)
+                .description("Response cache lookups of an endpoint")
+                .tag(ENDPOINT_TAG, endpoint)
+                .tag("result", "hit")
+                .register(meterRegistry));
+        add(FunctionCounter.builder("mock.endpoint.cache", cacheMisses, LongAdder::sum)
+                .description("Response cache lookups of an endpoint")
+                .tag(ENDPOINT_TAG, endpoint)
+                .tag("result", "miss")
+                .register(meterRegistry));
+        add(Gauge.builder("mock.endpoint.cache.hit.ratio", this, EndpointMeters::cacheHitRatio)
+                .description("Share of the response cache lookups of an endpoint that were hits")
+                .tag(ENDPOINT_TAG, endpoint)
+                .strongReference(true)
+                .register(meterRegistry));
+
+        // Sampled from the store itself, so the reads of a scrape are not timed as store operations
+        StoreSample sample = new StoreSample(store, storeSampleNanos);
+        add(Gauge.builder("mock.endpoint.entries", sample, StoreSample::size)
+                .description("Entries stored for an endpoint")
+                .tag(ENDPOINT_TAG, endpoint)
+                .strongReference(true)
+                .register(meterRegistry));
+        add(Gauge.builder("mock.endpoint.bytes", sample, StoreSample::bytes)
+                .description("Bytes of the entries stored for an endpoint")
+                .tag(ENDPOINT_TAG, endpoint)
+                .baseUnit(BaseUnits.BYTES)
+                .strongReference(true)
+                .register(meterRegistry));
+    }
+
+    private <M extends Meter> M add(M meter)
+    {
+        meters.add(meter);
+        return meter;
+    }
+
+    /**
+     * Returns the store of the endpoint, timing its operations when metrics are enabled.
+     */
+    public EndpointStore getStore()
+    {
+        return store;
+    }
+
+    /**
+     * Returns the call, timed and counted by its response status under the given method.
+     */
+    public ShapedCall timed(RequestMethod method, ShapedCall call)
+    {
+        Timer timer = requests.get(method);
+        if (timer == null)
+        {
+            return call;
+        }
+        return () ->
+        {
+            long startNanos = System.nanoTime();
+            ResponseEntity<?> response = null;
+            try
+            {
+                response = call.call();
+                return response;
+            }
+            finally
+            {
+                timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                Counter counter = response(method, response == null ? 0 : response.getStatusCode().value());
+                if (counter != null)
+                {
+                    counter.increment();
+                }
+            }
+        };
+    }
+
+    /* A thrown exception is counted under the status "error"; null once the meters are removed */
+    private Counter response(RequestMethod method, int status)
+    {
+        Counter counter = responses.get(method.ordinal() * 1000 + status);
+        return counter != null ? counter : registerResponse(method, status);
+    }
+
+    /*
+     * Under the lock of remove(): a request still running when its endpoint is unregistered must not register
+     * the counter again, where it would stay, or be shared with a later registration of the endpoint.
+     */
+    private synchronized Counter registerResponse(RequestMethod method, int status)
+    {
+        if (removed)
+        {
+            return null;
+        }
+        return responses.computeIfAbsent(method.ordinal() * 1000 + status, key -> add(Counter.builder("mock.endpoint.responses")
+                .description("Responses of an endpoint by status")
+                .tag(ENDPOINT_TAG, endpoint)
+                .tag(METHOD_TAG, method.name())
+                .tag("status", status == 0 ? "error" : Integer.toString(status))
+                .register(meterRegistry)));
+    }
+
+    /**
+     * Records the time of a streamed export.
+     */
+    public void recordExport(long nanos)
+    {
+        if (exports != null)
+        {
+            exports.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records a response cache lookup for the endpoint.
+     */
+    public void recordCacheLookup(boolean hit)
+    {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    private double cacheHitRatio()
+    {
+        long hits = cacheHits.sum();
+        long lookups = hits + cacheMisses.sum();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /* Removes the endpoint's meters from the registry, for good */
+    synchronized void remove()
+    {
+        if (meterRegistry == null)
+        {
+            return;
+        }
+        removed = true;
+        Meter meter;
+        while ((meter = meters.poll()) != null)
+        {
+            meterRegistry.remove(meter);
+        }
+    }
+
+    /**
+     * The size of a store, read again only once the sampling interval has passed and the store
+     * was written since, so scrapes do not each run a count over a database table.
+     */
+    private static final class StoreSample
+    {
+        private final EndpointStore store;
+        private final long intervalNanos;
+        private boolean sampled;
+        private long sampledAt;
+        private long version;
+        private int size;
+        private long bytes;
+
+        private StoreSample(EndpointStore store, long intervalNanos)
+        {
+            this.store = store;
+            this.intervalNanos = intervalNanos;
+        }
+
+        private synchronized double size()
+        {
+            refresh();
+            return size;
+        }
+
+        private synchronized double bytes()
+        {
+            refresh();
+            return bytes;
+        }
+
+        private void refresh()
+        {
+            long now = System.nanoTime();
+            if (sampled && now - sampledAt < intervalNanos)
+            {
+                return;
+            }
+            long current = store.version();
+            if (!sampled || current != version)
+            {
+                size = store.size();
+                bytes = store.byteSize();
+                version = current;
+                sampled = true;
+            }
+            sampledAt = now;
+        }
+    }
+}
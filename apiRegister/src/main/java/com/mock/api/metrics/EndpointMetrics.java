@@ -0,0 +1,120 @@
+package com.mock.api.metrics;
+
+import com.mock.api.cache.ResponseCache;
+import com.mock.api.shaping.EndpointShaping;
+import com.mock.api.shaping.ResponseShaper;
+import com.mock.database.store.EndpointStore;
+import com.mock.model.MockApiDefinition;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the Micrometer meters of the dynamic endpoints. Each endpoint gets its
+ * {@link EndpointMeters} when it is registered, and loses them when it is unregistered, so only the
+ * endpoints of the current configuration have series.
+ * <p>
+ * The response cache and the response shaper are shared by all endpoints and get one set of meters:
+ * {@code mock.cache.requests} (by result), {@code mock.cache.hit.ratio}, {@code mock.cache.weight}
+ * and {@code mock.shaping.pending}.
+ * <p>
+ * The entries and bytes of a store are sampled at most once per {@code mock.metrics.store-sample-ms},
+ * as a database store counts them with a query.
+ * <p>
+ * With {@code mock.metrics.enabled=false} nothing is registered and the handlers and stores run
+ * uninstrumented.
+ */
+@Component
+public class EndpointMetrics
+{
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final boolean percentileHistogram;
+    private final long storeSampleNanos;
+    private final Map<String, EndpointMeters> endpoints = new ConcurrentHashMap<>();
+    private static final Logger LOG = LogManager.getLogger();
+
+    public EndpointMetrics(MeterRegistry meterRegistry,
+                           ResponseCache responseCache,
+                           ResponseShaper responseShaper,
+                           @Value("${mock.metrics.enabled:true}") boolean enabled,
+                           @Value("${mock.metrics.percentile-histogram:true}") boolean percentileHistogram,
+                           @Value("${mock.metrics.store-sample-ms:15000}") long storeSampleMillis)
+    {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.percentileHistogram = percentileHistogram;
+        this.storeSampleNanos = TimeUnit.MILLISECONDS.toNanos(storeSampleMillis);
+        if (!enabled)
+        {
+            LOG.info("Endpoint metrics are disabled");
+            return;
+        }
+
+        FunctionCounter.builder("mock.cache.requests", responseCache, ResponseCache::getHits)
+                .description("Response cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("mock.cache.requests", responseCache, ResponseCache::getMisses)
+                .description("Response cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("mock.cache.hit.ratio", responseCache, EndpointMetrics::hitRatio)
+                .description("Share of the response cache lookups that were hits")
+                .register(meterRegistry);
+        Gauge.builder("mock.cache.weight", responseCache, ResponseCache::getWeight)
+                .description("Approximate bytes held by the response cache")
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        Gauge.builder("mock.shaping.pending", responseShaper, ResponseShaper::getPending)
+                .description("Responses waiting for their shaped delay")
+                .register(meterRegistry);
+    }
+
+    private static double hitRatio(ResponseCache responseCache)
+    {
+        long hits = responseCache.getHits();
+        long lookups = hits + responseCache.getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Creates the meters of the definition's endpoint, replacing those of an earlier registration.
+     *
+     * @param store   the endpoint's store
+     * @param shaping the endpoint's shaping, null if it has none
+     * @return the meters, whose {@link EndpointMeters#getStore() store} the endpoint is to use
+     */
+    public EndpointMeters register(MockApiDefinition definition, EndpointStore store, EndpointShaping shaping)
+    {
+        if (!enabled)
+        {
+            return new EndpointMeters(store);
+        }
+        remove(definition.getEndpointName());
+        EndpointMeters meters = new EndpointMeters(definition, store, shaping, meterRegistry, percentileHistogram, storeSampleNanos);
+        endpoints.put(definition.getEndpointName(), meters);
+        return meters;
+    }
+
+    /**
+     * Removes the meters of the endpoint, if it has any.
+     */
+    public void remove(String endpoint)
+    {
+        EndpointMeters meters = endpoints.remove(endpoint);
+        if (meters != null)
+        {
+            meters.remove();
+        }
+    }
+}
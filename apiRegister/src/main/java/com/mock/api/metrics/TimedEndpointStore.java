@@ -0,0 +1,217 @@
+package com.mock.api.metrics;
+
+import com.mock.database.store.EndpointStore;
+import com.mock.database.store.StoredEntry;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link EndpointStore} recording the time of every read and write of the store it wraps in
+ * {@code mock.store.operations}, tagged with the endpoint and the operation. {@link #size()},
+ * {@link #byteSize()}, {@link #highestId()} and {@link #version()} are passed through untimed.
+ */
+final class TimedEndpointStore implements EndpointStore
+{
+    private final EndpointStore store;
+    private final Timer get;
+    private final Timer getAll;
+    private final Timer put;
+    private final Timer insertAll;
+    private final Timer delete;
+    private final Timer deleteAll;
+    private final Timer scan;
+    private final Timer scanAfter;
+    private final Timer scanOffset;
+
+    TimedEndpointStore(EndpointStore store, MeterRegistry meterRegistry, Queue<Meter> meters)
+    {
+        this.store = store;
+        this.get = timer("get", meterRegistry, meters);
+        this.getAll = timer("getAll", meterRegistry, meters);
+        this.put = timer("put", meterRegistry, meters);
+        this.insertAll = timer("insertAll", meterRegistry, meters);
+        this.delete = timer("delete", meterRegistry, meters);
+        this.deleteAll = timer("deleteAll", meterRegistry, meters);
+        this.scan = timer("scan", meterRegistry, meters);
+        this.scanAfter = timer("scanAfter", meterRegistry, meters);
+        this.scanOffset = timer("scanOffset", meterRegistry, meters);
+    }
+
+    private Timer timer(String operation, MeterRegistry meterRegistry, Queue<Meter> meters)
+    {
+        Timer timer = Timer.builder("mock.store.operations")
+                .description("Time of the store operations of an endpoint")
+                .tag(EndpointMeters.ENDPOINT_TAG, store.getEndpoint())
+                .tag("operation", operation)
+                .register(meterRegistry);
+        meters.add(timer);
+        return timer;
+    }
+
+    private static void stop(Timer timer, long startNanos)
+    {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String getEndpoint()
+    {
+        return store.getEndpoint();
+    }
+
+    @Override
+    public byte[] get(int internalId)
+    {
+        long startNanos = System.nanoTime();
+        try
+        {
+            return store.get(internalId);
+        }
+        finally
+        {
+            stop(get, startNanos);
+        }
+    }
+
+    @Override
+    public int getAll(int[] internalIds, EntryVisitor visitor)
+    {
+        long startNanos = System.nanoTime();
+        try
+        {
+            return store.getAll(internalIds, visitor);
+        }
+        finally
+        {
+            stop(getAll, startNanos);
+        }
+    }
+
+    @Override
+    public boolean put(int internalId, byte[] data)
+    {
+        long startNanos = System.nanoTime();
+        try
+        {
+            return store.put(internalId, data);
+        }
+        finally
+        {
+            stop(put, startNanos);
+        }
+    }
+
+    @Override
+    public void insertAll(List<StoredEntry> entries)
+    {
+        long startNanos = System.nanoTime();
+        try
+        {
+            store.insertAll(entries);
+        }
+        finally
+        {
+            stop(insertAll, startNanos);
+        }
+    }
+
+    @Override
+    public boolean delete(int internalId)
+    {
+        long startNanos = System.nanoTime();
+        try
+        {
+            return store.delete(internalId);
+        }
+        finally
+        {
+            stop(delete, startNanos);
+        }
+    }
+
+    @Override
+    public int deleteAll(int[] internalIds)
+    {
+        long startNanos = System.nanoTime();
+        try
+        {
+            return store.deleteAll(internalIds);
+        }
+        finally
+        {
+            stop(deleteAll, startNanos);
+        }
+    }
+
+    /* Includes the time of the visitor, which writes the entries out for an export */
+    @Override
+    public void scan(EntryVisitor visitor)
+    {
+        long startNanos = System.nanoTime();
+        try
+        {
+            store.scan(visitor);
+        }
+        finally
+        {
+            stop(scan, startNanos);
+        }
+    }
+
+    @Override
+    public int scanAfter(int afterId, int limit, EntryVisitor visitor)
+    {
+        long startNanos = System.nanoTime();
+        try
+        {
+            return store.scanAfter(afterId, limit, visitor);
+        }
+        finally
+        {
+            stop(scanAfter, startNanos);
+        }
+    }
+
+    @Override
+    public int scanOffset(int offset, int limit, EntryVisitor visitor)
+    {
+        long startNanos = System.nanoTime();
+        try
+        {
+            return store.scanOffset(offset, limit, visitor);
+        }
+        finally
+        {
+            stop(scanOffset, startNanos);
+        }
+    }
+
+    @Override
+    public int highestId()
+    {
+        return store.highestId();
+    }
+
+    @Override
+    public int size()
+    {
+        return store.size();
+    }
+
+    @Override
+    public long byteSize()
+    {
+        return store.byteSize();
+    }
+
+    @Override
+    public long version()
+    {
+        return store.version();
+    }
+}
@@ -0,0 +1,360 @@
+package com.mock.api.query;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mock.database.store.EndpointStore.EntryVisitor;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.util.IntLongHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * The secondary indexes of one endpoint's fields, one per top-level value field declared in its
+ * definition (nested objects and arrays are not indexed):
+ * a {@link HashFieldIndex} for strings, characters and booleans, a {@link SortedFieldIndex} for
+ * numbers. They answer {@link Filter}s and {@link Sort}s.
+ * <p>
+ * The indexes are built on the first filtered or sorted query, with one scan of the endpoint, and then kept
+ * current by the writes of the request handlers, which run concurrently: once its write is made, a
+ * handler has the entries it wrote read back from the store and indexed again (see {@link #refresh}).
+ * The entries are read before the indexes are locked, so the reads are ordered by when they started
+ * and an entry only takes a read newer than the one it was last indexed from; the latest state of
+ * an entry wins whatever order its writers finish in.
+ * <p>
+ * Every handler write advances the store version by one and counts one version once refreshed. A
+ * query answers from the indexes while the versions they are behind the store are all writes still
+ * in progress, which it may or may not see, like a read racing with them anyway. A write made around
+ * the handlers leaves the indexes behind for good; the next query then rebuilds them instead of
+ * answering from stale indexes. A rebuild overlapping handler writes may count some of them short,
+ * which only costs another rebuild.
+ * <p>
+ * The indexes keep a bit per ID up to the highest one, and their values in maps by ID, so their
+ * size follows the entries rather than the IDs.
+ * <p>
+ * Thread-safe: queries share a read lock, refreshes and rebuilds take the write lock for the time
+ * it takes to index the entries, but the handler writes themselves are not serialized.
+ */
+public final class EndpointIndex
+{
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final String endpoint;
+    private final Map<String, FieldIndex> fields = new HashMap<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final FieldIndex[] indexes;
+    private final BitSet entries = new BitSet();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /* Handler writes between beginWrite and endWrite */
+    private final AtomicInteger writing = new AtomicInteger();
+    /* Orders the reads of the refreshes by when they started */
+    private final AtomicLong reads = new AtomicLong();
+    /* The read each entry was last indexed from; reads up to the floor started before the last rebuild */
+    private IntLongHashMap readById = new IntLongHashMap();
+    private long floor;
+    private volatile boolean built;
+    private long version;
+    private static final Logger LOG = LogManager.getLogger();
+
+    public EndpointIndex(MockApiDefinition definition)
+    {
+        this.endpoint = definition.getEndpointName();
+        for (Map.Entry<String, Class<?>> field : definition.getFields().entrySet())
+        {
+            FieldIndex index = create(field.getKey(), field.getValue());
+            if (index != null)
+            {
+                positions.put(field.getKey(), fields.size());
+                fields.put(field.getKey(), index);
+            }
+        }
+        this.indexes = new FieldIndex[fields.size()];
+        positions.forEach((field, position) -> indexes[position] = fields.get(field));
+    }
+
+    private static FieldIndex create(String field, Class<?> type)
+    {
+        if (String.class.equals(type) || Character.class.equals(type))
+        {
+            return new HashFieldIndex(field, false);
+        }
+        else if (Boolean.class.equals(type))
+        {
+            return new HashFieldIndex(field, true);
+        }
+        else if (Integer.class.equals(type) || Long.class.equals(type) || Short.class.equals(type) || Byte.class.equals(type))
+        {
+            return new SortedFieldIndex(field, false);
+        }
+        else if (Double.class.equals(type) || Float.class.equals(type))
+        {
+            return new SortedFieldIndex(field, true);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the filter of a collection GET from its query parameters, see {@link Filter}.
+     *
+     * @throws IllegalArgumentException if a condition is invalid
+     */
+    public Filter filter(Map<String, String[]> parameters)
+    {
+        return Filter.parse(parameters, fields);
+    }
+
+    /**
+     * Reads the sort of a collection GET from its {@code sort} parameter, see {@link Sort}.
+     *
+     * @return the sort, or null if the parameter is absent
+     * @throws IllegalArgumentException if a field is unknown
+     */
+    public Sort sort(String parameter)
+    {
+        return Sort.parse(parameter, fields);
+    }
+
+    /**
+     * Returns the IDs of the entries matching the filter, rebuilding the indexes first if they
+     * are behind the store. The indexes may be ahead of the given version, by writes made since
+     * it was read.
+     *
+     * @param storeVersion the store version, read before calling
+     * @param source       the entries of the endpoint, scanned for a rebuild
+     */
+    public BitSet select(Filter filter, long storeVersion, EntrySource source)
+    {
+        return query(storeVersion, source, filter::select);
+    }
+
+    /**
+     * Returns the IDs of one page of the entries matching the filter, in the order of the sort,
+     * rebuilding the indexes first if they are behind the store.
+     *
+     * @param offset the number of matching entries to skip
+     * @param limit  the maximum number of IDs returned
+     */
+    public int[] sorted(Filter filter, Sort sort, int offset, int limit, long storeVersion, EntrySource source)
+    {
+        return query(storeVersion, source, () -> sort.page(filter.isEmpty() ? null : filter.select(), entries, offset, limit));
+    }
+
+    private <T> T query(long storeVersion, EntrySource source, Supplier<T> query)
+    {
+        lock.readLock().lock();
+        try
+        {
+            // The version is stable under the lock; a write counted in the store version but not in it is still writing
+            if (built && version + writing.get() >= storeVersion)
+            {
+                return query.get();
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try
+        {
+            long current = source.version();
+            if (!built || version + writing.get() < current)
+            {
+                rebuild(current, source);
+            }
+            // Downgrade, so other queries are answered while this one reads its matches
+            lock.readLock().lock();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+        try
+        {
+            return query.get();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Called by a handler before it writes to the store, and followed by {@link #endWrite} once it
+     * is done, also if the write failed.
+     */
+    public void beginWrite()
+    {
+        writing.incrementAndGet();
+    }
+
+    public void endWrite()
+    {
+        writing.decrementAndGet();
+    }
+
+    /**
+     * Indexes again an entry a handler wrote (created, replaced or deleted), with what the store
+     * holds for it now. Called once per store write, between {@link #beginWrite} and
+     * {@link #endWrite}.
+     */
+    public void refresh(int id, EntrySource source)
+    {
+        refresh(new int[] {id}, source);
+    }
+
+    /**
+     * Indexes again the entries of a batch insert, with consecutive IDs from {@code firstId}.
+     */
+    public void refresh(int firstId, int count, EntrySource source)
+    {
+        int[] ids = new int[count];
+        Arrays.setAll(ids, i -> firstId + i);
+        refresh(ids, source);
+    }
+
+    /**
+     * Indexes again the entries of a batch write, given in ascending order.
+     */
+    public void refresh(int[] ids, EntrySource source)
+    {
+        if (!built)
+        {
+            // Not counted: a build overlapping this write may have missed it, and is redone by the next query
+            return;
+        }
+        long read = reads.incrementAndGet();
+        byte[][] data = new byte[ids.length][];
+        source.read(ids, (internalId, entry) -> data[Arrays.binarySearch(ids, internalId)] = entry);
+        lock.writeLock().lock();
+        try
+        {
+            if (!built)
+            {
+                return;
+            }
+            for (int i = 0; i < ids.length; i++)
+            {
+                // An older read of the entry than the one indexed, or than the last rebuild, is left out
+                if (read > floor && read > readById.get(ids[i]))
+                {
+                    readById.put(ids[i], read);
+                    if (data[i] == null)
+                    {
+                        clear(ids[i]);
+                    }
+                    else
+                    {
+                        index(ids[i], data[i]);
+                    }
+                }
+            }
+            version++;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuild(long storeVersion, EntrySource source)
+    {
+        long startNanos = System.nanoTime();
+        // The refreshes of the writes in progress count them again, whether or not the store version includes them
+        long base = storeVersion - writing.get();
+        floor = reads.get();
+        readById = new IntLongHashMap();
+        entries.clear();
+        for (FieldIndex index : indexes)
+        {
+            index.reset();
+        }
+        int[] count = new int[1];
+        source.scan((internalId, data) -> {
+            index(internalId, data);
+            count[0]++;
+        });
+        for (FieldIndex index : indexes)
+        {
+            index.finishBuild();
+        }
+        built = true;
+        version = base;
+        LOG.info("Indexed {} entries on {} fields for endpoint: {} in {} ms", count[0], indexes.length, endpoint,
+                 (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /* Sets the indexed fields of the entry, and clears those it has no value for */
+    private void index(int id, byte[] data)
+    {
+        entries.set(id);
+        boolean[] seen = new boolean[indexes.length];
+        try (JsonParser parser = JSON.createParser(data))
+        {
+            if (parser.nextToken() == JsonToken.START_OBJECT)
+            {
+                while (parser.nextToken() == JsonToken.FIELD_NAME)
+                {
+                    Integer position = positions.get(parser.currentName());
+                    JsonToken token = parser.nextToken();
+                    if (position != null)
+                    {
+                        indexes[position].set(id, parser, token);
+                        seen[position] = true;
+                    }
+                    parser.skipChildren();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Invalid entry " + id + " for endpoint: " + endpoint, e);
+        }
+        for (int i = 0; i < indexes.length; i++)
+        {
+            if (!seen[i])
+            {
+                indexes[i].clear(id);
+            }
+        }
+    }
+
+    private void clear(int id)
+    {
+        entries.clear(id);
+        for (FieldIndex index : indexes)
+        {
+            index.clear(id);
+        }
+    }
+
+    /**
+     * The entries of the endpoint, scanned to build the indexes.
+     */
+    public interface EntrySource
+    {
+        void scan(EntryVisitor visitor);
+
+        /**
+         * Visits the entries among the given IDs, in ascending order, that exist.
+         */
+        void read(int[] ids, EntryVisitor visitor);
+
+        /**
+         * Returns the store version, see {@link com.mock.database.store.EndpointStore#version()}.
+         */
+        long version();
+    }
+}
@@ -0,0 +1,106 @@
+package com.mock.api.query;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * The secondary index of one field of an endpoint, kept by its {@link EndpointIndex}: the value
+ * of every entry by ID, and the IDs by value. Not thread-safe; guarded by the lock of the
+ * {@link EndpointIndex}.
+ */
+abstract class FieldIndex
+{
+    private final String field;
+
+    FieldIndex(String field)
+    {
+        this.field = field;
+    }
+
+    String getField()
+    {
+        return field;
+    }
+
+    /**
+     * Indexes the value the parser is on, at the given token, for the entry. A value of another
+     * type than the field's (or null) leaves the entry out of the index.
+     */
+    abstract void set(int id, JsonParser parser, JsonToken token) throws IOException;
+
+    /**
+     * Removes the entry from the index.
+     */
+    abstract void clear(int id);
+
+    /**
+     * Drops every entry, before a rebuild.
+     */
+    abstract void reset();
+
+    /**
+     * Called once a rebuild has set every entry, for indexes that defer their sorting.
+     */
+    void finishBuild()
+    {
+    }
+
+    /**
+     * Converts a filter value of the query string to the index's representation.
+     *
+     * @throws IllegalArgumentException if the value is not one of the field's type
+     */
+    abstract Object parseValue(String value);
+
+    abstract boolean supports(Filter.Operator operator);
+
+    /**
+     * Returns the IDs of the entries whose value matches the condition.
+     *
+     * @param value a value from {@link #parseValue(String)}
+     */
+    abstract BitSet select(Filter.Operator operator, Object value);
+
+    /**
+     * Returns the IDs of the entries with a value for the field. Must not be modified.
+     */
+    abstract BitSet getPresent();
+
+    /**
+     * Passes the entries with a value to the visitor in the order of their values, one group of
+     * entries per value, each group in ascending ID order. Stops when the visitor returns false.
+     */
+    abstract void forEachGroup(boolean descending, GroupVisitor visitor);
+
+    /* Compares the values of two entries that both have one */
+    abstract int compareValues(int first, int second);
+
+    /**
+     * Compares the values of two entries for a sort; entries without a value come last in either
+     * direction.
+     */
+    int compare(int first, int second, boolean descending)
+    {
+        boolean hasFirst = getPresent().get(first);
+        boolean hasSecond = getPresent().get(second);
+        if (!hasFirst || !hasSecond)
+        {
+            return hasFirst == hasSecond ? 0 : hasFirst ? -1 : 1;
+        }
+        int comparison = compareValues(first, second);
+        return descending ? -comparison : comparison;
+    }
+
+    /**
+     * Receives the groups of {@link #forEachGroup}: the IDs from {@code from} (inclusive) to
+     * {@code to} (exclusive) of an array owned by the index.
+     */
+    @FunctionalInterface
+    interface GroupVisitor
+    {
+        boolean visit(int[] ids, int from, int to);
+    }
+}
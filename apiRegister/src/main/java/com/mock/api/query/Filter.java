@@ -0,0 +1,164 @@
+package com.mock.api.query;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The conditions of a collection GET on the endpoint's fields, from its query parameters:
+ * <ul>
+ *     <li>{@code field=value}: the field equals the value; repeat the parameter to accept any of
+ *     several values</li>
+ *     <li>{@code field.ne=value}: the field differs from the value</li>
+ *     <li>{@code field.lt}, {@code field.lte}, {@code field.gt}, {@code field.gte}: range
+ *     conditions, for number fields only</li>
+ * </ul>
+ * All conditions must hold. Parameters that do not name a field are left to the other features
+ * of the GET (paging, projection, sorting) and otherwise ignored. An entry without a value for a field
+ * matches no condition on it.
+ */
+public final class Filter
+{
+    /* The query parameters of a collection GET that are not filters, even if a field has their name */
+    private static final Set<String> RESERVED_PARAMETERS = Set.of("limit", "cursor", "offset", "ids", "export", "fields", "sort", "expand");
+
+    private final List<Condition> conditions;
+
+    private Filter(List<Condition> conditions)
+    {
+        this.conditions = conditions;
+    }
+
+    /**
+     * Reads the conditions from the query parameters of a request.
+     *
+     * @throws IllegalArgumentException if a condition has an unknown operator, a value that is not
+     * of the field's type, or a range operator on a field that is not a number
+     */
+    static Filter parse(Map<String, String[]> parameters, Map<String, FieldIndex> fields)
+    {
+        List<Condition> conditions = new ArrayList<>();
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet())
+        {
+            String name = parameter.getKey();
+            if (RESERVED_PARAMETERS.contains(name))
+            {
+                continue;
+            }
+
+            FieldIndex field = fields.get(name);
+            Operator operator = Operator.EQ;
+            int dot = name.lastIndexOf('.');
+            if (field == null && dot > 0)
+            {
+                field = fields.get(name.substring(0, dot));
+                if (field == null)
+                {
+                    continue;
+                }
+                operator = Operator.fromSuffix(name.substring(dot + 1), name);
+            }
+            else if (field == null)
+            {
+                continue;
+            }
+
+            if (!field.supports(operator))
+            {
+                throw new IllegalArgumentException("The " + field.getField() + " field cannot be filtered with " + name);
+            }
+            String[] values = parameter.getValue();
+            if (operator != Operator.EQ && values.length > 1)
+            {
+                throw new IllegalArgumentException(name + " can only be given once");
+            }
+            Object[] parsed = new Object[values.length];
+            for (int i = 0; i < values.length; i++)
+            {
+                parsed[i] = field.parseValue(values[i]);
+            }
+            conditions.add(new Condition(field, operator, parsed));
+        }
+        return new Filter(conditions);
+    }
+
+    /**
+     * Returns true if the request has no condition, every entry matches.
+     */
+    public boolean isEmpty()
+    {
+        return conditions.isEmpty();
+    }
+
+    /* Called under the read lock of the EndpointIndex the conditions' fields belong to */
+    BitSet select()
+    {
+        BitSet matches = null;
+        for (Condition condition : conditions)
+        {
+            BitSet selected = condition.select();
+            if (matches == null)
+            {
+                matches = selected;
+            }
+            else
+            {
+                matches.and(selected);
+            }
+            if (matches.isEmpty())
+            {
+                break;
+            }
+        }
+        return matches == null ? new BitSet() : matches;
+    }
+
+    enum Operator
+    {
+        EQ, NE, LT, LTE, GT, GTE;
+
+        static Operator fromSuffix(String suffix, String parameter)
+        {
+            try
+            {
+                Operator operator = valueOf(suffix.toUpperCase(Locale.ROOT));
+                if (operator != EQ)
+                {
+                    return operator;
+                }
+            }
+            catch (IllegalArgumentException e)
+            {
+                // Reported below
+            }
+            throw new IllegalArgumentException("Unknown filter operator: " + parameter + ", expected one of ne, lt, lte, gt, gte");
+        }
+    }
+
+    private static final class Condition
+    {
+        private final FieldIndex field;
+        private final Operator operator;
+        private final Object[] values;
+
+        private Condition(FieldIndex field, Operator operator, Object[] values)
+        {
+            this.field = field;
+            this.operator = operator;
+            this.values = values;
+        }
+
+        private BitSet select()
+        {
+            BitSet matches = field.select(operator, values[0]);
+            for (int i = 1; i < values.length; i++)
+            {
+                matches.or(field.select(operator, values[i]));
+            }
+            return matches;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.mock.api.query;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mock.model.util.IntObjectHashMap;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link FieldIndex} for strings, characters and booleans: a hash map from each value to the
+ * {@link PostingList} of the entries holding it, answering equality conditions with one lookup.
+ * For sorts, the distinct values are ordered on demand and the order is kept until a value is
+ * added or disappears, so writes to existing values leave it in place.
+ */
+final class HashFieldIndex extends FieldIndex
+{
+    private final boolean booleanField;
+    private final Map<Object, PostingList> postings = new HashMap<>();
+    private final BitSet present = new BitSet();
+    private IntObjectHashMap<Object> values = new IntObjectHashMap<>();
+    private Object[] sortedValues;
+    private boolean building;
+
+    HashFieldIndex(String field, boolean booleanField)
+    {
+        super(field);
+        this.booleanField = booleanField;
+    }
+
+    @Override
+    void set(int id, JsonParser parser, JsonToken token) throws IOException
+    {
+        Object value;
+        if (booleanField)
+        {
+            value = token == JsonToken.VALUE_TRUE ? Boolean.TRUE : token == JsonToken.VALUE_FALSE ? Boolean.FALSE : null;
+        }
+        else
+        {
+            value = token == JsonToken.VALUE_STRING ? parser.getText() : null;
+        }
+
+        Object previous = values.get(id);
+        if (previous != null)
+        {
+            if (previous.equals(value))
+            {
+                return;
+            }
+            clear(id);
+        }
+        if (value == null)
+        {
+            return;
+        }
+        values.put(id, value);
+        present.set(id);
+        PostingList ids = postings.get(value);
+        if (ids == null)
+        {
+            ids = new PostingList();
+            postings.put(value, ids);
+            sortedValues = null;
+        }
+        if (building)
+        {
+            ids.append(id);
+        }
+        else
+        {
+            ids.add(id);
+        }
+    }
+
+    @Override
+    void clear(int id)
+    {
+        Object previous = values.get(id);
+        if (previous == null)
+        {
+            return;
+        }
+        values.remove(id);
+        present.clear(id);
+        PostingList ids = postings.get(previous);
+        ids.remove(id);
+        if (ids.isEmpty())
+        {
+            postings.remove(previous);
+            sortedValues = null;
+        }
+    }
+
+    @Override
+    void reset()
+    {
+        postings.clear();
+        present.clear();
+        values = new IntObjectHashMap<>();
+        sortedValues = null;
+        building = true;
+    }
+
+    @Override
+    void finishBuild()
+    {
+        building = false;
+    }
+
+    @Override
+    Object parseValue(String value)
+    {
+        if (!booleanField)
+        {
+            return value;
+        }
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false"))
+        {
+            return Boolean.valueOf(value);
+        }
+        throw new IllegalArgumentException(getField() + " must be true or false: " + value);
+    }
+
+    @Override
+    boolean supports(Filter.Operator operator)
+    {
+        return operator == Filter.Operator.EQ || operator == Filter.Operator.NE;
+    }
+
+    @Override
+    BitSet select(Filter.Operator operator, Object value)
+    {
+        BitSet matches = new BitSet();
+        PostingList ids = postings.get(value);
+        if (ids != null)
+        {
+            ids.addTo(matches);
+        }
+        if (operator == Filter.Operator.NE)
+        {
+            BitSet others = (BitSet) present.clone();
+            others.andNot(matches);
+            return others;
+        }
+        return matches;
+    }
+
+    @Override
+    BitSet getPresent()
+    {
+        return present;
+    }
+
+    @Override
+    void forEachGroup(boolean descending, GroupVisitor visitor)
+    {
+        if (sortedValues == null)
+        {
+            sortedValues = postings.keySet().toArray();
+            Arrays.sort(sortedValues);
+        }
+        for (int i = 0; i < sortedValues.length; i++)
+        {
+            Object value = sortedValues[descending ? sortedValues.length - 1 - i : i];
+            if (!postings.get(value).visit(visitor))
+            {
+                return;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    int compareValues(int first, int second)
+    {
+        return ((Comparable<Object>) values.get(first)).compareTo(values.get(second));
+    }
+}
@@ -0,0 +1,74 @@
+package com.mock.api.query;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The IDs of the entries holding one value of a {@link HashFieldIndex}, as a sorted int array.
+ * Not thread-safe; guarded by the lock of the {@link EndpointIndex}.
+ */
+final class PostingList
+{
+    private int[] ids = new int[4];
+    private int size;
+
+    void add(int id)
+    {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0)
+        {
+            return;
+        }
+        position = -position - 1;
+        if (size == ids.length)
+        {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+    }
+
+    /* IDs added in ascending order while the index is built, no search needed */
+    void append(int id)
+    {
+        if (size > 0 && ids[size - 1] >= id)
+        {
+            add(id);
+            return;
+        }
+        if (size == ids.length)
+        {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size++] = id;
+    }
+
+    void remove(int id)
+    {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0)
+        {
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+        }
+    }
+
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    boolean visit(FieldIndex.GroupVisitor visitor)
+    {
+        return visitor.visit(ids, 0, size);
+    }
+
+    void addTo(BitSet bits)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            bits.set(ids[i]);
+        }
+    }
+}
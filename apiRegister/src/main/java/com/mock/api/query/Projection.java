@@ -0,0 +1,175 @@
+package com.mock.api.query;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.schema.ArraySchema;
+import com.mock.model.schema.ObjectSchema;
+import com.mock.model.schema.SchemaNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The fields of the entries a GET returns, from {@code ?fields=model,year}. A field of a nested
+ * object is selected by its dotted path, {@code ?fields=id,address.city}; through an array of
+ * objects the path applies to every item, {@code ?fields=lines.price}. Entries are re-emitted
+ * with only those fields, in their stored order, by streaming the stored JSON; nothing is bound to
+ * objects. The paths are checked against the definition's schema once, when the parameter is
+ * read. Immutable.
+ */
+public final class Projection
+{
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Selection root;
+
+    private Projection(Selection root)
+    {
+        this.root = root;
+    }
+
+    /**
+     * Reads the {@code fields} parameter of a request.
+     *
+     * @param value the parameter, null if absent
+     * @return the projection, or null to return whole entries
+     * @throws IllegalArgumentException if a listed path is not one of the definition's fields
+     */
+    public static Projection parse(String value, MockApiDefinition definition)
+    {
+        if (value == null || value.isBlank())
+        {
+            return null;
+        }
+        Selection root = new Selection();
+        for (String field : value.split(","))
+        {
+            String path = field.trim();
+            if (path.isEmpty())
+            {
+                continue;
+            }
+            select(root, definition.getSchema(), path, definition);
+        }
+        return root.fields.isEmpty() ? null : new Projection(root);
+    }
+
+    /* Adds the path to the selection, following the schema down its segments */
+    private static void select(Selection selection, ObjectSchema schema, String path, MockApiDefinition definition)
+    {
+        String[] names = path.split("\\.", -1);
+        for (int i = 0; i < names.length; i++)
+        {
+            SchemaNode field = schema == null ? null : schema.getField(names[i]);
+            if (field == null)
+            {
+                throw new IllegalArgumentException("Unknown field: " + path + " for endpoint: " + definition.getEndpointName());
+            }
+            Selection child = selection.fields.computeIfAbsent(names[i], name -> new Selection());
+            if (i == names.length - 1)
+            {
+                // The whole value, whatever else was selected in it
+                child.fields = null;
+                return;
+            }
+            if (child.fields == null)
+            {
+                // Already selected whole
+                return;
+            }
+            selection = child;
+            schema = objectOf(field);
+        }
+    }
+
+    /* The object the next segment of a path names a field of, null if the node has no fields */
+    private static ObjectSchema objectOf(SchemaNode node)
+    {
+        if (node instanceof ArraySchema array)
+        {
+            node = array.getItems();
+        }
+        return node instanceof ObjectSchema object ? object : null;
+    }
+
+    /**
+     * Returns the entry with only the projected fields.
+     */
+    public byte[] apply(byte[] entry)
+    {
+        ByteArrayBuilder out = new ByteArrayBuilder(entry.length);
+        try (JsonParser parser = JSON.createParser(entry);
+             JsonGenerator generator = JSON.createGenerator(out))
+        {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+            {
+                return entry;
+            }
+            root.copyObject(parser, generator);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /* The selected fields of an object; a field selected whole has a null selection */
+    private static final class Selection
+    {
+        private Map<String, Selection> fields = new HashMap<>();
+
+        /* Copies the value the parser is on, at the given token */
+        private void copy(JsonParser parser, JsonToken token, JsonGenerator generator) throws IOException
+        {
+            if (fields == null)
+            {
+                generator.copyCurrentStructure(parser);
+            }
+            else if (token == JsonToken.START_OBJECT)
+            {
+                copyObject(parser, generator);
+            }
+            else if (token == JsonToken.START_ARRAY)
+            {
+                generator.writeStartArray();
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY)
+                {
+                    copy(parser, token, generator);
+                }
+                generator.writeEndArray();
+            }
+            else
+            {
+                generator.copyCurrentStructure(parser);
+            }
+        }
+
+        /* Copies the selected fields of the object the parser is on */
+        private void copyObject(JsonParser parser, JsonGenerator generator) throws IOException
+        {
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                Selection field = fields.get(parser.currentName());
+                JsonToken token = parser.nextToken();
+                if (field != null)
+                {
+                    generator.writeFieldName(parser.currentName());
+                    field.copy(parser, token, generator);
+                }
+                else
+                {
+                    parser.skipChildren();
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+}
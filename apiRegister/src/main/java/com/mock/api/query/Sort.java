@@ -0,0 +1,191 @@
+package com.mock.api.query;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The order of a sorted collection GET, from {@code ?sort=year,-price}: the fields to sort by,
+ * each ascending or, with a leading {@code -}, descending. Entries with equal values are ordered by
+ * ID, and entries without a value for a field come after those with one.
+ * <p>
+ * A page is read off the {@link FieldIndex} of the first field, which keeps its entries in value
+ * order already: the groups of equal values are walked from the start until the page is full, so
+ * with a limit the cost follows the limit, not the size of the endpoint. Only within a group of
+ * equal values are the entries ordered by the other fields, and only as far as the page needs.
+ */
+public final class Sort
+{
+    private final FieldIndex[] fields;
+    private final boolean[] descending;
+    private final Comparator<Integer> tieBreak;
+
+    private Sort(FieldIndex[] fields, boolean[] descending)
+    {
+        this.fields = fields;
+        this.descending = descending;
+        this.tieBreak = (first, second) -> {
+            for (int i = 1; i < fields.length; i++)
+            {
+                int comparison = fields[i].compare(first, second, descending[i]);
+                if (comparison != 0)
+                {
+                    return comparison;
+                }
+            }
+            return Integer.compare(first, second);
+        };
+    }
+
+    /**
+     * Reads the {@code sort} parameter of a request.
+     *
+     * @param value the parameter, null if absent
+     * @return the sort, or null to return entries in ID order
+     * @throws IllegalArgumentException if a listed field is not one of the endpoint's
+     */
+    static Sort parse(String value, Map<String, FieldIndex> indexes)
+    {
+        if (value == null || value.isBlank())
+        {
+            return null;
+        }
+        String[] names = value.split(",");
+        FieldIndex[] fields = new FieldIndex[names.length];
+        boolean[] descending = new boolean[names.length];
+        int count = 0;
+        for (String name : names)
+        {
+            String field = name.trim();
+            boolean reversed = field.startsWith("-");
+            field = reversed || field.startsWith("+") ? field.substring(1) : field;
+            if (field.isEmpty())
+            {
+                continue;
+            }
+            FieldIndex index = indexes.get(field);
+            if (index == null)
+            {
+                throw new IllegalArgumentException("Cannot sort by unknown field: " + field);
+            }
+            fields[count] = index;
+            descending[count] = reversed;
+            count++;
+        }
+        return count == 0 ? null : new Sort(Arrays.copyOf(fields, count), Arrays.copyOf(descending, count));
+    }
+
+    /* Called under the read lock of the EndpointIndex the fields belong to */
+    int[] page(BitSet matches, BitSet entries, int offset, int limit)
+    {
+        Page page = new Page(matches, offset, limit);
+        fields[0].forEachGroup(descending[0], page::add);
+        if (!page.isFull())
+        {
+            // The entries without a value for the first field come last, ordered by ID
+            BitSet missing = (BitSet) (matches != null ? matches : entries).clone();
+            missing.andNot(fields[0].getPresent());
+            page.add(missing.stream().toArray(), 0, missing.cardinality());
+        }
+        return page.toArray();
+    }
+
+    /* Collects the IDs of one page from the groups of equal first-field values, in order */
+    private final class Page
+    {
+        private final BitSet matches;
+        private final int[] ids;
+        private int skip;
+        private int size;
+
+        private Page(BitSet matches, int offset, int limit)
+        {
+            this.matches = matches;
+            this.ids = new int[limit];
+            this.skip = offset;
+        }
+
+        private boolean add(int[] group, int from, int to)
+        {
+            if (fields.length == 1 && matches == null && to - from <= skip)
+            {
+                // The whole group is before the page
+                skip -= to - from;
+                return true;
+            }
+
+            int[] selected = new int[to - from];
+            int count = 0;
+            for (int i = from; i < to; i++)
+            {
+                if (matches == null || matches.get(group[i]))
+                {
+                    selected[count++] = group[i];
+                }
+            }
+            if (fields.length > 1 && count > 1)
+            {
+                count = order(selected, count, skip + ids.length - size);
+            }
+            for (int i = 0; i < count && size < ids.length; i++)
+            {
+                if (skip > 0)
+                {
+                    skip--;
+                }
+                else
+                {
+                    ids[size++] = selected[i];
+                }
+            }
+            return !isFull();
+        }
+
+        /* Orders the group by the other fields, keeping only the first ones the page can still take */
+        private int order(int[] group, int count, long needed)
+        {
+            if (needed >= count)
+            {
+                Integer[] boxed = new Integer[count];
+                for (int i = 0; i < count; i++)
+                {
+                    boxed[i] = group[i];
+                }
+                Arrays.sort(boxed, tieBreak);
+                for (int i = 0; i < count; i++)
+                {
+                    group[i] = boxed[i];
+                }
+                return count;
+            }
+
+            int kept = (int) needed;
+            PriorityQueue<Integer> first = new PriorityQueue<>(kept + 1, tieBreak.reversed());
+            for (int i = 0; i < count; i++)
+            {
+                first.add(group[i]);
+                if (first.size() > kept)
+                {
+                    first.poll();
+                }
+            }
+            for (int i = kept - 1; i >= 0; i--)
+            {
+                group[i] = first.poll();
+            }
+            return kept;
+        }
+
+        private boolean isFull()
+        {
+            return size == ids.length;
+        }
+
+        private int[] toArray()
+        {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
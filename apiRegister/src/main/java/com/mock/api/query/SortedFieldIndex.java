@@ -0,0 +1,360 @@
+package com.mock.api.query;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mock.model.util.IntLongHashMap;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * {@link FieldIndex} for numbers: the entries as parallel {@code long[]} keys and {@code int[]}
+ * IDs ordered by key, then ID, so a range condition is two binary searches and a copy of the IDs
+ * between them, with no boxing.
+ * <p>
+ * Integral values are their own key. Floating-point values are mapped to a long with the same
+ * order (the bits of the double, with the non-sign bits of negative values flipped), so both kinds
+ * share the same primitive arrays and comparisons.
+ * <p>
+ * The same arrays give the entries in value order for a {@link Sort}, as runs of equal keys,
+ * without sorting anything per query.
+ * <p>
+ * A write moves the tail of the arrays by one, which is a single {@code System.arraycopy}; a
+ * rebuild appends every entry and sorts once at the end.
+ */
+final class SortedFieldIndex extends FieldIndex
+{
+    private final boolean floatingPoint;
+    private final BitSet present = new BitSet();
+    private IntLongHashMap keyById = new IntLongHashMap();
+    private long[] keys = new long[16];
+    private int[] ids = new int[16];
+    private int size;
+    private boolean building;
+
+    SortedFieldIndex(String field, boolean floatingPoint)
+    {
+        super(field);
+        this.floatingPoint = floatingPoint;
+    }
+
+    @Override
+    void set(int id, JsonParser parser, JsonToken token) throws IOException
+    {
+        long key;
+        if (token == JsonToken.VALUE_NUMBER_INT && !floatingPoint && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER)
+        {
+            key = parser.getLongValue();
+        }
+        else if ((token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) && floatingPoint)
+        {
+            key = encode(parser.getDoubleValue());
+        }
+        else
+        {
+            clear(id);
+            return;
+        }
+
+        if (present.get(id))
+        {
+            if (keyById.get(id) == key)
+            {
+                return;
+            }
+            clear(id);
+        }
+        keyById.put(id, key);
+        present.set(id);
+        if (size == keys.length)
+        {
+            keys = Arrays.copyOf(keys, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        if (building)
+        {
+            keys[size] = key;
+            ids[size] = id;
+            size++;
+            return;
+        }
+        int position = -search(key, id) - 1;
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        keys[position] = key;
+        ids[position] = id;
+        size++;
+    }
+
+    @Override
+    void clear(int id)
+    {
+        if (!present.get(id))
+        {
+            return;
+        }
+        present.clear(id);
+        int position = search(keyById.get(id), id);
+        keyById.remove(id);
+        System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+    }
+
+    @Override
+    void reset()
+    {
+        present.clear();
+        keyById = new IntLongHashMap();
+        keys = new long[16];
+        ids = new int[16];
+        size = 0;
+        building = true;
+    }
+
+    @Override
+    void finishBuild()
+    {
+        building = false;
+        sort();
+    }
+
+    @Override
+    Object parseValue(String value)
+    {
+        try
+        {
+            return floatingPoint ? encode(Double.parseDouble(value.trim())) : Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException(getField() + " must be " + (floatingPoint ? "a number: " : "an integer: ") + value);
+        }
+    }
+
+    @Override
+    boolean supports(Filter.Operator operator)
+    {
+        return true;
+    }
+
+    @Override
+    BitSet select(Filter.Operator operator, Object value)
+    {
+        long key = (Long) value;
+        int from;
+        int to;
+        switch (operator)
+        {
+            case EQ, NE ->
+            {
+                from = lowerBound(key);
+                to = upperBound(key);
+            }
+            case LT ->
+            {
+                from = 0;
+                to = lowerBound(key);
+            }
+            case LTE ->
+            {
+                from = 0;
+                to = upperBound(key);
+            }
+            case GT ->
+            {
+                from = upperBound(key);
+                to = size;
+            }
+            case GTE ->
+            {
+                from = lowerBound(key);
+                to = size;
+            }
+            default -> throw new IllegalArgumentException("Unsupported operator: " + operator);
+        }
+
+        BitSet matches = new BitSet();
+        for (int i = from; i < to; i++)
+        {
+            matches.set(ids[i]);
+        }
+        if (operator == Filter.Operator.NE)
+        {
+            BitSet others = (BitSet) present.clone();
+            others.andNot(matches);
+            return others;
+        }
+        return matches;
+    }
+
+    @Override
+    BitSet getPresent()
+    {
+        return present;
+    }
+
+    @Override
+    void forEachGroup(boolean descending, GroupVisitor visitor)
+    {
+        if (descending)
+        {
+            int to = size;
+            while (to > 0)
+            {
+                int from = to - 1;
+                while (from > 0 && keys[from - 1] == keys[to - 1])
+                {
+                    from--;
+                }
+                if (!visitor.visit(ids, from, to))
+                {
+                    return;
+                }
+                to = from;
+            }
+            return;
+        }
+        int from = 0;
+        while (from < size)
+        {
+            int to = from + 1;
+            while (to < size && keys[to] == keys[from])
+            {
+                to++;
+            }
+            if (!visitor.visit(ids, from, to))
+            {
+                return;
+            }
+            from = to;
+        }
+    }
+
+    @Override
+    int compareValues(int first, int second)
+    {
+        return Long.compare(keyById.get(first), keyById.get(second));
+    }
+
+    /* Maps a double to a long of the same order; -0.0 and 0.0 become equal */
+    private static long encode(double value)
+    {
+        long bits = Double.doubleToLongBits(value == 0.0 ? 0.0 : value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /* The position of the (key, id) pair, or -(insertion point) - 1 as Arrays.binarySearch */
+    private int search(long key, int id)
+    {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int comparison = keys[middle] != key ? Long.compare(keys[middle], key) : Integer.compare(ids[middle], id);
+            if (comparison < 0)
+            {
+                low = middle + 1;
+            }
+            else if (comparison > 0)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /* The first position with a key of at least the given one */
+    private int lowerBound(long key)
+    {
+        int low = 0;
+        int high = size;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /* The first position with a key above the given one */
+    private int upperBound(long key)
+    {
+        int low = 0;
+        int high = size;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] <= key)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * Orders the appended entries by key. They were appended in ascending ID order, so a stable
+     * merge sort by key alone leaves equal keys ordered by ID.
+     */
+    private void sort()
+    {
+        long[] keyBuffer = new long[size];
+        int[] idBuffer = new int[size];
+        long[] fromKeys = keys;
+        int[] fromIds = ids;
+        long[] toKeys = keyBuffer;
+        int[] toIds = idBuffer;
+        for (int width = 1; width < size; width *= 2)
+        {
+            for (int start = 0; start < size; start += 2 * width)
+            {
+                int middle = Math.min(start + width, size);
+                int end = Math.min(start + 2 * width, size);
+                int left = start;
+                int right = middle;
+                for (int i = start; i < end; i++)
+                {
+                    if (left < middle && (right >= end || fromKeys[left] <= fromKeys[right]))
+                    {
+                        toKeys[i] = fromKeys[left];
+                        toIds[i] = fromIds[left++];
+                    }
+                    else
+                    {
+                        toKeys[i] = fromKeys[right];
+                        toIds[i] = fromIds[right++];
+                    }
+                }
+            }
+            long[] swapKeys = fromKeys;
+            fromKeys = toKeys;
+            toKeys = swapKeys;
+            int[] swapIds = fromIds;
+            fromIds = toIds;
+            toIds = swapIds;
+        }
+        if (fromKeys != keys)
+        {
+            System.arraycopy(fromKeys, 0, keys, 0, size);
+            System.arraycopy(fromIds, 0, ids, 0, size);
+        }
+    }
+}
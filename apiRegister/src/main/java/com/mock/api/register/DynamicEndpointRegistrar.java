@@ -1,15 +1,22 @@
 package com.mock.api.register;
 
+import com.mock.api.cache.ResponseCache;
 import com.mock.api.constants.ApiConstants;
+import com.mock.api.metrics.EndpointMetrics;
+import com.mock.api.shaping.ResponseShaper;
+import com.mock.database.store.DataStore;
+import com.mock.database.store.IdAllocator;
 import com.mock.model.MockApiDefinition;
 import com.mock.model.MockApiDefinitionRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.http.MediaType;
@@ -19,7 +26,11 @@ import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The com.mock.api.register.DynamicEndpointRegistrar class is responsible for dynamically registering REST API
@@ -32,8 +43,16 @@ import java.util.Map;
  * {@link ApplicationContext} and performs endpoint registration during the application
  * startup using the {@link PostConstruct} annotation.
  * <p>
- * It defines a nested static {@link DynamicRequestHandler} class, which acts as a
- * generic handler for processing requests of the dynamically registered endpoints.
+ * Each endpoint's mappings are bound to an {@link EndpointHandler} carrying the endpoint's
+ * {@link EndpointContext}, which forwards to the generic {@link DynamicRequestHandler}.
+ * With {@code mock.routing.mode=router} only one {@code /api/**} mapping is registered and the
+ * endpoints are routed by the {@link RouterRequestHandler} instead.
+ * <p>
+ * Every endpoint gets its meters from the {@link EndpointMetrics} when it is registered, and loses
+ * them and its {@link ResponseCache} entries when it is unregistered.
+ * <p>
+ * Endpoints can also be registered and unregistered one at a time after startup, when a reloaded
+ * configuration changes them (see {@link EndpointReloader}); the others keep serving meanwhile.
  * <p>
  * Note: com.mock.api.register.DynamicEndpointRegistrar is marked as a Spring {@link Component} for
  * automatic detection and registration as a Spring-managed bean.
@@ -43,17 +62,45 @@ public class DynamicEndpointRegistrar implements SmartInitializingSingleton
 {
     private final MockApiDefinitionRegistry definitionRegistry;
     private final RequestMappingHandlerMapping handlerMapping;
-    private final DynamicRequestHandler handler;
+    private final DynamicRequestHandler requestHandler;
+    private final DataStore dataStore;
+    private final IdAllocator idAllocator;
+    private final RouterRequestHandler routerHandler;
+    private final ResponseShaper responseShaper;
+    private final EndpointMetrics endpointMetrics;
+    private final ResponseCache responseCache;
+    private final boolean routerMode;
+    /* The mappings registered for each endpoint in mapping mode, to unregister them */
+    private final Map<String, List<RequestMappingInfo>> endpointMappings = new ConcurrentHashMap<>();
     private final Logger LOG = LogManager.getLogger();
 
     @Autowired
     public DynamicEndpointRegistrar(MockApiDefinitionRegistry definitionRegistry,
                                     @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping requestMappingHandlerMapping,
-                                    DynamicRequestHandler handler)
+                                    DynamicRequestHandler requestHandler,
+                                    DataStore dataStore,
+                                    IdAllocator idAllocator,
+                                    RouterRequestHandler routerHandler,
+                                    ResponseShaper responseShaper,
+                                    EndpointMetrics endpointMetrics,
+                                    ResponseCache responseCache,
+                                    @Value("${mock.routing.mode:mapping}") String routingMode)
     {
         this.definitionRegistry = definitionRegistry;
         this.handlerMapping = requestMappingHandlerMapping;
-        this.handler = handler;
+        this.requestHandler = requestHandler;
+        this.dataStore = dataStore;
+        this.idAllocator = idAllocator;
+        this.routerHandler = routerHandler;
+        this.responseShaper = responseShaper;
+        this.endpointMetrics = endpointMetrics;
+        this.responseCache = responseCache;
+        this.routerMode = switch (routingMode.trim().toLowerCase(Locale.ROOT))
+        {
+            case "mapping" -> false;
+            case "router" -> true;
+            default -> throw new IllegalArgumentException("Unsupported routing mode: " + routingMode);
+        };
     }
 
     @Override
@@ -66,10 +113,13 @@ public class DynamicEndpointRegistrar implements SmartInitializingSingleton
     {
         try
         {
+            if (routerMode)
+            {
+                registerRouter();
+            }
             for (MockApiDefinition definition : definitionRegistry.getDefinitions())
             {
-                registerEndpointHandlers(definition);
-                LOG.info("Registered dynamic endpoint: {}", definition.getEndpointName());
+                registerEndpoint(definition);
             }
         }
         catch (Exception e)
@@ -79,15 +129,80 @@ public class DynamicEndpointRegistrar implements SmartInitializingSingleton
         }
     }
 
-    private void registerEndpointHandlers(MockApiDefinition definition) throws NoSuchMethodException
+    /**
+     * Registers the mappings of one endpoint, or routes it in router mode.
+     */
+    public void registerEndpoint(MockApiDefinition definition) throws NoSuchMethodException
+    {
+        if (routerMode)
+        {
+            routerHandler.register(EndpointContext.bind(definition, dataStore, idAllocator, endpointMetrics), definition.getMethods());
+        }
+        else
+        {
+            endpointMappings.put(definition.getEndpointName(), registerEndpointHandlers(definition));
+        }
+        LOG.info("Registered dynamic endpoint: {}", definition.getEndpointName());
+    }
+
+    /**
+     * Removes the mappings of one endpoint, or stops routing it in router mode. Requests already
+     * being handled complete normally.
+     *
+     * @return true if the endpoint was registered
+     */
+    public boolean unregisterEndpoint(String endpoint)
+    {
+        boolean registered;
+        if (routerMode)
+        {
+            registered = routerHandler.unregister(endpoint);
+        }
+        else
+        {
+            List<RequestMappingInfo> mappings = endpointMappings.remove(endpoint);
+            registered = mappings != null;
+            if (registered)
+            {
+                mappings.forEach(handlerMapping::unregisterMapping);
+            }
+        }
+        endpointMetrics.remove(endpoint);
+        responseCache.evict(endpoint);
+        if (registered)
+        {
+            LOG.info("Unregistered dynamic endpoint: {}", endpoint);
+        }
+        return registered;
+    }
+
+    /*
+     * Router mode: a single catch-all mapping, the endpoints are resolved by the RouterRequestHandler. Spring then
+     * matches one pattern per request and registers one mapping at startup, however many endpoints there are
+     */
+    private void registerRouter() throws NoSuchMethodException
+    {
+        Method dispatchMethod = RouterRequestHandler.class.getDeclaredMethod("dispatch", HttpServletRequest.class, HttpServletResponse.class);
+        RequestMappingInfo routerMapping = RequestMappingInfo
+                .paths(ApiConstants.API_BASE_PATH + "**")
+                .build();
+        handlerMapping.registerMapping(routerMapping, routerHandler, dispatchMethod);
+        LOG.info("Routing {} through a single mapping", ApiConstants.API_BASE_PATH + "**");
+    }
+
+    private List<RequestMappingInfo> registerEndpointHandlers(MockApiDefinition definition) throws NoSuchMethodException
     {
-        String basePath = ApiConstants.API_BASE_PATH + definition.getEndpointName();
+        List<RequestMappingInfo> mappings = new ArrayList<>();
+        // Resolved once here; every mapping of the endpoint is bound to the same context
+        EndpointHandler handler = new EndpointHandler(EndpointContext.bind(definition, dataStore, idAllocator, endpointMetrics), requestHandler, responseShaper);
+        String basePath = handler.getContext().getCollectionPath();
 
         // Register GET endpoint
         if (definition.getMethods().contains(RequestMethod.GET))
         {
-            Method getMethod = DynamicRequestHandler.class.getDeclaredMethod("handleGet", String.class, HttpServletRequest.class);
-            Method getAllMethod = DynamicRequestHandler.class.getDeclaredMethod("handleGet", HttpServletRequest.class);
+            Method getMethod = EndpointHandler.class.getDeclaredMethod("handleGet", String.class, HttpServletRequest.class);
+            Method getAllMethod = EndpointHandler.class.getDeclaredMethod("handleGet", HttpServletRequest.class);
+            Method exportMethod = EndpointHandler.class.getDeclaredMethod("handleExport", HttpServletRequest.class, HttpServletResponse.class);
 
             RequestMappingInfo getMapping = RequestMappingInfo
                     .paths(basePath + ApiConstants.ID_PATH_VARIABLE)
@@ -100,44 +215,69 @@ public class DynamicEndpointRegistrar implements SmartInitializingSingleton
                     .produces(MediaType.APPLICATION_JSON_VALUE)
                     .build();
 
-            handlerMapping.registerMapping(getMapping, handler, getMethod);
-            handlerMapping.registerMapping(getAllMapping, handler, getAllMethod);
+            // Same path as the collection GET, picked instead of it when the export parameter is present
+            RequestMappingInfo exportMapping = RequestMappingInfo
+                    .paths(basePath)
+                    .methods(RequestMethod.GET)
+                    .params(ApiConstants.EXPORT_PARAMETER)
+                    .build();
+
+            register(mappings, getMapping, handler, getMethod);
+            register(mappings, getAllMapping, handler, getAllMethod);
+            register(mappings, exportMapping, handler, exportMethod);
         }
 
         // Register POST endpoint
         if (definition.getMethods().contains(RequestMethod.POST))
         {
-            Method postMethod = DynamicRequestHandler.class.getDeclaredMethod("handlePost", Map.class, HttpServletRequest.class);
+            Method postMethod = EndpointHandler.class.getDeclaredMethod("handlePost", HttpServletRequest.class);
             RequestMappingInfo postMapping = RequestMappingInfo
                     .paths(basePath)
                     .methods(RequestMethod.POST)
                     .produces(MediaType.APPLICATION_JSON_VALUE)
                     .build();
-            handlerMapping.registerMapping(postMapping, handler, postMethod);
+            register(mappings, postMapping, handler, postMethod);
         }
 
         // Register PUT endpoint
         if (definition.getMethods().contains(RequestMethod.PUT))
         {
-            Method putMethod = DynamicRequestHandler.class.getDeclaredMethod("handlePut", String.class, Map.class, HttpServletRequest.class);
+            Method putMethod = EndpointHandler.class.getDeclaredMethod("handlePut", String.class, HttpServletRequest.class);
             RequestMappingInfo putMapping = RequestMappingInfo
                     .paths(basePath + ApiConstants.ID_PATH_VARIABLE)
                     .methods(RequestMethod.PUT)
                     .produces(MediaType.APPLICATION_JSON_VALUE)
                     .build();
-            handlerMapping.registerMapping(putMapping, handler, putMethod);
+            register(mappings, putMapping, handler, putMethod);
         }
 
         // Register DELETE endpoint
         if (definition.getMethods().contains(RequestMethod.DELETE))
         {
-            Method deleteMethod = DynamicRequestHandler.class.getDeclaredMethod("handleDelete", String.class, HttpServletRequest.class);
+            Method deleteMethod = EndpointHandler.class.getDeclaredMethod("handleDelete", String.class);
+            Method deleteAllMethod = EndpointHandler.class.getDeclaredMethod("handleDeleteAll", HttpServletRequest.class);
             RequestMappingInfo deleteMapping = RequestMappingInfo
                     .paths(basePath + ApiConstants.ID_PATH_VARIABLE)
                     .methods(RequestMethod.DELETE)
                     .produces(MediaType.APPLICATION_JSON_VALUE)
                     .build();
-            handlerMapping.registerMapping(deleteMapping, handler, deleteMethod);
+
+            // Batch delete on the collection path, only with the ids parameter
+            RequestMappingInfo deleteAllMapping = RequestMappingInfo
+                    .paths(basePath)
+                    .methods(RequestMethod.DELETE)
+                    .params(ApiConstants.IDS_PARAMETER)
+                    .produces(MediaType.APPLICATION_JSON_VALUE)
+                    .build();
+            register(mappings, deleteMapping, handler, deleteMethod);
+            register(mappings, deleteAllMapping, handler, deleteAllMethod);
         }
+        return mappings;
+    }
+
+    private void register(List<RequestMappingInfo> mappings, RequestMappingInfo mapping, EndpointHandler handler, Method method)
+    {
+        handlerMapping.registerMapping(mapping, handler, method);
+        mappings.add(mapping);
     }
-}
\ No newline at end of file
+}
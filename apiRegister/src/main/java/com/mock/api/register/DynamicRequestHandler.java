@@ -1,170 +1,783 @@
 package com.mock.api.register;
 
+import com.mock.api.cache.CachedResponse;
+import com.mock.api.cache.ResponseCache;
 import com.mock.api.constants.ApiConstants;
-import com.mock.database.entity.GeneratedData;
-import com.mock.database.repository.GeneratedDataRepository;
+import com.mock.api.query.EndpointIndex;
+import com.mock.api.query.Filter;
+import com.mock.api.query.Projection;
+import com.mock.api.query.Sort;
+import com.mock.database.store.DataStore;
+import com.mock.database.store.EndpointStore;
+import com.mock.database.store.EndpointStore.EntryVisitor;
+import com.mock.database.store.StoredEntry;
+import com.mock.generator.virtual.VirtualDatasetService;
+import com.mock.model.MockApiDefinition;
 import com.mock.model.MockApiDefinitionRegistry;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.ResponseBody;
 
-import java.util.Map;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /*
 * Class that is responsible for handling all the request received
 * Get, PUT, POST and DELETE
+* Entries are read and written through the store of the endpoint's EndpointContext, which runs its own
+* transactions where it needs them. The context is bound to the mapping at registration (see EndpointHandler),
+* so no request has to work out its endpoint from the URI.
+* GET responses are built as UTF-8 bytes straight from the stored entries and handed to Spring as byte[],
+* which writes them out unchanged; with mock.response.gzip.enabled their gzip encoding is built once and
+* cached next to them.
+* With ?expand=owner the entries referenced by the endpoint's reference fields are embedded, read with one multi-get
+* per referenced endpoint for the whole response (see Expansion).
+* Filtered and sorted GETs are answered from the endpoint's EndpointIndex, which every write below keeps current by passing
+* the store version it moved the endpoint from and to.
 * */
 @Component
 public class DynamicRequestHandler
 {
-    private final GeneratedDataRepository generatedDataRepository;
+    private static final byte[] NOT_FOUND_BODY = ResponseBodies.utf8(EndpointContext.NOT_FOUND_BODY);
+
+    private final VirtualDatasetService virtualDatasetService;
+    private final ResponseCache responseCache;
+    private final Expansion.Resolver relations;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final int maxPutId;
+    private final int virtualIndexLimit;
+    private final int exportBufferSize;
+    private final boolean gzipEnabled;
+    private final int gzipMinSize;
     private final Logger LOG = LogManager.getLogger();
 
-    public DynamicRequestHandler(GeneratedDataRepository generatedDataRepository)
+    public DynamicRequestHandler(VirtualDatasetService virtualDatasetService,
+                                 ResponseCache responseCache,
+                                 MockApiDefinitionRegistry definitionRegistry,
+                                 DataStore dataStore,
+                                 @Value("${mock.pagination.default-limit:100}") int defaultLimit,
+                                 @Value("${mock.pagination.max-limit:1000}") int maxLimit,
+                                 @Value("${mock.put.max-id:10000000}") int maxPutId,
+                                 @Value("${mock.query.virtual-max-entries:100000}") int virtualIndexLimit,
+                                 @Value("${mock.export.buffer-size:65536}") int exportBufferSize,
+                                 @Value("${mock.response.gzip.enabled:false}") boolean gzipEnabled,
+                                 @Value("${mock.response.gzip.min-size:1024}") int gzipMinSize)
+    {
+        this.virtualDatasetService = virtualDatasetService;
+        this.responseCache = responseCache;
+        this.relations = new RelationResolver(definitionRegistry, dataStore);
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.maxPutId = maxPutId;
+        this.virtualIndexLimit = virtualIndexLimit;
+        this.exportBufferSize = exportBufferSize;
+        this.gzipEnabled = gzipEnabled;
+        this.gzipMinSize = gzipMinSize;
+    }
+
+    /*
+     * Get one page of the generated data for a specific endpoint, see Pagination for the query parameters.
+     * A Link header points at the next page as long as the page is full.
+     * With ?ids=1,2,3 the listed entries are returned instead, read with one multi-get (see IdList).
+     * Other parameters naming a field filter the collection (see Filter), ?sort=a,-b orders it (see Sort), and
+     * ?fields=a,b returns only those fields of each entry (see Projection).
+     */
+    ResponseEntity<byte[]> handleGet(EndpointContext context, HttpServletRequest request)
+    {
+        LOG.info("Received GET request with path: {}", context.getCollectionPath());
+        Expansion expansion;
+        try
+        {
+            expansion = Expansion.parse(request.getParameter(ApiConstants.EXPAND_PARAMETER), context.getDefinition(), relations);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return badRequest(e);
+        }
+        String query = request.getQueryString();
+        String ids = request.getParameter(ApiConstants.IDS_PARAMETER);
+        ResponseReader reader = ids != null
+                ? version -> readEntries(context, ids, request, expansion, version)
+                : version -> readPage(context, request, expansion, version);
+        return cachedGet(context, query == null ? "?" : "?" + query, request, expansion, reader);
+    }
+
+    private CachedResponse readEntries(EndpointContext context, String idsParameter, HttpServletRequest request,
+                                       Expansion expansion, long version)
     {
-        this.generatedDataRepository = generatedDataRepository;
+        int[] ids;
+        Projection projection;
+        try
+        {
+            ids = IdList.parse(idsParameter, maxLimit);
+            projection = Projection.parse(request.getParameter(ApiConstants.FIELDS_PARAMETER), context.getDefinition());
+        }
+        catch (IllegalArgumentException e)
+        {
+            return badRequest(version, e);
+        }
+
+        List<byte[]> entries = new ArrayList<>(ids.length);
+        EntryVisitor collector = (internalId, data) -> entries.add(expansion != null || projection == null ? data : projection.apply(data));
+        readAll(context, ids, collector);
+        // IDs without an entry are left out, the client tells them apart by the entries' own fields
+        byte[] response = ResponseBodies.jsonArray(expansion == null ? entries : expansion.apply(entries, projection));
+        return new CachedResponse(version, HttpStatus.OK.value(), response, gzipped(response), null);
     }
 
-    /* Get all generated data for a specific endpoint (based on the requestURI */
-    @ResponseBody
-    @Transactional(readOnly = true)
-    public ResponseEntity<String> handleGet(HttpServletRequest request)
+    private CachedResponse readPage(EndpointContext context, HttpServletRequest request, Expansion expansion, long version)
     {
-        String uri = request.getRequestURI();
-        String endpoint = uri.substring(ApiConstants.API_BASE_PATH.length());
-        LOG.info("Received GET request with path: {}", uri);
+        Pagination page;
+        Filter filter;
+        Sort sort;
+        Projection projection;
+        try
+        {
+            page = Pagination.from(request, defaultLimit, maxLimit);
+            filter = context.getIndex().filter(request.getParameterMap());
+            sort = context.getIndex().sort(request.getParameter(ApiConstants.SORT_PARAMETER));
+            if (sort != null || !filter.isEmpty())
+            {
+                checkIndexable(context);
+            }
+            projection = Projection.parse(request.getParameter(ApiConstants.FIELDS_PARAMETER), context.getDefinition());
+        }
+        catch (IllegalArgumentException e)
+        {
+            return badRequest(version, e);
+        }
 
+        MockApiDefinition definition = context.getDefinition();
+        List<byte[]> entries = new ArrayList<>(page.getLimit());
+        int[] lastId = new int[1];
+        EntryVisitor collector = (internalId, data) -> {
+            // Expanded entries are projected once their references are read
+            entries.add(expansion != null || projection == null ? data : projection.apply(data));
+            lastId[0] = internalId;
+        };
+        if (sort != null)
+        {
+            int[] ids = context.getIndex().sorted(filter, sort, page.getOffset(), page.getLimit(), version, indexSource(context));
+            readInOrder(context, ids, collector);
+        }
+        else if (!filter.isEmpty())
+        {
+            BitSet matches = context.getIndex().select(filter, version, indexSource(context));
+            readAll(context, pageOf(matches, page), collector);
+        }
+        else if (definition.isVirtual())
+        {
+            if (page.isOffsetBased())
+            {
+                virtualDatasetService.scanOffset(definition, page.getOffset(), page.getLimit(), collector);
+            }
+            else
+            {
+                virtualDatasetService.scanAfter(definition, page.getCursor(), page.getLimit(), collector);
+            }
+        }
+        else if (page.isOffsetBased())
+        {
+            context.getStore().scanOffset(page.getOffset(), page.getLimit(), collector);
+        }
+        else
+        {
+            context.getStore().scanAfter(page.getCursor(), page.getLimit(), collector);
+        }
+        // The entries are JSON objects already, so the page is just their JSON array
+        byte[] response = ResponseBodies.jsonArray(expansion == null ? entries : expansion.apply(entries, projection));
+        LOG.trace("Page of {} entries, {} bytes for endpoint: {}", entries.size(), response.length, context.getEndpoint());
 
-        String allData = generatedDataRepository.findByEndpoint(endpoint)
-                .stream()
-                .map(GeneratedData::getData)
-                .collect(Collectors.joining("\n---\n")); // Joins each data string with a separator
-        LOG.trace("All data for endpoint: {}:\n{}", endpoint, allData);
+        String link = entries.size() < page.getLimit() ? null
+                : sort != null ? page.nextOffsetLink(context.getCollectionPath())
+                : page.nextLink(context.getCollectionPath(), lastId[0]);
+        return new CachedResponse(version, HttpStatus.OK.value(), response, gzipped(response), link);
+    }
 
-        String response = "Resources:\n" + allData + "\n";
-        return ResponseEntity.ok(response);
+    /* The IDs of the matching entries on the requested page, in ascending order */
+    private static int[] pageOf(BitSet matches, Pagination page)
+    {
+        int id = matches.nextSetBit(page.getCursor() + 1);
+        for (int skipped = 0; skipped < page.getOffset() && id >= 0; skipped++)
+        {
+            id = matches.nextSetBit(id + 1);
+        }
+        int[] ids = new int[page.getLimit()];
+        int count = 0;
+        while (count < ids.length && id >= 0)
+        {
+            ids[count++] = id;
+            id = id == Integer.MAX_VALUE ? -1 : matches.nextSetBit(id + 1);
+        }
+        return Arrays.copyOf(ids, count);
     }
 
-    /* Get the generated data for a specific endpoint (get from requestURI) based on the ID variable */
-    @ResponseBody
-    @Transactional(readOnly = true)
-    public ResponseEntity<String> handleGet(@PathVariable String id, HttpServletRequest request)
+    /* Reads the entries with one multi-get, which returns them by ID, and passes them on in the given order */
+    private void readInOrder(EndpointContext context, int[] ids, EntryVisitor visitor)
     {
-        // TODO better extraction for endpoint
-        String uri = request.getRequestURI();
-        String endpoint = uri.substring(ApiConstants.API_BASE_PATH.length()).split("/")[0];
+        int[] ascending = ids.clone();
+        Arrays.sort(ascending);
+        byte[][] data = new byte[ascending.length][];
+        readAll(context, ascending, (internalId, entry) -> data[Arrays.binarySearch(ascending, internalId)] = entry);
+        for (int id : ids)
+        {
+            byte[] entry = data[Arrays.binarySearch(ascending, id)];
+            if (entry != null)
+            {
+                visitor.visit(id, entry);
+            }
+        }
+    }
 
-        Optional<GeneratedData> dataOpt =
-                generatedDataRepository
-                        .findByEndpointAndInternalId(endpoint, Integer.parseInt(id));
+    private void readAll(EndpointContext context, int[] ids, EntryVisitor visitor)
+    {
+        if (context.isVirtual())
+        {
+            virtualDatasetService.getAll(context.getDefinition(), ids, visitor);
+        }
+        else
+        {
+            context.getStore().getAll(ids, visitor);
+        }
+    }
 
-        int count = MockApiDefinitionRegistry.getInstance().getDefinitions().stream().filter(def -> def.getEndpointName().equals(endpoint)).findFirst().get().getCount();
+    /*
+     * Indexing a virtual endpoint computes every one of its entries, so filters and sorts are only answered for
+     * those of up to mock.query.virtual-max-entries
+     */
+    private void checkIndexable(EndpointContext context)
+    {
+        if (context.isVirtual() && context.getIds().current() > virtualIndexLimit)
+        {
+            throw new IllegalArgumentException("Filters and sorts are not supported on virtual endpoints of more than "
+                                               + virtualIndexLimit + " entries: " + context.getEndpoint());
+        }
+    }
+
+    /* The entries of the endpoint, to build its EndpointIndex from and refresh it with */
+    private EndpointIndex.EntrySource indexSource(EndpointContext context)
+    {
+        return new EndpointIndex.EntrySource()
+        {
+            @Override
+            public void scan(EntryVisitor visitor)
+            {
+                if (context.isVirtual())
+                {
+                    virtualDatasetService.scanAfter(context.getDefinition(), 0, Integer.MAX_VALUE, visitor);
+                }
+                else
+                {
+                    context.getStore().scan(visitor);
+                }
+            }
+
+            @Override
+            public void read(int[] ids, EntryVisitor visitor)
+            {
+                readAll(context, ids, visitor);
+            }
+
+            @Override
+            public long version()
+            {
+                return context.getStore().version();
+            }
+        };
+    }
+
+    private static CachedResponse badRequest(long version, IllegalArgumentException e)
+    {
+        return new CachedResponse(version, HttpStatus.BAD_REQUEST.value(),
+                                  ResponseBodies.utf8(ResponseBodies.error(e.getMessage())), null, null);
+    }
+
+    /* A 400 answered before the cache is looked at */
+    private static ResponseEntity<byte[]> badRequest(IllegalArgumentException e)
+    {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON)
+                .body(ResponseBodies.utf8(ResponseBodies.error(e.getMessage())));
+    }
+
+    /*
+     * Stream every entry of the endpoint (GET /api/<endpoint>?export=json|ndjson) straight to the response,
+     * see ExportWriter. Nothing but one output buffer is held, so this works for endpoints of any size.
+     */
+    void handleExport(EndpointContext context, HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        String endpoint = context.getEndpoint();
+        LOG.info("Received export request with path: {}", context.getCollectionPath());
+
+        ExportFormat format;
+        try
+        {
+            format = ExportFormat.fromString(request.getParameter(ApiConstants.EXPORT_PARAMETER));
+        }
+        catch (IllegalArgumentException e)
+        {
+            byte[] error = ResponseBodies.utf8(ResponseBodies.error(e.getMessage()));
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(error.length);
+            response.getOutputStream().write(error);
+            return;
+        }
+
+        MockApiDefinition definition = context.getDefinition();
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        long startNanos = System.nanoTime();
+        ExportWriter writer = new ExportWriter(response.getOutputStream(), format, exportBufferSize);
+        try
+        {
+            writer.begin();
+            if (definition.isVirtual())
+            {
+                virtualDatasetService.scanAfter(definition, 0, Integer.MAX_VALUE, writer);
+            }
+            else
+            {
+                context.getStore().scan(writer);
+            }
+            long written = writer.finish();
+            context.getMeters().recordExport(System.nanoTime() - startNanos);
+            LOG.info("Exported {} entries for endpoint: {} in {} ms", written, endpoint, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+        catch (UncheckedIOException e)
+        {
+            // Most likely the client disconnected; the response is committed already, nothing left to report to it
+            LOG.warn("Export for endpoint: {} aborted: {}", endpoint, e.getCause().getMessage());
+        }
+    }
+
+    /* Get the generated data for a specific endpoint based on the ID variable, ?expand=owner embeds its relations */
+    ResponseEntity<byte[]> handleGet(EndpointContext context, String id, HttpServletRequest request)
+    {
+        String expand = request.getParameter(ApiConstants.EXPAND_PARAMETER);
+        Expansion expansion;
+        try
+        {
+            expansion = Expansion.parse(expand, context.getDefinition(), relations);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return badRequest(e);
+        }
+        int internalId;
+        try
+        {
+            internalId = IdList.parseId(id);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return badRequest(e);
+        }
+        if (internalId == IdList.NO_SUCH_ID)
+        {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(NOT_FOUND_BODY);
+        }
+        String resource = expansion == null ? id : id + "?" + ApiConstants.EXPAND_PARAMETER + "=" + expand;
+        return cachedGet(context, resource, request, expansion, version -> readEntry(context, internalId, id, expansion, version));
+    }
+
+    private CachedResponse readEntry(EndpointContext context, int internalId, String id, Expansion expansion, long version)
+    {
+        Optional<byte[]> dataOpt = context.isVirtual()
+                ? virtualDatasetService.find(context.getDefinition(), internalId)
+                : Optional.ofNullable(context.getStore().get(internalId));
 
         if (dataOpt.isEmpty())
         {
-            if (Integer.parseInt(id) > count)
+            if (internalId > context.getDefinition().getCount())
             {
-                return ResponseEntity
-                        .status(HttpStatus.NOT_FOUND)
-                        .body("{\"error\":\"The ID " + id + " is over the maximum number of entries (maxCount: "+ count +") for endpoint: " + endpoint + "\"}");
+                return new CachedResponse(version, HttpStatus.NOT_FOUND.value(), ResponseBodies.utf8(context.overCountBody(id)), null, null);
             }
 
-            return ResponseEntity
-                    .status(HttpStatus.NOT_FOUND)
-                    .body("{\"error\":\"Resource not found\"}");
+            return new CachedResponse(version, HttpStatus.NOT_FOUND.value(), NOT_FOUND_BODY, null, null);
+        }
+
+        byte[] data = expansion == null ? dataOpt.get() : expansion.apply(List.of(dataOpt.get()), null).get(0);
+        return new CachedResponse(version, HttpStatus.OK.value(), data, gzipped(data), null);
+    }
+
+    /* The gzip encoding of a body worth compressing, or null */
+    private byte[] gzipped(byte[] body)
+    {
+        return gzipEnabled && body.length >= gzipMinSize ? ResponseBodies.gzip(body) : null;
+    }
+
+    /*
+     * Serves a GET from the ResponseCache when it holds the resource at the endpoint's current version, and
+     * answers an If-None-Match listing its ETag with 304 before anything is read. The version is read before the
+     * resource, so a write racing with the read can only make the cached copy look older than it is.
+     * A client accepting gzip is sent the gzip encoding when the response has one, under its own ETag.
+     * An expanded response is versioned by the sum of the versions of its endpoint and of the referenced ones,
+     * which only grows, so it changes whenever any of them is written. The generation of the context tells a
+     * registration from the one a reload replaced, whose version may be the same.
+     */
+    private ResponseEntity<byte[]> cachedGet(EndpointContext context, String resource, HttpServletRequest request,
+                                             Expansion expansion, ResponseReader reader)
+    {
+        long version = context.getStore().version() + (expansion == null ? 0 : expansion.version());
+        boolean acceptsGzip = gzipEnabled && ResponseBodies.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        String etag = responseCache.etag(context.getGeneration(), version, false);
+        String gzipEtag = responseCache.etag(context.getGeneration(), version, true);
+        if (ResponseCache.matches(ifNoneMatch, etag))
+        {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (acceptsGzip && ResponseCache.matches(ifNoneMatch, gzipEtag))
+        {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(gzipEtag).build();
         }
 
-        String response = dataOpt.get().getData();
-        return ResponseEntity
-                .ok()
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(response);
+        CachedResponse response = responseCache.get(context.getEndpoint(), context.getGeneration(), resource, version);
+        if (responseCache.isEnabled())
+        {
+            context.getMeters().recordCacheLookup(response != null);
+        }
+        if (response == null)
+        {
+            response = reader.read(version);
+            responseCache.put(context.getEndpoint(), context.getGeneration(), resource, response);
+        }
+
+        boolean gzip = acceptsGzip && response.getGzipped() != null;
+        if (response.getStatus() == HttpStatus.OK.value() && ResponseCache.matchesAny(ifNoneMatch))
+        {
+            // If-None-Match: * only matches once the resource is known to exist, a missing one is still a 404
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(gzip ? gzipEtag : etag).build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.getStatus()).contentType(MediaType.APPLICATION_JSON);
+        if (response.getStatus() == HttpStatus.OK.value())
+        {
+            builder.eTag(gzip ? gzipEtag : etag);
+        }
+        if (gzipEnabled)
+        {
+            builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (response.getLink() != null)
+        {
+            builder.header(HttpHeaders.LINK, response.getLink());
+        }
+        if (gzip)
+        {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.getGzipped());
+        }
+        return builder.body(response.getBody());
+    }
 
+    @FunctionalInterface
+    private interface ResponseReader
+    {
+        CachedResponse read(long version);
     }
 
-    @ResponseBody
-    @Transactional
-    public ResponseEntity<String> handlePost(@RequestBody Map<String, Object> requestBody, HttpServletRequest request)
+    /* Reads the endpoints relations point at, generated or virtual */
+    private final class RelationResolver implements Expansion.Resolver
     {
-        String uri = request.getRequestURI();
-        String endpoint = uri.substring(ApiConstants.API_BASE_PATH.length()).split("/")[0];
+        private final MockApiDefinitionRegistry definitionRegistry;
+        private final DataStore dataStore;
+
+        private RelationResolver(MockApiDefinitionRegistry definitionRegistry, DataStore dataStore)
+        {
+            this.definitionRegistry = definitionRegistry;
+            this.dataStore = dataStore;
+        }
+
+        @Override
+        public MockApiDefinition resolve(String reference)
+        {
+            return definitionRegistry.resolve(reference);
+        }
+
+        @Override
+        public EndpointStore storeOf(MockApiDefinition definition)
+        {
+            return dataStore.forEndpoint(definition.getEndpointName());
+        }
+
+        @Override
+        public void readAll(MockApiDefinition definition, int[] ids, EntryVisitor visitor)
+        {
+            if (definition.isVirtual())
+            {
+                virtualDatasetService.getAll(definition, ids, visitor);
+            }
+            else
+            {
+                storeOf(definition).getAll(ids, visitor);
+            }
+        }
+    }
 
-        
-        // TODO check if requestBody is a valid json with all field existing
-        int nextInternalId = generatedDataRepository
-                .findTopByEndpointOrderByInternalIdDesc(endpoint)
-                .map(GeneratedData::getInternalId)
-                .orElse(0) + 1;
+    /*
+     * Create one entry from a JSON object, or one per element from a JSON array of objects. The body is read and
+     * checked against the endpoint's fields in one streaming pass (see RecordReader), which yields the stored bytes.
+     * The entries of an array share one reservation of consecutive IDs and are inserted as one batch.
+     */
+    ResponseEntity<String> handlePost(EndpointContext context, HttpServletRequest request) throws IOException
+    {
+        RecordReader.Records records;
+        try
+        {
+            records = context.getRecordReader().readRecords(request.getInputStream());
+        }
+        catch (IllegalArgumentException e)
+        {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ResponseBodies.error(e.getMessage()));
+        }
+        if (records.isArray())
+        {
+            return handlePostAll(context, records.getRecords());
+        }
 
-        GeneratedData newGeneratedData = new GeneratedData(endpoint, requestBody.toString());
-        newGeneratedData.setInternalId(nextInternalId);
-        generatedDataRepository.save(newGeneratedData);
+        byte[] record = records.getRecords().get(0);
+        EndpointIndex index = context.getIndex();
+        index.beginWrite();
+        try
+        {
+            int id;
+            if (context.isVirtual())
+            {
+                id = virtualDatasetService.create(context.getDefinition(), record);
+            }
+            else
+            {
+                id = context.getIds().next();
+                context.getStore().put(id, record);
+            }
+            index.refresh(id, indexSource(context));
+        }
+        catch (IllegalStateException e)
+        {
+            return idsExhausted(context, e);
+        }
+        finally
+        {
+            index.endWrite();
+        }
 
         return ResponseEntity.status(HttpStatus.CREATED).body("Resource created successfully");
     }
 
+    private ResponseEntity<String> handlePostAll(EndpointContext context, List<byte[]> records)
+    {
+        int firstId;
+        EndpointIndex index = context.getIndex();
+        index.beginWrite();
+        try
+        {
+            if (context.isVirtual())
+            {
+                firstId = virtualDatasetService.createAll(context.getDefinition(), records);
+            }
+            else
+            {
+                firstId = context.getIds().reserve(records.size());
+                List<StoredEntry> entries = new ArrayList<>(records.size());
+                for (int i = 0; i < records.size(); i++)
+                {
+                    entries.add(new StoredEntry(firstId + i, records.get(i)));
+                }
+                context.getStore().insertAll(entries);
+            }
+            index.refresh(firstId, records.size(), indexSource(context));
+        }
+        catch (IllegalStateException e)
+        {
+            return idsExhausted(context, e);
+        }
+        finally
+        {
+            index.endWrite();
+        }
+        int lastId = firstId + records.size() - 1;
+        LOG.debug("Created {} entries for endpoint: {}", records.size(), context.getEndpoint());
+        return ResponseEntity.status(HttpStatus.CREATED).body(records.size() + " resources created successfully with ids: " + firstId + " to " + lastId);
+    }
+
+    /* The ID sequence of the endpoint has no room left for the new entries (see IdSequence.reserve) */
+    private ResponseEntity<String> idsExhausted(EndpointContext context, IllegalStateException e)
+    {
+        LOG.warn("No IDs left for endpoint: {}: {}", context.getEndpoint(), e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ResponseBodies.error(e.getMessage()));
+    }
+
     /*
     * Method that update or create data
+    * The body must be one JSON object of the endpoint's fields (see RecordReader); fields left out are not taken
+    * from the previous entry, the body replaces it as a whole.
     * */
-    @ResponseBody
-    @Transactional
-    public ResponseEntity<String> handlePut(
-            @PathVariable String id,
-            @RequestBody Map<String, Object> requestBody,
-            HttpServletRequest request) {
-        // Get the endpoint
-        String uri = request.getRequestURI();
-        String endpoint = uri.substring(ApiConstants.API_BASE_PATH.length()).split("/")[0];
-
-        // Check if the generatedData exist
-        Optional<GeneratedData> generatedData = generatedDataRepository.findByEndpointAndInternalId(endpoint, Integer.parseInt(id));
-
-        // ToDo - Check if the requestBody(json) expect the same format. Either to have all fields or replace only the fields that are valid
-        // If there is no data for the given id - insert a new one based on the requestBody json
-        if (generatedData.isEmpty())
-        {
-            GeneratedData newGeneratedData = new GeneratedData(endpoint, requestBody.toString());
-            newGeneratedData.setInternalId(Integer.parseInt(id));
-            generatedDataRepository.save(newGeneratedData);
-            return ResponseEntity.ok("A new entry was added with id:  " + id + " for endpoint: " + endpoint);
+    ResponseEntity<String> handlePut(EndpointContext context, String id, HttpServletRequest request) throws IOException
+    {
+        int internalId;
+        try
+        {
+            internalId = IdList.parseId(id);
         }
-        else
+        catch (IllegalArgumentException e)
+        {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ResponseBodies.error(e.getMessage()));
+        }
+        if (internalId == IdList.NO_SUCH_ID)
+        {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(EndpointContext.INVALID_ID_BODY);
+        }
+        // The stores keep a bit per ID up to the highest one, and POSTs continue after it
+        if (internalId > maxPutId && internalId > context.getIds().current())
+        {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(ResponseBodies.error("The ID is over the maximum of " + maxPutId + " for a new entry"));
+        }
+
+        byte[] record;
+        try
         {
-            // If there is data, update (replace the content)
-            GeneratedData dataToUpdate = generatedData.get();
-            dataToUpdate.setData(requestBody.toString());
+            record = context.getRecordReader().readRecord(request.getInputStream());
+        }
+        catch (IllegalArgumentException e)
+        {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ResponseBodies.error(e.getMessage()));
+        }
 
-            generatedDataRepository.save(dataToUpdate);
-            return ResponseEntity.ok("Resource " + id + " updated successfully");
+        boolean replaced;
+        EndpointIndex index = context.getIndex();
+        index.beginWrite();
+        try
+        {
+            if (context.isVirtual())
+            {
+                replaced = virtualDatasetService.put(context.getDefinition(), internalId, record);
+            }
+            else
+            {
+                // Replace the content if there is data for the given id, otherwise insert a new one based on the requestBody json
+                context.getIds().observe(internalId);
+                replaced = context.getStore().put(internalId, record);
+            }
+            index.refresh(internalId, indexSource(context));
         }
+        finally
+        {
+            index.endWrite();
+        }
+        if (!replaced)
+        {
+            return ResponseEntity.ok(context.newEntryMessage(id));
+        }
+        return ResponseEntity.ok("Resource " + id + " updated successfully");
     }
 
-    @ResponseBody
-    @Transactional
-    public ResponseEntity<String> handleDelete(@PathVariable String id, HttpServletRequest request)
+    ResponseEntity<String> handleDelete(EndpointContext context, String id)
     {
-        String uri = request.getRequestURI();
-        String endpoint = uri.substring(ApiConstants.API_BASE_PATH.length()).split("/")[0];
-
-        long result = generatedDataRepository.deleteByEndpointAndInternalId(endpoint, Integer.parseInt(id));
+        int internalId;
+        try
+        {
+            internalId = IdList.parseId(id);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ResponseBodies.error(e.getMessage()));
+        }
+        if (internalId == IdList.NO_SUCH_ID)
+        {
+            return ResponseEntity
+                    .status(HttpStatus.NOT_FOUND)
+                    .body(EndpointContext.NOT_FOUND_BODY);
+        }
+        boolean deleted;
+        EndpointIndex index = context.getIndex();
+        index.beginWrite();
+        try
+        {
+            if (context.isVirtual())
+            {
+                // A virtual entry that does not exist is not deleted from the store at all
+                deleted = virtualDatasetService.delete(context.getDefinition(), internalId);
+                if (deleted)
+                {
+                    index.refresh(internalId, indexSource(context));
+                }
+            }
+            else
+            {
+                deleted = context.getStore().delete(internalId);
+                index.refresh(internalId, indexSource(context));
+            }
+        }
+        finally
+        {
+            index.endWrite();
+        }
 
-        if (result != 1)
+        if (!deleted)
         {
             return ResponseEntity
                     .status(HttpStatus.NOT_FOUND)
-                    .body("{\"error\":\"Resource not found\"}");
+                    .body(EndpointContext.NOT_FOUND_BODY);
         }
 
         return ResponseEntity.ok("Resource " + id + " deleted successfully");
     }
+
+    /* Delete the entries listed by ?ids=1,2,3 (see IdList) in one batch */
+    ResponseEntity<String> handleDeleteAll(EndpointContext context, HttpServletRequest request)
+    {
+        int[] ids;
+        try
+        {
+            ids = IdList.parse(request.getParameter(ApiConstants.IDS_PARAMETER), maxLimit);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return ResponseEntity
+                    .status(HttpStatus.BAD_REQUEST)
+                    .body(ResponseBodies.error(e.getMessage()));
+        }
+
+        int deleted;
+        EndpointIndex index = context.getIndex();
+        index.beginWrite();
+        try
+        {
+            deleted = context.isVirtual()
+                    ? virtualDatasetService.deleteAll(context.getDefinition(), ids)
+                    : context.getStore().deleteAll(ids);
+            index.refresh(ids, indexSource(context));
+        }
+        finally
+        {
+            index.endWrite();
+        }
+        if (deleted == 0)
+        {
+            return ResponseEntity
+                    .status(HttpStatus.NOT_FOUND)
+                    .body(EndpointContext.NOT_FOUND_BODY);
+        }
+
+        return ResponseEntity.ok(deleted + " resources deleted successfully");
+    }
 }
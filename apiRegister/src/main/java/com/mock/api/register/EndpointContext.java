@@ -0,0 +1,149 @@
+package com.mock.api.register;
+
+import com.mock.api.constants.ApiConstants;
+import com.mock.api.metrics.EndpointMeters;
+import com.mock.api.metrics.EndpointMetrics;
+import com.mock.api.query.EndpointIndex;
+import com.mock.api.shaping.EndpointShaping;
+import com.mock.api.shaping.ResponseShaper;
+import com.mock.database.store.DataStore;
+import com.mock.database.store.EndpointStore;
+import com.mock.database.store.IdAllocator;
+import com.mock.database.store.IdSequence;
+import com.mock.model.MockApiDefinition;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Everything a request to one endpoint needs, resolved once when the endpoint is registered:
+ * its definition, store, ID sequence, {@link RecordReader}, {@link EndpointShaping},
+ * {@link EndpointIndex} and {@link EndpointMeters}, and the fixed parts of its error bodies.
+ * The handlers bound to the endpoint share one instance.
+ * <p>
+ * Every binding gets a new generation, which the {@link com.mock.api.cache.ResponseCache} keys and
+ * ETags include: an endpoint registered again after a reload never serves or validates a response
+ * of its previous definition.
+ */
+final class EndpointContext
+{
+    static final String NOT_FOUND_BODY = "{\"error\":\"Resource not found\"}";
+    static final String INVALID_ID_BODY = "{\"error\":\"The ID must be a positive integer\"}";
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
+    private final MockApiDefinition definition;
+    private final String endpoint;
+    private final long generation = GENERATIONS.incrementAndGet();
+    private final String collectionPath;
+    private final EndpointStore store;
+    private final IdSequence ids;
+    private final RecordReader recordReader;
+    private final EndpointShaping shaping;
+    private final EndpointIndex index;
+    private final EndpointMeters meters;
+    private final String overCountSuffix;
+    private final String newEntrySuffix;
+
+    private EndpointContext(MockApiDefinition definition, EndpointShaping shaping, EndpointMeters meters, IdSequence ids)
+    {
+        this.definition = definition;
+        this.endpoint = definition.getEndpointName();
+        this.collectionPath = ApiConstants.API_BASE_PATH + endpoint;
+        this.store = meters.getStore();
+        this.ids = ids;
+        this.recordReader = RecordReader.compile(definition);
+        this.shaping = shaping;
+        this.index = new EndpointIndex(definition);
+        this.meters = meters;
+        this.overCountSuffix = " is over the maximum number of entries (maxCount: " + definition.getCount()
+                + ") for endpoint: " + endpoint + "\"}";
+        this.newEntrySuffix = " for endpoint: " + endpoint;
+    }
+
+    /**
+     * Resolves the store and ID sequence of the definition's endpoint, and registers its meters.
+     */
+    static EndpointContext bind(MockApiDefinition definition, DataStore dataStore, IdAllocator idAllocator, EndpointMetrics metrics)
+    {
+        String endpoint = definition.getEndpointName();
+        EndpointShaping shaping = ResponseShaper.forDefinition(definition);
+        EndpointMeters meters = metrics.register(definition, dataStore.forEndpoint(endpoint), shaping);
+        return new EndpointContext(definition, shaping, meters, idAllocator.forEndpoint(endpoint));
+    }
+
+    MockApiDefinition getDefinition()
+    {
+        return definition;
+    }
+
+    String getEndpoint()
+    {
+        return endpoint;
+    }
+
+    /**
+     * Returns the generation of this binding, unique in the process.
+     */
+    long getGeneration()
+    {
+        return generation;
+    }
+
+    /**
+     * Returns the path of the collection, {@code /api/<endpoint>}.
+     */
+    String getCollectionPath()
+    {
+        return collectionPath;
+    }
+
+    EndpointStore getStore()
+    {
+        return store;
+    }
+
+    IdSequence getIds()
+    {
+        return ids;
+    }
+
+    RecordReader getRecordReader()
+    {
+        return recordReader;
+    }
+
+    /**
+     * Returns the latency and throughput shaping of the endpoint, or null if it has none.
+     */
+    EndpointShaping getShaping()
+    {
+        return shaping;
+    }
+
+    EndpointMeters getMeters()
+    {
+        return meters;
+    }
+
+    /**
+     * Returns the secondary indexes of the endpoint's fields, built on the first filtered query.
+     */
+    EndpointIndex getIndex()
+    {
+        return index;
+    }
+
+    boolean isVirtual()
+    {
+        return definition.isVirtual();
+    }
+
+    String overCountBody(String id)
+    {
+        return "{\"error\":\"The ID " + id + overCountSuffix;
+    }
+
+    String newEntryMessage(String id)
+    {
+        return "A new entry was added with id:  " + id + newEntrySuffix;
+    }
+}
@@ -0,0 +1,82 @@
+package com.mock.api.register;
+
+import com.mock.api.shaping.ResponseShaper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.IOException;
+
+/**
+ * The handler object registered for the mappings of one endpoint. It carries the endpoint's
+ * {@link EndpointContext}, so a request reaches the {@link DynamicRequestHandler} with its endpoint
+ * already resolved instead of having it parsed from the URI and looked up in the registry.
+ * <p>
+ * Responses go through the {@link ResponseShaper}, so a method returns either the response or,
+ * for an endpoint with latency or throughput shaping, a {@link DeferredResult} of it. Spring
+ * picks the return value handler by the runtime type, hence {@code Object}. The handler call is
+ * timed by the endpoint's {@link com.mock.api.metrics.EndpointMeters}.
+ */
+public final class EndpointHandler
+{
+    private final EndpointContext context;
+    private final DynamicRequestHandler handler;
+    private final ResponseShaper shaper;
+
+    EndpointHandler(EndpointContext context, DynamicRequestHandler handler, ResponseShaper shaper)
+    {
+        this.context = context;
+        this.handler = handler;
+        this.shaper = shaper;
+    }
+
+    @ResponseBody
+    public Object handleGet(HttpServletRequest request) throws IOException
+    {
+        return shaper.shape(context.getShaping(), context.getMeters().timed(RequestMethod.GET, () -> handler.handleGet(context, request)));
+    }
+
+    /* Streams the whole collection, not shaped */
+    public void handleExport(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        handler.handleExport(context, request, response);
+    }
+
+    @ResponseBody
+    public Object handleGet(@PathVariable String id, HttpServletRequest request) throws IOException
+    {
+        return shaper.shape(context.getShaping(), context.getMeters().timed(RequestMethod.GET, () -> handler.handleGet(context, id, request)));
+    }
+
+    @ResponseBody
+    public Object handlePost(HttpServletRequest request) throws IOException
+    {
+        return shaper.shape(context.getShaping(), context.getMeters().timed(RequestMethod.POST, () -> handler.handlePost(context, request)));
+    }
+
+    @ResponseBody
+    public Object handlePut(@PathVariable String id, HttpServletRequest request) throws IOException
+    {
+        return shaper.shape(context.getShaping(), context.getMeters().timed(RequestMethod.PUT, () -> handler.handlePut(context, id, request)));
+    }
+
+    @ResponseBody
+    public Object handleDelete(@PathVariable String id) throws IOException
+    {
+        return shaper.shape(context.getShaping(), context.getMeters().timed(RequestMethod.DELETE, () -> handler.handleDelete(context, id)));
+    }
+
+    @ResponseBody
+    public Object handleDeleteAll(HttpServletRequest request) throws IOException
+    {
+        return shaper.shape(context.getShaping(), context.getMeters().timed(RequestMethod.DELETE, () -> handler.handleDeleteAll(context, request)));
+    }
+
+    EndpointContext getContext()
+    {
+        return context;
+    }
+}
@@ -0,0 +1,149 @@
+package com.mock.api.register;
+
+import com.mock.generator.DataGeneratorService;
+import com.mock.generator.virtual.VirtualDatasetService;
+import com.mock.model.DefinitionsReloadedEvent;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.MockApiDefinitionRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies a reloaded endpoint configuration ({@link DefinitionsReloadedEvent}) by diffing it against
+ * the {@link MockApiDefinitionRegistry}, endpoint by endpoint:
+ * <ul>
+ *     <li>removed endpoints are unregistered and their entries discarded</li>
+ *     <li>endpoints whose data changed (schema, count, mode or seed) are unregistered, their
+ *     entries discarded and generated again from the new definition, and registered again</li>
+ *     <li>endpoints whose methods, latency or throughput only changed are registered again with the
+ *     new definition and keep their entries</li>
+ *     <li>added endpoints are generated and registered</li>
+ * </ul>
+ * The registry swaps the old definitions for the new ones in one step before any endpoint is
+ * generated, so a reference field may name an endpoint added by the same reload. An endpoint that
+ * fails to generate or register is taken out again.
+ * Endpoints whose definition is unchanged are not touched: they keep their entries, including
+ * the changes clients made, and serve throughout the reload.
+ */
+@Component
+public class EndpointReloader
+{
+    private final MockApiDefinitionRegistry definitionRegistry;
+    private final DynamicEndpointRegistrar registrar;
+    private final DataGeneratorService dataGeneratorService;
+    private final VirtualDatasetService virtualDatasetService;
+    private static final Logger LOG = LogManager.getLogger();
+
+    public EndpointReloader(MockApiDefinitionRegistry definitionRegistry,
+                            DynamicEndpointRegistrar registrar,
+                            DataGeneratorService dataGeneratorService,
+                            VirtualDatasetService virtualDatasetService)
+    {
+        this.definitionRegistry = definitionRegistry;
+        this.registrar = registrar;
+        this.dataGeneratorService = dataGeneratorService;
+        this.virtualDatasetService = virtualDatasetService;
+    }
+
+    @EventListener
+    public synchronized void onDefinitionsReloaded(DefinitionsReloadedEvent event)
+    {
+        Map<String, MockApiDefinition> next = new LinkedHashMap<>();
+        for (MockApiDefinition definition : event.getDefinitions())
+        {
+            if (next.put(definition.getEndpointName(), definition) != null)
+            {
+                LOG.error("Endpoint {} is configured twice, the configuration is not applied", definition.getEndpointName());
+                return;
+            }
+        }
+
+        long startNanos = System.nanoTime();
+        List<MockApiDefinition> removed = new ArrayList<>();
+        Map<MockApiDefinition, MockApiDefinition> changed = new LinkedHashMap<>();
+        Map<MockApiDefinition, MockApiDefinition> reshaped = new LinkedHashMap<>();
+        for (MockApiDefinition current : definitionRegistry.getDefinitions())
+        {
+            MockApiDefinition definition = next.remove(current.getEndpointName());
+            if (definition == null)
+            {
+                removed.add(current);
+            }
+            else if (!definition.hasSameData(current))
+            {
+                changed.put(current, definition);
+            }
+            else if (!definition.equals(current))
+            {
+                reshaped.put(current, definition);
+            }
+        }
+        // What is left is new
+        List<MockApiDefinition> added = new ArrayList<>(next.values());
+        if (removed.isEmpty() && changed.isEmpty() && reshaped.isEmpty() && added.isEmpty())
+        {
+            LOG.info("Configuration reloaded, no endpoint changed");
+            return;
+        }
+
+        List<MockApiDefinition> discarded = new ArrayList<>(removed);
+        discarded.addAll(changed.keySet());
+        List<MockApiDefinition> replaced = new ArrayList<>(discarded);
+        replaced.addAll(reshaped.keySet());
+        for (MockApiDefinition definition : replaced)
+        {
+            registrar.unregisterEndpoint(definition.getEndpointName());
+        }
+        // Swapped in one step before any is generated, so references between them resolve
+        List<MockApiDefinition> definitions = new ArrayList<>(changed.values());
+        definitions.addAll(added);
+        List<MockApiDefinition> registered = new ArrayList<>(definitions);
+        registered.addAll(reshaped.values());
+        definitionRegistry.replaceDefinitions(replaced, registered);
+        for (MockApiDefinition definition : discarded)
+        {
+            discard(definition);
+        }
+        for (MockApiDefinition definition : reshaped.values())
+        {
+            add(definition, false);
+        }
+        for (MockApiDefinition definition : definitions)
+        {
+            add(definition, !definition.isVirtual());
+        }
+        LOG.info("Configuration reloaded in {} ms: {} endpoints added, {} changed, {} reshaped, {} removed",
+                 (System.nanoTime() - startNanos) / 1_000_000, added.size(), changed.size(), reshaped.size(), removed.size());
+    }
+
+    private void discard(MockApiDefinition definition)
+    {
+        virtualDatasetService.discard(definition);
+        dataGeneratorService.discardMockData(definition);
+    }
+
+    private void add(MockApiDefinition definition, boolean generate)
+    {
+        try
+        {
+            if (generate)
+            {
+                dataGeneratorService.generatedMockData(definition);
+            }
+            registrar.registerEndpoint(definition);
+        }
+        catch (Exception e)
+        {
+            LOG.error("Failed to add endpoint {}: {}", definition.getEndpointName(), e.getMessage(), e);
+            definitionRegistry.removeDefinition(definition);
+            discard(definition);
+        }
+    }
+}
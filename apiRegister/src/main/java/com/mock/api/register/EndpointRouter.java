@@ -0,0 +1,163 @@
+package com.mock.api.register;
+
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Path trie resolving a request path below {@code /api/} to the endpoint it addresses, used by
+ * {@code mock.routing.mode=router}.
+ * <p>
+ * Every node holds the next path segments in a hash map, so matching costs one hash lookup per
+ * segment of the path, whatever the number of endpoints. An endpoint name may span several
+ * segments ({@code v1/cars}); the deepest endpoint on the path wins, and a path may go at most one
+ * segment (the ID) past it.
+ * <p>
+ * Lookups take no lock. Routes are added and removed while requests are being served, each
+ * change becoming visible to the lookups at once.
+ */
+final class EndpointRouter
+{
+    private final Node root = new Node();
+
+    /**
+     * Routes the endpoint's paths to its context, for the given methods.
+     */
+    void add(EndpointContext context, Set<RequestMethod> methods)
+    {
+        Node node = root;
+        for (String segment : context.getEndpoint().split("/"))
+        {
+            node = node.children.computeIfAbsent(segment, ignored -> new Node());
+        }
+        node.route = new Route(context, methods);
+    }
+
+    /**
+     * Stops routing the endpoint. Empty nodes are left in place; they cost nothing on lookups.
+     *
+     * @return true if the endpoint was routed
+     */
+    boolean remove(String endpoint)
+    {
+        Node node = root;
+        for (String segment : endpoint.split("/"))
+        {
+            node = node.children.get(segment);
+            if (node == null)
+            {
+                return false;
+            }
+        }
+        boolean routed = node.route != null;
+        node.route = null;
+        return routed;
+    }
+
+    /**
+     * Resolves a path relative to {@code /api/}, e.g. {@code cars} or {@code cars/12}.
+     *
+     * @return the match, or null if no endpoint serves the path
+     */
+    Match match(String path)
+    {
+        Node node = root;
+        Route route = null;
+        int routeEnd = -1;
+        int start = 0;
+        int length = path.length();
+        while (start < length)
+        {
+            int end = path.indexOf('/', start);
+            if (end < 0)
+            {
+                end = length;
+            }
+            node = node.children.get(path.substring(start, end));
+            if (node == null)
+            {
+                break;
+            }
+            if (node.route != null)
+            {
+                route = node.route;
+                routeEnd = end;
+            }
+            start = end + 1;
+        }
+
+        if (route == null)
+        {
+            return null;
+        }
+        if (routeEnd >= length - 1)
+        {
+            // Nothing, or only a trailing slash, after the endpoint
+            return new Match(route, null);
+        }
+        String id = path.substring(routeEnd + 1);
+        return id.indexOf('/') < 0 ? new Match(route, id) : null;
+    }
+
+    /* The route of one endpoint; the allowed methods are kept as a bit mask over RequestMethod ordinals */
+    static final class Route
+    {
+        private final EndpointContext context;
+        private final int methods;
+
+        private Route(EndpointContext context, Set<RequestMethod> methods)
+        {
+            this.context = context;
+            int mask = 0;
+            for (RequestMethod method : methods)
+            {
+                mask |= 1 << method.ordinal();
+            }
+            this.methods = mask;
+        }
+
+        EndpointContext getContext()
+        {
+            return context;
+        }
+
+        boolean allows(RequestMethod method)
+        {
+            return (methods & (1 << method.ordinal())) != 0;
+        }
+    }
+
+    /* A resolved path: the route and, for an item path, the raw ID segment */
+    static final class Match
+    {
+        private final Route route;
+        private final String id;
+
+        private Match(Route route, String id)
+        {
+            this.route = route;
+            this.id = id;
+        }
+
+        Route getRoute()
+        {
+            return route;
+        }
+
+        /**
+         * Returns the ID segment, or null for the collection path.
+         */
+        String getId()
+        {
+            return id;
+        }
+    }
+
+    private static final class Node
+    {
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+        private volatile Route route;
+    }
+}
@@ -0,0 +1,289 @@
+package com.mock.api.register;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.mock.api.query.Projection;
+import com.mock.database.store.EndpointStore;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.schema.ScalarSchema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The relations a GET embeds, from {@code ?expand=owner,author}. A relation is declared by a
+ * reference field ({@code "ownerId": {"type": "reference", "endpoint": "people", "as": "owner"}});
+ * each returned entry gets the referenced entry under the relation's name, or null if the ID has no
+ * entry.
+ * <p>
+ * The referenced entries of a whole page are read with one {@link EndpointStore#getAll} (or virtual
+ * dataset multi-get) per referenced endpoint, whatever the number of entries and of relations to it,
+ * so an expanded page costs one lookup more per endpoint than a flat one. The relation is appended
+ * to the bytes of the (projected) entry; nothing is bound to objects.
+ * <p>
+ * A response with expansions depends on the referenced endpoints too: {@link #version()} is added
+ * to the endpoint's own version for the {@link com.mock.api.cache.ResponseCache}.
+ * <p>
+ * Parsed for each request and holds the entries read for it, so not shared between requests.
+ */
+final class Expansion
+{
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    /* The referenced endpoints, each with the relations to it */
+    private final List<Target> targets;
+    /* The reference fields to read from the entries, a slot per relation */
+    private final Map<String, Integer> slots;
+    private final Resolver resolver;
+
+    private Expansion(List<Target> targets, Map<String, Integer> slots, Resolver resolver)
+    {
+        this.targets = targets;
+        this.slots = slots;
+        this.resolver = resolver;
+    }
+
+    /**
+     * Reads the {@code expand} parameter of a request.
+     *
+     * @param value    the parameter, null if absent
+     * @param resolver finds the referenced endpoints and reads their entries
+     * @return the expansion, or null to return the entries as they are
+     * @throws IllegalArgumentException if a listed name is not a relation of the definition, or its
+     * endpoint is not registered
+     */
+    static Expansion parse(String value, MockApiDefinition definition, Resolver resolver)
+    {
+        if (value == null || value.isBlank())
+        {
+            return null;
+        }
+        Map<String, String> relations = definition.getSchema().getRelations();
+        Map<String, Target> targets = new LinkedHashMap<>();
+        Map<String, Integer> slots = new LinkedHashMap<>();
+        for (String name : value.split(","))
+        {
+            String relation = name.trim();
+            if (relation.isEmpty())
+            {
+                continue;
+            }
+            String field = relations.get(relation);
+            if (field == null)
+            {
+                throw new IllegalArgumentException("Unknown relation: " + relation + " for endpoint: " + definition.getEndpointName());
+            }
+            if (slots.containsKey(field))
+            {
+                continue;
+            }
+            String reference = ((ScalarSchema) definition.getSchema().getField(field)).getReference();
+            MockApiDefinition target = resolver.resolve(reference);
+            if (target == null)
+            {
+                throw new IllegalArgumentException("Relation " + relation + " references an unknown endpoint: " + reference);
+            }
+            int slot = slots.size();
+            slots.put(field, slot);
+            targets.computeIfAbsent(target.getEndpointName(), endpoint -> new Target(target, resolver.storeOf(target)))
+                    .add(slot, relation);
+        }
+        return slots.isEmpty() ? null : new Expansion(new ArrayList<>(targets.values()), slots, resolver);
+    }
+
+    /**
+     * Returns the sum of the write versions of the referenced endpoints. Read it before reading
+     * entries, like {@link EndpointStore#version()}.
+     */
+    long version()
+    {
+        long version = 0;
+        for (Target target : targets)
+        {
+            version += target.store.version();
+        }
+        return version;
+    }
+
+    /**
+     * Returns the entries with the projected fields and the expanded relations.
+     *
+     * @param entries    the stored entries
+     * @param projection the fields to keep, null for all
+     */
+    List<byte[]> apply(List<byte[]> entries, Projection projection)
+    {
+        int[][] ids = new int[entries.size()][];
+        for (int i = 0; i < ids.length; i++)
+        {
+            ids[i] = referencesOf(entries.get(i));
+        }
+        for (Target target : targets)
+        {
+            target.read(ids, resolver);
+        }
+
+        List<byte[]> expanded = new ArrayList<>(entries.size());
+        for (int i = 0; i < ids.length; i++)
+        {
+            byte[] entry = projection == null ? entries.get(i) : projection.apply(entries.get(i));
+            expanded.add(append(entry, ids[i]));
+        }
+        return expanded;
+    }
+
+    /* The IDs in the entry's reference fields, by slot; 0 where there is none */
+    private int[] referencesOf(byte[] entry)
+    {
+        int[] ids = new int[slots.size()];
+        try (JsonParser parser = JSON.createParser(entry))
+        {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+            {
+                return ids;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                Integer slot = slots.get(parser.currentName());
+                JsonToken token = parser.nextToken();
+                if (slot != null && token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT)
+                {
+                    ids[slot] = Math.max(parser.getIntValue(), 0);
+                }
+                else
+                {
+                    parser.skipChildren();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return ids;
+    }
+
+    /* The entry with the relations written before its closing brace */
+    private byte[] append(byte[] entry, int[] ids)
+    {
+        int end = entry.length - 1;
+        while (end > 0 && entry[end] != '}')
+        {
+            end--;
+        }
+        int last = end - 1;
+        while (last > 0 && Character.isWhitespace(entry[last]))
+        {
+            last--;
+        }
+        boolean empty = entry[last] == '{';
+
+        ByteArrayBuilder out = new ByteArrayBuilder(entry.length * 2);
+        out.write(entry, 0, end);
+        for (Target target : targets)
+        {
+            for (int i = 0; i < target.slots.length; i++)
+            {
+                if (!empty)
+                {
+                    out.write(',');
+                }
+                empty = false;
+                out.write(target.names[i]);
+                byte[] related = target.entry(ids[target.slots[i]]);
+                out.write(related == null ? NULL : related);
+            }
+        }
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    /**
+     * Finds referenced endpoints and reads their entries.
+     */
+    interface Resolver
+    {
+        /**
+         * Returns the registered definition a reference names, or null.
+         */
+        MockApiDefinition resolve(String reference);
+
+        /**
+         * Returns the store of the definition's endpoint, whose version covers its virtual entries too.
+         */
+        EndpointStore storeOf(MockApiDefinition definition);
+
+        /**
+         * Passes the entries of the definition's endpoint under the given IDs to the visitor.
+         *
+         * @param ids distinct IDs in ascending order
+         */
+        void readAll(MockApiDefinition definition, int[] ids, EndpointStore.EntryVisitor visitor);
+    }
+
+    /* A referenced endpoint, the relations to it, and the entries read for one request */
+    private static final class Target
+    {
+        private final MockApiDefinition definition;
+        private final EndpointStore store;
+        private int[] slots = new int[0];
+        /* "name": of each relation, in UTF-8 */
+        private byte[][] names = new byte[0][];
+        private int[] ids;
+        private byte[][] entries;
+
+        private Target(MockApiDefinition definition, EndpointStore store)
+        {
+            this.definition = definition;
+            this.store = store;
+        }
+
+        private void add(int slot, String relation)
+        {
+            slots = Arrays.copyOf(slots, slots.length + 1);
+            slots[slots.length - 1] = slot;
+            names = Arrays.copyOf(names, names.length + 1);
+            String name = "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(relation)) + "\":";
+            names[names.length - 1] = name.getBytes(StandardCharsets.UTF_8);
+        }
+
+        /* Reads the entries every relation to this endpoint references, in one lookup */
+        private void read(int[][] references, Resolver resolver)
+        {
+            int[] all = new int[references.length * slots.length];
+            int count = 0;
+            for (int[] entry : references)
+            {
+                for (int slot : slots)
+                {
+                    if (entry[slot] > 0)
+                    {
+                        all[count++] = entry[slot];
+                    }
+                }
+            }
+            ids = Arrays.stream(all, 0, count).sorted().distinct().toArray();
+            entries = new byte[ids.length][];
+            if (ids.length > 0)
+            {
+                resolver.readAll(definition, ids, (internalId, data) -> entries[Arrays.binarySearch(ids, internalId)] = data);
+            }
+        }
+
+        private byte[] entry(int id)
+        {
+            int index = id > 0 ? Arrays.binarySearch(ids, id) : -1;
+            return index >= 0 ? entries[index] : null;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.mock.api.register;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * The formats of a streaming export ({@code GET /api/<endpoint>?export=json|ndjson}).
+ * Entry bodies are already serialized JSON, so a format only decides what goes around and
+ * between them.
+ */
+enum ExportFormat
+{
+    /** One JSON array holding every entry */
+    JSON("application/json", "[", ",", "]"),
+
+    /** One entry per line, see https://github.com/ndjson/ndjson-spec */
+    NDJSON("application/x-ndjson", "", "\n", "\n");
+
+    private final String contentType;
+    private final byte[] prefix;
+    private final byte[] separator;
+    private final byte[] suffix;
+
+    ExportFormat(String contentType, String prefix, String separator, String suffix)
+    {
+        this.contentType = contentType;
+        this.prefix = prefix.getBytes(StandardCharsets.US_ASCII);
+        this.separator = separator.getBytes(StandardCharsets.US_ASCII);
+        this.suffix = suffix.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    String getContentType()
+    {
+        return contentType;
+    }
+
+    byte[] getPrefix()
+    {
+        return prefix;
+    }
+
+    byte[] getSeparator()
+    {
+        return separator;
+    }
+
+    /* Written after the last entry; an empty NDJSON export stays empty */
+    byte[] getSuffix(boolean empty)
+    {
+        return empty && this == NDJSON ? new byte[0] : suffix;
+    }
+
+    /**
+     * Resolves the value of the {@code export} parameter.
+     *
+     * @throws IllegalArgumentException for an unknown format
+     */
+    static ExportFormat fromString(String value)
+    {
+        return switch (value.trim().toLowerCase(Locale.ROOT))
+        {
+            case "", "json" -> JSON;
+            case "ndjson" -> NDJSON;
+            default -> throw new IllegalArgumentException("Unsupported export format: " + value);
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package com.mock.api.register;
+
+import com.mock.database.store.EndpointStore.EntryVisitor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes the entries of a scan to the response stream in an {@link ExportFormat}.
+ * <p>
+ * The bytes go through a fixed-size buffer that is flushed whenever it fills up, so the
+ * client receives the export chunk by chunk and only one buffer and the current entry are
+ * held in memory, whatever the size of the endpoint.
+ */
+final class ExportWriter implements EntryVisitor
+{
+    private final OutputStream out;
+    private final ExportFormat format;
+    private final byte[] buffer;
+    private int position;
+    private long written;
+
+    ExportWriter(OutputStream out, ExportFormat format, int bufferSize)
+    {
+        this.out = out;
+        this.format = format;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Writes the opening of the export.
+     */
+    void begin()
+    {
+        append(format.getPrefix());
+    }
+
+    /*
+     * EntryVisitor cannot throw checked exceptions, so write failures (usually a client that went
+     * away) leave as UncheckedIOException and end the scan
+     */
+    @Override
+    public void visit(int internalId, byte[] data)
+    {
+        if (written > 0)
+        {
+            append(format.getSeparator());
+        }
+        append(data);
+        written++;
+    }
+
+    /**
+     * Writes the closing of the export and flushes what is left in the buffer.
+     *
+     * @return the number of entries written
+     */
+    long finish() throws IOException
+    {
+        append(format.getSuffix(written == 0));
+        drain();
+        out.flush();
+        return written;
+    }
+
+    private void append(byte[] bytes)
+    {
+        try
+        {
+            if (bytes.length > buffer.length - position)
+            {
+                drain();
+            }
+            // An entry larger than the whole buffer is written through
+            if (bytes.length > buffer.length)
+            {
+                out.write(bytes);
+                return;
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void drain() throws IOException
+    {
+        if (position > 0)
+        {
+            out.write(buffer, 0, position);
+            out.flush();
+            position = 0;
+        }
+    }
+}
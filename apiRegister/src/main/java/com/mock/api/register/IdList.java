@@ -0,0 +1,89 @@
+package com.mock.api.register;
+
+import java.util.Arrays;
+
+/**
+ * The {@code ids} parameter of a batch request ({@code GET} or {@code DELETE /api/<endpoint>?ids=1,2,3}):
+ * a comma separated list of internal IDs, read once into the sorted, distinct array the stores take.
+ * At most {@code mock.pagination.max-limit} IDs are accepted, the size of the largest page.
+ * <p>
+ * Also reads the single ID of an item path ({@code /api/<endpoint>/<id>}), see {@link #parseId}.
+ */
+final class IdList
+{
+    /** What {@link #parseId} returns for a number no entry can have */
+    static final int NO_SUCH_ID = 0;
+
+    private IdList()
+    {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Parses the ID of an item path. A number that is not positive or does not fit an {@code int}
+     * is valid but names no entry, so the request is answered like one for a missing entry.
+     *
+     * @return the internal ID, or {@link #NO_SUCH_ID}
+     * @throws IllegalArgumentException if the ID is not a decimal number
+     */
+    static int parseId(String id)
+    {
+        int start = id.startsWith("-") || id.startsWith("+") ? 1 : 0;
+        if (id.length() == start)
+        {
+            throw new IllegalArgumentException("The ID must be a number: " + id);
+        }
+        long value = 0;
+        for (int i = start; i < id.length(); i++)
+        {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9')
+            {
+                throw new IllegalArgumentException("The ID must be a number: " + id);
+            }
+            // Stops growing once out of range, but every digit is still checked
+            if (value <= Integer.MAX_VALUE)
+            {
+                value = value * 10 + (c - '0');
+            }
+        }
+        return id.charAt(0) == '-' || value < 1 || value > Integer.MAX_VALUE ? NO_SUCH_ID : (int) value;
+    }
+
+    /**
+     * Parses the parameter value.
+     *
+     * @throws IllegalArgumentException if the value is missing, an ID is not a positive number or there are too many
+     */
+    static int[] parse(String value, int maxIds)
+    {
+        if (value == null || value.isBlank())
+        {
+            throw new IllegalArgumentException("ids must list at least one ID");
+        }
+        String[] parts = value.split(",");
+        if (parts.length > maxIds)
+        {
+            throw new IllegalArgumentException("ids must not list more than " + maxIds + " IDs");
+        }
+
+        int[] ids = new int[parts.length];
+        for (int i = 0; i < parts.length; i++)
+        {
+            try
+            {
+                ids[i] = Integer.parseInt(parts[i].trim());
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IllegalArgumentException("ids must be numbers: " + parts[i].trim());
+            }
+            if (ids[i] < 1)
+            {
+                throw new IllegalArgumentException("ids must be positive: " + ids[i]);
+            }
+        }
+        Arrays.sort(ids);
+        return Arrays.stream(ids).distinct().toArray();
+    }
+}
@@ -0,0 +1,136 @@
+package com.mock.api.register;
+
+import com.mock.api.constants.ApiConstants;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * The page requested by a collection GET through its query parameters:
+ * <ul>
+ *     <li>{@code limit}: the page size, {@code mock.pagination.default-limit} if absent and capped at
+ *     {@code mock.pagination.max-limit}</li>
+ *     <li>{@code cursor}: the internal ID of the last entry of the previous page (keyset paging)</li>
+ *     <li>{@code offset}: the number of entries to skip, for clients that cannot follow a cursor</li>
+ * </ul>
+ * {@code cursor} and {@code offset} cannot be combined. The {@code next} link carries a cursor, so
+ * following it is a keyset read however deep the page is; the other parameters of the request
+ * (filters, projection) are kept in it as they were sent. A sorted GET is not in ID order, so it is
+ * paged by offset instead, and its {@code next} link carries the offset of the following page.
+ */
+final class Pagination
+{
+    private final int limit;
+    private final int cursor;
+    private final int offset;
+    private final String retainedQuery;
+
+    private Pagination(int limit, int cursor, int offset, String retainedQuery)
+    {
+        this.limit = limit;
+        this.cursor = cursor;
+        this.offset = offset;
+        this.retainedQuery = retainedQuery;
+    }
+
+    /**
+     * Reads the page parameters of the request.
+     *
+     * @throws IllegalArgumentException if a parameter is not a valid number or both a cursor and an offset are given
+     */
+    static Pagination from(HttpServletRequest request, int defaultLimit, int maxLimit)
+    {
+        int limit = Math.min(parse(request, "limit", defaultLimit), maxLimit);
+        int cursor = parse(request, "cursor", 0);
+        int offset = parse(request, "offset", 0);
+        if (limit < 1)
+        {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        if (request.getParameter("cursor") != null && request.getParameter("offset") != null)
+        {
+            throw new IllegalArgumentException("cursor and offset cannot be combined");
+        }
+        if (request.getParameter("cursor") != null && request.getParameter(ApiConstants.SORT_PARAMETER) != null)
+        {
+            throw new IllegalArgumentException("cursor and sort cannot be combined, sorted pages are read by offset");
+        }
+        return new Pagination(limit, cursor, offset, retainedQuery(request.getQueryString()));
+    }
+
+    /* The query string without the page parameters, still encoded, with a trailing & if not empty */
+    private static String retainedQuery(String query)
+    {
+        if (query == null || query.isEmpty())
+        {
+            return "";
+        }
+        StringBuilder retained = new StringBuilder(query.length() + 1);
+        for (String parameter : query.split("&"))
+        {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            if (!parameter.isEmpty() && !name.equals("limit") && !name.equals("cursor") && !name.equals("offset"))
+            {
+                retained.append(parameter).append('&');
+            }
+        }
+        return retained.toString();
+    }
+
+    private static int parse(HttpServletRequest request, String name, int defaultValue)
+    {
+        String value = request.getParameter(name);
+        if (value == null || value.isBlank())
+        {
+            return defaultValue;
+        }
+        try
+        {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed < 0)
+            {
+                throw new IllegalArgumentException(name + " must not be negative");
+            }
+            return parsed;
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException(name + " must be a number: " + value);
+        }
+    }
+
+    int getLimit()
+    {
+        return limit;
+    }
+
+    int getCursor()
+    {
+        return cursor;
+    }
+
+    int getOffset()
+    {
+        return offset;
+    }
+
+    boolean isOffsetBased()
+    {
+        return offset > 0;
+    }
+
+    /**
+     * Returns the {@code Link} header value pointing at the page after the entry with the given ID.
+     */
+    String nextLink(String uri, int lastId)
+    {
+        return "<" + uri + "?" + retainedQuery + "limit=" + limit + "&cursor=" + lastId + ">; rel=\"next\"";
+    }
+
+    /**
+     * Returns the {@code Link} header value pointing at the page after this one, by offset.
+     */
+    String nextOffsetLink(String uri)
+    {
+        return "<" + uri + "?" + retainedQuery + "limit=" + limit + "&offset=" + ((long) offset + limit) + ">; rel=\"next\"";
+    }
+}
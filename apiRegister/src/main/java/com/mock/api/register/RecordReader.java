@@ -0,0 +1,499 @@
+package com.mock.api.register;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.schema.ArraySchema;
+import com.mock.model.schema.ObjectSchema;
+import com.mock.model.schema.ScalarSchema;
+import com.mock.model.schema.SchemaNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link MockApiDefinition} compiled for reading request bodies, the counterpart of the
+ * generator's {@code RecordGeneratorPlan}.
+ * <p>
+ * Every node of the definition's schema is compiled into a reader: objects into an
+ * {@link ObjectReader}, arrays into an {@link ArrayReader}, values into their {@link FieldType} with
+ * the constraints of their spec. A body is read token by token with a streaming {@link JsonParser}
+ * and every value is checked by the reader of its node and copied straight into a
+ * {@link JsonGenerator}, so one pass both validates the body and produces the compact UTF-8 JSON
+ * that is stored. No tree or map of the body is built. Fields the schema does not declare, values
+ * of the wrong type or outside their constraints, duplicate fields and {@code null} values are
+ * rejected; fields may be left out, at any level.
+ * <p>
+ * Field names are pre-encoded and matched in declaration order first, so a body written in the
+ * same order as the generated entries costs no lookup per field. The dotted paths used in error
+ * messages are built once, at compile time.
+ * Instances are immutable and may be shared between threads.
+ */
+final class RecordReader
+{
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final ObjectReader record;
+
+    private RecordReader(ObjectReader record)
+    {
+        this.record = record;
+    }
+
+    /**
+     * Compiles the reader for the given definition.
+     *
+     * @throws IllegalArgumentException if a field has a type no reader exists for
+     */
+    static RecordReader compile(MockApiDefinition definition)
+    {
+        return new RecordReader(new ObjectReader(definition.getSchema(), ""));
+    }
+
+    private static ValueReader compile(SchemaNode node, String path)
+    {
+        if (node instanceof ObjectSchema object)
+        {
+            return new ObjectReader(object, path);
+        }
+        if (node instanceof ArraySchema array)
+        {
+            return new ArrayReader(array, path);
+        }
+        ScalarSchema scalar = (ScalarSchema) node;
+        FieldType type = FieldType.of(scalar.getType());
+        // Plain values skip the constraint checks altogether
+        ScalarSchema constraints = scalar.isConstrained() ? scalar : null;
+        return (parser, token, generator) -> type.write(parser, token, generator, path, constraints);
+    }
+
+    /**
+     * Reads a body holding exactly one JSON object.
+     *
+     * @return the record as compact UTF-8 JSON
+     * @throws IllegalArgumentException if the body is not a valid record
+     * @throws IOException              if reading the body fails
+     */
+    byte[] readRecord(InputStream body) throws IOException
+    {
+        try (JsonParser parser = JSON_FACTORY.createParser(body))
+        {
+            byte[] record = readRecord(parser, parser.nextToken());
+            expectEnd(parser);
+            return record;
+        }
+        catch (JsonProcessingException e)
+        {
+            throw invalidJson(e);
+        }
+    }
+
+    /**
+     * Reads a body holding one JSON object or a non-empty JSON array of objects.
+     *
+     * @return the records as compact UTF-8 JSON, and whether the body was an array
+     * @throws IllegalArgumentException if the body or one of its elements is not a valid record
+     * @throws IOException              if reading the body fails
+     */
+    Records readRecords(InputStream body) throws IOException
+    {
+        try (JsonParser parser = JSON_FACTORY.createParser(body))
+        {
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_ARRAY)
+            {
+                byte[] record = readRecord(parser, token);
+                expectEnd(parser);
+                return new Records(Collections.singletonList(record), false);
+            }
+
+            List<byte[]> records = new ArrayList<>();
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY)
+            {
+                try
+                {
+                    records.add(readRecord(parser, token));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new IllegalArgumentException("Element " + records.size() + ": " + e.getMessage());
+                }
+            }
+            if (records.isEmpty())
+            {
+                throw new IllegalArgumentException("The array must hold at least one object");
+            }
+            expectEnd(parser);
+            return new Records(records, true);
+        }
+        catch (JsonProcessingException e)
+        {
+            throw invalidJson(e);
+        }
+    }
+
+    /* Reads one object, the parser is on its first token */
+    private byte[] readRecord(JsonParser parser, JsonToken token) throws IOException
+    {
+        if (token != JsonToken.START_OBJECT)
+        {
+            throw new IllegalArgumentException("Expected a JSON object");
+        }
+
+        ByteArrayBuilder buffer = new ByteArrayBuilder(256);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer))
+        {
+            record.read(parser, token, generator);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static void expectEnd(JsonParser parser) throws IOException
+    {
+        if (parser.nextToken() != null)
+        {
+            throw new IllegalArgumentException("Unexpected content after the JSON value");
+        }
+    }
+
+    private static IllegalArgumentException invalidJson(JsonProcessingException e)
+    {
+        return new IllegalArgumentException("The request body is not valid JSON: " + e.getOriginalMessage());
+    }
+
+    /**
+     * The records of a body, see {@link #readRecords(InputStream)}.
+     */
+    static final class Records
+    {
+        private final List<byte[]> records;
+        private final boolean array;
+
+        private Records(List<byte[]> records, boolean array)
+        {
+            this.records = records;
+            this.array = array;
+        }
+
+        List<byte[]> getRecords()
+        {
+            return records;
+        }
+
+        /**
+         * Returns true if the body was an array, even one of a single object.
+         */
+        boolean isArray()
+        {
+            return array;
+        }
+    }
+
+    /* Checks the value of one schema node, the parser on its first token, and copies it to the generator */
+    @FunctionalInterface
+    private interface ValueReader
+    {
+        void read(JsonParser parser, JsonToken token, JsonGenerator generator) throws IOException;
+    }
+
+    /* The fields of an object, any of them optional */
+    private static final class ObjectReader implements ValueReader
+    {
+        private final String path;
+        private final SerializedString[] fieldNames;
+        private final ValueReader[] fieldReaders;
+        private final Map<String, Integer> fieldIndexes = new HashMap<>();
+
+        private ObjectReader(ObjectSchema schema, String path)
+        {
+            this.path = path;
+            this.fieldNames = new SerializedString[schema.size()];
+            this.fieldReaders = new ValueReader[schema.size()];
+            for (int i = 0; i < schema.size(); i++)
+            {
+                String name = schema.getName(i);
+                fieldNames[i] = new SerializedString(name);
+                fieldReaders[i] = compile(schema.getField(i), path.isEmpty() ? name : path + "." + name);
+                fieldIndexes.put(name, i);
+            }
+        }
+
+        @Override
+        public void read(JsonParser parser, JsonToken token, JsonGenerator generator) throws IOException
+        {
+            FieldType.expect(token == JsonToken.START_OBJECT, path, "an object");
+            generator.writeStartObject();
+            boolean[] seen = new boolean[fieldNames.length];
+            int expected = 0;
+            while (true)
+            {
+                int index;
+                if (expected < fieldNames.length && parser.nextFieldName(fieldNames[expected]))
+                {
+                    index = expected;
+                }
+                else
+                {
+                    // nextFieldName moved to the next token even when it did not match
+                    JsonToken next = expected < fieldNames.length ? parser.currentToken() : parser.nextToken();
+                    if (next == JsonToken.END_OBJECT)
+                    {
+                        break;
+                    }
+                    index = indexOf(parser.currentName());
+                }
+
+                if (seen[index])
+                {
+                    throw new IllegalArgumentException("Duplicate field: " + qualified(fieldNames[index].getValue()));
+                }
+                seen[index] = true;
+                expected = index + 1;
+
+                generator.writeFieldName(fieldNames[index]);
+                fieldReaders[index].read(parser, parser.nextToken(), generator);
+            }
+            generator.writeEndObject();
+        }
+
+        private int indexOf(String name)
+        {
+            Integer index = fieldIndexes.get(name);
+            if (index == null)
+            {
+                throw new IllegalArgumentException("Unknown field: " + qualified(name));
+            }
+            return index;
+        }
+
+        private String qualified(String name)
+        {
+            return path.isEmpty() ? name : path + "." + name;
+        }
+    }
+
+    /* The items of an array, all of the same schema, within the item count bounds */
+    private static final class ArrayReader implements ValueReader
+    {
+        private final String path;
+        private final ValueReader items;
+        private final int minItems;
+        private final int maxItems;
+
+        private ArrayReader(ArraySchema schema, String path)
+        {
+            this.path = path;
+            this.items = compile(schema.getItems(), path + "[]");
+            this.minItems = schema.getMinItems();
+            this.maxItems = schema.getMaxItems();
+        }
+
+        @Override
+        public void read(JsonParser parser, JsonToken token, JsonGenerator generator) throws IOException
+        {
+            FieldType.expect(token == JsonToken.START_ARRAY, path, "an array");
+            generator.writeStartArray();
+            int count = 0;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY)
+            {
+                FieldType.expect(++count <= maxItems, path, "an array of at most " + maxItems + " items");
+                items.read(parser, token, generator);
+            }
+            FieldType.expect(count >= minItems, path, "an array of at least " + minItems + " items");
+            generator.writeEndArray();
+        }
+    }
+
+    /* The JSON values accepted for each field type of FieldTypeConverter, and how they are checked and copied */
+    private enum FieldType
+    {
+        STRING
+        {
+            @Override
+            void write(JsonParser parser, JsonToken token, JsonGenerator generator, String field, ScalarSchema constraints)
+                    throws IOException
+            {
+                expect(token == JsonToken.VALUE_STRING, field, "a string");
+                if (constraints != null)
+                {
+                    expect(constraints.lengthAllowed(parser.getTextLength())
+                           && (constraints.getValues() == null || constraints.allows(parser.getText())), field, constraints);
+                }
+                generator.writeString(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            }
+        },
+        CHARACTER
+        {
+            @Override
+            void write(JsonParser parser, JsonToken token, JsonGenerator generator, String field, ScalarSchema constraints)
+                    throws IOException
+            {
+                expect(token == JsonToken.VALUE_STRING && parser.getTextLength() == 1, field, "a single character");
+                if (constraints != null)
+                {
+                    expect(constraints.allows(parser.getText()), field, constraints);
+                }
+                generator.writeString(parser.getTextCharacters(), parser.getTextOffset(), 1);
+            }
+        },
+        BOOLEAN
+        {
+            @Override
+            void write(JsonParser parser, JsonToken token, JsonGenerator generator, String field, ScalarSchema constraints)
+                    throws IOException
+            {
+                expect(token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE, field, "a boolean");
+                generator.writeBoolean(token == JsonToken.VALUE_TRUE);
+            }
+        },
+        BYTE
+        {
+            @Override
+            void write(JsonParser parser, JsonToken token, JsonGenerator generator, String field, ScalarSchema constraints)
+                    throws IOException
+            {
+                generator.writeNumber(integer(parser, token, field, Byte.MIN_VALUE, Byte.MAX_VALUE, "a byte", constraints));
+            }
+        },
+        SHORT
+        {
+            @Override
+            void write(JsonParser parser, JsonToken token, JsonGenerator generator, String field, ScalarSchema constraints)
+                    throws IOException
+            {
+                generator.writeNumber(integer(parser, token, field, Short.MIN_VALUE, Short.MAX_VALUE, "a short", constraints));
+            }
+        },
+        INTEGER
+        {
+            @Override
+            void write(JsonParser parser, JsonToken token, JsonGenerator generator, String field, ScalarSchema constraints)
+                    throws IOException
+            {
+                generator.writeNumber(integer(parser, token, field, Integer.MIN_VALUE, Integer.MAX_VALUE, "an integer", constraints));
+            }
+        },
+        LONG
+        {
+            @Override
+            void write(JsonParser parser, JsonToken token, JsonGenerator generator, String field, ScalarSchema constraints)
+                    throws IOException
+            {
+                generator.writeNumber(integer(parser, token, field, Long.MIN_VALUE, Long.MAX_VALUE, "a long", constraints));
+            }
+        },
+        FLOAT
+        {
+            @Override
+            void write(JsonParser parser, JsonToken token, JsonGenerator generator, String field, ScalarSchema constraints)
+                    throws IOException
+            {
+                expect(token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT, field, "a number");
+                float value = parser.getFloatValue();
+                expect(Float.isFinite(value), field, "a float");
+                expect(constraints == null || constraints.inRange(value), field, constraints);
+                generator.writeNumber(value);
+            }
+        },
+        DOUBLE
+        {
+            @Override
+            void write(JsonParser parser, JsonToken token, JsonGenerator generator, String field, ScalarSchema constraints)
+                    throws IOException
+            {
+                expect(token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT, field, "a number");
+                double value = parser.getDoubleValue();
+                expect(Double.isFinite(value), field, "a double");
+                expect(constraints == null || constraints.inRange(value), field, constraints);
+                generator.writeNumber(value);
+            }
+        };
+
+        /* Checks the value the parser is on, at the given token, and writes it to the generator; constraints may be null */
+        abstract void write(JsonParser parser, JsonToken token, JsonGenerator generator, String field, ScalarSchema constraints)
+                    throws IOException;
+
+        static FieldType of(Class<?> type)
+        {
+            if (String.class.equals(type))
+            {
+                return STRING;
+            }
+            else if (Integer.class.equals(type))
+            {
+                return INTEGER;
+            }
+            else if (Long.class.equals(type))
+            {
+                return LONG;
+            }
+            else if (Short.class.equals(type))
+            {
+                return SHORT;
+            }
+            else if (Byte.class.equals(type))
+            {
+                return BYTE;
+            }
+            else if (Double.class.equals(type))
+            {
+                return DOUBLE;
+            }
+            else if (Float.class.equals(type))
+            {
+                return FLOAT;
+            }
+            else if (Boolean.class.equals(type))
+            {
+                return BOOLEAN;
+            }
+            else if (Character.class.equals(type))
+            {
+                return CHARACTER;
+            }
+
+            throw new IllegalArgumentException("No field reader for type: " + type);
+        }
+
+        private static long integer(JsonParser parser, JsonToken token, String field, long min, long max, String expected,
+                                    ScalarSchema constraints) throws IOException
+        {
+            expect(token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER,
+                   field, expected);
+            long value = parser.getLongValue();
+            expect(value >= min && value <= max, field, expected);
+            if (constraints != null)
+            {
+                expect(constraints.inRange(value) && constraints.allows(value), field, constraints);
+            }
+            return value;
+        }
+
+        private static void expect(boolean valid, String field, String expected)
+        {
+            if (!valid)
+            {
+                throw new IllegalArgumentException("Field " + field + " must be " + expected);
+            }
+        }
+
+        /* The description of the constraints is only built for an error */
+        private static void expect(boolean valid, String field, ScalarSchema constraints)
+        {
+            if (!valid)
+            {
+                throw new IllegalArgumentException("Field " + field + " must be " + constraints.describe());
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.mock.api.register;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds response bodies from the stored UTF-8 entries without going through {@link String}:
+ * the entry arrays are copied once into the body, which Spring then writes out as it is.
+ */
+final class ResponseBodies
+{
+    private ResponseBodies()
+    {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Returns the UTF-8 bytes of a fixed body.
+     */
+    static byte[] utf8(String body)
+    {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the {@code {"error":"..."}} body for a message, which may quote client input.
+     */
+    static String error(String message)
+    {
+        return "{\"error\":\"" + new String(JsonStringEncoder.getInstance().quoteAsString(message)) + "\"}";
+    }
+
+    /**
+     * Returns the JSON array of the entries, which are JSON values already.
+     */
+    static byte[] jsonArray(List<byte[]> entries)
+    {
+        int length = 2 + Math.max(0, entries.size() - 1);
+        for (byte[] entry : entries)
+        {
+            length += entry.length;
+        }
+
+        byte[] body = new byte[length];
+        body[0] = '[';
+        int position = 1;
+        for (byte[] entry : entries)
+        {
+            if (position > 1)
+            {
+                body[position++] = ',';
+            }
+            System.arraycopy(entry, 0, body, position, entry.length);
+            position += entry.length;
+        }
+        body[position] = ']';
+        return body;
+    }
+
+    /**
+     * Returns true if an {@code Accept-Encoding} header value allows gzip.
+     */
+    static boolean acceptsGzip(String acceptEncoding)
+    {
+        if (acceptEncoding == null)
+        {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(","))
+        {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip"))
+            {
+                // gzip;q=0 explicitly refuses it
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    static byte[] gzip(byte[] body)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 3 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out))
+        {
+            gzip.write(body);
+        }
+        catch (IOException e)
+        {
+            // Writing to a byte array does not fail
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
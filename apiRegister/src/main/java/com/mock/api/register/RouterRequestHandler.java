@@ -0,0 +1,127 @@
+package com.mock.api.register;
+
+import com.mock.api.constants.ApiConstants;
+import com.mock.api.shaping.ResponseShaper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * The single handler behind {@code /api/**} when {@code mock.routing.mode=router}.
+ * <p>
+ * Instead of one Spring MVC mapping per endpoint and method, the endpoint is resolved through the
+ * {@link EndpointRouter} trie and the method is checked against the route's bit mask, then the
+ * request goes to the same {@link DynamicRequestHandler} methods the per-endpoint mappings use.
+ */
+@Component
+public class RouterRequestHandler
+{
+    private final EndpointRouter router = new EndpointRouter();
+    private final DynamicRequestHandler requestHandler;
+    private final ResponseShaper shaper;
+    private final Logger LOG = LogManager.getLogger();
+
+    public RouterRequestHandler(DynamicRequestHandler requestHandler, ResponseShaper shaper)
+    {
+        this.requestHandler = requestHandler;
+        this.shaper = shaper;
+    }
+
+    /**
+     * Routes the endpoint of the context for the given methods.
+     */
+    void register(EndpointContext context, Set<RequestMethod> methods)
+    {
+        router.add(context, methods);
+    }
+
+    /**
+     * Stops routing the endpoint.
+     *
+     * @return true if the endpoint was routed
+     */
+    boolean unregister(String endpoint)
+    {
+        return router.remove(endpoint);
+    }
+
+    /*
+     * Returns null when the response was written directly (export), which Spring treats as handled, and a
+     * DeferredResult when the endpoint's ResponseShaper delays the response
+     */
+    public Object dispatch(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        String uri = request.getRequestURI();
+        EndpointRouter.Match match = uri.length() > ApiConstants.API_BASE_PATH.length()
+                ? router.match(uri.substring(ApiConstants.API_BASE_PATH.length()))
+                : null;
+        RequestMethod method = RequestMethod.resolve(request.getMethod());
+        if (match == null || method == null)
+        {
+            LOG.debug("No route for {} {}", request.getMethod(), uri);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(EndpointContext.NOT_FOUND_BODY);
+        }
+
+        EndpointRouter.Route route = match.getRoute();
+        EndpointContext context = route.getContext();
+        String id = match.getId();
+        if (!route.allows(method) || !servesPath(method, id == null))
+        {
+            return ResponseEntity
+                    .status(HttpStatus.METHOD_NOT_ALLOWED)
+                    .header(HttpHeaders.ALLOW, allowedMethods(route, id == null))
+                    .build();
+        }
+
+        if (method == RequestMethod.GET && id == null && request.getParameter(ApiConstants.EXPORT_PARAMETER) != null)
+        {
+            requestHandler.handleExport(context, request, response);
+            return null;
+        }
+        return shaper.shape(context.getShaping(), context.getMeters().timed(method, () -> switch (method)
+        {
+            case GET -> id != null
+                    ? requestHandler.handleGet(context, id, request)
+                    : requestHandler.handleGet(context, request);
+            case POST -> requestHandler.handlePost(context, request);
+            case PUT -> requestHandler.handlePut(context, id, request);
+            default -> id == null
+                    ? requestHandler.handleDeleteAll(context, request)
+                    : requestHandler.handleDelete(context, id);
+        }));
+    }
+
+    /* GET and DELETE (of an ids list) are served on both paths, POST on the collection, PUT on an item */
+    private static boolean servesPath(RequestMethod method, boolean collection)
+    {
+        return switch (method)
+        {
+            case GET, DELETE -> true;
+            case POST -> collection;
+            case PUT -> !collection;
+            default -> false;
+        };
+    }
+
+    private static String allowedMethods(EndpointRouter.Route route, boolean collection)
+    {
+        StringBuilder allowed = new StringBuilder();
+        for (RequestMethod method : RequestMethod.values())
+        {
+            if (route.allows(method) && servesPath(method, collection))
+            {
+                allowed.append(allowed.isEmpty() ? "" : ", ").append(method.name());
+            }
+        }
+        return allowed.toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.mock.api.shaping;
+
+import com.mock.model.LatencyProfile;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.ThroughputLimit;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency and throughput shaping of one endpoint, as configured in its definition. Created by
+ * {@link ResponseShaper#forDefinition} and applied by {@link ResponseShaper#shape}.
+ * Thread-safe.
+ */
+public final class EndpointShaping
+{
+    private final LatencyProfile latency;
+    private final TokenBucket tokens;
+    private final double requestsPerSecond;
+    private final LongAdder rejected = new LongAdder();
+
+    EndpointShaping(MockApiDefinition definition)
+    {
+        ThroughputLimit throughput = definition.getThroughput();
+        this.latency = definition.getLatency();
+        this.tokens = throughput == null ? null : new TokenBucket(throughput);
+        this.requestsPerSecond = throughput == null ? 0 : throughput.getRequestsPerSecond();
+    }
+
+    /* Nanoseconds until the request may be answered, or -1 if it is over the throughput cap */
+    long admit()
+    {
+        long wait = tokens == null ? 0 : tokens.acquire();
+        if (wait < 0)
+        {
+            rejected.increment();
+            return wait;
+        }
+        if (latency == null)
+        {
+            return wait;
+        }
+        double millis = latency.millisAt(ThreadLocalRandom.current().nextDouble());
+        return wait + Math.round(millis * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    /* Whole seconds until a rejected request might be admitted, for Retry-After */
+    long retryAfterSeconds()
+    {
+        return tokens == null ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toSeconds(tokens.nanosUntilAvailable() + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    double getRequestsPerSecond()
+    {
+        return requestsPerSecond;
+    }
+
+    /**
+     * Returns the number of requests rejected over the throughput cap.
+     */
+    public long getRejected()
+    {
+        return rejected.sum();
+    }
+}
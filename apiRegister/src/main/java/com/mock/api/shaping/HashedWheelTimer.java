@@ -0,0 +1,159 @@
+package com.mock.api.shaping;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs tasks after a delay on a single thread, with a precision of one tick.
+ * <p>
+ * Scheduled tasks go to a lock-free queue; once per tick the worker thread moves them into the
+ * bucket of the wheel their deadline falls into and runs the tasks of the current bucket whose
+ * last round has come. Scheduling is O(1) whatever the number of pending tasks and no thread is
+ * held per task, so hundreds of thousands of pending delays cost one object each.
+ * <p>
+ * Tasks run on the worker thread and must be short; they are meant to hand their result to
+ * another thread, not to do the work themselves.
+ */
+final class HashedWheelTimer
+{
+    private final long tickNanos;
+    private final Queue<Timeout>[] wheel;
+    private final int mask;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * Creates and starts the timer.
+     *
+     * @param tickMillis the tick duration, the precision of the delays
+     * @param wheelSize  the number of buckets, rounded up to a power of two; delays longer than
+     *                   one turn of the wheel take extra rounds
+     */
+    @SuppressWarnings("unchecked")
+    HashedWheelTimer(String name, long tickMillis, int wheelSize)
+    {
+        if (tickMillis < 1 || wheelSize < 1)
+        {
+            throw new IllegalArgumentException("The tick and wheel size must be positive");
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) * 2 - 1);
+        this.wheel = new Queue[size];
+        for (int i = 0; i < size; i++)
+        {
+            wheel[i] = new ArrayDeque<>();
+        }
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Runs the task once the delay has passed, at the end of the tick it falls into.
+     */
+    void schedule(Runnable task, long delayNanos)
+    {
+        if (!running)
+        {
+            throw new IllegalStateException("The timer is stopped");
+        }
+        pending.incrementAndGet();
+        scheduled.add(new Timeout(task, System.nanoTime() + Math.max(delayNanos, 0)));
+    }
+
+    /**
+     * Returns the number of tasks scheduled and not run yet.
+     */
+    int pending()
+    {
+        return pending.get();
+    }
+
+    /**
+     * Stops the worker. Pending tasks are dropped.
+     */
+    void stop()
+    {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run()
+    {
+        long tick = 0;
+        while (running)
+        {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            long sleep;
+            while ((sleep = deadline - System.nanoTime()) > 0 && running)
+            {
+                LockSupport.parkNanos(this, sleep);
+            }
+            transferScheduled(tick);
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    /* Moves the tasks scheduled since the last tick into the bucket of their deadline */
+    private void transferScheduled(long tick)
+    {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null)
+        {
+            long deadlineTick = Math.max((timeout.deadline - startNanos + tickNanos - 1) / tickNanos - 1, tick);
+            timeout.rounds = (deadlineTick - tick) / wheel.length;
+            wheel[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Queue<Timeout> bucket)
+    {
+        for (Iterator<Timeout> timeouts = bucket.iterator(); timeouts.hasNext(); )
+        {
+            Timeout timeout = timeouts.next();
+            if (timeout.rounds > 0)
+            {
+                timeout.rounds--;
+                continue;
+            }
+            timeouts.remove();
+            pending.decrementAndGet();
+            try
+            {
+                timeout.task.run();
+            }
+            catch (RuntimeException e)
+            {
+                LOG.warn("Timer task failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private static final class Timeout
+    {
+        private final Runnable task;
+        private final long deadline;
+        private long rounds;
+
+        private Timeout(Runnable task, long deadline)
+        {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+}
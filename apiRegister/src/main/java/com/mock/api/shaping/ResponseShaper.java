@@ -0,0 +1,185 @@
+package com.mock.api.shaping;
+
+import com.mock.model.MockApiDefinition;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies the latency and throughput shaping of an endpoint to its responses without holding a
+ * servlet thread while a response waits.
+ * <p>
+ * A request over the endpoint's throughput cap is rejected with 429 before it is handled. Any
+ * other request takes its token and draws its latency first; if it is due later, the handler
+ * returns a {@link DeferredResult} and a {@link HashedWheelTimer} hands the request to one of
+ * {@code mock.shaping.threads} handler threads when the delay has passed. A delayed write is thus
+ * only made, and visible, once its response is due. The servlet thread goes back to the pool in
+ * the meantime, so the number of delayed requests in flight is bounded by memory, not by threads.
+ * <p>
+ * The timer and the handler threads are started on the first delayed request, the timer with a
+ * precision of {@code mock.shaping.tick-ms}.
+ */
+@Component
+public class ResponseShaper
+{
+    /* Added to the delay of a deferred response for its async timeout, so the container never times out first */
+    private static final long TIMEOUT_MARGIN_MILLIS = 10_000;
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int threads;
+    private volatile HashedWheelTimer timer;
+    /* Published with the volatile write of the timer */
+    private ExecutorService handlers;
+    private boolean stopped;
+    private static final Logger LOG = LogManager.getLogger();
+
+    public ResponseShaper(@Value("${mock.shaping.tick-ms:5}") long tickMillis,
+                          @Value("${mock.shaping.wheel-size:1024}") int wheelSize,
+                          @Value("${mock.shaping.threads:0}") int threads)
+    {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Returns the shaping configured for the definition, or null if its responses are neither
+     * delayed nor limited.
+     */
+    public static EndpointShaping forDefinition(MockApiDefinition definition)
+    {
+        if (definition.getLatency() == null && definition.getThroughput() == null)
+        {
+            return null;
+        }
+        return new EndpointShaping(definition);
+    }
+
+    /**
+     * Handles a request under the given shaping.
+     *
+     * @param shaping the endpoint's shaping, null to call the handler directly
+     * @return the handler's response, a 429 response, or a {@link DeferredResult} completed with
+     * the response of the handler, called once the response is due
+     */
+    public Object shape(EndpointShaping shaping, ShapedCall call) throws IOException
+    {
+        if (shaping == null)
+        {
+            return call.call();
+        }
+
+        long delayNanos = shaping.admit();
+        if (delayNanos < 0)
+        {
+            return ResponseEntity
+                    .status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(shaping.retryAfterSeconds()))
+                    .body("{\"error\":\"Throughput limit of " + shaping.getRequestsPerSecond() + " requests per second exceeded\"}");
+        }
+
+        if (delayNanos < TimeUnit.MILLISECONDS.toNanos(tickMillis) / 2)
+        {
+            // Below the timer precision, not worth an async dispatch
+            return call.call();
+        }
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(TimeUnit.NANOSECONDS.toMillis(delayNanos) + TIMEOUT_MARGIN_MILLIS);
+        HashedWheelTimer current = timer();
+        ExecutorService executor = handlers;
+        // The timer thread only hands the call over, the handler may block on its store
+        current.schedule(() -> executor.execute(() -> complete(result, call)), delayNanos);
+        return result;
+    }
+
+    private static void complete(DeferredResult<ResponseEntity<?>> result, ShapedCall call)
+    {
+        try
+        {
+            result.setResult(call.call());
+        }
+        catch (IOException | RuntimeException e)
+        {
+            result.setErrorResult(e);
+        }
+    }
+
+    /**
+     * Returns the number of responses waiting for their delay.
+     */
+    public int getPending()
+    {
+        HashedWheelTimer current = timer;
+        return current == null ? 0 : current.pending();
+    }
+
+    private HashedWheelTimer timer()
+    {
+        HashedWheelTimer current = timer;
+        if (current == null)
+        {
+            synchronized (this)
+            {
+                if (stopped)
+                {
+                    throw new IllegalStateException("The response shaper is stopped");
+                }
+                if (timer == null)
+                {
+                    handlers = Executors.newFixedThreadPool(threads, new HandlerThreadFactory());
+                    timer = new HashedWheelTimer("response-shaper", tickMillis, wheelSize);
+                    LOG.info("Started the response delay timer, tick: {} ms, wheel size: {}, handler threads: {}", tickMillis, wheelSize, threads);
+                }
+                current = timer;
+            }
+        }
+        return current;
+    }
+
+    @PreDestroy
+    public synchronized void stop()
+    {
+        stopped = true;
+        if (timer != null)
+        {
+            timer.stop();
+            handlers.shutdownNow();
+        }
+    }
+
+    /* Names the handler threads of delayed requests so their log lines can be told apart */
+    private static final class HandlerThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "response-shaper-handler-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * A request handler call to be shaped.
+     */
+    @FunctionalInterface
+    public interface ShapedCall
+    {
+        ResponseEntity<?> call() throws IOException;
+    }
+}
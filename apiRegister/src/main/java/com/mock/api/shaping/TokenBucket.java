@@ -0,0 +1,63 @@
+package com.mock.api.shaping;
+
+import com.mock.model.ThroughputLimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The token bucket of a {@link ThroughputLimit}, kept as a single time stamp.
+ * <p>
+ * Instead of a token count refilled over time, the bucket stores the time at which it will be
+ * full again (the generic cell rate algorithm form of a token bucket): taking a token moves that
+ * time one interval ahead, and a request may take one once that time is at most {@code burst}
+ * intervals ahead of now. One compare-and-set per request, no lock and no refill task.
+ */
+final class TokenBucket
+{
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final long maxWaitNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(ThroughputLimit limit)
+    {
+        this.intervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / limit.getRequestsPerSecond()));
+        this.burstNanos = intervalNanos * limit.getBurst();
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(limit.getMaxWaitMillis());
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes a token, waiting for it if the bucket is empty.
+     *
+     * @return the nanoseconds until the token is available, 0 if it is available now, or -1 if
+     * the wait would exceed the limit's maximum; no token is taken then
+     */
+    long acquire()
+    {
+        long now = System.nanoTime();
+        while (true)
+        {
+            long current = fullAt.get();
+            long from = current - now > 0 ? current : now;
+            long wait = from + intervalNanos - burstNanos - now;
+            if (wait > maxWaitNanos)
+            {
+                return -1;
+            }
+            if (fullAt.compareAndSet(current, from + intervalNanos))
+            {
+                return Math.max(wait, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns the nanoseconds until a token is available without waiting.
+     */
+    long nanosUntilAvailable()
+    {
+        return Math.max(fullAt.get() + intervalNanos - burstNanos - System.nanoTime(), 0);
+    }
+}
@@ -0,0 +1,114 @@
+package com.mock.api.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest
+{
+    @Test
+    void checkEtags()
+    {
+        ResponseCache cache = new ResponseCache(true, 1 << 20);
+        String etag = cache.etag(1, 7, false);
+        assertEquals(etag, cache.etag(1, 7, false));
+        assertNotEquals(etag, cache.etag(1, 8, false));
+        assertNotEquals(etag, cache.etag(1, 7, true));
+        // A registration that replaced another does not take over its tags
+        assertNotEquals(etag, cache.etag(2, 7, false));
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+        // Another process gets another prefix, so its tags never match
+        assertNotEquals(etag, new ResponseCache(true, 1 << 20).etag(1, 7, false));
+    }
+
+    @Test
+    void checkIfNoneMatch()
+    {
+        String etag = "\"a-7\"";
+        assertTrue(ResponseCache.matches(etag, etag));
+        assertTrue(ResponseCache.matches("\"a-6\", " + etag, etag));
+        assertFalse(ResponseCache.matches("\"a-6\"", etag));
+        assertFalse(ResponseCache.matches(null, etag));
+        // The wildcard only matches a resource that exists, which the caller checks
+        assertFalse(ResponseCache.matches("*", etag));
+        assertTrue(ResponseCache.matchesAny("*"));
+        assertTrue(ResponseCache.matchesAny("\"a-6\", *"));
+        assertFalse(ResponseCache.matchesAny(etag));
+        assertFalse(ResponseCache.matchesAny(null));
+    }
+
+    @Test
+    void checkVersions()
+    {
+        ResponseCache cache = new ResponseCache(true, 1 << 20);
+        CachedResponse response = response(3, "{\"id\":1}");
+        cache.put("users", 1, "1", response);
+
+        assertSame(response, cache.get("users", 1, "1", 3));
+        assertNull(cache.get("users", 1, "1", 4));
+        assertNull(cache.get("users", 1, "2", 3));
+        assertNull(cache.get("orders", 1, "1", 3));
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+
+        CachedResponse newer = response(4, "{\"id\":1,\"name\":\"a\"}");
+        cache.put("users", 1, "1", newer);
+        assertSame(newer, cache.get("users", 1, "1", 4));
+        assertNull(cache.get("users", 1, "1", 3));
+        // Another registration of the endpoint does not see the entries of the previous one
+        assertNull(cache.get("users", 2, "1", 4));
+    }
+
+    @Test
+    void checkEvict()
+    {
+        ResponseCache cache = new ResponseCache(true, 1 << 20);
+        cache.put("orders", 1, "1", response(1, "{\"id\":1}"));
+        long weight = cache.getWeight();
+        cache.put("users", 1, "1", response(1, "{\"id\":1}"));
+        cache.put("users", 1, "?", response(1, "[]"));
+
+        cache.evict("users");
+        assertNull(cache.get("users", 1, "1", 1));
+        assertNull(cache.get("users", 1, "?", 1));
+        assertNotNull(cache.get("orders", 1, "1", 1));
+        assertEquals(weight, cache.getWeight());
+    }
+
+    @Test
+    void checkEviction()
+    {
+        // 16 segments of 1 KB each, so a segment holds a few of these entries only
+        ResponseCache cache = new ResponseCache(true, 16 * 1024);
+        String body = "x".repeat(200);
+        for (int i = 0; i < 1000; i++)
+        {
+            cache.put("users", 1, Integer.toString(i), response(1, body));
+        }
+        assertTrue(cache.getWeight() <= 16 * 1024, "weight " + cache.getWeight());
+        assertNotNull(cache.get("users", 1, "999", 1));
+        assertNull(cache.get("users", 1, "0", 1));
+
+        // An entry over the share of a segment is not cached at all
+        cache.put("users", 1, "large", response(1, "x".repeat(2048)));
+        assertNull(cache.get("users", 1, "large", 1));
+    }
+
+    @Test
+    void checkDisabled()
+    {
+        ResponseCache cache = new ResponseCache(false, 1 << 20);
+        assertFalse(cache.isEnabled());
+        cache.put("users", 1, "1", response(1, "{}"));
+        assertNull(cache.get("users", 1, "1", 1));
+        assertEquals(0, cache.getWeight());
+        assertFalse(new ResponseCache(true, 0).isEnabled());
+    }
+
+    private static CachedResponse response(long version, String body)
+    {
+        return new CachedResponse(version, 200, body.getBytes(StandardCharsets.UTF_8), null, null);
+    }
+}
@@ -0,0 +1,78 @@
+package com.mock.api.metrics;
+
+import com.mock.database.store.memory.InMemoryDataStore;
+import com.mock.model.MockApiDefinition;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static com.mock.database.store.TestData.bytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointMetersTest
+{
+    private static final MockApiDefinition CARS = new MockApiDefinition("cars", "cars", Map.of("make", "string"), "all", 0);
+
+    @Test
+    void checkRemove() throws IOException
+    {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        EndpointMeters meters = meters(registry);
+        int registered = registry.getMeters().size();
+        assertTrue(registered > 0);
+
+        // The first response with a status registers its counter
+        respond(meters, RequestMethod.GET, HttpStatus.OK);
+        respond(meters, RequestMethod.GET, HttpStatus.OK);
+        meters.getStore().put(1, bytes("{}"));
+        meters.recordCacheLookup(true);
+        meters.recordExport(1000);
+        assertEquals(registered + 1, registry.getMeters().size());
+
+        meters.remove();
+        assertTrue(registry.getMeters().isEmpty());
+
+        // A request that was running meanwhile neither fails nor registers anything again
+        respond(meters, RequestMethod.GET, HttpStatus.OK);
+        respond(meters, RequestMethod.POST, HttpStatus.CREATED);
+        meters.getStore().get(1);
+        assertTrue(registry.getMeters().isEmpty());
+    }
+
+    @Test
+    void checkRegisteredAgain() throws IOException
+    {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        EndpointMeters old = meters(registry);
+        old.remove();
+        EndpointMeters current = meters(registry);
+        int registered = registry.getMeters().size();
+
+        // The meters of the new registration are not taken over by the removed one
+        respond(old, RequestMethod.PUT, HttpStatus.OK);
+        assertEquals(registered, registry.getMeters().size());
+        respond(current, RequestMethod.PUT, HttpStatus.OK);
+        assertEquals(registered + 1, registry.getMeters().size());
+
+        old.remove();
+        assertEquals(registered + 1, registry.getMeters().size());
+        current.remove();
+        assertTrue(registry.getMeters().isEmpty());
+    }
+
+    private static EndpointMeters meters(MeterRegistry registry)
+    {
+        return new EndpointMeters(CARS, new InMemoryDataStore().forEndpoint("cars"), null, registry, false, 1000);
+    }
+
+    private static void respond(EndpointMeters meters, RequestMethod method, HttpStatus status) throws IOException
+    {
+        meters.timed(method, () -> ResponseEntity.status(status).build()).call();
+    }
+}
@@ -0,0 +1,176 @@
+package com.mock.api.query;
+
+import com.mock.model.MockApiDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointIndexTest
+{
+    private static final MockApiDefinition DEFINITION = new MockApiDefinition("cars", "cars",
+            Map.of("make", "string", "year", "integer", "price", "double", "electric", "boolean"), "all", 0);
+
+    @Test
+    void checkFilters()
+    {
+        StoreEntries source = new StoreEntries();
+        source.put(1, "{\"make\":\"audi\",\"year\":2020,\"price\":30.5,\"electric\":true}");
+        source.put(2, "{\"make\":\"bmw\",\"year\":2018,\"price\":-4.0,\"electric\":false}");
+        source.put(3, "{\"make\":\"audi\",\"year\":2018,\"price\":0.0}");
+        source.put(4, "{\"make\":null,\"year\":\"new\",\"price\":12}");
+        EndpointIndex index = new EndpointIndex(DEFINITION);
+
+        assertEquals("{1, 3}", select(index, source, "make", "audi"));
+        assertEquals("{2}", select(index, source, "make.ne", "audi"));
+        assertEquals("{2, 3}", select(index, source, "year", "2018"));
+        assertEquals("{1}", select(index, source, "year.gt", "2018"));
+        assertEquals("{2, 3}", select(index, source, "price.lte", "-0.0"));
+        assertEquals("{1, 4}", select(index, source, "price.gte", "12"));
+        assertEquals("{1}", select(index, source, "electric", "TRUE"));
+        assertEquals("{}", select(index, source, "make", "fiat"));
+        assertEquals(1, source.getScans());
+
+        assertThrows(IllegalArgumentException.class, () -> index.filter(Map.of("year", new String[]{"x"})));
+        assertThrows(IllegalArgumentException.class, () -> index.filter(Map.of("make.lt", new String[]{"a"})));
+        assertThrows(IllegalArgumentException.class, () -> index.filter(Map.of("year.like", new String[]{"1"})));
+    }
+
+    @Test
+    void checkSorts()
+    {
+        StoreEntries source = new StoreEntries();
+        // Equal years out of value order, so the build's merge sort has to keep them in ID order
+        int[] years = {2019, 2018, 2019, 2017, 2018, 2019, 2017, 2018, 2019, 0};
+        for (int id = 1; id <= years.length; id++)
+        {
+            String year = years[id - 1] == 0 ? "" : "\"year\":" + years[id - 1] + ",";
+            source.put(id, "{" + year + "\"price\":" + (id % 4) + "}");
+        }
+        EndpointIndex index = new EndpointIndex(DEFINITION);
+        Filter all = index.filter(Map.of());
+
+        assertEquals("[4, 7, 2, 5, 8, 1, 3, 6, 9, 10]", sorted(index, source, all, "year", 0, 20));
+        assertEquals("[1, 3, 6, 9, 2, 5, 8, 4, 7, 10]", sorted(index, source, all, "-year", 0, 20));
+        assertEquals("[7, 4, 2, 5, 8, 3, 6, 1, 9]", sorted(index, source, all, "year,-price", 0, 9));
+        assertEquals("[5, 8, 1]", sorted(index, source, all, "year", 3, 3));
+        assertEquals("[1, 9, 5]", sorted(index, source, index.filter(Map.of("year.gte", new String[]{"2018"})), "price,-year", 1, 3));
+        assertNull(index.sort(" "));
+        assertThrows(IllegalArgumentException.class, () -> index.sort("color"));
+    }
+
+    @Test
+    void checkHandlerWritesAreIndexed()
+    {
+        StoreEntries source = new StoreEntries();
+        source.put(1, "{\"make\":\"audi\",\"year\":2020}");
+        EndpointIndex index = new EndpointIndex(DEFINITION);
+        assertEquals("{1}", select(index, source, "make", "audi"));
+
+        write(index, source, 2, () -> source.put(2, "{\"make\":\"audi\",\"year\":2021}"));
+        write(index, source, 1, () -> source.put(1, "{\"make\":\"bmw\",\"year\":2020}"));
+        assertEquals("{2}", select(index, source, "make", "audi"));
+        assertEquals("{1}", select(index, source, "year.lt", "2021"));
+
+        write(index, source, 2, () -> source.remove(2));
+        assertEquals("{}", select(index, source, "make", "audi"));
+        assertEquals(1, source.getScans());
+
+        // A write the index did not see is picked up by a rebuild
+        source.put(3, "{\"make\":\"audi\"}");
+        assertEquals("{3}", select(index, source, "make", "audi"));
+        assertEquals(2, source.getScans());
+    }
+
+    @Test
+    void checkConcurrentHandlerWrites() throws InterruptedException
+    {
+        StoreEntries source = new StoreEntries();
+        EndpointIndex index = new EndpointIndex(DEFINITION);
+        assertEquals("{}", select(index, source, "make", "audi"));
+
+        // The writers overlap on the same entries, and finish their refreshes in any order
+        int writers = 8;
+        Thread[] threads = new Thread[writers];
+        for (int w = 0; w < writers; w++)
+        {
+            int writer = w;
+            threads[w] = new Thread(() -> {
+                for (int i = 0; i < 500; i++)
+                {
+                    int round = i;
+                    int id = 1 + (writer * 31 + i) % 50;
+                    write(index, source, id, () -> {
+                        if (round % 5 == 4)
+                        {
+                            source.remove(id);
+                        }
+                        else
+                        {
+                            source.put(id, "{\"make\":\"" + (round % 2 == 0 ? "audi" : "bmw") + "\",\"year\":" + round + "}");
+                        }
+                    });
+                }
+            });
+            threads[w].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        BitSet audis = new BitSet();
+        source.forEach((id, data) -> {
+            if (new String(data, StandardCharsets.UTF_8).contains("audi"))
+            {
+                audis.set(id);
+            }
+        });
+        assertEquals(audis.toString(), select(index, source, "make", "audi"));
+        // Every write was counted, so the index is current without another scan
+        assertEquals(1, source.getScans());
+    }
+
+    @Test
+    void checkLargeIds()
+    {
+        StoreEntries source = new StoreEntries();
+        source.put(9_999_999, "{\"year\":2000}");
+        source.put(3, "{\"year\":2000}");
+        EndpointIndex index = new EndpointIndex(DEFINITION);
+
+        assertEquals("{3, 9999999}", select(index, source, "year", "2000"));
+        assertEquals("[3, 9999999]", sorted(index, source, index.filter(Map.of()), "-year", 0, 5));
+    }
+
+    private static String select(EndpointIndex index, StoreEntries source, String parameter, String value)
+    {
+        Filter filter = index.filter(Map.of(parameter, new String[]{value}));
+        BitSet matches = index.select(filter, source.version(), source);
+        return matches.toString();
+    }
+
+    private static String sorted(EndpointIndex index, StoreEntries source, Filter filter, String sort, int offset, int limit)
+    {
+        return Arrays.toString(index.sorted(filter, index.sort(sort), offset, limit, source.version(), source));
+    }
+
+    /* A handler write of one entry, as DynamicRequestHandler makes it */
+    private static void write(EndpointIndex index, StoreEntries source, int id, Runnable write)
+    {
+        index.beginWrite();
+        try
+        {
+            write.run();
+            index.refresh(id, source);
+        }
+        finally
+        {
+            index.endWrite();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.mock.api.query;
+
+import com.mock.model.MockApiDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortTest
+{
+    private static final MockApiDefinition DEFINITION = new MockApiDefinition("cars", "cars",
+            Map.of("make", "string", "year", "integer", "price", "double", "electric", "boolean"), "all", 0);
+
+    @Test
+    void checkMultiKeySort()
+    {
+        StoreEntries source = cars();
+        EndpointIndex index = new EndpointIndex(DEFINITION);
+
+        // By make, then the newest first, then the cheapest first; entries without a value last
+        assertEquals("[5, 1, 3, 2, 7, 4, 6]", sorted(index, source, "make,-year,price", 0, 10));
+        assertEquals("[3, 1, 5, 2, 7, 4, 6]", sorted(index, source, "make,year,-price", 0, 10));
+        assertEquals("[2, 3, 7, 5, 1, 4, 6]", sorted(index, source, "year,price", 0, 10));
+    }
+
+    @Test
+    void checkDescending()
+    {
+        StoreEntries source = cars();
+        EndpointIndex index = new EndpointIndex(DEFINITION);
+
+        assertEquals("[2, 3, 4, 5, 1, 6, 7]", sorted(index, source, "price", 0, 10));
+        // Equal values stay in ID order either way, and negative doubles sort below zero
+        assertEquals("[1, 4, 5, 3, 2, 6, 7]", sorted(index, source, "-price", 0, 10));
+        assertEquals("[2, 7, 3, 5, 1, 4, 6]", sorted(index, source, "-make,price", 0, 10));
+    }
+
+    @Test
+    void checkMissingValues()
+    {
+        StoreEntries source = cars();
+        EndpointIndex index = new EndpointIndex(DEFINITION);
+
+        // 4 has a year of the wrong type and 6 none at all: both come last, in ID order, in either direction
+        assertEquals("[2, 3, 7, 1, 5, 4, 6]", sorted(index, source, "year", 0, 10));
+        assertEquals("[1, 5, 2, 3, 7, 4, 6]", sorted(index, source, "-year", 0, 10));
+        // No entry has a value: the order is the ID order
+        assertEquals("[1, 2, 3, 4, 5, 6, 7]", sorted(index, source, "-electric", 0, 10));
+        // A missing value of a later key goes after the present ones of its group
+        assertEquals("[3, 2, 7, 1, 5, 4, 6]", sorted(index, source, "year,-price", 0, 10));
+    }
+
+    @Test
+    void checkOffsetPaging()
+    {
+        StoreEntries source = cars();
+        EndpointIndex index = new EndpointIndex(DEFINITION);
+
+        // Sorted collections are paged by offset (a cursor is rejected with a sort, see Pagination)
+        List<String> pages = new ArrayList<>();
+        for (int offset = 0; offset < 8; offset += 2)
+        {
+            pages.add(sorted(index, source, "make,-year,price", offset, 2));
+        }
+        assertEquals("[[5, 1], [3, 2], [7, 4], [6]]", pages.toString());
+        assertEquals("[]", sorted(index, source, "make,-year,price", 7, 2));
+
+        // A write moves the entry within the pages that follow
+        source.put(6, "{\"make\":\"audi\",\"year\":2019,\"price\":1}");
+        index.beginWrite();
+        index.refresh(6, source);
+        index.endWrite();
+        assertEquals("[6, 3]", sorted(index, source, "make,-year,price", 2, 2));
+        assertEquals(1, source.getScans());
+    }
+
+    @Test
+    void checkAgainstFullSort()
+    {
+        Random random = new Random(7);
+        StoreEntries source = new StoreEntries();
+        int count = 300;
+        Object[][] values = new Object[count + 1][];
+        String[] makes = {"audi", "bmw", "fiat", "kia"};
+        for (int id = 1; id <= count; id++)
+        {
+            // Few distinct values, so most groups have ties for the later keys to break; a quarter of each field missing
+            String make = random.nextInt(4) == 0 ? null : makes[random.nextInt(makes.length)];
+            Long year = random.nextInt(4) == 0 ? null : (long) (2015 + random.nextInt(5));
+            Double price = random.nextInt(4) == 0 ? null : (random.nextInt(11) - 5) / 2.0;
+            values[id] = new Object[] {make, year, price};
+            StringBuilder json = new StringBuilder("{");
+            append(json, "make", make == null ? null : "\"" + make + "\"");
+            append(json, "year", year);
+            append(json, "price", price);
+            source.put(id, json.append('}').toString());
+        }
+        EndpointIndex index = new EndpointIndex(DEFINITION);
+        Filter all = index.filter(Map.of());
+
+        for (String sort : new String[] {"year,-price", "-make,price,year", "price,make", "-year,-make,-price"})
+        {
+            int[] expected = expected(values, sort);
+            assertEquals(Arrays.toString(expected), Arrays.toString(index.sorted(all, index.sort(sort), 0, count, source.version(), source)), sort);
+            for (int offset = 0; offset < count; offset += 37)
+            {
+                int[] page = index.sorted(all, index.sort(sort), offset, 25, source.version(), source);
+                assertArrayEquals(Arrays.copyOfRange(expected, offset, Math.min(count, offset + 25)), page);
+            }
+        }
+    }
+
+    private static void append(StringBuilder json, String field, Object value)
+    {
+        if (value != null)
+        {
+            json.append(json.length() > 1 ? "," : "").append('"').append(field).append("\":").append(value);
+        }
+    }
+
+    /* The order of the sort by a plain comparison of every entry, with the rules of Sort */
+    @SuppressWarnings("unchecked")
+    private static int[] expected(Object[][] values, String sort)
+    {
+        List<String> fields = List.of("make", "year", "price");
+        Comparator<Integer> order = (first, second) -> 0;
+        for (String key : sort.split(","))
+        {
+            boolean descending = key.startsWith("-");
+            int field = fields.indexOf(descending ? key.substring(1) : key);
+            order = order.thenComparing((first, second) -> {
+                Comparable<Object> a = (Comparable<Object>) values[first][field];
+                Object b = values[second][field];
+                if (a == null || b == null)
+                {
+                    return a == b ? 0 : a == null ? 1 : -1;
+                }
+                return descending ? -a.compareTo(b) : a.compareTo(b);
+            });
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id < values.length; id++)
+        {
+            ids.add(id);
+        }
+        ids.sort(order.thenComparing(Integer::compare));
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /*
+     * 1 audi 2020 30.5, 2 bmw 2018 -4.0, 3 audi 2018 0.0, 4 null "new" 12, 5 audi 2020 12,
+     * 6 no fields, 7 bmw 2018 no price
+     */
+    private static StoreEntries cars()
+    {
+        StoreEntries source = new StoreEntries();
+        source.put(1, "{\"make\":\"audi\",\"year\":2020,\"price\":30.5}");
+        source.put(2, "{\"make\":\"bmw\",\"year\":2018,\"price\":-4.0}");
+        source.put(3, "{\"make\":\"audi\",\"year\":2018,\"price\":0.0}");
+        source.put(4, "{\"make\":null,\"year\":\"new\",\"price\":12}");
+        source.put(5, "{\"make\":\"audi\",\"year\":2020,\"price\":12}");
+        source.put(6, "{}");
+        source.put(7, "{\"make\":\"bmw\",\"year\":2018}");
+        return source;
+    }
+
+    private static String sorted(EndpointIndex index, StoreEntries source, String sort, int offset, int limit)
+    {
+        return Arrays.toString(index.sorted(index.filter(Map.of()), index.sort(sort), offset, limit, source.version(), source));
+    }
+}
@@ -0,0 +1,68 @@
+package com.mock.api.query;
+
+import com.mock.database.store.EndpointStore.EntryVisitor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * The entries of a store for the {@link EndpointIndex} tests, counting its writes and scans.
+ */
+final class StoreEntries implements EndpointIndex.EntrySource
+{
+    private final Map<Integer, byte[]> entries = new ConcurrentSkipListMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private int scans;
+
+    void put(int id, String json)
+    {
+        entries.put(id, json.getBytes(StandardCharsets.UTF_8));
+        version.incrementAndGet();
+    }
+
+    void remove(int id)
+    {
+        entries.remove(id);
+        version.incrementAndGet();
+    }
+
+    void forEach(BiConsumer<Integer, byte[]> action)
+    {
+        entries.forEach(action);
+    }
+
+    int getScans()
+    {
+        return scans;
+    }
+
+    @Override
+    public void scan(EntryVisitor visitor)
+    {
+        scans++;
+        new LinkedHashMap<>(entries).forEach(visitor::visit);
+    }
+
+    @Override
+    public void read(int[] ids, EntryVisitor visitor)
+    {
+        for (int id : ids)
+        {
+            byte[] data = entries.get(id);
+            if (data != null)
+            {
+                visitor.visit(id, data);
+            }
+        }
+    }
+
+    @Override
+    public long version()
+    {
+        return version.get();
+    }
+}
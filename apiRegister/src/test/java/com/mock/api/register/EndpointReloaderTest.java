@@ -0,0 +1,86 @@
+package com.mock.api.register;
+
+import com.mock.api.cache.ResponseCache;
+import com.mock.api.metrics.EndpointMetrics;
+import com.mock.api.shaping.ResponseShaper;
+import com.mock.database.store.DataStore;
+import com.mock.database.store.IdAllocator;
+import com.mock.database.store.memory.InMemoryDataStore;
+import com.mock.generator.DataGeneratorService;
+import com.mock.generator.virtual.VirtualDatasetService;
+import com.mock.model.DatasetMode;
+import com.mock.model.DefinitionsReloadedEvent;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.MockApiDefinitionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static com.mock.database.store.TestData.text;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointReloaderTest
+{
+    private static final Map<String, String> FIELDS = Map.of("make", "string", "year", "integer");
+
+    @Test
+    void checkChangedVirtualEndpoint() throws IOException
+    {
+        DataStore dataStore = new InMemoryDataStore();
+        IdAllocator idAllocator = new IdAllocator(dataStore);
+        MockApiDefinitionRegistry definitionRegistry = new MockApiDefinitionRegistry();
+        DataGeneratorService generator = new DataGeneratorService(dataStore, idAllocator, definitionRegistry, 100);
+        VirtualDatasetService virtualDatasetService = new VirtualDatasetService(generator, dataStore, idAllocator);
+        ResponseCache responseCache = new ResponseCache(true, 1 << 20);
+        ResponseShaper responseShaper = new ResponseShaper(5, 64, 1);
+        DynamicRequestHandler requestHandler = new DynamicRequestHandler(virtualDatasetService, responseCache,
+                definitionRegistry, dataStore, 100, 1000, 1000, 1000, 4096, false, 1024);
+        RouterRequestHandler router = new RouterRequestHandler(requestHandler, responseShaper);
+        EndpointMetrics metrics = new EndpointMetrics(new SimpleMeterRegistry(), responseCache, responseShaper, false, false, 1000);
+        DynamicEndpointRegistrar registrar = new DynamicEndpointRegistrar(definitionRegistry, null, requestHandler,
+                dataStore, idAllocator, router, responseShaper, metrics, responseCache, "router");
+        EndpointReloader reloader = new EndpointReloader(definitionRegistry, registrar, generator, virtualDatasetService);
+
+        reloader.onDefinitionsReloaded(event(cars(42L)));
+        ResponseEntity<?> first = get(router, null);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertEquals(HttpStatus.NOT_MODIFIED, get(router, etag).getStatusCode());
+
+        // Another seed computes other entries while the store, empty either way, stays at the same version
+        reloader.onDefinitionsReloaded(event(cars(43L)));
+        assertEquals(0, dataStore.forEndpoint("cars").version());
+        ResponseEntity<?> second = get(router, etag);
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertNotEquals(etag, second.getHeaders().getETag());
+        assertNotEquals(text((byte[]) first.getBody()), text((byte[]) second.getBody()));
+        assertArrayEquals((byte[]) second.getBody(), virtualDatasetService.find(cars(43L), 1).orElseThrow());
+    }
+
+    private static MockApiDefinition cars(long seed)
+    {
+        return new MockApiDefinition("cars", "cars", FIELDS, "all", 5, DatasetMode.VIRTUAL, seed);
+    }
+
+    private static DefinitionsReloadedEvent event(MockApiDefinition definition)
+    {
+        return new DefinitionsReloadedEvent(EndpointReloaderTest.class, List.of(definition));
+    }
+
+    private static ResponseEntity<?> get(RouterRequestHandler router, String ifNoneMatch) throws IOException
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cars/1");
+        if (ifNoneMatch != null)
+        {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return (ResponseEntity<?>) router.dispatch(request, null);
+    }
+}
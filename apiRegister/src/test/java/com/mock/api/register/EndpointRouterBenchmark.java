@@ -0,0 +1,146 @@
+package com.mock.api.register;
+
+import com.mock.api.cache.ResponseCache;
+import com.mock.api.metrics.EndpointMetrics;
+import com.mock.api.shaping.ResponseShaper;
+import com.mock.database.store.IdAllocator;
+import com.mock.database.store.memory.InMemoryDataStore;
+import com.mock.model.MockApiDefinition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures the routing cost of {@code mock.routing.mode=router} against per-endpoint mappings at
+ * 10, 1k and 50k endpoints. Run with {@code main}; not part of the test suite.
+ * <p>
+ * The mapping side reproduces what {@code RequestMappingHandlerMapping} has to do for an item path
+ * such as {@code /api/cars/12}: it is no direct path, so every registered {@code /{id}} pattern is a
+ * candidate and is matched in turn. The router resolves the same path with one hash lookup per
+ * segment. Both sides resolve the same random item paths; collection paths are direct lookups for
+ * Spring as well, so they are left out.
+ */
+public final class EndpointRouterBenchmark
+{
+    private static final int[] ENDPOINT_COUNTS = {10, 1_000, 50_000};
+    private static final int PATHS = 4_096;
+
+    private EndpointRouterBenchmark()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        for (int endpoints : ENDPOINT_COUNTS)
+        {
+            run(endpoints);
+        }
+    }
+
+    private static void run(int endpoints)
+    {
+        InMemoryDataStore dataStore = new InMemoryDataStore();
+        IdAllocator idAllocator = new IdAllocator(dataStore);
+        EndpointRouter router = new EndpointRouter();
+        // Disabled, so only the routing itself is measured
+        EndpointMetrics metrics = new EndpointMetrics(new SimpleMeterRegistry(), new ResponseCache(false, 0), new ResponseShaper(5, 1024, 1), false, false, 0);
+        List<PathPattern> patterns = new ArrayList<>();
+        PathPatternParser parser = new PathPatternParser();
+
+        long registerStart = System.nanoTime();
+        for (int i = 0; i < endpoints; i++)
+        {
+            MockApiDefinition definition = new MockApiDefinition("endpoint" + i, "endpoint" + i, Map.of("name", "String"), "all", 0);
+            router.add(EndpointContext.bind(definition, dataStore, idAllocator, metrics), definition.getMethods());
+        }
+        long routerRegisterMillis = (System.nanoTime() - registerStart) / 1_000_000;
+
+        registerStart = System.nanoTime();
+        for (int i = 0; i < endpoints; i++)
+        {
+            patterns.add(parser.parse("/api/endpoint" + i + "/{id}"));
+        }
+        long patternRegisterMillis = (System.nanoTime() - registerStart) / 1_000_000;
+
+        String[] relativePaths = new String[PATHS];
+        PathContainer[] fullPaths = new PathContainer[PATHS];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < PATHS; i++)
+        {
+            String path = "endpoint" + random.nextInt(endpoints) + "/" + random.nextInt(1, 1000);
+            relativePaths[i] = path;
+            fullPaths[i] = PathContainer.parsePath("/api/" + path);
+        }
+
+        // Enough rounds for the JIT, fewer for the slow side at 50k so a run stays short
+        int patternRounds = Math.max(1, 2_000_000 / (PATHS * endpoints / 10 + 1));
+        double routerNanos = measure(() -> routeAll(router, relativePaths), 200);
+        double patternNanos = measure(() -> matchAll(patterns, fullPaths), patternRounds);
+
+        System.out.printf("%,7d endpoints | router: %,10.1f ns/request, registered in %,d ms | per-endpoint patterns: %,12.1f ns/request, parsed in %,d ms%n",
+                          endpoints, routerNanos / PATHS, routerRegisterMillis, patternNanos / PATHS, patternRegisterMillis);
+    }
+
+    private static int routeAll(EndpointRouter router, String[] paths)
+    {
+        int found = 0;
+        for (String path : paths)
+        {
+            if (router.match(path) != null)
+            {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static int matchAll(List<PathPattern> patterns, PathContainer[] paths)
+    {
+        int found = 0;
+        for (PathContainer path : paths)
+        {
+            for (PathPattern pattern : patterns)
+            {
+                if (pattern.matches(path))
+                {
+                    found++;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /* Returns the nanoseconds per round, after as many warm-up rounds as measured ones */
+    private static double measure(Round round, int rounds)
+    {
+        int sink = 0;
+        for (int i = 0; i < rounds; i++)
+        {
+            sink += round.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++)
+        {
+            sink += round.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == 42)
+        {
+            System.out.print("");
+        }
+        return (double) elapsed / rounds;
+    }
+
+    @FunctionalInterface
+    private interface Round
+    {
+        int run();
+    }
+}
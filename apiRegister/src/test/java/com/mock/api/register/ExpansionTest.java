@@ -0,0 +1,133 @@
+package com.mock.api.register;
+
+import com.mock.api.cache.ResponseCache;
+import com.mock.api.metrics.EndpointMetrics;
+import com.mock.api.shaping.ResponseShaper;
+import com.mock.database.store.DataStore;
+import com.mock.database.store.IdAllocator;
+import com.mock.database.store.memory.InMemoryDataStore;
+import com.mock.generator.DataGeneratorService;
+import com.mock.generator.virtual.VirtualDatasetService;
+import com.mock.model.DatasetMode;
+import com.mock.model.DefinitionsReloadedEvent;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.MockApiDefinitionRegistry;
+import com.mock.model.schema.ObjectSchema;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static com.mock.database.store.TestData.bytes;
+import static com.mock.database.store.TestData.text;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpansionTest
+{
+    private RouterRequestHandler router;
+
+    @BeforeEach
+    void setUp()
+    {
+        DataStore dataStore = new InMemoryDataStore();
+        IdAllocator idAllocator = new IdAllocator(dataStore);
+        MockApiDefinitionRegistry definitionRegistry = new MockApiDefinitionRegistry();
+        DataGeneratorService generator = new DataGeneratorService(dataStore, idAllocator, definitionRegistry, 100);
+        VirtualDatasetService virtualDatasetService = new VirtualDatasetService(generator, dataStore, idAllocator);
+        ResponseCache responseCache = new ResponseCache(true, 1 << 20);
+        ResponseShaper responseShaper = new ResponseShaper(5, 64, 1);
+        DynamicRequestHandler requestHandler = new DynamicRequestHandler(virtualDatasetService, responseCache,
+                definitionRegistry, dataStore, 100, 1000, 1000, 1000, 4096, false, 1024);
+        router = new RouterRequestHandler(requestHandler, responseShaper);
+        EndpointMetrics metrics = new EndpointMetrics(new SimpleMeterRegistry(), responseCache, responseShaper, false, false, 1000);
+        DynamicEndpointRegistrar registrar = new DynamicEndpointRegistrar(definitionRegistry, null, requestHandler,
+                dataStore, idAllocator, router, responseShaper, metrics, responseCache, "router");
+        EndpointReloader reloader = new EndpointReloader(definitionRegistry, registrar, generator, virtualDatasetService);
+
+        ObjectSchema cars = ObjectSchema.compile(Map.of("make", "string",
+                "ownerId", Map.of("type", "reference", "endpoint", "people", "as", "owner")));
+        reloader.onDefinitionsReloaded(new DefinitionsReloadedEvent(ExpansionTest.class, List.of(
+                new MockApiDefinition("people", "people", Map.of("name", "string"), "all", 3),
+                new MockApiDefinition("cars", "cars", cars, "all", 0, DatasetMode.STORED, 0L, null, null))));
+    }
+
+    @Test
+    void checkEmbeddedEntries() throws IOException
+    {
+        assertEquals(HttpStatus.CREATED, send("POST", "/api/cars", "{\"make\":\"audi\",\"ownerId\":2}").getStatusCode());
+        assertEquals(HttpStatus.CREATED, send("POST", "/api/cars", "{\"make\":\"bmw\",\"ownerId\":99}").getStatusCode());
+        String owner = body(get("/api/people/2", null, null));
+
+        String audi = body(get("/api/cars/1", null, null));
+        assertEquals(embed(audi, owner), body(get("/api/cars/1", "owner", null)));
+        // A reference without an entry is embedded as null
+        String bmw = body(get("/api/cars/2", null, null));
+        assertEquals(embed(bmw, "null"), body(get("/api/cars/2", "owner", null)));
+        // Pages embed the entries of all their references
+        assertEquals("[" + embed(audi, owner) + "," + embed(bmw, "null") + "]", body(get("/api/cars", "owner", null)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, get("/api/cars/1", "driver", null).getStatusCode());
+    }
+
+    @Test
+    void checkReferencedWrite() throws IOException
+    {
+        send("POST", "/api/cars", "{\"make\":\"audi\",\"ownerId\":2}");
+        ResponseEntity<?> flat = get("/api/cars/1", null, null);
+        ResponseEntity<?> expanded = get("/api/cars/1", "owner", null);
+        String etag = expanded.getHeaders().getETag();
+        assertNotEquals(flat.getHeaders().getETag(), etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, get("/api/cars/1", "owner", etag).getStatusCode());
+
+        // A write to the referenced endpoint changes the expanded response only
+        assertEquals(HttpStatus.OK, send("PUT", "/api/people/2", "{\"name\":\"Ada\"}").getStatusCode());
+        ResponseEntity<?> changed = get("/api/cars/1", "owner", etag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+        assertEquals(embed(body(flat), body(get("/api/people/2", null, null))), body(changed));
+        assertTrue(body(changed).contains("\"Ada\""));
+        assertEquals(HttpStatus.NOT_MODIFIED, get("/api/cars/1", null, flat.getHeaders().getETag()).getStatusCode());
+    }
+
+    /* The entry with the relation appended, as Expansion writes it */
+    private static String embed(String entry, String related)
+    {
+        return entry.substring(0, entry.lastIndexOf('}')) + ",\"owner\":" + related + "}";
+    }
+
+    private static String body(ResponseEntity<?> response)
+    {
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody() instanceof byte[] data ? text(data) : (String) response.getBody();
+    }
+
+    private ResponseEntity<?> get(String uri, String expand, String ifNoneMatch) throws IOException
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (expand != null)
+        {
+            request.setQueryString("expand=" + expand);
+            request.addParameter("expand", expand);
+        }
+        if (ifNoneMatch != null)
+        {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return (ResponseEntity<?>) router.dispatch(request, null);
+    }
+
+    private ResponseEntity<?> send(String method, String uri, String json) throws IOException
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setContentType("application/json");
+        request.setContent(bytes(json));
+        return (ResponseEntity<?>) router.dispatch(request, null);
+    }
+}
@@ -0,0 +1,93 @@
+package com.mock.api.register;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportWriterTest
+{
+    @Test
+    void checkFormats() throws IOException
+    {
+        assertEquals("[{\"id\":1},{\"id\":2}]", export(ExportFormat.JSON, 64, "{\"id\":1}", "{\"id\":2}"));
+        assertEquals("[]", export(ExportFormat.JSON, 64));
+        assertEquals("{\"id\":1}\n{\"id\":2}\n", export(ExportFormat.NDJSON, 64, "{\"id\":1}", "{\"id\":2}"));
+        assertEquals("", export(ExportFormat.NDJSON, 64));
+    }
+
+    @Test
+    void checkChunks() throws IOException
+    {
+        // Entries larger than the buffer are written through, the others go out a buffer at a time
+        String large = "{\"name\":\"" + "x".repeat(40) + "\"}";
+        assertEquals("[{\"id\":1}," + large + ",{\"id\":3}]", export(ExportFormat.JSON, 16, "{\"id\":1}", large, "{\"id\":3}"));
+
+        CountingStream out = new CountingStream();
+        ExportWriter writer = new ExportWriter(out, ExportFormat.NDJSON, 32);
+        writer.begin();
+        for (int i = 0; i < 100; i++)
+        {
+            writer.visit(i + 1, "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        }
+        assertTrue(out.writes > 10, "writes: " + out.writes);
+        assertTrue(out.largest <= 32, "largest write: " + out.largest);
+        assertEquals(100, writer.finish());
+        assertEquals(900, out.bytes);
+    }
+
+    @Test
+    void checkWriteFailures()
+    {
+        OutputStream closed = new OutputStream()
+        {
+            @Override
+            public void write(int b) throws IOException
+            {
+                throw new IOException("Broken pipe");
+            }
+        };
+        ExportWriter writer = new ExportWriter(closed, ExportFormat.JSON, 4);
+        writer.begin();
+        assertThrows(UncheckedIOException.class, () -> writer.visit(1, "{\"id\":1}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String export(ExportFormat format, int bufferSize, String... entries) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ExportWriter writer = new ExportWriter(out, format, bufferSize);
+        writer.begin();
+        for (int i = 0; i < entries.length; i++)
+        {
+            writer.visit(i + 1, entries[i].getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(entries.length, writer.finish());
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static final class CountingStream extends OutputStream
+    {
+        private int writes;
+        private int largest;
+        private long bytes;
+
+        @Override
+        public void write(int b)
+        {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            writes++;
+            largest = Math.max(largest, len);
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.mock.api.register;
+
+import com.mock.api.cache.ResponseCache;
+import com.mock.api.metrics.EndpointMetrics;
+import com.mock.api.shaping.ResponseShaper;
+import com.mock.database.store.DataStore;
+import com.mock.database.store.IdAllocator;
+import com.mock.database.store.memory.InMemoryDataStore;
+import com.mock.generator.DataGeneratorService;
+import com.mock.generator.virtual.VirtualDatasetService;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.MockApiDefinitionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static com.mock.database.store.TestData.bytes;
+import static com.mock.database.store.TestData.text;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GzipResponseTest
+{
+    private static final int MIN_SIZE = 512;
+
+    @Test
+    void checkAcceptEncoding()
+    {
+        assertTrue(ResponseBodies.acceptsGzip("gzip"));
+        assertTrue(ResponseBodies.acceptsGzip("deflate, GZIP;q=0.5, br"));
+        assertTrue(ResponseBodies.acceptsGzip("gzip;q=1.0"));
+        assertFalse(ResponseBodies.acceptsGzip(null));
+        assertFalse(ResponseBodies.acceptsGzip("deflate, br"));
+        assertFalse(ResponseBodies.acceptsGzip("gzip;q=0"));
+        assertFalse(ResponseBodies.acceptsGzip("br, gzip; q=0.000"));
+    }
+
+    @Test
+    void checkMinSize() throws Exception
+    {
+        RouterRequestHandler router = router(true);
+        post(router, "{\"name\":\"Ada\"}");
+
+        // Below the threshold the body is sent as it is, and only its own ETag matches
+        ResponseEntity<?> small = get(router, "/api/people/1", "gzip", null);
+        assertEquals(HttpStatus.OK, small.getStatusCode());
+        assertNull(small.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, small.getHeaders().getFirst(HttpHeaders.VARY));
+        assertFalse(small.getHeaders().getETag().endsWith("-gz\""));
+        assertEquals("{\"name\":\"Ada\"}", text((byte[]) small.getBody()));
+        assertEquals(HttpStatus.NOT_MODIFIED, get(router, "/api/people/1", "gzip", small.getHeaders().getETag()).getStatusCode());
+    }
+
+    @Test
+    void checkNegotiation() throws Exception
+    {
+        RouterRequestHandler router = router(true);
+        postMany(router);
+
+        ResponseEntity<?> plain = get(router, "/api/people", null, null);
+        ResponseEntity<?> refused = get(router, "/api/people", "gzip;q=0, deflate", null);
+        ResponseEntity<?> gzipped = get(router, "/api/people", "deflate, gzip", null);
+        byte[] body = (byte[]) plain.getBody();
+        assertTrue(body.length >= MIN_SIZE);
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(body, (byte[]) refused.getBody());
+        assertEquals(plain.getHeaders().getETag(), refused.getHeaders().getETag());
+
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(body, gunzip((byte[]) gzipped.getBody()));
+        assertTrue(((byte[]) gzipped.getBody()).length < body.length);
+        for (ResponseEntity<?> response : new ResponseEntity<?>[] {plain, refused, gzipped})
+        {
+            assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaders().getFirst(HttpHeaders.VARY));
+        }
+    }
+
+    @Test
+    void checkGzipEtag() throws Exception
+    {
+        RouterRequestHandler router = router(true);
+        postMany(router);
+
+        String etag = get(router, "/api/people", null, null).getHeaders().getETag();
+        String gzipEtag = get(router, "/api/people", "gzip", null).getHeaders().getETag();
+        assertEquals(etag.substring(0, etag.length() - 1) + "-gz\"", gzipEtag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, get(router, "/api/people", "gzip", gzipEtag).getStatusCode());
+        assertEquals(gzipEtag, get(router, "/api/people", "gzip", gzipEtag).getHeaders().getETag());
+        // Either tag names the same data, so a client that got the plain body may keep it even when it accepts gzip
+        assertEquals(HttpStatus.NOT_MODIFIED, get(router, "/api/people", "gzip", etag).getStatusCode());
+        // A client that does not accept gzip never holds the gzip encoding
+        ResponseEntity<?> plain = get(router, "/api/people", null, gzipEtag);
+        assertEquals(HttpStatus.OK, plain.getStatusCode());
+        assertEquals(etag, plain.getHeaders().getETag());
+
+        // A write changes both tags
+        post(router, "{\"name\":\"Grace\"}");
+        ResponseEntity<?> changed = get(router, "/api/people", "gzip", gzipEtag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(gzipEtag, changed.getHeaders().getETag());
+        assertTrue(changed.getHeaders().getETag().endsWith("-gz\""));
+    }
+
+    @Test
+    void checkDisabled() throws Exception
+    {
+        RouterRequestHandler router = router(false);
+        postMany(router);
+
+        ResponseEntity<?> response = get(router, "/api/people", "gzip", null);
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.VARY));
+        assertFalse(response.getHeaders().getETag().endsWith("-gz\""));
+    }
+
+    private static RouterRequestHandler router(boolean gzipEnabled) throws NoSuchMethodException
+    {
+        DataStore dataStore = new InMemoryDataStore();
+        IdAllocator idAllocator = new IdAllocator(dataStore);
+        MockApiDefinitionRegistry definitionRegistry = new MockApiDefinitionRegistry();
+        DataGeneratorService generator = new DataGeneratorService(dataStore, idAllocator, definitionRegistry, 100);
+        VirtualDatasetService virtualDatasetService = new VirtualDatasetService(generator, dataStore, idAllocator);
+        ResponseCache responseCache = new ResponseCache(true, 1 << 20);
+        ResponseShaper responseShaper = new ResponseShaper(5, 64, 1);
+        DynamicRequestHandler requestHandler = new DynamicRequestHandler(virtualDatasetService, responseCache,
+                definitionRegistry, dataStore, 100, 1000, 1000, 1000, 4096, gzipEnabled, MIN_SIZE);
+        RouterRequestHandler router = new RouterRequestHandler(requestHandler, responseShaper);
+        EndpointMetrics metrics = new EndpointMetrics(new SimpleMeterRegistry(), responseCache, responseShaper, false, false, 1000);
+        DynamicEndpointRegistrar registrar = new DynamicEndpointRegistrar(definitionRegistry, null, requestHandler,
+                dataStore, idAllocator, router, responseShaper, metrics, responseCache, "router");
+        MockApiDefinition people = new MockApiDefinition("people", "people", Map.of("name", "string"), "all", 0);
+        definitionRegistry.addDefinition(people);
+        registrar.registerEndpoint(people);
+        return router;
+    }
+
+    /* Enough entries for the collection to pass the threshold */
+    private static void postMany(RouterRequestHandler router) throws IOException
+    {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 40; i++)
+        {
+            json.append(i == 0 ? "" : ",").append("{\"name\":\"Person number ").append(i).append("\"}");
+        }
+        post(router, json.append(']').toString());
+    }
+
+    private static void post(RouterRequestHandler router, String json) throws IOException
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/people");
+        request.setContentType("application/json");
+        request.setContent(bytes(json));
+        assertEquals(HttpStatus.CREATED, ((ResponseEntity<?>) router.dispatch(request, null)).getStatusCode());
+    }
+
+    private static ResponseEntity<?> get(RouterRequestHandler router, String uri, String acceptEncoding, String ifNoneMatch)
+            throws IOException
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (acceptEncoding != null)
+        {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null)
+        {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return (ResponseEntity<?>) router.dispatch(request, null);
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException
+    {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data)))
+        {
+            return in.readAllBytes();
+        }
+    }
+}
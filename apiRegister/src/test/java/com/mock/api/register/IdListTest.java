@@ -0,0 +1,46 @@
+package com.mock.api.register;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdListTest
+{
+    @Test
+    void checkParse()
+    {
+        assertArrayEquals(new int[] {1}, IdList.parse("1", 3));
+        // Sorted and distinct, as the stores take them
+        assertArrayEquals(new int[] {2, 5, 9}, IdList.parse(" 9, 2,5 ,2", 4));
+    }
+
+    @Test
+    void checkPathIds()
+    {
+        assertEquals(42, IdList.parseId("42"));
+        assertEquals(Integer.MAX_VALUE, IdList.parseId("2147483647"));
+        // Numbers no entry can have are answered like a missing entry
+        assertEquals(IdList.NO_SUCH_ID, IdList.parseId("0"));
+        assertEquals(IdList.NO_SUCH_ID, IdList.parseId("-3"));
+        assertEquals(IdList.NO_SUCH_ID, IdList.parseId("2147483648"));
+        assertEquals(IdList.NO_SUCH_ID, IdList.parseId("99999999999999999999999"));
+
+        assertThrows(IllegalArgumentException.class, () -> IdList.parseId("abc"));
+        assertThrows(IllegalArgumentException.class, () -> IdList.parseId("12a"));
+        assertThrows(IllegalArgumentException.class, () -> IdList.parseId("-"));
+        assertThrows(IllegalArgumentException.class, () -> IdList.parseId(""));
+        assertThrows(IllegalArgumentException.class, () -> IdList.parseId(" 1"));
+    }
+
+    @Test
+    void checkInvalidLists()
+    {
+        assertThrows(IllegalArgumentException.class, () -> IdList.parse(null, 3));
+        assertThrows(IllegalArgumentException.class, () -> IdList.parse(" ", 3));
+        assertThrows(IllegalArgumentException.class, () -> IdList.parse("1,2,3,4", 3));
+        assertThrows(IllegalArgumentException.class, () -> IdList.parse("1,,2", 3));
+        assertThrows(IllegalArgumentException.class, () -> IdList.parse("1,a", 3));
+        assertThrows(IllegalArgumentException.class, () -> IdList.parse("0", 3));
+        assertThrows(IllegalArgumentException.class, () -> IdList.parse("-4", 3));
+    }
+}
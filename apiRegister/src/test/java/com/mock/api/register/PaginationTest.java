@@ -0,0 +1,64 @@
+package com.mock.api.register;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaginationTest
+{
+    @Test
+    void checkLimits()
+    {
+        Pagination defaults = Pagination.from(request(null), 20, 100);
+        assertEquals(20, defaults.getLimit());
+        assertEquals(0, defaults.getCursor());
+        assertFalse(defaults.isOffsetBased());
+
+        assertEquals(100, Pagination.from(request("limit=5000"), 20, 100).getLimit());
+        assertEquals(7, Pagination.from(request("limit=%207"), 20, 100).getLimit());
+        assertEquals(30, Pagination.from(request("cursor=30"), 20, 100).getCursor());
+        assertTrue(Pagination.from(request("offset=40"), 20, 100).isOffsetBased());
+    }
+
+    @Test
+    void checkInvalidParameters()
+    {
+        assertThrows(IllegalArgumentException.class, () -> Pagination.from(request("limit=0"), 20, 100));
+        assertThrows(IllegalArgumentException.class, () -> Pagination.from(request("limit=-1"), 20, 100));
+        assertThrows(IllegalArgumentException.class, () -> Pagination.from(request("limit=ten"), 20, 100));
+        assertThrows(IllegalArgumentException.class, () -> Pagination.from(request("cursor=99999999999"), 20, 100));
+        assertThrows(IllegalArgumentException.class, () -> Pagination.from(request("cursor=1&offset=1"), 20, 100));
+        assertThrows(IllegalArgumentException.class, () -> Pagination.from(request("cursor=1&sort=name"), 20, 100));
+    }
+
+    @Test
+    void checkNextLinks()
+    {
+        // The page parameters are replaced, the others kept as they were sent
+        Pagination cursor = Pagination.from(request("name=a%20b&limit=10&cursor=5&fields=id"), 20, 100);
+        assertEquals("</api/users?name=a%20b&fields=id&limit=10&cursor=42>; rel=\"next\"", cursor.nextLink("/api/users", 42));
+
+        Pagination offset = Pagination.from(request("sort=-name&offset=20&limit=10"), 20, 100);
+        assertEquals("</api/users?sort=-name&limit=10&offset=30>; rel=\"next\"", offset.nextOffsetLink("/api/users"));
+
+        Pagination plain = Pagination.from(request(null), 20, 100);
+        assertEquals("</api/users?limit=20&cursor=20>; rel=\"next\"", plain.nextLink("/api/users", 20));
+    }
+
+    /* A request with the parameters of the (encoded) query string */
+    private static MockHttpServletRequest request(String query)
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.setQueryString(query);
+        if (query != null)
+        {
+            for (String parameter : query.split("&"))
+            {
+                String[] pair = parameter.split("=", 2);
+                request.addParameter(pair[0], pair[1].replace("%20", " "));
+            }
+        }
+        return request;
+    }
+}
@@ -0,0 +1,101 @@
+package com.mock.api.register;
+
+import com.mock.model.DatasetMode;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.schema.ObjectSchema;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordReaderTest
+{
+    private static final RecordReader READER = RecordReader.compile(definition());
+
+    private static MockApiDefinition definition()
+    {
+        Map<String, Object> address = new LinkedHashMap<>();
+        address.put("city", "string");
+        address.put("zip", Map.of("type", "string", "minLength", 5, "maxLength", 5));
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("name", "string");
+        fields.put("age", Map.of("type", "integer", "min", 0, "max", 150));
+        fields.put("score", "double");
+        fields.put("active", "boolean");
+        fields.put("level", Map.of("type", "string", "enum", List.of("low", "high")));
+        fields.put("address", Map.of("type", "object", "fields", address));
+        fields.put("tags", Map.of("type", "array", "items", "string", "maxItems", 2));
+        return new MockApiDefinition("people", "/api/people", ObjectSchema.compile(fields), "all", 0,
+                                     DatasetMode.STORED, 0L, null, null);
+    }
+
+    @Test
+    void checkValidRecords() throws IOException
+    {
+        String full = "{\"name\":\"Ann\",\"age\":30,\"score\":1.5,\"active\":true,\"level\":\"low\","
+                      + "\"address\":{\"city\":\"Oslo\",\"zip\":\"01234\"},\"tags\":[\"a\",\"b\"]}";
+        assertEquals(full, read(full));
+        // Compacted, in any field order, with any field left out
+        assertEquals("{\"age\":30,\"name\":\"Ann\"}", read(" {\n \"age\" : 30 , \"name\" : \"Ann\" } "));
+        assertEquals("{\"address\":{}}", read("{\"address\":{}}"));
+        assertEquals("{}", read("{}"));
+    }
+
+    @Test
+    void checkInvalidRecords()
+    {
+        assertInvalid("Unknown field: color", "{\"color\":\"red\"}");
+        assertInvalid("Unknown field: address.street", "{\"address\":{\"street\":\"Main\"}}");
+        assertInvalid("Duplicate field: name", "{\"name\":\"a\",\"name\":\"b\"}");
+        assertInvalid("Field age must be an integer", "{\"age\":\"30\"}");
+        assertInvalid("Field age must be an integer", "{\"age\":null}");
+        assertInvalid("Field age must be Integer between 0 and 150", "{\"age\":151}");
+        assertInvalid("Field active must be a boolean", "{\"active\":1}");
+        assertInvalid("Field address.zip must be", "{\"address\":{\"zip\":\"123\"}}");
+        assertInvalid("Field level must be", "{\"level\":\"mid\"}");
+        assertInvalid("Field tags must be an array of at most 2 items", "{\"tags\":[\"a\",\"b\",\"c\"]}");
+        assertInvalid("Field tags[] must be a string", "{\"tags\":[1]}");
+        assertInvalid("Expected a JSON object", "[]");
+        assertInvalid("Unexpected content after the JSON value", "{} {}");
+        assertInvalid("The request body is not valid JSON", "{\"name\":");
+    }
+
+    @Test
+    void checkRecords() throws IOException
+    {
+        RecordReader.Records single = READER.readRecords(body("{\"name\":\"a\"}"));
+        assertFalse(single.isArray());
+        assertEquals(1, single.getRecords().size());
+
+        RecordReader.Records array = READER.readRecords(body("[{\"name\":\"a\"}, {\"age\":2}]"));
+        assertTrue(array.isArray());
+        assertEquals("{\"age\":2}", new String(array.getRecords().get(1), StandardCharsets.UTF_8));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                                                  () -> READER.readRecords(body("[{\"name\":\"a\"}, {\"age\":-1}]")));
+        assertTrue(e.getMessage().startsWith("Element 1: "), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> READER.readRecords(body("[]")));
+    }
+
+    private static String read(String json) throws IOException
+    {
+        return new String(READER.readRecord(body(json)), StandardCharsets.UTF_8);
+    }
+
+    private static void assertInvalid(String message, String json)
+    {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> READER.readRecord(body(json)));
+        assertTrue(e.getMessage().startsWith(message), e.getMessage());
+    }
+
+    private static ByteArrayInputStream body(String json)
+    {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
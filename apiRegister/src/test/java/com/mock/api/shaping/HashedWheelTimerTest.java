@@ -0,0 +1,58 @@
+package com.mock.api.shaping;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedWheelTimerTest
+{
+    @Test
+    void checkTasksRunAfterTheirDelay() throws InterruptedException
+    {
+        // Eight 2 ms buckets, so the later delays take several rounds of the wheel
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 2, 8);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        long startNanos = System.nanoTime();
+        long[] ranAfter = new long[4];
+        int[] delays = {60, 0, 25, 40};
+        try
+        {
+            for (int i = 0; i < delays.length; i++)
+            {
+                int task = i;
+                timer.schedule(() -> {
+                    ranAfter[task] = System.nanoTime() - startNanos;
+                    order.add(delays[task]);
+                    done.countDown();
+                }, TimeUnit.MILLISECONDS.toNanos(delays[i]));
+            }
+            assertEquals(4, timer.pending());
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(0, 25, 40, 60), order);
+            for (int i = 0; i < delays.length; i++)
+            {
+                assertTrue(ranAfter[i] >= TimeUnit.MILLISECONDS.toNanos(delays[i]), "task " + i + " ran early");
+            }
+            assertEquals(0, timer.pending());
+        }
+        finally
+        {
+            timer.stop();
+        }
+        assertThrows(IllegalStateException.class, () -> timer.schedule(() -> { }, 0));
+    }
+
+    @Test
+    void checkInvalidArguments()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new HashedWheelTimer("test-timer", 0, 8));
+        assertThrows(IllegalArgumentException.class, () -> new HashedWheelTimer("test-timer", 1, 0));
+    }
+}
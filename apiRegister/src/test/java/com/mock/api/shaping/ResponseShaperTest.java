@@ -0,0 +1,68 @@
+package com.mock.api.shaping;
+
+import com.mock.model.DatasetMode;
+import com.mock.model.LatencyProfile;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.ThroughputLimit;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseShaperTest
+{
+    @Test
+    void checkDelayedCallRunsWhenDue() throws Exception
+    {
+        ResponseShaper shaper = new ResponseShaper(1, 64, 1);
+        EndpointShaping shaping = ResponseShaper.forDefinition(definition(LatencyProfile.fixed(40), null));
+        AtomicLong calledAt = new AtomicLong();
+        try
+        {
+            long startNanos = System.nanoTime();
+            Object result = shaper.shape(shaping, () -> {
+                calledAt.set(System.nanoTime());
+                return ResponseEntity.ok("done");
+            });
+
+            assertTrue(result instanceof DeferredResult);
+            assertEquals(0, calledAt.get());
+            DeferredResult<?> deferred = (DeferredResult<?>) result;
+            for (int i = 0; i < 500 && !deferred.hasResult(); i++)
+            {
+                Thread.sleep(10);
+            }
+            assertEquals(ResponseEntity.ok("done"), deferred.getResult());
+            assertTrue(calledAt.get() - startNanos >= 40_000_000L, "called before the delay");
+        }
+        finally
+        {
+            shaper.stop();
+        }
+    }
+
+    @Test
+    void checkUnshapedAndRejectedCalls() throws Exception
+    {
+        ResponseShaper shaper = new ResponseShaper(5, 64, 1);
+        assertNull(ResponseShaper.forDefinition(definition(null, null)));
+        assertEquals(ResponseEntity.ok("now"), shaper.shape(null, () -> ResponseEntity.ok("now")));
+
+        EndpointShaping shaping = ResponseShaper.forDefinition(definition(null, new ThroughputLimit(1, 1, 0)));
+        assertEquals(ResponseEntity.ok("first"), shaper.shape(shaping, () -> ResponseEntity.ok("first")));
+        ResponseEntity<?> rejected = (ResponseEntity<?>) shaper.shape(shaping, () -> fail("called over the limit"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+        assertEquals("1", rejected.getHeaders().getFirst("Retry-After"));
+        assertEquals(1, shaping.getRejected());
+    }
+
+    private static MockApiDefinition definition(LatencyProfile latency, ThroughputLimit throughput)
+    {
+        return new MockApiDefinition("cars", "cars", Map.of("make", "string"), "all", 10, DatasetMode.STORED, 0L, latency, throughput);
+    }
+}
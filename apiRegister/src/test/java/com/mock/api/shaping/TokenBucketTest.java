@@ -0,0 +1,48 @@
+package com.mock.api.shaping;
+
+import com.mock.model.ThroughputLimit;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest
+{
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void checkBurstThenWait()
+    {
+        // 10 per second: a token every 100 ms, two at once, waits of up to 250 ms
+        long startNanos = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(new ThroughputLimit(10, 2, 250));
+
+        assertEquals(0, bucket.acquire());
+        assertEquals(0, bucket.acquire());
+        assertWait(INTERVAL, bucket.acquire(), startNanos);
+        assertWait(2 * INTERVAL, bucket.acquire(), startNanos);
+
+        // 300 ms would be over the maximum wait, and no token is taken
+        assertEquals(-1, bucket.acquire());
+        assertWait(3 * INTERVAL, bucket.nanosUntilAvailable(), startNanos);
+    }
+
+    /* The wait counts from the creation of the bucket, so it is shorter by the time passed since */
+    private static void assertWait(long expected, long wait, long startNanos)
+    {
+        long elapsed = System.nanoTime() - startNanos;
+        assertTrue(wait <= expected && wait >= expected - elapsed, "wait: " + wait + ", expected: " + expected);
+    }
+
+    @Test
+    void checkRefillOverTime() throws InterruptedException
+    {
+        TokenBucket bucket = new TokenBucket(new ThroughputLimit(50, 1, 0));
+
+        assertEquals(0, bucket.acquire());
+        assertEquals(-1, bucket.acquire());
+        Thread.sleep(25);
+        assertEquals(0, bucket.acquire());
+    }
+}
@@ -1,13 +1,26 @@
 package com.mock.database.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.Length;
 
+/*
+ * Every lookup goes through (endpoint, internalId); the unique constraint is backed by an index
+ * on exactly those columns, so point reads, deletes and ordered scans of one endpoint no longer
+ * scan the rows of all the others
+ */
 @Entity
-@Table(name = "generated_data")
+@Table(name = "generated_data",
+       uniqueConstraints = @UniqueConstraint(name = "uk_generated_data_endpoint_internal_id",
+                                             columnNames = {"endpoint", "internalId"}))
 public class GeneratedData
 {
+    /*
+     * Sequence-based IDs keep JDBC batching possible (IDENTITY disables it), and a large
+     * allocation size means the sequence is hit once per few hundred inserts
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "generated_data_seq")
+    @SequenceGenerator(name = "generated_data_seq", sequenceName = "generated_data_seq", allocationSize = 500)
     private Long id;
 
     @Column(name = "endpoint")
@@ -16,27 +29,27 @@ public class GeneratedData
     @Column(name = "internalId")
     private int internalId;
 
-
-    @Column(name = "data")
-    private String data;
+    /* The encoded entry body, see com.mock.database.store.jpa.PayloadFormat */
+    @Column(name = "data", length = Length.LONG32)
+    private byte[] data;
 
     public GeneratedData()
     {
         //nothing
     }
 
-    public GeneratedData(String endpoint, String data)
+    public GeneratedData(String endpoint, byte[] data)
     {
         this.endpoint = endpoint;
         this.data = data;
     }
 
-    public String getData()
+    public byte[] getData()
     {
         return data;
     }
 
-    public void setData(String data)
+    public void setData(byte[] data)
     {
         this.data = data;
     }
@@ -0,0 +1,23 @@
+package com.mock.database.repository;
+
+import com.mock.database.entity.GeneratedData;
+
+import java.util.List;
+
+/**
+ * Custom repository fragment for writing {@link GeneratedData} in bulk.
+ * <p>
+ * Unlike {@code saveAll}, the entities are persisted without a merge check and the
+ * persistence context is flushed only once per call, so Hibernate can group the
+ * inserts into JDBC batches (see {@code hibernate.jdbc.batch_size}).
+ */
+public interface GeneratedDataBatchRepository
+{
+    /**
+     * Persists all given entities in a single transaction and clears the persistence
+     * context afterward, so the entities are detached once this method returns.
+     *
+     * @param entities the new entities to insert; must not have an ID assigned yet
+     */
+    void insertBatch(List<GeneratedData> entities);
+}
@@ -0,0 +1,32 @@
+package com.mock.database.repository;
+
+import com.mock.database.entity.GeneratedData;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Default implementation of {@link GeneratedDataBatchRepository}, picked up by Spring Data
+ * through the {@code Impl} postfix.
+ */
+public class GeneratedDataBatchRepositoryImpl implements GeneratedDataBatchRepository
+{
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void insertBatch(List<GeneratedData> entities)
+    {
+        for (GeneratedData entity : entities)
+        {
+            entityManager.persist(entity);
+        }
+
+        // One flush per chunk lets Hibernate send the inserts as JDBC batches
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
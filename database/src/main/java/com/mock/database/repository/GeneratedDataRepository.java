@@ -1,9 +1,14 @@
 package com.mock.database.repository;
 
 import com.mock.database.entity.GeneratedData;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,11 +16,12 @@ import java.util.Optional;
  * Repository interface for managing {@link GeneratedData} entities.
  * This interface extends {@link JpaRepository} to provide standard CRUD operations
  * and additional methods for querying {@link GeneratedData} based on specific fields.
+ * Bulk inserts are provided by the {@link GeneratedDataBatchRepository} fragment.
  * <p>
  * It is annotated with {@link Repository} to indicate that it is a Spring Data repository.
  */
 @Repository
-public interface GeneratedDataRepository extends JpaRepository<GeneratedData, Long>
+public interface GeneratedDataRepository extends JpaRepository<GeneratedData, Long>, GeneratedDataBatchRepository
 {
     Optional<GeneratedData> findTopByEndpointOrderByInternalIdDesc(String endpoint);
 
@@ -26,6 +32,35 @@ public interface GeneratedDataRepository extends JpaRepository<GeneratedData, Lo
 
     List<GeneratedData> findByEndpoint(String endpoint);
 
+    /**
+     * Multi-get: the entries with the given internalIds, read with a single IN query.
+     */
+    List<GeneratedData> findByEndpointAndInternalIdInOrderByInternalIdAsc(String endpoint, Collection<Integer> internalIds);
+
+    /**
+     * Keyset page: the first {@code limit} entries after the given internalId, read through the
+     * (endpoint, internalId) index.
+     */
+    List<GeneratedData> findByEndpointAndInternalIdGreaterThanOrderByInternalIdAsc(String endpoint, int internalId, Limit limit);
+
+    @Query("select g from GeneratedData g where g.endpoint = :endpoint order by g.internalId asc limit :limit offset :offset")
+    List<GeneratedData> findPageByEndpoint(@Param("endpoint") String endpoint, @Param("offset") int offset, @Param("limit") int limit);
+
+    long countByEndpoint(String endpoint);
+
+    /**
+     * The total length in bytes of the endpoint's data, summed in the database.
+     */
+    @Query(value = "select coalesce(sum(octet_length(data)), 0) from generated_data where endpoint = :endpoint", nativeQuery = true)
+    long sumDataLengthByEndpoint(@Param("endpoint") String endpoint);
+
     long deleteByEndpointAndInternalId(String endpoint, int internalId);
 
+    /**
+     * Bulk delete in one statement, without loading the entities first.
+     */
+    @Modifying
+    @Query("delete from GeneratedData g where g.endpoint = :endpoint and g.internalId in :internalIds")
+    int deleteByEndpointAndInternalIdIn(@Param("endpoint") String endpoint, @Param("internalIds") Collection<Integer> internalIds);
+
 }
@@ -0,0 +1,21 @@
+package com.mock.database.store;
+
+/**
+ * Storage backend for the entries of the dynamic endpoints.
+ * <p>
+ * The backend is selected with {@code mock.storage.type}:
+ * <ul>
+ *     <li>{@code memory} (default) - entries live in primitive-keyed hash maps on the heap, see
+ *     {@link com.mock.database.store.memory.InMemoryDataStore}</li>
+ *     <li>{@code jpa} - entries are {@link com.mock.database.entity.GeneratedData} rows, see
+ *     {@link com.mock.database.store.jpa.JpaDataStore}</li>
+ * </ul>
+ */
+public interface DataStore
+{
+    /**
+     * Returns the store holding the entries of the given endpoint, creating it on first use.
+     * The same instance is returned for the same endpoint.
+     */
+    EndpointStore forEndpoint(String endpoint);
+}
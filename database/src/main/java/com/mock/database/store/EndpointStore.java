@@ -0,0 +1,115 @@
+package com.mock.database.store;
+
+import java.util.List;
+
+/**
+ * The entries of one endpoint, keyed by their internal ID. IDs are positive.
+ * <p>
+ * Entry bodies are pre-serialized UTF-8 JSON. Arrays passed in are owned by the store afterward
+ * and arrays returned must not be modified by the caller.
+ * Implementations are thread-safe.
+ */
+public interface EndpointStore
+{
+    String getEndpoint();
+
+    /**
+     * Returns the body stored under the ID, or null if there is none.
+     */
+    byte[] get(int internalId);
+
+    /**
+     * Passes the entries stored under the given IDs to the visitor, in ascending ID order, in one
+     * lookup. IDs without an entry are skipped.
+     *
+     * @param internalIds distinct IDs in ascending order
+     * @return the number of entries visited
+     */
+    int getAll(int[] internalIds, EntryVisitor visitor);
+
+    /**
+     * Stores the body under the ID, replacing any existing entry.
+     *
+     * @return true if an entry was replaced, false if a new one was created
+     */
+    boolean put(int internalId, byte[] data);
+
+    /**
+     * Inserts new entries in bulk. The IDs must not be in use yet.
+     */
+    void insertAll(List<StoredEntry> entries);
+
+    /**
+     * Removes the entry with the ID.
+     *
+     * @return true if an entry was removed
+     */
+    boolean delete(int internalId);
+
+    /**
+     * Removes the entries with the given IDs in one write.
+     *
+     * @param internalIds distinct IDs in ascending order
+     * @return the number of entries removed
+     */
+    int deleteAll(int[] internalIds);
+
+    /**
+     * Passes every entry to the visitor, in ascending ID order. The entries are read a chunk at a
+     * time, so memory use does not depend on the size of the store; entries written during the
+     * scan may or may not be visited.
+     */
+    void scan(EntryVisitor visitor);
+
+    /**
+     * Passes up to {@code limit} entries with an ID above {@code afterId} to the visitor, in
+     * ascending ID order. Only the requested entries are read, so the cost depends on the limit,
+     * not on the size of the store.
+     *
+     * @return the number of entries visited
+     */
+    int scanAfter(int afterId, int limit, EntryVisitor visitor);
+
+    /**
+     * Passes up to {@code limit} entries to the visitor, in ascending ID order, skipping the first
+     * {@code offset} ones. The skipped entries still have to be stepped over, prefer
+     * {@link #scanAfter} for deep pages.
+     *
+     * @return the number of entries visited
+     */
+    int scanOffset(int offset, int limit, EntryVisitor visitor);
+
+    /**
+     * Returns the highest ID in use, 0 for an empty store. Used to seed the endpoint's
+     * {@link IdSequence}; new IDs are allocated through the {@link IdAllocator}, not here.
+     */
+    int highestId();
+
+    /**
+     * Returns the number of entries.
+     */
+    int size();
+
+    /**
+     * Returns the total size in bytes of the stored bodies, as stored (deflated bodies count
+     * their deflated size). Meant for monitoring; a database store sums it with a query.
+     */
+    long byteSize();
+
+    /**
+     * Returns the write version of the endpoint: a counter advanced after every {@link #put},
+     * {@link #insertAll}, {@link #delete} and {@link #deleteAll} call, once the write is visible
+     * to readers. Read it before reading entries; while it is unchanged, so are the entries.
+     * Only writes made through this process are counted.
+     */
+    long version();
+
+    /**
+     * Receives the entries of a {@link #scan(EntryVisitor)} or of a page.
+     */
+    @FunctionalInterface
+    interface EntryVisitor
+    {
+        void visit(int internalId, byte[] data);
+    }
+}
@@ -0,0 +1,49 @@
+package com.mock.database.store;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out internal IDs for the entries of every endpoint.
+ * <p>
+ * Each endpoint has one {@link IdSequence}, seeded once from the highest ID in its
+ * {@link EndpointStore} and advanced atomically afterward. Allocating an ID is a single CAS:
+ * no query, and concurrent inserts on the same endpoint never receive the same ID.
+ */
+@Component
+public class IdAllocator
+{
+    private final DataStore dataStore;
+    private final Map<String, IdSequence> sequences = new ConcurrentHashMap<>();
+    private static final Logger LOG = LogManager.getLogger();
+
+    public IdAllocator(DataStore dataStore)
+    {
+        this.dataStore = dataStore;
+    }
+
+    /**
+     * Returns the sequence of the endpoint, seeding it from the store on first use.
+     */
+    public IdSequence forEndpoint(String endpoint)
+    {
+        return sequences.computeIfAbsent(endpoint, name -> {
+            int highestId = dataStore.forEndpoint(name).highestId();
+            LOG.debug("Seeded ID sequence for endpoint: {} at {}", name, highestId);
+            return new IdSequence(highestId);
+        });
+    }
+
+    /**
+     * Drops the sequence of the endpoint, so the next use seeds it from the store again. Used once
+     * the entries of an endpoint have been discarded.
+     */
+    public void reset(String endpoint)
+    {
+        sequences.remove(endpoint);
+    }
+}
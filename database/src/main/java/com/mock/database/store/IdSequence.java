@@ -0,0 +1,73 @@
+package com.mock.database.store;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The internal ID sequence of one endpoint. All operations are lock-free.
+ */
+public final class IdSequence
+{
+    private final AtomicInteger highest;
+
+    IdSequence(int highest)
+    {
+        this.highest = new AtomicInteger(highest);
+    }
+
+    /**
+     * Allocates the next ID.
+     *
+     * @throws IllegalStateException if every positive ID is taken
+     */
+    public int next()
+    {
+        return reserve(1);
+    }
+
+    /**
+     * Allocates {@code count} consecutive IDs at once. A range that would run past
+     * {@link Integer#MAX_VALUE} is not allocated at all, and the sequence is left as it was.
+     *
+     * @return the first ID of the range
+     * @throws IllegalStateException if fewer than {@code count} IDs are left
+     */
+    public int reserve(int count)
+    {
+        if (count < 0)
+        {
+            throw new IllegalArgumentException("The number of IDs must not be negative: " + count);
+        }
+        while (true)
+        {
+            int current = highest.get();
+            if (current > Integer.MAX_VALUE - count)
+            {
+                throw new IllegalStateException("Not enough IDs left for " + count + " more entries, the highest is " + current);
+            }
+            if (highest.compareAndSet(current, current + count))
+            {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Raises the high-water mark to the ID if it is above it, so an ID chosen by a client
+     * (e.g. through PUT) is never allocated again.
+     */
+    public void observe(int id)
+    {
+        if (highest.get() < id)
+        {
+            highest.accumulateAndGet(id, Math::max);
+        }
+    }
+
+    /**
+     * Returns the highest ID allocated or observed so far.
+     */
+    public int current()
+    {
+        return highest.get();
+    }
+}
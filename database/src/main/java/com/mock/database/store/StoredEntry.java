@@ -0,0 +1,26 @@
+package com.mock.database.store;
+
+/**
+ * An entry body together with its internal ID, as passed to {@link EndpointStore#insertAll}.
+ */
+public final class StoredEntry
+{
+    private final int internalId;
+    private final byte[] data;
+
+    public StoredEntry(int internalId, byte[] data)
+    {
+        this.internalId = internalId;
+        this.data = data;
+    }
+
+    public int getInternalId()
+    {
+        return internalId;
+    }
+
+    public byte[] getData()
+    {
+        return data;
+    }
+}
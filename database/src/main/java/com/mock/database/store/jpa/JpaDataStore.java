@@ -0,0 +1,95 @@
+package com.mock.database.store.jpa;
+
+import com.mock.database.repository.GeneratedDataRepository;
+import com.mock.database.store.DataStore;
+import com.mock.database.store.EndpointStore;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link DataStore} keeping the entries in the database, enabled with {@code mock.storage.type=jpa}.
+ * <p>
+ * With {@code mock.storage.jpa.layout=shared} (the default) all endpoints share the
+ * {@code generated_data} table and are accessed as {@link com.mock.database.entity.GeneratedData}
+ * rows through the {@link GeneratedDataRepository}. With {@code per-endpoint} every endpoint gets a
+ * {@code gd_<endpoint>} table of its own. Either way the bodies are encoded with the
+ * {@link PayloadFormat} set in {@code mock.storage.jpa.payload-format}.
+ */
+@Component
+@ConditionalOnProperty(name = "mock.storage.type", havingValue = "jpa")
+public class JpaDataStore implements DataStore
+{
+    private final GeneratedDataRepository generatedDataRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final PayloadFormat payloadFormat;
+    private final boolean tablePerEndpoint;
+    private final Map<String, EndpointStore> stores = new ConcurrentHashMap<>();
+    private static final Logger LOG = LogManager.getLogger();
+
+    public JpaDataStore(GeneratedDataRepository generatedDataRepository,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${mock.storage.jpa.payload-format:raw}") String payloadFormat,
+                        @Value("${mock.storage.jpa.layout:shared}") String layout)
+    {
+        this.generatedDataRepository = generatedDataRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.payloadFormat = PayloadFormat.fromString(payloadFormat);
+        this.tablePerEndpoint = switch (layout.trim().toLowerCase(Locale.ROOT))
+        {
+            case "shared" -> false;
+            case "per-endpoint" -> true;
+            default -> throw new IllegalArgumentException("Unsupported storage layout: " + layout);
+        };
+        LOG.info("Storing entries in {} with {} payloads",
+                 tablePerEndpoint ? "one table per endpoint" : "the generated_data table", this.payloadFormat);
+    }
+
+    @Override
+    public EndpointStore forEndpoint(String endpoint)
+    {
+        return stores.computeIfAbsent(endpoint, this::createStore);
+    }
+
+    private EndpointStore createStore(String endpoint)
+    {
+        if (!tablePerEndpoint)
+        {
+            return new JpaEndpointStore(endpoint, generatedDataRepository, writeTransaction, readTransaction, payloadFormat);
+        }
+
+        String table = tableName(endpoint);
+        LOG.debug("Using table {} for endpoint: {}", table, endpoint);
+        return new TableEndpointStore(endpoint, table, jdbcTemplate, writeTransaction, readTransaction, payloadFormat);
+    }
+
+    /*
+     * Endpoint names are not valid SQL identifiers in general, so the name is lower-cased and
+     * anything but letters, digits and underscores is replaced; a hash of the original name keeps
+     * the changed names apart
+     */
+    static String tableName(String endpoint)
+    {
+        String sanitized = endpoint.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_]", "_");
+        if (sanitized.equals(endpoint))
+        {
+            return "gd_" + sanitized;
+        }
+        return "gd_" + sanitized + "_" + Integer.toHexString(endpoint.hashCode());
+    }
+}
@@ -0,0 +1,204 @@
+package com.mock.database.store.jpa;
+
+import com.mock.database.entity.GeneratedData;
+import com.mock.database.repository.GeneratedDataRepository;
+import com.mock.database.store.EndpointStore;
+import com.mock.database.store.StoredEntry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EndpointStore} backed by the shared {@code generated_data} table, where every lookup is
+ * served by the unique {@code (endpoint, internalId)} index. Every operation runs in a
+ * transaction of its own.
+ */
+class JpaEndpointStore implements EndpointStore
+{
+    private static final int SCAN_CHUNK = 1000;
+    /* An insert can only lose against a concurrent one, so a second attempt finds the row; more is for deletes in between */
+    private static final int MAX_PUT_ATTEMPTS = 3;
+
+    private final String endpoint;
+    private final GeneratedDataRepository generatedDataRepository;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final PayloadFormat payloadFormat;
+    private final AtomicLong version = new AtomicLong();
+
+    JpaEndpointStore(String endpoint, GeneratedDataRepository generatedDataRepository,
+                     TransactionTemplate writeTransaction, TransactionTemplate readTransaction,
+                     PayloadFormat payloadFormat)
+    {
+        this.endpoint = endpoint;
+        this.generatedDataRepository = generatedDataRepository;
+        this.writeTransaction = writeTransaction;
+        this.readTransaction = readTransaction;
+        this.payloadFormat = payloadFormat;
+    }
+
+    @Override
+    public String getEndpoint()
+    {
+        return endpoint;
+    }
+
+    @Override
+    public byte[] get(int internalId)
+    {
+        return readTransaction.execute(status -> generatedDataRepository
+                .findByEndpointAndInternalId(endpoint, internalId)
+                .map(this::toBytes)
+                .orElse(null));
+    }
+
+    @Override
+    public int getAll(int[] internalIds, EntryVisitor visitor)
+    {
+        List<Integer> idList = Arrays.stream(internalIds).boxed().toList();
+        return visitRows(readTransaction.execute(status -> generatedDataRepository
+                .findByEndpointAndInternalIdInOrderByInternalIdAsc(endpoint, idList)), visitor);
+    }
+
+    /*
+     * Looks the row up and updates or inserts it. Two PUTs creating the same ID can both miss the row; the loser
+     * of the insert gets a unique constraint violation and retries, now finding the row to replace.
+     */
+    @Override
+    public boolean put(int internalId, byte[] data)
+    {
+        byte[] encoded = payloadFormat.encode(data);
+        Boolean replaced;
+        for (int attempt = 1; ; attempt++)
+        {
+            try
+            {
+                replaced = writeTransaction.execute(status -> {
+                    Optional<GeneratedData> existing = generatedDataRepository.findByEndpointAndInternalId(endpoint, internalId);
+                    GeneratedData generatedData = existing.orElseGet(() -> new GeneratedData(endpoint, null));
+                    generatedData.setInternalId(internalId);
+                    generatedData.setData(encoded);
+                    generatedDataRepository.save(generatedData);
+                    return existing.isPresent();
+                });
+                break;
+            }
+            catch (DataIntegrityViolationException e)
+            {
+                if (attempt == MAX_PUT_ATTEMPTS)
+                {
+                    throw e;
+                }
+            }
+        }
+        version.incrementAndGet();
+        return Boolean.TRUE.equals(replaced);
+    }
+
+    @Override
+    public void insertAll(List<StoredEntry> entries)
+    {
+        List<GeneratedData> batch = new ArrayList<>(entries.size());
+        for (StoredEntry entry : entries)
+        {
+            GeneratedData generatedData = new GeneratedData(endpoint, payloadFormat.encode(entry.getData()));
+            generatedData.setInternalId(entry.getInternalId());
+            batch.add(generatedData);
+        }
+        generatedDataRepository.insertBatch(batch);
+        version.incrementAndGet();
+    }
+
+    @Override
+    public boolean delete(int internalId)
+    {
+        Long deleted = writeTransaction.execute(status -> generatedDataRepository.deleteByEndpointAndInternalId(endpoint, internalId));
+        version.incrementAndGet();
+        return deleted != null && deleted > 0;
+    }
+
+    @Override
+    public int deleteAll(int[] internalIds)
+    {
+        List<Integer> idList = Arrays.stream(internalIds).boxed().toList();
+        Integer deleted = writeTransaction.execute(status -> generatedDataRepository.deleteByEndpointAndInternalIdIn(endpoint, idList));
+        version.incrementAndGet();
+        return deleted == null ? 0 : deleted;
+    }
+
+    @Override
+    public void scan(EntryVisitor visitor)
+    {
+        // Keyset pages of SCAN_CHUNK rows, so neither the persistence context nor the result grows with the endpoint
+        int afterId = 0;
+        int[] lastId = new int[1];
+        while (scanAfter(afterId, SCAN_CHUNK, (internalId, data) -> {
+            lastId[0] = internalId;
+            visitor.visit(internalId, data);
+        }) == SCAN_CHUNK)
+        {
+            afterId = lastId[0];
+        }
+    }
+
+    @Override
+    public int scanAfter(int afterId, int limit, EntryVisitor visitor)
+    {
+        return visitRows(readTransaction.execute(status -> generatedDataRepository
+                .findByEndpointAndInternalIdGreaterThanOrderByInternalIdAsc(endpoint, afterId, Limit.of(limit))), visitor);
+    }
+
+    @Override
+    public int scanOffset(int offset, int limit, EntryVisitor visitor)
+    {
+        return visitRows(readTransaction.execute(status -> generatedDataRepository.findPageByEndpoint(endpoint, offset, limit)), visitor);
+    }
+
+    @Override
+    public int highestId()
+    {
+        return generatedDataRepository
+                .findTopByEndpointOrderByInternalIdDesc(endpoint)
+                .map(GeneratedData::getInternalId)
+                .orElse(0);
+    }
+
+    @Override
+    public int size()
+    {
+        return (int) generatedDataRepository.countByEndpoint(endpoint);
+    }
+
+    @Override
+    public long byteSize()
+    {
+        return generatedDataRepository.sumDataLengthByEndpoint(endpoint);
+    }
+
+    @Override
+    public long version()
+    {
+        return version.get();
+    }
+
+    private int visitRows(List<GeneratedData> rows, EntryVisitor visitor)
+    {
+        if (rows == null)
+        {
+            return 0;
+        }
+        rows.forEach(row -> visitor.visit(row.getInternalId(), toBytes(row)));
+        return rows.size();
+    }
+
+    private byte[] toBytes(GeneratedData generatedData)
+    {
+        return payloadFormat.decode(generatedData.getData());
+    }
+}
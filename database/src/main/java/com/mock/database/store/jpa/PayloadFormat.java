@@ -0,0 +1,114 @@
+package com.mock.database.store.jpa;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * How entry bodies are encoded in the {@code data} column, selected with
+ * {@code mock.storage.jpa.payload-format}.
+ */
+public enum PayloadFormat
+{
+    /**
+     * The UTF-8 JSON body as is. Nothing to encode or decode, readable in the H2 console.
+     */
+    RAW
+    {
+        @Override
+        byte[] encode(byte[] body)
+        {
+            return body;
+        }
+
+        @Override
+        byte[] decode(byte[] stored)
+        {
+            return stored;
+        }
+    },
+
+    /**
+     * The body compressed with zlib deflate. Generated records repeat the same field names
+     * in every row, so this typically halves the stored size or better, at the cost of some CPU
+     * on every read and write.
+     */
+    COMPACT
+    {
+        @Override
+        byte[] encode(byte[] body)
+        {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try
+            {
+                deflater.setInput(body);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2 + 16);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                while (!deflater.finished())
+                {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return out.toByteArray();
+            }
+            finally
+            {
+                deflater.end();
+            }
+        }
+
+        @Override
+        byte[] decode(byte[] stored)
+        {
+            Inflater inflater = new Inflater();
+            try
+            {
+                inflater.setInput(stored);
+                ByteArrayOutputStream out = new ByteArrayOutputStream(stored.length * 3);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                while (!inflater.finished())
+                {
+                    int inflated = inflater.inflate(buffer);
+                    if (inflated == 0 && !inflater.finished() && inflater.needsInput())
+                    {
+                        throw new IllegalStateException("Truncated compact payload");
+                    }
+                    out.write(buffer, 0, inflated);
+                }
+                return out.toByteArray();
+            }
+            catch (DataFormatException e)
+            {
+                throw new IllegalStateException("Corrupt compact payload", e);
+            }
+            finally
+            {
+                inflater.end();
+            }
+        }
+    };
+
+    private static final int BUFFER_SIZE = 4096;
+
+    abstract byte[] encode(byte[] body);
+
+    abstract byte[] decode(byte[] stored);
+
+    /**
+     * Resolves the configured value, case-insensitively.
+     *
+     * @throws IllegalArgumentException for an unknown format
+     */
+    public static PayloadFormat fromString(String value)
+    {
+        for (PayloadFormat format : values())
+        {
+            if (format.name().equalsIgnoreCase(value.trim()))
+            {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported payload format: " + value);
+    }
+}
@@ -0,0 +1,207 @@
+package com.mock.database.store.jpa;
+
+import com.mock.database.store.EndpointStore;
+import com.mock.database.store.StoredEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link EndpointStore} keeping one endpoint's entries in a table of their own, keyed by the
+ * internal ID. Reads and writes of a hot endpoint then touch neither the rows nor the index pages
+ * of any other endpoint, and the primary key doubles as the ordered index for scans.
+ * <p>
+ * The table is created on first use; being outside the JPA model, it is plain JDBC.
+ */
+class TableEndpointStore implements EndpointStore
+{
+    private final String endpoint;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+    private final PayloadFormat payloadFormat;
+    private final AtomicLong version = new AtomicLong();
+    private final String table;
+    private final String selectSql;
+    private final String insertSql;
+    private final String updateSql;
+    private final String mergeSql;
+    private final String deleteSql;
+    private final String scanSql;
+    private final String scanAfterSql;
+    private final String scanOffsetSql;
+    private final String highestIdSql;
+    private final String countSql;
+    private final String byteSizeSql;
+
+    TableEndpointStore(String endpoint, String table, JdbcTemplate jdbcTemplate,
+                       TransactionTemplate writeTransaction, TransactionTemplate readTransaction,
+                       PayloadFormat payloadFormat)
+    {
+        this.endpoint = endpoint;
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTransaction = writeTransaction;
+        this.readTransaction = readTransaction;
+        this.payloadFormat = payloadFormat;
+        this.table = table;
+        this.selectSql = "SELECT data FROM " + table + " WHERE internal_id = ?";
+        this.insertSql = "INSERT INTO " + table + " (internal_id, data) VALUES (?, ?)";
+        this.updateSql = "UPDATE " + table + " SET data = ? WHERE internal_id = ?";
+        this.mergeSql = "MERGE INTO " + table + " KEY (internal_id) VALUES (?, ?)";
+        this.deleteSql = "DELETE FROM " + table + " WHERE internal_id = ?";
+        this.scanSql = "SELECT internal_id, data FROM " + table + " ORDER BY internal_id";
+        this.scanAfterSql = "SELECT internal_id, data FROM " + table + " WHERE internal_id > ? ORDER BY internal_id LIMIT ?";
+        this.scanOffsetSql = "SELECT internal_id, data FROM " + table + " ORDER BY internal_id LIMIT ? OFFSET ?";
+        this.highestIdSql = "SELECT COALESCE(MAX(internal_id), 0) FROM " + table;
+        this.countSql = "SELECT COUNT(*) FROM " + table;
+        this.byteSizeSql = "SELECT COALESCE(SUM(OCTET_LENGTH(data)), 0) FROM " + table;
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table
+                                     + " (internal_id INT PRIMARY KEY, data VARBINARY NOT NULL)");
+    }
+
+    @Override
+    public String getEndpoint()
+    {
+        return endpoint;
+    }
+
+    @Override
+    public byte[] get(int internalId)
+    {
+        List<byte[]> rows = readTransaction.execute(status -> jdbcTemplate.query(selectSql, (rs, rowNum) -> rs.getBytes(1), internalId));
+        return rows == null || rows.isEmpty() ? null : payloadFormat.decode(rows.get(0));
+    }
+
+    @Override
+    public int getAll(int[] internalIds, EntryVisitor visitor)
+    {
+        if (internalIds.length == 0)
+        {
+            return 0;
+        }
+        return visitRows("SELECT internal_id, data FROM " + table + " WHERE internal_id IN (" + placeholders(internalIds.length)
+                                 + ") ORDER BY internal_id", visitor, boxed(internalIds));
+    }
+
+    /*
+     * Replacing is the common case and tells whether the row existed. Otherwise the row is created with a MERGE,
+     * which replaces a row a concurrent PUT inserted in between instead of failing on the primary key.
+     */
+    @Override
+    public boolean put(int internalId, byte[] data)
+    {
+        byte[] stored = payloadFormat.encode(data);
+        Boolean replaced = writeTransaction.execute(status -> {
+            if (jdbcTemplate.update(updateSql, stored, internalId) > 0)
+            {
+                return true;
+            }
+            jdbcTemplate.update(mergeSql, internalId, stored);
+            return false;
+        });
+        version.incrementAndGet();
+        return Boolean.TRUE.equals(replaced);
+    }
+
+    @Override
+    public void insertAll(List<StoredEntry> entries)
+    {
+        writeTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(insertSql, entries, entries.size(), (ps, entry) -> {
+            ps.setInt(1, entry.getInternalId());
+            ps.setBytes(2, payloadFormat.encode(entry.getData()));
+        }));
+        version.incrementAndGet();
+    }
+
+    @Override
+    public boolean delete(int internalId)
+    {
+        Integer deleted = writeTransaction.execute(status -> jdbcTemplate.update(deleteSql, internalId));
+        version.incrementAndGet();
+        return deleted != null && deleted > 0;
+    }
+
+    @Override
+    public int deleteAll(int[] internalIds)
+    {
+        if (internalIds.length == 0)
+        {
+            return 0;
+        }
+        String sql = "DELETE FROM " + table + " WHERE internal_id IN (" + placeholders(internalIds.length) + ")";
+        Integer deleted = writeTransaction.execute(status -> jdbcTemplate.update(sql, boxed(internalIds)));
+        version.incrementAndGet();
+        return deleted == null ? 0 : deleted;
+    }
+
+    @Override
+    public void scan(EntryVisitor visitor)
+    {
+        visitRows(scanSql, visitor);
+    }
+
+    @Override
+    public int scanAfter(int afterId, int limit, EntryVisitor visitor)
+    {
+        return visitRows(scanAfterSql, visitor, afterId, limit);
+    }
+
+    @Override
+    public int scanOffset(int offset, int limit, EntryVisitor visitor)
+    {
+        return visitRows(scanOffsetSql, visitor, limit, offset);
+    }
+
+    @Override
+    public int highestId()
+    {
+        Integer highest = jdbcTemplate.queryForObject(highestIdSql, Integer.class);
+        return highest == null ? 0 : highest;
+    }
+
+    @Override
+    public int size()
+    {
+        Integer count = jdbcTemplate.queryForObject(countSql, Integer.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public long byteSize()
+    {
+        Long bytes = jdbcTemplate.queryForObject(byteSizeSql, Long.class);
+        return bytes == null ? 0 : bytes;
+    }
+
+    @Override
+    public long version()
+    {
+        return version.get();
+    }
+
+    private static String placeholders(int count)
+    {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Object[] boxed(int[] values)
+    {
+        return Arrays.stream(values).boxed().toArray();
+    }
+
+    /* Rows are streamed from the result set to the visitor instead of being collected first */
+    private int visitRows(String sql, EntryVisitor visitor, Object... args)
+    {
+        int[] visited = new int[1];
+        readTransaction.executeWithoutResult(status -> jdbcTemplate.query(sql, rs -> {
+            visitor.visit(rs.getInt(1), payloadFormat.decode(rs.getBytes(2)));
+            visited[0]++;
+        }, args));
+        return visited[0];
+    }
+}
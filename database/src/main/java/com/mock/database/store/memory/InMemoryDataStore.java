@@ -0,0 +1,29 @@
+package com.mock.database.store.memory;
+
+import com.mock.database.store.DataStore;
+import com.mock.database.store.EndpointStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link DataStore} keeping every endpoint's entries on the heap, as pre-serialized UTF-8 bodies
+ * in primitive int-keyed hash maps. No ORM, no transactions and no entity hydration: the entries
+ * only live as long as the process, which is all a mock needs.
+ * <p>
+ * Enabled with {@code mock.storage.type=memory}, the default.
+ */
+@Component
+@ConditionalOnProperty(name = "mock.storage.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryDataStore implements DataStore
+{
+    private final Map<String, InMemoryEndpointStore> stores = new ConcurrentHashMap<>();
+
+    @Override
+    public EndpointStore forEndpoint(String endpoint)
+    {
+        return stores.computeIfAbsent(endpoint, InMemoryEndpointStore::new);
+    }
+}
@@ -0,0 +1,330 @@
+package com.mock.database.store.memory;
+
+import com.mock.database.store.EndpointStore;
+import com.mock.database.store.StoredEntry;
+import com.mock.model.util.IntObjectHashMap;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link EndpointStore} keeping the bodies of one endpoint in an {@link IntObjectHashMap}.
+ * <p>
+ * Lookups by ID are a hash probe under an optimistic {@link StampedLock} read, so readers never
+ * block each other and only retry with a real read lock if a write raced with them.
+ * <p>
+ * The IDs in use are also kept in a {@link BitSet}, which is the ordered index for scans: a page
+ * starts with {@link BitSet#nextSetBit(int)} from the cursor and reads only its own entries.
+ */
+class InMemoryEndpointStore implements EndpointStore
+{
+    private static final int SCAN_CHUNK = 1024;
+
+    private final String endpoint;
+    private final IntObjectHashMap<byte[]> entries = new IntObjectHashMap<>();
+    private final BitSet ids = new BitSet();
+    private final StampedLock lock = new StampedLock();
+    private final AtomicLong version = new AtomicLong();
+    /* Bytes of the stored bodies, guarded by the lock */
+    private long bytes;
+
+    InMemoryEndpointStore(String endpoint)
+    {
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public String getEndpoint()
+    {
+        return endpoint;
+    }
+
+    @Override
+    public byte[] get(int internalId)
+    {
+        long stamp = lock.tryOptimisticRead();
+        byte[] data = entries.get(internalId);
+        if (!lock.validate(stamp))
+        {
+            stamp = lock.readLock();
+            try
+            {
+                data = entries.get(internalId);
+            }
+            finally
+            {
+                lock.unlockRead(stamp);
+            }
+        }
+        return data;
+    }
+
+    /* One read lock for the whole batch; the probes are collected like a page and visited without it */
+    @Override
+    public int getAll(int[] internalIds, EntryVisitor visitor)
+    {
+        int[] pageIds = new int[internalIds.length];
+        byte[][] bodies = new byte[internalIds.length][];
+        int count = 0;
+        long stamp = lock.readLock();
+        try
+        {
+            for (int internalId : internalIds)
+            {
+                byte[] data = entries.get(internalId);
+                if (data != null)
+                {
+                    pageIds[count] = internalId;
+                    bodies[count] = data;
+                    count++;
+                }
+            }
+        }
+        finally
+        {
+            lock.unlockRead(stamp);
+        }
+        return new Page(pageIds, bodies, count).visit(visitor);
+    }
+
+    @Override
+    public boolean put(int internalId, byte[] data)
+    {
+        checkId(internalId);
+        long stamp = lock.writeLock();
+        try
+        {
+            ids.set(internalId);
+            byte[] previous = entries.put(internalId, data);
+            bytes += data.length - (previous == null ? 0 : previous.length);
+            return previous != null;
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+            version.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void insertAll(List<StoredEntry> batch)
+    {
+        long stamp = lock.writeLock();
+        try
+        {
+            for (StoredEntry entry : batch)
+            {
+                checkId(entry.getInternalId());
+                ids.set(entry.getInternalId());
+                byte[] previous = entries.put(entry.getInternalId(), entry.getData());
+                bytes += entry.getData().length - (previous == null ? 0 : previous.length);
+            }
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+            version.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean delete(int internalId)
+    {
+        long stamp = lock.writeLock();
+        try
+        {
+            if (internalId > 0)
+            {
+                ids.clear(internalId);
+            }
+            byte[] removed = entries.remove(internalId);
+            if (removed == null)
+            {
+                return false;
+            }
+            bytes -= removed.length;
+            return true;
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+            version.incrementAndGet();
+        }
+    }
+
+    @Override
+    public int deleteAll(int[] internalIds)
+    {
+        int deleted = 0;
+        long stamp = lock.writeLock();
+        try
+        {
+            for (int internalId : internalIds)
+            {
+                byte[] removed = entries.remove(internalId);
+                if (removed != null)
+                {
+                    bytes -= removed.length;
+                    ids.clear(internalId);
+                    deleted++;
+                }
+            }
+            return deleted;
+        }
+        finally
+        {
+            lock.unlockWrite(stamp);
+            version.incrementAndGet();
+        }
+    }
+
+    /* Visited in pages of SCAN_CHUNK entries, so a full scan copies no more than one page at a time */
+    @Override
+    public void scan(EntryVisitor visitor)
+    {
+        int afterId = 0;
+        int[] lastId = new int[1];
+        while (scanAfter(afterId, SCAN_CHUNK, (internalId, data) -> {
+            lastId[0] = internalId;
+            visitor.visit(internalId, data);
+        }) == SCAN_CHUNK)
+        {
+            afterId = lastId[0];
+        }
+    }
+
+    @Override
+    public int scanAfter(int afterId, int limit, EntryVisitor visitor)
+    {
+        long stamp = lock.readLock();
+        Page page;
+        try
+        {
+            page = collect(ids.nextSetBit(Math.max(afterId, 0) + 1), limit);
+        }
+        finally
+        {
+            lock.unlockRead(stamp);
+        }
+        return page.visit(visitor);
+    }
+
+    @Override
+    public int scanOffset(int offset, int limit, EntryVisitor visitor)
+    {
+        long stamp = lock.readLock();
+        Page page;
+        try
+        {
+            int first = ids.nextSetBit(1);
+            for (int skipped = 0; skipped < offset && first >= 0; skipped++)
+            {
+                first = ids.nextSetBit(first + 1);
+            }
+            page = collect(first, limit);
+        }
+        finally
+        {
+            lock.unlockRead(stamp);
+        }
+        return page.visit(visitor);
+    }
+
+    @Override
+    public int highestId()
+    {
+        long stamp = lock.readLock();
+        try
+        {
+            return Math.max(ids.length() - 1, 0);
+        }
+        finally
+        {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        long stamp = lock.readLock();
+        try
+        {
+            return entries.size();
+        }
+        finally
+        {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public long byteSize()
+    {
+        long stamp = lock.readLock();
+        try
+        {
+            return bytes;
+        }
+        finally
+        {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public long version()
+    {
+        return version.get();
+    }
+
+    /* Copies up to limit IDs and bodies starting at the given ID; the caller holds the read lock */
+    private Page collect(int firstId, int limit)
+    {
+        int capacity = (int) Math.min(limit, (long) entries.size());
+        int[] pageIds = new int[capacity];
+        byte[][] bodies = new byte[capacity][];
+        int count = 0;
+        for (int id = firstId; id >= 0 && count < capacity; id = id == Integer.MAX_VALUE ? -1 : ids.nextSetBit(id + 1))
+        {
+            pageIds[count] = id;
+            bodies[count] = entries.get(id);
+            count++;
+        }
+        return new Page(pageIds, bodies, count);
+    }
+
+    private static void checkId(int internalId)
+    {
+        if (internalId < 1)
+        {
+            throw new IllegalArgumentException("Internal IDs must be positive: " + internalId);
+        }
+    }
+
+    /* Entries copied out under the lock; the visitor runs without it, so it may write to this store */
+    private static final class Page
+    {
+        private final int[] ids;
+        private final byte[][] bodies;
+        private final int count;
+
+        private Page(int[] ids, byte[][] bodies, int count)
+        {
+            this.ids = ids;
+            this.bodies = bodies;
+            this.count = count;
+        }
+
+        private int visit(EntryVisitor visitor)
+        {
+            for (int i = 0; i < count; i++)
+            {
+                visitor.visit(ids[i], bodies[i]);
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.mock.database.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.mock.database.store.TestData.bytes;
+import static com.mock.database.store.TestData.text;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The behaviour every {@link EndpointStore} shares, run against each implementation by a subclass.
+ */
+public abstract class EndpointStoreContractTest
+{
+    /**
+     * Returns a new, empty store of the endpoint.
+     */
+    protected abstract EndpointStore store(String endpoint);
+
+    @Test
+    void checkWritesAndVersion()
+    {
+        EndpointStore store = store("cars");
+        long version = store.version();
+
+        assertFalse(store.put(3, bytes("{\"a\":1}")));
+        assertTrue(store.put(3, bytes("{\"a\":22}")));
+        store.insertAll(List.of(new StoredEntry(1, bytes("{}")), new StoredEntry(7, bytes("{\"b\":2}"))));
+        assertEquals(version + 3, store.version());
+
+        assertEquals("{\"a\":22}", text(store.get(3)));
+        assertNull(store.get(2));
+        assertEquals(3, store.size());
+        assertEquals(8 + 2 + 7, store.byteSize());
+        assertEquals(7, store.highestId());
+
+        assertTrue(store.delete(7));
+        assertFalse(store.delete(7));
+        assertEquals(1, store.deleteAll(new int[]{1, 2}));
+        assertEquals(version + 6, store.version());
+        assertEquals(1, store.size());
+        assertEquals(8, store.byteSize());
+        assertEquals(3, store.highestId());
+    }
+
+    @Test
+    void checkEmpty()
+    {
+        EndpointStore store = store("cars");
+
+        assertEquals("cars", store.getEndpoint());
+        assertNull(store.get(1));
+        assertEquals(0, store.size());
+        assertEquals(0, store.byteSize());
+        assertEquals(0, store.highestId());
+        assertEquals(List.of(), ids(visitor -> store.scanAfter(0, 10, visitor)));
+        assertEquals(List.of(), ids(visitor -> store.getAll(new int[0], visitor)));
+        assertFalse(store.delete(1));
+        assertEquals(0, store.deleteAll(new int[0]));
+    }
+
+    @Test
+    void checkScans()
+    {
+        EndpointStore store = store("cars");
+        for (int id : new int[]{9, 2, 5, 12, 7})
+        {
+            store.put(id, bytes("{\"id\":" + id + "}"));
+        }
+
+        assertEquals(List.of(5, 7), ids(visitor -> store.scanAfter(2, 2, visitor)));
+        assertEquals(List.of(9, 12), ids(visitor -> store.scanAfter(7, 10, visitor)));
+        assertEquals(List.of(7, 9), ids(visitor -> store.scanOffset(2, 2, visitor)));
+        assertEquals(List.of(), ids(visitor -> store.scanOffset(5, 2, visitor)));
+        assertEquals(List.of(2, 5, 7, 9, 12), ids(visitor -> {
+            store.scan(visitor);
+            return 0;
+        }));
+        assertEquals(List.of(5, 12), ids(visitor -> store.getAll(new int[]{5, 6, 12}, visitor)));
+    }
+
+    @Test
+    void checkUtf8()
+    {
+        EndpointStore store = store("cars");
+        store.put(1, bytes("{\"name\":\"Zoë 🚗\"}"));
+
+        assertEquals("{\"name\":\"Zoë 🚗\"}", text(store.get(1)));
+        assertEquals(bytes("{\"name\":\"Zoë 🚗\"}").length, store.byteSize());
+    }
+
+    private static List<Integer> ids(Scan scan)
+    {
+        List<Integer> ids = new ArrayList<>();
+        scan.run((internalId, data) -> {
+            assertEquals("{\"id\":" + internalId + "}", text(data));
+            ids.add(internalId);
+        });
+        return ids;
+    }
+
+    private interface Scan
+    {
+        int run(EndpointStore.EntryVisitor visitor);
+    }
+}
@@ -0,0 +1,75 @@
+package com.mock.database.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdSequenceTest
+{
+    @Test
+    void checkConcurrentReservations() throws Exception
+    {
+        IdSequence ids = new IdSequence(10);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<int[]>> ranges = new ArrayList<>();
+        try
+        {
+            for (int task = 0; task < 8; task++)
+            {
+                int count = 1 + task;
+                // Single allocations and ranges of several sizes, interleaved
+                ranges.add(executor.submit(() -> {
+                    int[] firstIds = new int[2000];
+                    for (int i = 0; i < firstIds.length; i++)
+                    {
+                        firstIds[i] = i % 2 == 0 ? ids.next() : ids.reserve(count);
+                    }
+                    return firstIds;
+                }));
+            }
+
+            BitSet taken = new BitSet();
+            int allocated = 0;
+            for (int task = 0; task < ranges.size(); task++)
+            {
+                int[] firstIds = ranges.get(task).get();
+                for (int i = 0; i < firstIds.length; i++)
+                {
+                    int count = i % 2 == 0 ? 1 : 1 + task;
+                    assertTrue(firstIds[i] > 10);
+                    // No ID is handed out twice, within a range or across them
+                    assertEquals(-1, taken.get(firstIds[i], firstIds[i] + count).nextSetBit(0), "ID " + firstIds[i] + " taken twice");
+                    taken.set(firstIds[i], firstIds[i] + count);
+                    allocated += count;
+                }
+            }
+            assertEquals(allocated, taken.cardinality());
+            assertEquals(10 + allocated, ids.current());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void checkExhaustion()
+    {
+        IdSequence ids = new IdSequence(Integer.MAX_VALUE - 3);
+        assertEquals(Integer.MAX_VALUE - 2, ids.reserve(2));
+        // A range past the last ID is refused as a whole
+        assertThrows(IllegalStateException.class, () -> ids.reserve(2));
+        assertEquals(Integer.MAX_VALUE - 1, ids.current());
+        assertEquals(Integer.MAX_VALUE, ids.next());
+        assertThrows(IllegalStateException.class, ids::next);
+        assertEquals(Integer.MAX_VALUE, ids.current());
+        assertThrows(IllegalArgumentException.class, () -> ids.reserve(-1));
+    }
+}
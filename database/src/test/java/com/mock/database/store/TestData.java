@@ -0,0 +1,25 @@
+package com.mock.database.store;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts between the UTF-8 JSON the stores hold and the strings tests write it as. Shared with
+ * the tests of the modules above through the database test jar.
+ */
+public final class TestData
+{
+    private TestData()
+    {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    public static byte[] bytes(String json)
+    {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static String text(byte[] data)
+    {
+        return new String(data, StandardCharsets.UTF_8);
+    }
+}
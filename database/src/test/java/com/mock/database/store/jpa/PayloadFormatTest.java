@@ -0,0 +1,47 @@
+package com.mock.database.store.jpa;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadFormatTest
+{
+    @Test
+    void checkRoundTrip()
+    {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 2_000; i++)
+        {
+            json.append(i == 0 ? "" : ",").append("{\"name\":\"entry ").append(i).append("\",\"active\":true}");
+        }
+        byte[] body = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+        assertSame(body, PayloadFormat.RAW.encode(body));
+        assertSame(body, PayloadFormat.RAW.decode(body));
+
+        byte[] compact = PayloadFormat.COMPACT.encode(body);
+        assertTrue(compact.length < body.length / 2);
+        assertTrue(Arrays.equals(body, PayloadFormat.COMPACT.decode(compact)));
+        assertEquals(0, PayloadFormat.COMPACT.decode(PayloadFormat.COMPACT.encode(new byte[0])).length);
+    }
+
+    @Test
+    void checkCorruptPayload()
+    {
+        byte[] compact = PayloadFormat.COMPACT.encode("{\"name\":\"a\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalStateException.class, () -> PayloadFormat.COMPACT.decode(Arrays.copyOf(compact, compact.length - 4)));
+        assertThrows(IllegalStateException.class, () -> PayloadFormat.COMPACT.decode("not deflated".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void checkFromString()
+    {
+        assertEquals(PayloadFormat.COMPACT, PayloadFormat.fromString(" Compact "));
+        assertEquals(PayloadFormat.RAW, PayloadFormat.fromString("raw"));
+        assertThrows(IllegalArgumentException.class, () -> PayloadFormat.fromString("gzip"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.mock.database.store.jpa;
+
+import com.mock.database.store.EndpointStore;
+import com.mock.database.store.EndpointStoreContractTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the store contract against a table of an in-memory H2 database, as the jpa storage uses it.
+ */
+class TableEndpointStoreTest extends EndpointStoreContractTest
+{
+    /* Every store gets a table of its own, so each test starts empty */
+    private static final AtomicInteger TABLES = new AtomicInteger();
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:stores;DB_CLOSE_DELAY=-1"));
+    private final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(jdbcTemplate.getDataSource());
+
+    @Override
+    protected EndpointStore store(String endpoint)
+    {
+        TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+        return new TableEndpointStore(endpoint, "entries_" + TABLES.incrementAndGet(), jdbcTemplate,
+                new TransactionTemplate(transactionManager), readTransaction, PayloadFormat.RAW);
+    }
+}
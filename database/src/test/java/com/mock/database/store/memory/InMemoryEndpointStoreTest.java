@@ -0,0 +1,25 @@
+package com.mock.database.store.memory;
+
+import com.mock.database.store.EndpointStore;
+import com.mock.database.store.EndpointStoreContractTest;
+import org.junit.jupiter.api.Test;
+
+import static com.mock.database.store.TestData.bytes;
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryEndpointStoreTest extends EndpointStoreContractTest
+{
+    @Override
+    protected EndpointStore store(String endpoint)
+    {
+        return new InMemoryEndpointStore(endpoint);
+    }
+
+    @Test
+    void checkInvalidId()
+    {
+        InMemoryEndpointStore store = new InMemoryEndpointStore("cars");
+
+        assertThrows(IllegalArgumentException.class, () -> store.put(0, bytes("{}")));
+    }
+}
@@ -1,38 +1,61 @@
 package com.mock.generator;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.mock.database.entity.GeneratedData;
-import com.mock.database.repository.GeneratedDataRepository;
+import com.mock.database.store.DataStore;
+import com.mock.database.store.EndpointStore;
+import com.mock.database.store.IdAllocator;
+import com.mock.generator.plan.RecordGeneratorPlan;
+import com.mock.generator.plan.RecordWriter;
+import com.mock.generator.sink.RecordSink;
+import com.mock.generator.sink.StoreRecordSink;
 import com.mock.model.MockApiDefinition;
+import com.mock.model.MockApiDefinitionRegistry;
+import net.datafaker.Faker;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.mock.generator.util.ValueGenerator;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
  * A service responsible for generating mock data based on a given API definition.
- * This service leverages the {@code ObjectMapper} to construct JSON responses,
- * which adhere to the structure and data types specified in the provided {@code com.mock.model.MockApiDefinition}.
+ * Each definition is compiled once into a {@link RecordGeneratorPlan}, which writes records
+ * adhering to the structure and data types of the {@code com.mock.model.MockApiDefinition} directly as JSON.
  * <p>
- * The generated mock data is returned as a JSON-formatted string, containing
- * an array of objects structured according to the field definitions in the API definition.
+ * Generation is a streaming pipeline: plan (generator) → {@link RecordWriter} (serializer) → {@link RecordSink}.
+ * No tree of the whole dataset is ever built; the startup sink writes the records to the {@link DataStore}
+ * in chunks of {@code mock.generator.batch-size} through {@link EndpointStore#insertAll}, with the internal IDs
+ * reserved from the {@link IdAllocator} in one step, so the heap needed does not grow with {@code count}.
  */
 @Service
 public class DataGeneratorService
 {
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private final GeneratedDataRepository generatedDataRepository;
+    private final DataStore dataStore;
+    private final IdAllocator idAllocator;
+    private final MockApiDefinitionRegistry registry;
+    private final int batchSize;
+    /* Compiled plans, keyed by definition */
+    private final Map<MockApiDefinition, RecordGeneratorPlan> plans = new ConcurrentHashMap<>();
     private static final Logger LOG = LogManager.getLogger();
 
-    public DataGeneratorService(GeneratedDataRepository generatedDataRepository)
+    public DataGeneratorService(DataStore dataStore,
+                                IdAllocator idAllocator,
+                                MockApiDefinitionRegistry registry,
+                                @Value("${mock.generator.batch-size:1000}") int batchSize)
     {
-        this.generatedDataRepository = generatedDataRepository;
+        if (batchSize <= 0)
+        {
+            throw new IllegalArgumentException("Generator batch size must be positive: " + batchSize);
+        }
+        this.dataStore = dataStore;
+        this.idAllocator = idAllocator;
+        this.registry = registry;
+        this.batchSize = batchSize;
     }
 
     /*
@@ -40,52 +63,108 @@ public class DataGeneratorService
      */
     public void generatedMockData(MockApiDefinition definition)
     {
-        LOG.info("Generating mock data for endpoint: {}", definition.getEndpointName());
-        try
+        String endpoint = definition.getEndpointName();
+        LOG.info("Generating {} mock entries for endpoint: {} (batch size {})", definition.getCount(), endpoint, batchSize);
+        long startNanos = System.nanoTime();
+
+        int written = generateRange(definition, reserveInternalIds(definition), definition.getCount());
+
+        LOG.info("Generated {} entries for endpoint: {} in {} ms", written, endpoint,
+                 (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Generates and stores {@code count} entries for the definition, using consecutive internal IDs
+     * starting at {@code firstInternalId}.
+     * <p>
+     * Calls for disjoint ID ranges may run concurrently: values come from the calling thread's own
+     * {@code Faker} and every chunk is written by the calling thread (in a transaction of its own
+     * with the JPA store).
+     *
+     * @return the number of entries written
+     */
+    public int generateRange(MockApiDefinition definition, int firstInternalId, int count)
+    {
+        try (RecordSink sink = new StoreRecordSink(dataStore.forEndpoint(definition.getEndpointName()), batchSize, count))
         {
-            ArrayNode arrayNode = objectMapper.createArrayNode();
+            generateInto(definition, firstInternalId, count, sink);
+            return sink.getWritten();
+        }
+    }
 
-            for (int i = 0; i < definition.getCount(); i++)
+    /**
+     * Streams {@code count} generated records into the sink: every record is serialized straight
+     * from the compiled plan and handed over on its own, so nothing but the record being written
+     * and whatever the sink buffers is ever held in memory.
+     */
+    public void generateInto(MockApiDefinition definition, int firstInternalId, int count, RecordSink sink)
+    {
+        Faker faker = ValueGenerator.threadFaker();
+        try (RecordWriter recordWriter = planFor(definition).newWriter())
+        {
+            for (int i = 0; i < count; i++)
             {
-                arrayNode.add(generateSingleEntry(definition.getName(), definition.getFields()));
-                LOG.trace("Generated mock data for endpoint: {}: {}", definition.getEndpointName(), arrayNode.toString());
+                sink.accept(firstInternalId + i, recordWriter.write(faker));
             }
-
-            objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(arrayNode);
         }
-        catch (JsonProcessingException e)
+        catch (IOException e)
         {
             LOG.error("Failed to generate mock data for endpoint: {}", definition.getEndpointName());
             throw new RuntimeException("Failed to generate mock data", e);
         }
     }
 
-    private ObjectNode generateSingleEntry(String endpoint, Map<String, Class<?>> fields)
+    /**
+     * Returns the compiled generator plan of the definition, compiling it on first use. Its
+     * reference fields are resolved against the registered definitions.
+     */
+    public RecordGeneratorPlan planFor(MockApiDefinition definition)
     {
-        ObjectNode objectNode = objectMapper.createObjectNode();
+        return plans.computeIfAbsent(definition, key -> RecordGeneratorPlan.compile(key, registry::resolve));
+    }
 
-        for (Map.Entry<String, Class<?>> entry : fields.entrySet())
-        {
-            String fieldName = entry.getKey();
-            Object fieldValue = ValueGenerator.generateValueForType(entry.getValue(), fieldName);
+    /**
+     * Reserves {@code count} consecutive internal IDs for the definition's entries in one step.
+     *
+     * @return the first ID of the reserved range
+     */
+    public int reserveInternalIds(MockApiDefinition definition)
+    {
+        int firstInternalId = idAllocator.forEndpoint(definition.getEndpointName()).reserve(definition.getCount());
+        LOG.trace("Reserved internal IDs for endpoint: {} from {}", definition.getEndpointName(), firstInternalId);
+        return firstInternalId;
+    }
 
-            objectNode.put(fieldName, String.valueOf(fieldValue));
-            LOG.trace("Generated value for field: {}: {}", fieldName, fieldValue);
+    /**
+     * Removes every stored entry of the definition's endpoint, in batches of the generator batch
+     * size, and resets its ID sequence so entries generated afterward start at 1 again. Used when a
+     * reloaded configuration removes or changes the endpoint.
+     *
+     * @return the number of entries removed
+     */
+    public int discardMockData(MockApiDefinition definition)
+    {
+        String endpoint = definition.getEndpointName();
+        EndpointStore store = dataStore.forEndpoint(endpoint);
+        // One page of IDs at a time, so memory use does not depend on the size of the endpoint
+        int[] batch = new int[batchSize];
+        int[] size = new int[1];
+        int removed = 0;
+        int afterId = 0;
+        while (true)
+        {
+            size[0] = 0;
+            store.scanAfter(afterId, batchSize, (internalId, data) -> batch[size[0]++] = internalId);
+            if (size[0] == 0)
+            {
+                break;
+            }
+            removed += store.deleteAll(Arrays.copyOf(batch, size[0]));
+            afterId = batch[size[0] - 1];
         }
-
-        // TODO extract the nextInternalId generator in a separate method, anb add more checks
-        int nextInternalId = generatedDataRepository
-                .findTopByEndpointOrderByInternalIdDesc(endpoint)
-                .map(GeneratedData::getInternalId)
-                .orElse(0) + 1;
-        LOG.trace("Next internal ID for endpoint: {}: {}", endpoint, nextInternalId);
-
-        GeneratedData newGeneratedData = new GeneratedData(endpoint, objectNode.toPrettyString());
-        newGeneratedData.setInternalId(nextInternalId);
-        generatedDataRepository.save(newGeneratedData);
-
-        LOG.trace("Saved generated data for endpoint: {}: {}", endpoint, newGeneratedData.toString());
-
-        return objectNode;
+        idAllocator.reset(endpoint);
+        plans.remove(definition);
+        LOG.info("Discarded {} entries of endpoint: {}", removed, endpoint);
+        return removed;
     }
 }
@@ -2,36 +2,143 @@ package com.mock.generator;
 
 import com.mock.model.MockApiDefinition;
 import com.mock.model.MockApiDefinitionRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * A class that executes data generation tasks at application startup.
  * It iterates through registered mock API definitions and generates mock data using the {@link DataGeneratorService}.
  * <p>
  * This class implements the {@link ApplicationRunner} interface, ensuring execution after the application context has been initialized.
  * The {@link MockApiDefinitionRegistry} is used to retrieve all mock API definitions for processing.
+ * <p>
+ * With {@code mock.generator.parallel.enabled=true} the definitions are split into tasks of at most
+ * {@code mock.generator.parallel.split-size} entries, each with its own pre-assigned ID range, and run
+ * on a fixed pool of {@code mock.generator.parallel.threads} workers (0 means one per available core).
  */
 @Component
 public class DataStartupRunner implements ApplicationRunner
 {
     private final DataGeneratorService dataGeneratorService;
     private final MockApiDefinitionRegistry registry;
+    private final boolean parallel;
+    private final int threads;
+    private final int splitSize;
+    private static final Logger LOG = LogManager.getLogger();
 
-    public DataStartupRunner(DataGeneratorService dataGeneratorService)
+    public DataStartupRunner(DataGeneratorService dataGeneratorService,
+                             MockApiDefinitionRegistry registry,
+                             @Value("${mock.generator.parallel.enabled:false}") boolean parallel,
+                             @Value("${mock.generator.parallel.threads:0}") int threads,
+                             @Value("${mock.generator.parallel.split-size:50000}") int splitSize)
     {
+        if (splitSize <= 0)
+        {
+            throw new IllegalArgumentException("Generator split size must be positive: " + splitSize);
+        }
         this.dataGeneratorService = dataGeneratorService;
-        this.registry             = MockApiDefinitionRegistry.getInstance();
+        this.registry             = registry;
+        this.parallel             = parallel;
+        this.threads              = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.splitSize            = splitSize;
     }
 
     @Override
     public void run(ApplicationArguments args)
     {
+        // Virtual datasets are computed on demand, there is nothing to generate for them
+        List<MockApiDefinition> definitions = new ArrayList<>();
         for (MockApiDefinition def : registry.getDefinitions())
         {
-            dataGeneratorService.generatedMockData(def);
+            if (def.isVirtual())
+            {
+                LOG.info("Endpoint {} is virtual, its {} entries are computed on demand", def.getEndpointName(), def.getCount());
+            }
+            else
+            {
+                definitions.add(def);
+            }
+        }
+
+        if (!parallel)
+        {
+            for (MockApiDefinition def : definitions)
+            {
+                dataGeneratorService.generatedMockData(def);
+            }
+            return;
         }
+
+        generateInParallel(definitions);
     }
 
+    private void generateInParallel(List<MockApiDefinition> definitions)
+    {
+        long startNanos = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, new GeneratorThreadFactory());
+        try
+        {
+            List<Future<Integer>> tasks = new ArrayList<>();
+            for (MockApiDefinition def : definitions)
+            {
+                // Every task gets a disjoint slice of the reserved range, so the workers never have to coordinate
+                int firstInternalId = dataGeneratorService.reserveInternalIds(def);
+                for (int offset = 0; offset < def.getCount(); offset += splitSize)
+                {
+                    int rangeStart = firstInternalId + offset;
+                    int rangeCount = Math.min(splitSize, def.getCount() - offset);
+                    tasks.add(pool.submit(() -> dataGeneratorService.generateRange(def, rangeStart, rangeCount)));
+                }
+            }
+            LOG.info("Generating data for {} endpoints in {} tasks on {} threads", definitions.size(), tasks.size(), threads);
+
+            long written = 0;
+            for (Future<Integer> task : tasks)
+            {
+                written += task.get();
+            }
+            LOG.info("Generated {} entries in {} ms", written, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating mock data", e);
+        }
+        catch (ExecutionException e)
+        {
+            LOG.error("Parallel data generation failed: {}", e.getCause().getMessage());
+            throw new IllegalStateException("Failed to generate mock data", e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    /* Names the workers so their log lines can be told apart */
+    private static final class GeneratorThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "data-generator-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -0,0 +1,24 @@
+package com.mock.generator.plan;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.datafaker.Faker;
+
+import java.io.IOException;
+
+/**
+ * Writes one generated value for a single, fixed field type.
+ * <p>
+ * Instances are resolved once per field when a {@link RecordGeneratorPlan} is compiled,
+ * so writing a value involves no type checks.
+ */
+@FunctionalInterface
+public interface FieldWriter
+{
+    /**
+     * Generates a value and writes it as the next JSON value of the generator.
+     *
+     * @param generator the generator positioned right after the field name
+     * @param faker     the source of random values owned by the calling thread
+     */
+    void write(JsonGenerator generator, Faker faker) throws IOException;
+}
@@ -0,0 +1,256 @@
+package com.mock.generator.plan;
+
+import com.mock.generator.util.ValueGenerator;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.schema.ArraySchema;
+import com.mock.model.schema.ObjectSchema;
+import com.mock.model.schema.ScalarSchema;
+import com.mock.model.schema.SchemaNode;
+import net.datafaker.Faker;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Factory for the {@link FieldWriter} of every field type supported by
+ * {@link com.mock.model.util.FieldTypeConverter}, and of every node of a schema.
+ * <br>
+ * Numbers and booleans are written as JSON numbers and booleans, not as strings.
+ * <br>
+ * A constrained value is drawn within its constraints: an enum value, a provider value, a number
+ * between its bounds (within {@link #DEFAULT_SPAN} of the one bound set if there is only one), or a
+ * string of an allowed length. An array gets from {@code minItems} to {@link #EXTRA_ITEMS} more items,
+ * never over {@code maxItems}. A reference is drawn from the IDs of the endpoint it names.
+ * <br>
+ * All randomness comes from the given {@link Faker}, so seeded datasets stay reproducible.
+ */
+public final class FieldWriters
+{
+    private static final FieldWriter STRING    = (generator, faker) -> generator.writeString(ValueGenerator.randomWord(faker));
+    private static final FieldWriter INTEGER   = (generator, faker) -> generator.writeNumber(ValueGenerator.randomInt(faker));
+    private static final FieldWriter LONG      = (generator, faker) -> generator.writeNumber(ValueGenerator.randomLong(faker));
+    private static final FieldWriter SHORT     = (generator, faker) -> generator.writeNumber(ValueGenerator.randomShort(faker));
+    private static final FieldWriter BYTE      = (generator, faker) -> generator.writeNumber(ValueGenerator.randomByte(faker));
+    private static final FieldWriter DOUBLE    = (generator, faker) -> generator.writeNumber(ValueGenerator.randomDouble(faker));
+    private static final FieldWriter FLOAT     = (generator, faker) -> generator.writeNumber(ValueGenerator.randomFloat(faker));
+    private static final FieldWriter BOOLEAN   = (generator, faker) -> generator.writeBoolean(ValueGenerator.randomBoolean(faker));
+    private static final FieldWriter CHARACTER = (generator, faker) -> generator.writeString(String.valueOf(ValueGenerator.randomCharacter(faker)));
+
+    /* The width of the range drawn from when only one bound of a number is set */
+    static final long DEFAULT_SPAN = 1000;
+
+    /* The number of items drawn above minItems at most */
+    static final int EXTRA_ITEMS = 3;
+
+    /* The number of characters drawn above minLength at most, when a word does not fit */
+    private static final int EXTRA_LENGTH = 16;
+
+    // Private constructor to prevent instantiation
+    private FieldWriters()
+    {
+        throw new AssertionError("Utility class should not be instantiated");
+    }
+
+    /**
+     * Returns the writer for the given field type.
+     *
+     * @param type the field type, as converted by {@link com.mock.model.util.FieldTypeConverter}
+     * @return the writer generating values of that type
+     * @throws IllegalArgumentException if the type is not supported
+     */
+    public static FieldWriter forType(Class<?> type)
+    {
+        if (String.class.equals(type))
+        {
+            return STRING;
+        }
+        else if (Integer.class.equals(type) || int.class.equals(type))
+        {
+            return INTEGER;
+        }
+        else if (Long.class.equals(type) || long.class.equals(type))
+        {
+            return LONG;
+        }
+        else if (Short.class.equals(type) || short.class.equals(type))
+        {
+            return SHORT;
+        }
+        else if (Byte.class.equals(type) || byte.class.equals(type))
+        {
+            return BYTE;
+        }
+        else if (Double.class.equals(type) || double.class.equals(type))
+        {
+            return DOUBLE;
+        }
+        else if (Float.class.equals(type) || float.class.equals(type))
+        {
+            return FLOAT;
+        }
+        else if (Boolean.class.equals(type) || boolean.class.equals(type))
+        {
+            return BOOLEAN;
+        }
+        else if (Character.class.equals(type) || char.class.equals(type))
+        {
+            return CHARACTER;
+        }
+
+        throw new IllegalArgumentException("No field writer for type: " + type);
+    }
+
+    /**
+     * Returns the writer for the given schema node, compiling the writers of its children.
+     *
+     * @param endpoints resolves the endpoint a reference names to its definition, null if there is none
+     * @throws IllegalArgumentException if a type is not supported, a provider is unknown or a
+     * reference names an unknown endpoint
+     */
+    public static FieldWriter forSchema(SchemaNode node, Function<String, MockApiDefinition> endpoints)
+    {
+        if (node instanceof ObjectSchema object)
+        {
+            return new ObjectWriter(object, endpoints);
+        }
+        if (node instanceof ArraySchema array)
+        {
+            return forArray(array, endpoints);
+        }
+
+        ScalarSchema scalar = (ScalarSchema) node;
+        if (scalar.getReference() != null)
+        {
+            return forReference(scalar.getReference(), endpoints);
+        }
+        if (!scalar.isConstrained())
+        {
+            return forType(scalar.getType());
+        }
+        if (scalar.getValues() != null)
+        {
+            return forValues(scalar.getValues());
+        }
+        if (scalar.getProvider() != null)
+        {
+            return new ProviderWriter(scalar.getProvider(), scalar.getMaxLength());
+        }
+        if (scalar.getType() == String.class)
+        {
+            return forLength(scalar.getMinLength(), scalar.getMaxLength());
+        }
+        if (scalar.isIntegral())
+        {
+            long low = scalar.getMinimumLong();
+            long high = scalar.getMaximumLong();
+            // Compared so that nothing overflows at the ends of the long range
+            if (!scalar.hasMinimum() && high > low + (DEFAULT_SPAN - 1))
+            {
+                low = high - (DEFAULT_SPAN - 1);
+            }
+            else if (!scalar.hasMaximum() && low < high - (DEFAULT_SPAN - 1))
+            {
+                high = low + (DEFAULT_SPAN - 1);
+            }
+            long min = low;
+            long max = high;
+            return (generator, faker) -> generator.writeNumber(between(faker, min, max));
+        }
+
+        double min = scalar.hasMinimum() ? scalar.getMinimum() : scalar.getMaximum() - DEFAULT_SPAN;
+        double max = scalar.hasMaximum() ? scalar.getMaximum() : scalar.getMinimum() + DEFAULT_SPAN;
+        if (scalar.getType() == Float.class)
+        {
+            return (generator, faker) -> generator.writeNumber((float) between(faker, min, max));
+        }
+        return (generator, faker) -> generator.writeNumber(between(faker, min, max));
+    }
+
+    /*
+       The IDs of a generated dataset are 1 to its count, so are those of a virtual one. The target
+       is looked up at each write, so a plan follows a target reloaded with another count; a target
+       removed since, or with no entries, gives null.
+     */
+    private static FieldWriter forReference(String reference, Function<String, MockApiDefinition> endpoints)
+    {
+        if (endpoints.apply(reference) == null)
+        {
+            throw new IllegalArgumentException("Reference to an unknown endpoint: " + reference);
+        }
+        return (generator, faker) ->
+        {
+            MockApiDefinition target = endpoints.apply(reference);
+            if (target == null || target.getCount() < 1)
+            {
+                generator.writeNull();
+            }
+            else
+            {
+                generator.writeNumber(faker.random().nextInt(1, target.getCount()));
+            }
+        };
+    }
+
+    private static FieldWriter forArray(ArraySchema array, Function<String, MockApiDefinition> endpoints)
+    {
+        FieldWriter items = forSchema(array.getItems(), endpoints);
+        int min = array.getMinItems();
+        int max = (int) Math.min(array.getMaxItems(), (long) min + EXTRA_ITEMS);
+        return (generator, faker) -> {
+            int count = faker.random().nextInt(min, max);
+            generator.writeStartArray();
+            for (int i = 0; i < count; i++)
+            {
+                items.write(generator, faker);
+            }
+            generator.writeEndArray();
+        };
+    }
+
+    private static FieldWriter forValues(List<Object> values)
+    {
+        Object[] choices = values.toArray();
+        return (generator, faker) -> {
+            Object value = choices[faker.random().nextInt(choices.length)];
+            if (value instanceof Long number)
+            {
+                generator.writeNumber(number);
+            }
+            else
+            {
+                generator.writeString((String) value);
+            }
+        };
+    }
+
+    private static FieldWriter forLength(int minLength, int maxLength)
+    {
+        int max = (int) Math.min(maxLength, (long) minLength + EXTRA_LENGTH);
+        return (generator, faker) -> {
+            String word = ValueGenerator.randomWord(faker);
+            if (word.length() < minLength || word.length() > maxLength)
+            {
+                word = faker.lorem().characters(minLength, max);
+            }
+            generator.writeString(word);
+        };
+    }
+
+    /* A whole number from min to max, both included */
+    private static long between(Faker faker, long min, long max)
+    {
+        if (max < Long.MAX_VALUE)
+        {
+            return faker.random().nextLong(min, max + 1);
+        }
+        return min > Long.MIN_VALUE ? faker.random().nextLong(min - 1, max) + 1 : faker.random().nextLong();
+    }
+
+    /* A number from min to max with two decimals, like the unconstrained doubles, unless rounding leaves the range */
+    private static double between(Faker faker, double min, double max)
+    {
+        double value = faker.random().nextDouble(min, max);
+        double rounded = Math.round(value * 100) / 100.0;
+        return rounded >= min && rounded <= max ? rounded : value;
+    }
+}
@@ -0,0 +1,43 @@
+package com.mock.generator.plan;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.schema.ObjectSchema;
+import net.datafaker.Faker;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Writes a generated JSON object: every field of an {@link ObjectSchema}, in declaration order,
+ * each with its pre-encoded name and the writer compiled for its schema node.
+ */
+final class ObjectWriter implements FieldWriter
+{
+    private final SerializedString[] names;
+    private final FieldWriter[] writers;
+
+    ObjectWriter(ObjectSchema schema, Function<String, MockApiDefinition> endpoints)
+    {
+        this.names = new SerializedString[schema.size()];
+        this.writers = new FieldWriter[schema.size()];
+        for (int i = 0; i < schema.size(); i++)
+        {
+            names[i] = new SerializedString(schema.getName(i));
+            writers[i] = FieldWriters.forSchema(schema.getField(i), endpoints);
+        }
+    }
+
+    @Override
+    public void write(JsonGenerator generator, Faker faker) throws IOException
+    {
+        generator.writeStartObject();
+        for (int i = 0; i < writers.length; i++)
+        {
+            generator.writeFieldName(names[i]);
+            writers[i].write(generator, faker);
+        }
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,79 @@
+package com.mock.generator.plan;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.datafaker.Faker;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Writes the values of a Faker provider, such as {@code name.fullName} for
+ * {@code faker.name().fullName()}, as strings cut to a maximum length.
+ * <p>
+ * The provider name is resolved to its chain of methods once, when the plan is compiled, so an
+ * unknown provider fails the configuration instead of every record, and generating a value is
+ * a couple of reflective calls without any lookup.
+ */
+final class ProviderWriter implements FieldWriter
+{
+    private final String provider;
+    private final Method[] chain;
+    private final int maxLength;
+
+    /**
+     * @throws IllegalArgumentException if the provider does not name a chain of Faker methods
+     */
+    ProviderWriter(String provider, int maxLength)
+    {
+        String[] names = provider.split("\\.");
+        this.provider = provider;
+        this.chain = new Method[names.length];
+        this.maxLength = maxLength;
+
+        Class<?> type = Faker.class;
+        for (int i = 0; i < names.length; i++)
+        {
+            chain[i] = method(type, names[i]);
+            type = chain[i].getReturnType();
+        }
+        if (!type.isPrimitive() && type != String.class && !Number.class.isAssignableFrom(type))
+        {
+            throw new IllegalArgumentException("Faker provider " + provider + " does not name a value");
+        }
+    }
+
+    /* The public method without parameters of that name, the case of its name ignored */
+    private Method method(Class<?> type, String name)
+    {
+        for (Method method : type.getMethods())
+        {
+            if (method.getName().equalsIgnoreCase(name) && method.getParameterCount() == 0
+                && !Modifier.isStatic(method.getModifiers()) && method.getReturnType() != void.class)
+            {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("Unknown Faker provider: " + provider);
+    }
+
+    @Override
+    public void write(JsonGenerator generator, Faker faker) throws IOException
+    {
+        Object value = faker;
+        try
+        {
+            for (Method method : chain)
+            {
+                value = method.invoke(value);
+            }
+        }
+        catch (IllegalAccessException | InvocationTargetException e)
+        {
+            throw new IllegalStateException("Faker provider " + provider + " failed", e);
+        }
+        String text = String.valueOf(value);
+        generator.writeString(text.length() > maxLength ? text.substring(0, maxLength) : text);
+    }
+}
@@ -0,0 +1,67 @@
+package com.mock.generator.plan;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mock.model.MockApiDefinition;
+import net.datafaker.Faker;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * A {@link MockApiDefinition} compiled for record generation.
+ * <p>
+ * Every node of the definition's schema is bound to the {@link FieldWriter} of its type and
+ * constraints, and objects hold their field names pre-encoded, so generating a record walks a tree
+ * of writers that write straight into a {@link JsonGenerator}, without intermediate JSON trees, boxing
+ * or per-field type dispatch.
+ * <p>
+ * Plans are immutable and may be shared between threads.
+ */
+public final class RecordGeneratorPlan
+{
+    static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String endpoint;
+    private final ObjectWriter record;
+
+    private RecordGeneratorPlan(String endpoint, ObjectWriter record)
+    {
+        this.endpoint = endpoint;
+        this.record = record;
+    }
+
+    /**
+     * Compiles the plan for the given definition.
+     *
+     * @param endpoints resolves the endpoint a reference field names to its definition, null if
+     *                  there is none; the references are drawn from the IDs up to its count
+     * @throws IllegalArgumentException if a field has a type no writer exists for, an unknown provider,
+     * or references an unknown endpoint
+     */
+    public static RecordGeneratorPlan compile(MockApiDefinition definition, Function<String, MockApiDefinition> endpoints)
+    {
+        return new RecordGeneratorPlan(definition.getEndpointName(), new ObjectWriter(definition.getSchema(), endpoints));
+    }
+
+    /**
+     * Writes one generated record as a JSON object.
+     */
+    public void writeRecord(JsonGenerator generator, Faker faker) throws IOException
+    {
+        record.write(generator, faker);
+    }
+
+    /**
+     * Creates a writer producing standalone records of this plan. The writer is not thread-safe.
+     */
+    public RecordWriter newWriter()
+    {
+        return new RecordWriter(this);
+    }
+
+    public String getEndpoint()
+    {
+        return endpoint;
+    }
+}
@@ -0,0 +1,56 @@
+package com.mock.generator.plan;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import net.datafaker.Faker;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Serializes generated records of one {@link RecordGeneratorPlan} into compact UTF-8 JSON.
+ * <p>
+ * The output buffer and the {@link JsonGenerator} are created once and reused for every record,
+ * so the only per-record allocation is the returned array. Not thread-safe: use one writer per thread.
+ */
+public final class RecordWriter implements Closeable
+{
+    private final RecordGeneratorPlan plan;
+    private final ByteArrayBuilder buffer = new ByteArrayBuilder(256);
+    private final JsonGenerator generator;
+
+    RecordWriter(RecordGeneratorPlan plan)
+    {
+        this.plan = plan;
+        try
+        {
+            this.generator = RecordGeneratorPlan.JSON_FACTORY.createGenerator(buffer);
+        }
+        catch (IOException e)
+        {
+            // Cannot happen for an in-memory target
+            throw new IllegalStateException("Failed to create JSON generator", e);
+        }
+        // Records are written one after the other as root values, without separators
+        this.generator.setRootValueSeparator(null);
+    }
+
+    /**
+     * Generates the next record and returns it as UTF-8 encoded JSON.
+     */
+    public byte[] write(Faker faker) throws IOException
+    {
+        plan.writeRecord(generator, faker);
+        generator.flush();
+
+        byte[] record = buffer.toByteArray();
+        buffer.reset();
+        return record;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        generator.close();
+    }
+}
@@ -0,0 +1,29 @@
+package com.mock.generator.sink;
+
+/**
+ * Final stage of the generation pipeline: receives the serialized records one at a time.
+ * <p>
+ * Implementations decide how much to buffer, but are expected to keep it bounded so that
+ * generating an endpoint needs the same memory whatever its {@code count}.
+ */
+public interface RecordSink extends AutoCloseable
+{
+    /**
+     * Accepts the next generated record.
+     *
+     * @param internalId the ID allocated to the record
+     * @param record     the record as compact UTF-8 JSON; the sink takes ownership of the array
+     */
+    void accept(int internalId, byte[] record);
+
+    /**
+     * Writes out whatever is still buffered.
+     */
+    @Override
+    void close();
+
+    /**
+     * Returns the number of records written out so far.
+     */
+    int getWritten();
+}
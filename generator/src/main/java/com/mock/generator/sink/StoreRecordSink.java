@@ -0,0 +1,70 @@
+package com.mock.generator.sink;
+
+import com.mock.database.store.EndpointStore;
+import com.mock.database.store.StoredEntry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link RecordSink} writing to an {@link EndpointStore} in chunks of a fixed size, each chunk
+ * through one {@link EndpointStore#insertAll} call. At most one chunk of records is held at any time.
+ */
+public class StoreRecordSink implements RecordSink
+{
+    private final EndpointStore store;
+    private final int batchSize;
+    private final int expected;
+    private final List<StoredEntry> chunk;
+    private int written;
+    private static final Logger LOG = LogManager.getLogger();
+
+    /**
+     * @param expected the number of records the caller is about to write, used for progress logging
+     */
+    public StoreRecordSink(EndpointStore store, int batchSize, int expected)
+    {
+        this.store = store;
+        this.batchSize = batchSize;
+        this.expected = expected;
+        this.chunk = new ArrayList<>(Math.min(batchSize, expected));
+    }
+
+    @Override
+    public void accept(int internalId, byte[] record)
+    {
+        chunk.add(new StoredEntry(internalId, record));
+
+        if (chunk.size() == batchSize)
+        {
+            flushChunk();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (!chunk.isEmpty())
+        {
+            flushChunk();
+        }
+    }
+
+    @Override
+    public int getWritten()
+    {
+        return written;
+    }
+
+    /* Writes the chunk out, logs the progress and clears the chunk for reuse */
+    private void flushChunk()
+    {
+        store.insertAll(chunk);
+        written += chunk.size();
+        chunk.clear();
+
+        LOG.debug("Saved {}/{} generated entries for endpoint: {}", written, expected, store.getEndpoint());
+    }
+}
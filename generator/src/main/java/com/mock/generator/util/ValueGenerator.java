@@ -7,10 +7,16 @@ import net.datafaker.Faker;
  * The class leverages a third-party library to generate randomized mock data.
  * <br>
  * This class is intended to be used statically and cannot be instantiated.
+ * <br>
+ * Every thread gets its own {@link Faker} (and with it its own random state), so concurrent
+ * generators neither contend on nor interleave a shared sequence.
+ * <br>
+ * The typed methods ({@link #randomWord(Faker)}, {@link #randomInt(Faker)}, ...) define the value
+ * ranges for each type and are what the compiled generator plans call directly.
  */
 public final class ValueGenerator
 {
-    private static final Faker faker = new Faker();
+    private static final ThreadLocal<Faker> FAKER = ThreadLocal.withInitial(Faker::new);
 
     // Private constructor to prevent instantiation
     private ValueGenerator()
@@ -19,35 +25,56 @@ public final class ValueGenerator
     }
 
     /**
-     * Generates a random mock value for a specified data type.
-     * This method supports generation of String, Integer, Double, and Boolean values.
-     *
-     * @param type      The Class object representing the type of value to generate
-     * @param ignoredFieldName The name of the field for which the value is being generated
-     *                  (currently unused, reserved for future implementation)
-     * @return A randomly generated value of the specified type, or null if the type
-     * is not supported
+     * Returns the {@link Faker} owned by the calling thread.
      */
-    public static Object generateValueForType(Class<?> type, String ignoredFieldName)
-    {
-        if (String.class.equals(type))
-        {
-            return faker.lorem().word();
-        }
-        else if (Integer.class.equals(type) || int.class.equals(type))
-        {
-            return faker.number().numberBetween(1, 1000);
-        }
-        else if (Double.class.equals(type) || double.class.equals(type))
-        {
-            return faker.number().randomDouble(2, 0, 1000);
-        }
-        else if (Boolean.class.equals(type) || boolean.class.equals(type))
-        {
-            return faker.bool().bool();
-        }
-
-        return null;
+    public static Faker threadFaker()
+    {
+        return FAKER.get();
+    }
+
+    public static String randomWord(Faker faker)
+    {
+        return faker.lorem().word();
+    }
+
+    public static int randomInt(Faker faker)
+    {
+        return faker.number().numberBetween(1, 1000);
+    }
+
+    public static long randomLong(Faker faker)
+    {
+        return faker.number().numberBetween(1L, 1_000_000L);
+    }
+
+    public static short randomShort(Faker faker)
+    {
+        return (short) faker.number().numberBetween(1, 1000);
+    }
+
+    public static byte randomByte(Faker faker)
+    {
+        return (byte) faker.number().numberBetween(0, 128);
+    }
+
+    public static double randomDouble(Faker faker)
+    {
+        return faker.number().randomDouble(2, 0, 1000);
+    }
+
+    public static float randomFloat(Faker faker)
+    {
+        return (float) faker.number().randomDouble(2, 0, 1000);
+    }
+
+    public static boolean randomBoolean(Faker faker)
+    {
+        return faker.bool().bool();
+    }
+
+    public static char randomCharacter(Faker faker)
+    {
+        return faker.lorem().character();
     }
 
     //TODO to extend the functionality dynamic mapping based on fieldName and type
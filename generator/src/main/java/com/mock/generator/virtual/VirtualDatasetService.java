@@ -0,0 +1,317 @@
+package com.mock.generator.virtual;
+
+import com.mock.database.store.DataStore;
+import com.mock.database.store.EndpointStore;
+import com.mock.database.store.EndpointStore.EntryVisitor;
+import com.mock.database.store.IdAllocator;
+import com.mock.database.store.IdSequence;
+import com.mock.database.store.StoredEntry;
+import com.mock.generator.DataGeneratorService;
+import com.mock.generator.plan.RecordWriter;
+import com.mock.model.MockApiDefinition;
+import net.datafaker.Faker;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the entries of definitions in {@link com.mock.model.DatasetMode#VIRTUAL} mode.
+ * <p>
+ * Nothing is generated up front: entry {@code id} (1..count) is computed on demand from
+ * hash(seed, endpoint, id), so the same configuration yields the same entry on every call and
+ * on every instance. Only the changes made through POST, PUT and DELETE are kept: overrides go
+ * to the endpoint's {@link EndpointStore}, deleted IDs to a small in-memory set.
+ */
+@Service
+public class VirtualDatasetService
+{
+    private final DataGeneratorService dataGeneratorService;
+    private final DataStore dataStore;
+    private final IdAllocator idAllocator;
+    private final Map<String, Delta> deltas = new ConcurrentHashMap<>();
+    private static final ThreadLocal<SeededFaker> FAKER = ThreadLocal.withInitial(SeededFaker::new);
+    private static final Logger LOG = LogManager.getLogger();
+
+    public VirtualDatasetService(DataGeneratorService dataGeneratorService,
+                                 DataStore dataStore,
+                                 IdAllocator idAllocator)
+    {
+        this.dataGeneratorService = dataGeneratorService;
+        this.dataStore = dataStore;
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Returns the current entry for the ID as UTF-8 JSON: the override if one was written, nothing if it was
+     * deleted, otherwise the computed entry when the ID is within the definition count.
+     */
+    public Optional<byte[]> find(MockApiDefinition definition, int id)
+    {
+        Delta delta = deltaFor(definition);
+        byte[] override = delta.overrides.get(id);
+        if (override != null)
+        {
+            return Optional.of(override);
+        }
+        if (delta.deleted.contains(id))
+        {
+            return Optional.empty();
+        }
+
+        if (id < 1 || id > definition.getCount())
+        {
+            return Optional.empty();
+        }
+        return Optional.of(compute(definition, id));
+    }
+
+    /**
+     * Passes up to {@code limit} existing entries with an ID above {@code afterId} to the visitor,
+     * in ID order. Only the IDs up to the last one visited are computed or looked up.
+     *
+     * @return the number of entries visited
+     */
+    public int scanAfter(MockApiDefinition definition, int afterId, int limit, EntryVisitor visitor)
+    {
+        int lastId = deltaFor(definition).ids.current();
+        int visited = 0;
+        for (int id = Math.max(afterId, 0) + 1; id <= lastId && visited < limit; id++)
+        {
+            Optional<byte[]> entry = find(definition, id);
+            if (entry.isPresent())
+            {
+                visitor.visit(id, entry.get());
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Like {@link #scanAfter}, but skips the first {@code offset} existing entries. As long as
+     * nothing was deleted the IDs are dense and the start is found without stepping over them.
+     *
+     * @return the number of entries visited
+     */
+    public int scanOffset(MockApiDefinition definition, int offset, int limit, EntryVisitor visitor)
+    {
+        Delta delta = deltaFor(definition);
+        if (delta.deleted.isEmpty())
+        {
+            return scanAfter(definition, offset, limit, visitor);
+        }
+
+        int lastId = delta.ids.current();
+        int skipped = 0;
+        int afterId = 0;
+        while (skipped < offset && afterId < lastId)
+        {
+            afterId++;
+            if (!delta.deleted.contains(afterId))
+            {
+                skipped++;
+            }
+        }
+        return scanAfter(definition, afterId, limit, visitor);
+    }
+
+    /**
+     * Passes the current entries for the given IDs to the visitor, in the order of the IDs.
+     * IDs without an entry are skipped.
+     *
+     * @return the number of entries visited
+     */
+    public int getAll(MockApiDefinition definition, int[] ids, EntryVisitor visitor)
+    {
+        int visited = 0;
+        for (int id : ids)
+        {
+            Optional<byte[]> entry = find(definition, id);
+            if (entry.isPresent())
+            {
+                visitor.visit(id, entry.get());
+                visited++;
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Stores a new entry after the highest ID in use and returns its ID.
+     */
+    public int create(MockApiDefinition definition, byte[] data)
+    {
+        Delta delta = deltaFor(definition);
+        int id = delta.ids.next();
+        delta.overrides.put(id, data);
+        return id;
+    }
+
+    /**
+     * Stores new entries under one range of consecutive IDs after the highest ID in use, in a
+     * single batch.
+     *
+     * @return the first ID of the range
+     */
+    public int createAll(MockApiDefinition definition, List<byte[]> data)
+    {
+        Delta delta = deltaFor(definition);
+        int firstId = delta.ids.reserve(data.size());
+        List<StoredEntry> entries = new ArrayList<>(data.size());
+        for (int i = 0; i < data.size(); i++)
+        {
+            entries.add(new StoredEntry(firstId + i, data.get(i)));
+        }
+        delta.overrides.insertAll(entries);
+        return firstId;
+    }
+
+    /**
+     * Replaces the entry with the given ID, or creates it.
+     *
+     * @return true if an entry existed before
+     */
+    public boolean put(MockApiDefinition definition, int id, byte[] data)
+    {
+        Delta delta = deltaFor(definition);
+        synchronized (delta)
+        {
+            boolean existed = find(definition, id).isPresent();
+            delta.overrides.put(id, data);
+            delta.deleted.remove(id);
+            delta.ids.observe(id);
+            return existed;
+        }
+    }
+
+    /**
+     * Deletes the entry with the given ID.
+     *
+     * @return true if an entry existed
+     */
+    public boolean delete(MockApiDefinition definition, int id)
+    {
+        Delta delta = deltaFor(definition);
+        synchronized (delta)
+        {
+            if (find(definition, id).isEmpty())
+            {
+                return false;
+            }
+            // Tombstone first: deleting the override advances the store version readers cache against
+            delta.deleted.add(id);
+            delta.overrides.delete(id);
+            return true;
+        }
+    }
+
+    /**
+     * Deletes the entries with the given IDs, the stored overrides among them in one batch.
+     *
+     * @param ids distinct IDs in ascending order
+     * @return the number of entries that existed
+     */
+    public int deleteAll(MockApiDefinition definition, int[] ids)
+    {
+        Delta delta = deltaFor(definition);
+        synchronized (delta)
+        {
+            int[] existing = Arrays.stream(ids).filter(id -> find(definition, id).isPresent()).toArray();
+            for (int id : existing)
+            {
+                delta.deleted.add(id);
+            }
+            delta.overrides.deleteAll(existing);
+            return existing.length;
+        }
+    }
+
+    /**
+     * Computes the original entry of the ID as UTF-8 JSON, ignoring any override.
+     */
+    public byte[] compute(MockApiDefinition definition, int id)
+    {
+        Faker faker = FAKER.get().reseed(entrySeed(definition.getSeed(), definition.getEndpointName(), id));
+        try (RecordWriter recordWriter = dataGeneratorService.planFor(definition).newWriter())
+        {
+            return recordWriter.write(faker);
+        }
+        catch (IOException e)
+        {
+            LOG.error("Failed to compute entry {} for endpoint: {}", id, definition.getEndpointName());
+            throw new UncheckedIOException("Failed to compute virtual entry", e);
+        }
+    }
+
+    /**
+     * Forgets the changes made to the definition's endpoint. Its stored overrides are removed
+     * separately, see {@link com.mock.generator.DataGeneratorService#discardMockData}.
+     */
+    public void discard(MockApiDefinition definition)
+    {
+        deltas.remove(definition.getEndpointName());
+    }
+
+    private Delta deltaFor(MockApiDefinition definition)
+    {
+        return deltas.computeIfAbsent(definition.getEndpointName(),
+                                      endpoint -> new Delta(dataStore.forEndpoint(endpoint), idAllocator.forEndpoint(endpoint), definition.getCount()));
+    }
+
+    /*
+     * Derives the seed of one entry. String.hashCode is specified by the JLS, so the result
+     * is the same on every JVM.
+     */
+    static long entrySeed(long seed, String endpoint, int id)
+    {
+        return mix(mix(seed ^ endpoint.hashCode()) + id);
+    }
+
+    /* SplitMix64 finalizer: spreads neighbouring inputs over the whole long range */
+    private static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /* Changes made to one virtual endpoint */
+    private static final class Delta
+    {
+        private final EndpointStore overrides;
+        private final Set<Integer> deleted = ConcurrentHashMap.newKeySet();
+        private final IdSequence ids;
+
+        private Delta(EndpointStore overrides, IdSequence ids, int count)
+        {
+            this.overrides = overrides;
+            this.ids = ids;
+            // The computed entries occupy 1..count, new entries go after them
+            ids.observe(count);
+        }
+    }
+
+    /* A per-thread Faker whose random source can be reset to a given seed */
+    private static final class SeededFaker
+    {
+        private final Random random = new Random();
+        private final Faker faker = new Faker(random);
+
+        private Faker reseed(long seed)
+        {
+            random.setSeed(seed);
+            return faker;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.mock.generator.virtual;
+
+import com.mock.database.store.DataStore;
+import com.mock.database.store.IdAllocator;
+import com.mock.database.store.memory.InMemoryDataStore;
+import com.mock.generator.DataGeneratorService;
+import com.mock.model.DatasetMode;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.MockApiDefinitionRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.mock.database.store.TestData.bytes;
+import static com.mock.database.store.TestData.text;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualDatasetServiceTest
+{
+    private static final MockApiDefinition DEFINITION = new MockApiDefinition("cars", "/api/cars",
+            Map.of("make", "string", "year", "integer"), "all", 5, DatasetMode.VIRTUAL, 42L);
+
+    @Test
+    void checkComputedEntries()
+    {
+        VirtualDatasetService service = service();
+        byte[] first = service.find(DEFINITION, 1).orElseThrow();
+        assertArrayEquals(first, service.find(DEFINITION, 1).orElseThrow());
+        // The same configuration yields the same entries on another instance
+        assertArrayEquals(first, service().find(DEFINITION, 1).orElseThrow());
+        assertFalse(text(first).equals(text(service.find(DEFINITION, 2).orElseThrow())));
+
+        assertTrue(service.find(DEFINITION, 0).isEmpty());
+        assertTrue(service.find(DEFINITION, 6).isEmpty());
+
+        MockApiDefinition reseeded = new MockApiDefinition("cars", "/api/cars",
+                Map.of("make", "string", "year", "integer"), "all", 5, DatasetMode.VIRTUAL, 43L);
+        assertFalse(text(first).equals(text(service().find(reseeded, 1).orElseThrow())));
+    }
+
+    @Test
+    void checkChanges()
+    {
+        DataStore dataStore = new InMemoryDataStore();
+        IdAllocator idAllocator = new IdAllocator(dataStore);
+        DataGeneratorService generator = generator(dataStore, idAllocator);
+        VirtualDatasetService service = new VirtualDatasetService(generator, dataStore, idAllocator);
+        byte[] original = service.find(DEFINITION, 2).orElseThrow();
+
+        assertTrue(service.put(DEFINITION, 2, bytes("{\"make\":\"audi\"}")));
+        assertEquals("{\"make\":\"audi\"}", text(service.find(DEFINITION, 2).orElseThrow()));
+        assertArrayEquals(original, service.compute(DEFINITION, 2));
+
+        assertTrue(service.delete(DEFINITION, 3));
+        assertFalse(service.delete(DEFINITION, 3));
+        assertTrue(service.find(DEFINITION, 3).isEmpty());
+
+        // New entries go after the computed ones
+        assertEquals(6, service.create(DEFINITION, bytes("{\"make\":\"bmw\"}")));
+        assertEquals(7, service.createAll(DEFINITION, List.of(bytes("{}"), bytes("{}"))));
+        assertFalse(service.put(DEFINITION, 3, bytes("{\"year\":2000}")));
+
+        assertEquals(2, service.deleteAll(DEFINITION, new int[] {1, 3, 9}));
+        assertEquals(List.of(2, 4, 5, 6, 7, 8), scan(service, 0, 10));
+
+        // The overrides are kept in the endpoint's store, and discarded with it
+        service.discard(DEFINITION);
+        generator.discardMockData(DEFINITION);
+        assertEquals(0, dataStore.forEndpoint("/api/cars").size());
+        assertArrayEquals(original, service.find(DEFINITION, 2).orElseThrow());
+    }
+
+    @Test
+    void checkScans()
+    {
+        VirtualDatasetService service = service();
+        assertEquals(List.of(1, 2, 3), scan(service, 0, 3));
+        assertEquals(List.of(4, 5), scan(service, 3, 10));
+
+        service.delete(DEFINITION, 2);
+        List<Integer> ids = new ArrayList<>();
+        assertEquals(2, service.scanOffset(DEFINITION, 2, 2, (id, data) -> ids.add(id)));
+        assertEquals(List.of(4, 5), ids);
+
+        ids.clear();
+        assertEquals(2, service.getAll(DEFINITION, new int[] {1, 2, 5, 6}, (id, data) -> ids.add(id)));
+        assertEquals(List.of(1, 5), ids);
+    }
+
+    private static VirtualDatasetService service()
+    {
+        DataStore dataStore = new InMemoryDataStore();
+        IdAllocator idAllocator = new IdAllocator(dataStore);
+        return new VirtualDatasetService(generator(dataStore, idAllocator), dataStore, idAllocator);
+    }
+
+    private static DataGeneratorService generator(DataStore dataStore, IdAllocator idAllocator)
+    {
+        return new DataGeneratorService(dataStore, idAllocator, new MockApiDefinitionRegistry(), 100);
+    }
+
+    private static List<Integer> scan(VirtualDatasetService service, int afterId, int limit)
+    {
+        List<Integer> ids = new ArrayList<>();
+        service.scanAfter(DEFINITION, afterId, limit, (id, data) -> ids.add(id));
+        return ids;
+    }
+}
@@ -0,0 +1,40 @@
+package com.mock.model;
+
+import java.util.Locale;
+
+/**
+ * How the entries of a {@link MockApiDefinition} are produced.
+ */
+public enum DatasetMode
+{
+    /** All entries are generated at startup and kept in the store */
+    STORED,
+
+    /**
+     * Nothing is generated up front: every entry is computed on demand from the definition seed,
+     * and only the changes made through POST, PUT and DELETE are kept
+     */
+    VIRTUAL;
+
+    /**
+     * Converts the configuration value (e.g. {@code "virtual"}) to a mode, case-insensitively.
+     *
+     * @param value the configured mode, or null for the default {@link #STORED}
+     * @throws IllegalArgumentException if the value is not a known mode
+     */
+    public static DatasetMode fromString(String value)
+    {
+        if (value == null || value.isBlank())
+        {
+            return STORED;
+        }
+        try
+        {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Unsupported dataset mode: " + value);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.mock.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable state of the {@link MockApiDefinitionRegistry}: its definitions in registration order,
+ * indexed by endpoint name and by logical name, and the version it was published as.
+ * <p>
+ * A change never touches a snapshot; it builds the next one, which the registry publishes in one
+ * reference swap. A reader holding a snapshot therefore sees a consistent set of definitions for as
+ * long as it keeps it, without any lock.
+ */
+public final class DefinitionSnapshot
+{
+    static final DefinitionSnapshot EMPTY = new DefinitionSnapshot(0, List.of());
+
+    private final long version;
+    private final List<MockApiDefinition> definitions;
+    private final Map<String, MockApiDefinition> byEndpoint;
+    private final Map<String, MockApiDefinition> byName;
+
+    /**
+     * @throws IllegalArgumentException if two definitions share an endpoint name
+     */
+    private DefinitionSnapshot(long version, List<MockApiDefinition> definitions)
+    {
+        Map<String, MockApiDefinition> byEndpoint = new HashMap<>(Math.max(16, definitions.size() * 2));
+        Map<String, MockApiDefinition> byName = new HashMap<>(Math.max(16, definitions.size() * 2));
+        for (MockApiDefinition definition : definitions)
+        {
+            if (byEndpoint.putIfAbsent(definition.getEndpointName(), definition) != null)
+            {
+                throw new IllegalArgumentException("Endpoint " + definition.getEndpointName() + " is already registered");
+            }
+            if (definition.getName() != null)
+            {
+                byName.putIfAbsent(definition.getName(), definition);
+            }
+        }
+        this.version = version;
+        this.definitions = Collections.unmodifiableList(definitions);
+        this.byEndpoint = byEndpoint;
+        this.byName = byName;
+    }
+
+    /**
+     * Returns the snapshot following this one, with the definitions removed and then added.
+     *
+     * @throws IllegalArgumentException if an added definition's endpoint is already registered
+     */
+    DefinitionSnapshot next(Collection<MockApiDefinition> removed, Collection<MockApiDefinition> added)
+    {
+        List<MockApiDefinition> definitions = new ArrayList<>(this.definitions.size() + added.size());
+        if (removed.isEmpty())
+        {
+            definitions.addAll(this.definitions);
+        }
+        else
+        {
+            Set<MockApiDefinition> removedSet = new HashSet<>(removed);
+            for (MockApiDefinition definition : this.definitions)
+            {
+                if (!removedSet.contains(definition))
+                {
+                    definitions.add(definition);
+                }
+            }
+        }
+        definitions.addAll(added);
+        return new DefinitionSnapshot(version + 1, definitions);
+    }
+
+    /**
+     * Returns the version of the snapshot, incremented by each change of the registry.
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Returns the definitions in registration order, unmodifiable.
+     */
+    public List<MockApiDefinition> getDefinitions()
+    {
+        return definitions;
+    }
+
+    /**
+     * Returns the definition of the endpoint, or null if none is registered.
+     */
+    public MockApiDefinition getByEndpoint(String endpointName)
+    {
+        return byEndpoint.get(endpointName);
+    }
+
+    /**
+     * Returns the definition with the logical name, the first registered one if several share it,
+     * or null if there is none.
+     */
+    public MockApiDefinition getByName(String name)
+    {
+        return byName.get(name);
+    }
+
+    public int size()
+    {
+        return definitions.size();
+    }
+}
@@ -0,0 +1,26 @@
+package com.mock.model;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Published when the endpoint configuration has been read again after a change, with every
+ * definition it now holds. The listeners bring the registered endpoints in line with it; the
+ * {@link MockApiDefinitionRegistry} still holds the previous definitions when it is published.
+ */
+public class DefinitionsReloadedEvent extends ApplicationEvent
+{
+    private final List<MockApiDefinition> definitions;
+
+    public DefinitionsReloadedEvent(Object source, List<MockApiDefinition> definitions)
+    {
+        super(source);
+        this.definitions = List.copyOf(definitions);
+    }
+
+    public List<MockApiDefinition> getDefinitions()
+    {
+        return definitions;
+    }
+}
@@ -0,0 +1,146 @@
+package com.mock.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The simulated response latency of an endpoint: a fixed delay, a uniform range, or a
+ * distribution given by some of its percentiles (e.g. p50, p90 and p99).
+ * <p>
+ * A latency is drawn with {@link #millisAt(double)} from a uniform random quantile, which makes
+ * every profile an inverse distribution function. Between the configured percentiles of a
+ * distribution the latency is interpolated linearly; below the lowest one it falls towards 0
+ * (unless {@code p0} is given), above the highest one it stays at its value.
+ * <p>
+ * Immutable.
+ */
+public final class LatencyProfile
+{
+    /* The inverse distribution function as sorted (quantile, millis) points */
+    private final double[] quantiles;
+    private final double[] millis;
+    private final String description;
+
+    private LatencyProfile(double[] quantiles, double[] millis, String description)
+    {
+        this.quantiles = quantiles;
+        this.millis = millis;
+        this.description = description;
+    }
+
+    public static LatencyProfile fixed(long millis)
+    {
+        requireNonNegative(millis);
+        return new LatencyProfile(new double[]{0, 1}, new double[]{millis, millis}, "fixed " + millis + " ms");
+    }
+
+    /**
+     * @throws IllegalArgumentException if a bound is negative or {@code min > max}
+     */
+    public static LatencyProfile uniform(long min, long max)
+    {
+        requireNonNegative(min);
+        if (max < min)
+        {
+            throw new IllegalArgumentException("Latency max must not be below min: " + min + " > " + max);
+        }
+        return new LatencyProfile(new double[]{0, 1}, new double[]{min, max}, "uniform " + min + "-" + max + " ms");
+    }
+
+    /**
+     * Creates a distribution from its percentiles.
+     *
+     * @param percentiles latency in milliseconds by percentile (0 to 100, e.g. 99.9)
+     * @throws IllegalArgumentException if there are none, a percentile is out of range, or the
+     *                                  latency decreases from one percentile to the next
+     */
+    public static LatencyProfile percentiles(Map<Double, Long> percentiles)
+    {
+        if (percentiles.isEmpty())
+        {
+            throw new IllegalArgumentException("At least one latency percentile is required");
+        }
+        TreeMap<Double, Long> sorted = new TreeMap<>(percentiles);
+        if (sorted.firstKey() < 0 || sorted.lastKey() > 100)
+        {
+            throw new IllegalArgumentException("Latency percentiles must be between 0 and 100: " + sorted.keySet());
+        }
+
+        // Implicit end points: 0 ms at p0 and the highest latency at p100
+        sorted.putIfAbsent(0.0, 0L);
+        sorted.putIfAbsent(100.0, sorted.lastEntry().getValue());
+
+        double[] quantiles = new double[sorted.size()];
+        double[] millis = new double[sorted.size()];
+        int i = 0;
+        for (Map.Entry<Double, Long> point : sorted.entrySet())
+        {
+            requireNonNegative(point.getValue());
+            if (i > 0 && point.getValue() < millis[i - 1])
+            {
+                throw new IllegalArgumentException("Latency percentiles must not decrease: " + new TreeMap<>(percentiles));
+            }
+            quantiles[i] = point.getKey() / 100;
+            millis[i] = point.getValue();
+            i++;
+        }
+        return new LatencyProfile(quantiles, millis, "percentiles " + new TreeMap<>(percentiles));
+    }
+
+    /**
+     * Returns the latency in milliseconds at the given quantile.
+     *
+     * @param quantile a value from 0 (inclusive) to 1 (exclusive), uniformly distributed for a random latency
+     */
+    public double millisAt(double quantile)
+    {
+        int index = Arrays.binarySearch(quantiles, quantile);
+        if (index >= 0)
+        {
+            return millis[index];
+        }
+        int upper = -index - 1;
+        if (upper >= quantiles.length)
+        {
+            return millis[millis.length - 1];
+        }
+        int lower = upper - 1;
+        double fraction = (quantile - quantiles[lower]) / (quantiles[upper] - quantiles[lower]);
+        return millis[lower] + fraction * (millis[upper] - millis[lower]);
+    }
+
+    private static void requireNonNegative(long millis)
+    {
+        if (millis < 0)
+        {
+            throw new IllegalArgumentException("Latency must not be negative: " + millis);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof LatencyProfile other))
+        {
+            return false;
+        }
+        return Arrays.equals(quantiles, other.quantiles) && Arrays.equals(millis, other.millis);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * Arrays.hashCode(quantiles) + Arrays.hashCode(millis);
+    }
+
+    @Override
+    public String toString()
+    {
+        return description;
+    }
+}
@@ -3,8 +3,15 @@ package com.mock.model;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.web.bind.annotation.RequestMethod;
+import com.mock.model.schema.ArraySchema;
+import com.mock.model.schema.ObjectSchema;
+import com.mock.model.schema.ScalarSchema;
+import com.mock.model.schema.SchemaNode;
 import com.mock.model.util.FieldTypeConverter;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -20,7 +27,10 @@ public class MockApiDefinition
     /** Name/path of the mock API endpoint */
     private final String endpointName;
     
-    /** Map of field names to their Java types */
+    /** Schema of the entries, possibly nested */
+    private final ObjectSchema schema;
+
+    /** Map of field names to their Java types, in declaration order */
     private final Map<String, Class<?>> fields;
     
     /** Supported HTTP methods */
@@ -29,6 +39,18 @@ public class MockApiDefinition
     /** Number of mock entries to generate */
     private final int count;
 
+    /** Whether the entries are stored up front or computed on demand */
+    private final DatasetMode mode;
+
+    /** Seed the entries of a virtual dataset are derived from */
+    private final long seed;
+
+    /** Simulated response latency, null for none */
+    private final LatencyProfile latency;
+
+    /** Throughput cap, null for none */
+    private final ThroughputLimit throughput;
+
     private final Logger LOG = LogManager.getLogger();
 
     /**
@@ -36,12 +58,49 @@ public class MockApiDefinition
      * @throws NullPointerException if any required parameter is null
      */
     public MockApiDefinition(String name, String endpointName, Map<String, String> fields, String methods, int count)
+    {
+        this(name, endpointName, fields, methods, count, DatasetMode.STORED, 0L);
+    }
+
+    /**
+     * Creates a new com.mock.model.MockApiDefinition with an explicit dataset mode and seed.
+     * @throws NullPointerException if any required parameter is null
+     */
+    public MockApiDefinition(String name, String endpointName, Map<String, String> fields, String methods, int count,
+                             DatasetMode mode, long seed)
+    {
+        this(name, endpointName, fields, methods, count, mode, seed, null, null);
+    }
+
+    /**
+     * Creates a new com.mock.model.MockApiDefinition with latency and throughput shaping, either may be null.
+     * @throws NullPointerException if any required parameter is null
+     */
+    public MockApiDefinition(String name, String endpointName, Map<String, String> fields, String methods, int count,
+                             DatasetMode mode, long seed, LatencyProfile latency, ThroughputLimit throughput)
+    {
+        this(name, endpointName, ObjectSchema.compile(Objects.requireNonNull(fields, "Fields must not be null")), methods,
+             count, mode, seed, latency, throughput);
+    }
+
+    /**
+     * Creates a new com.mock.model.MockApiDefinition from a compiled schema, which may hold nested objects,
+     * arrays and constrained fields.
+     * @throws NullPointerException if any required parameter is null
+     */
+    public MockApiDefinition(String name, String endpointName, ObjectSchema schema, String methods, int count,
+                             DatasetMode mode, long seed, LatencyProfile latency, ThroughputLimit throughput)
     {
         this.name = name;
         this.endpointName = Objects.requireNonNull(endpointName, "Endpoint name must not be null");
-        this.fields = FieldTypeConverter.convertFieldTypes(Objects.requireNonNull(fields, "Fields must not be null"));
+        this.schema = Objects.requireNonNull(schema, "Schema must not be null");
+        this.fields = fieldTypes(schema);
         this.methods = FieldTypeConverter.convertToRequestMethods(Objects.requireNonNull(methods, "Methods must not be null"));
         this.count = count;
+        this.mode = Objects.requireNonNull(mode, "Mode must not be null");
+        this.seed = seed;
+        this.latency = latency;
+        this.throughput = throughput;
         LOG.trace("Created MockApiDefinition: {}", this);
     }
 
@@ -55,11 +114,32 @@ public class MockApiDefinition
         return endpointName;
     }
 
+    /**
+     * Returns the top-level fields and their types, in declaration order. A nested object has the
+     * type {@link Map}, an array the type {@link List}; see {@link #getSchema()} for their content.
+     */
     public Map<String, Class<?>> getFields()
     {
         return fields;
     }
 
+    public ObjectSchema getSchema()
+    {
+        return schema;
+    }
+
+    private static Map<String, Class<?>> fieldTypes(ObjectSchema schema)
+    {
+        Map<String, Class<?>> types = new LinkedHashMap<>();
+        for (int i = 0; i < schema.size(); i++)
+        {
+            SchemaNode field = schema.getField(i);
+            types.put(schema.getName(i), field instanceof ScalarSchema scalar ? scalar.getType()
+                    : field instanceof ArraySchema ? List.class : Map.class);
+        }
+        return Collections.unmodifiableMap(types);
+    }
+
     public Set<RequestMethod> getMethods()
     {
         return methods;
@@ -70,13 +150,93 @@ public class MockApiDefinition
         return count;
     }
 
+    public DatasetMode getMode()
+    {
+        return mode;
+    }
+
+    public boolean isVirtual()
+    {
+        return mode == DatasetMode.VIRTUAL;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Returns the simulated response latency, or null if responses are not delayed.
+     */
+    public LatencyProfile getLatency()
+    {
+        return latency;
+    }
+
+    /**
+     * Returns the throughput cap, or null if the endpoint is not limited.
+     */
+    public ThroughputLimit getThroughput()
+    {
+        return throughput;
+    }
+
+    /**
+     * Returns true if the other definition generates the same entries for the same endpoint: same
+     * schema, count, mode and seed. Its methods, name, latency and throughput may differ, as they
+     * only change how the entries are served.
+     */
+    public boolean hasSameData(MockApiDefinition other)
+    {
+        return count == other.count
+                && seed == other.seed
+                && endpointName.equals(other.endpointName)
+                && schema.equals(other.schema)
+                && mode == other.mode;
+    }
+
+    /**
+     * Two definitions are equal when they describe the same endpoint with the same configuration,
+     * so a reloaded configuration can be told apart from the one in use.
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof MockApiDefinition other))
+        {
+            return false;
+        }
+        return count == other.count
+                && seed == other.seed
+                && Objects.equals(name, other.name)
+                && endpointName.equals(other.endpointName)
+                && schema.equals(other.schema)
+                && methods.equals(other.methods)
+                && mode == other.mode
+                && Objects.equals(latency, other.latency)
+                && Objects.equals(throughput, other.throughput);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(endpointName, schema, methods, count, mode, seed);
+    }
+
     @Override
     public String toString()
     {
         return "com.mock.model.MockApiDefinition{" +
                 "endpointName='" + endpointName + '\'' +
                 ", count=" + count +
-                ", fields=" + fields +
+                ", mode=" + mode +
+                (latency != null ? ", latency=" + latency : "") +
+                (throughput != null ? ", throughput=" + throughput : "") +
+                ", fields=" + schema +
                 ", methods='" + methods + '\'' +
                 '}';
     }
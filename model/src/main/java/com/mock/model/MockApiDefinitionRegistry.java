@@ -1,42 +1,125 @@
 package com.mock.model;
 
 import org.springframework.stereotype.Service;
-import jakarta.annotation.PostConstruct;
-import java.util.Collections;
+
+import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A registry class responsible for managing and maintaining a collection of {@link MockApiDefinition} objects.
- * This class operates as a singleton and provides functionalities for adding, retrieving, and clearing mock API definitions.
  * <p>
- * The service is initialized as a Spring-managed bean and stores the registered mock API definitions in a thread-safe list.
+ * The definitions are held in an immutable {@link DefinitionSnapshot}, indexed by endpoint name and
+ * logical name, that is replaced as a whole on every change through a single atomic reference. Readers
+ * never lock nor scan: a lookup is one volatile read and one hash lookup. Writers build the next
+ * snapshot and swap it in, retrying if another change was published meanwhile, so registering many
+ * definitions with {@link #addDefinitions} costs one snapshot, not one copy per definition.
+ * <p>
+ * The service is a Spring-managed bean; consumers have it injected.
  */
 @Service
 public class MockApiDefinitionRegistry
 {
-    private static MockApiDefinitionRegistry instance;
-    private final List<MockApiDefinition> definitions = new CopyOnWriteArrayList<>();
+    private final AtomicReference<DefinitionSnapshot> snapshot = new AtomicReference<>(DefinitionSnapshot.EMPTY);
 
-    @PostConstruct
-    private void initialize()
+    /**
+     * Returns the current state of the registry. It does not change when definitions are added or
+     * removed later.
+     */
+    public DefinitionSnapshot snapshot()
     {
-        instance = this;
+        return snapshot.get();
     }
 
-    public static MockApiDefinitionRegistry getInstance()
+    /**
+     * @throws IllegalArgumentException if the endpoint is already registered
+     */
+    public void addDefinition(MockApiDefinition definition)
     {
-        return instance;
+        addDefinitions(List.of(definition));
     }
 
-    public void addDefinition(MockApiDefinition definition)
+    /**
+     * Registers the definitions at once.
+     *
+     * @throws IllegalArgumentException if an endpoint is already registered or given twice; none of
+     * the definitions is registered then
+     */
+    public void addDefinitions(Collection<MockApiDefinition> definitions)
     {
-        definitions.add(definition);
+        snapshot.updateAndGet(current -> current.next(List.of(), definitions));
+    }
+
+    /**
+     * Removes and adds definitions in one change, so readers see either all of the old definitions
+     * or all of the new ones. A removed definition that is not registered is ignored.
+     *
+     * @throws IllegalArgumentException if an added endpoint is still registered or given twice;
+     * nothing changes then
+     */
+    public void replaceDefinitions(Collection<MockApiDefinition> removed, Collection<MockApiDefinition> added)
+    {
+        snapshot.updateAndGet(current -> current.next(removed, added));
     }
 
     public List<MockApiDefinition> getDefinitions()
     {
-        return Collections.unmodifiableList(definitions);
+        return snapshot.get().getDefinitions();
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns the definition of the endpoint, or null if none is registered.
+     */
+    public MockApiDefinition getDefinition(String endpointName)
+    {
+        return snapshot.get().getByEndpoint(endpointName);
+    }
+
+    /**
+     * Returns the definition with the logical name, or null if none is registered.
+     */
+    public MockApiDefinition getDefinitionByName(String name)
+    {
+        return snapshot.get().getByName(name);
+    }
+
+    /**
+     * Returns the definition a reference names, by its endpoint name or else its logical name, or
+     * null if none is registered.
+     */
+    public MockApiDefinition resolve(String endpointOrName)
+    {
+        DefinitionSnapshot current = snapshot.get();
+        MockApiDefinition definition = current.getByEndpoint(endpointOrName);
+        return definition != null ? definition : current.getByName(endpointOrName);
+    }
+
+    /**
+     * Removes the definition.
+     *
+     * @return true if it was registered
+     */
+    public boolean removeDefinition(MockApiDefinition definition)
+    {
+        while (true)
+        {
+            DefinitionSnapshot current = snapshot.get();
+            if (!definition.equals(current.getByEndpoint(definition.getEndpointName())))
+            {
+                return false;
+            }
+            if (snapshot.compareAndSet(current, current.next(List.of(definition), List.of())))
+            {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the version of the current snapshot, incremented by each change.
+     */
+    public long getVersion()
+    {
+        return snapshot.get().getVersion();
+    }
+}
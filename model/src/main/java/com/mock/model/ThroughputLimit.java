@@ -0,0 +1,83 @@
+package com.mock.model;
+
+import java.util.Objects;
+
+/**
+ * The throughput cap of an endpoint, enforced as a token bucket: {@code burst} requests may be
+ * served at once, after which the bucket refills at {@code requestsPerSecond}. A request finding
+ * the bucket empty waits for its token up to {@code maxWaitMillis}, and is rejected if it would
+ * have to wait longer.
+ * <p>
+ * Immutable.
+ */
+public final class ThroughputLimit
+{
+    private final double requestsPerSecond;
+    private final int burst;
+    private final long maxWaitMillis;
+
+    /**
+     * @throws IllegalArgumentException if the rate or burst is not positive or the wait is negative
+     */
+    public ThroughputLimit(double requestsPerSecond, int burst, long maxWaitMillis)
+    {
+        if (!(requestsPerSecond > 0) || Double.isInfinite(requestsPerSecond))
+        {
+            throw new IllegalArgumentException("Throughput rps must be positive: " + requestsPerSecond);
+        }
+        if (burst < 1)
+        {
+            throw new IllegalArgumentException("Throughput burst must be positive: " + burst);
+        }
+        if (maxWaitMillis < 0)
+        {
+            throw new IllegalArgumentException("Throughput maxWaitMs must not be negative: " + maxWaitMillis);
+        }
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public double getRequestsPerSecond()
+    {
+        return requestsPerSecond;
+    }
+
+    public int getBurst()
+    {
+        return burst;
+    }
+
+    public long getMaxWaitMillis()
+    {
+        return maxWaitMillis;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof ThroughputLimit other))
+        {
+            return false;
+        }
+        return Double.compare(requestsPerSecond, other.requestsPerSecond) == 0
+                && burst == other.burst
+                && maxWaitMillis == other.maxWaitMillis;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(requestsPerSecond, burst, maxWaitMillis);
+    }
+
+    @Override
+    public String toString()
+    {
+        return requestsPerSecond + " rps, burst " + burst + ", max wait " + maxWaitMillis + " ms";
+    }
+}
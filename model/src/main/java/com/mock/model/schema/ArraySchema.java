@@ -0,0 +1,78 @@
+package com.mock.model.schema;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An array whose items all follow one schema, with optional {@code minItems} and {@code maxItems}.
+ */
+public final class ArraySchema extends SchemaNode
+{
+    private static final Set<String> KEYS = Set.of("type", "items", "minItems", "maxItems");
+
+    private final SchemaNode items;
+    private final int minItems;
+    private final int maxItems;
+
+    private ArraySchema(SchemaNode items, int minItems, int maxItems)
+    {
+        this.items = items;
+        this.minItems = minItems;
+        this.maxItems = maxItems;
+    }
+
+    static ArraySchema compile(String path, Map<?, ?> spec)
+    {
+        checkKeys(path, spec, KEYS);
+        if (spec.get("items") == null)
+        {
+            throw invalid(path, "must have items");
+        }
+        SchemaNode items = SchemaNode.compile(path + "[]", spec.get("items"));
+        int minItems = count(path, spec, "minItems", 0);
+        int maxItems = count(path, spec, "maxItems", Integer.MAX_VALUE);
+        if (minItems > maxItems)
+        {
+            throw invalid(path, "has minItems above maxItems");
+        }
+        return new ArraySchema(items, minItems, maxItems);
+    }
+
+    public SchemaNode getItems()
+    {
+        return items;
+    }
+
+    public int getMinItems()
+    {
+        return minItems;
+    }
+
+    /**
+     * Returns the maximum number of items, {@link Integer#MAX_VALUE} if not limited.
+     */
+    public int getMaxItems()
+    {
+        return maxItems;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof ArraySchema other && minItems == other.minItems && maxItems == other.maxItems
+                && items.equals(other.items);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(items, minItems, maxItems);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[" + items + "]";
+    }
+}
@@ -0,0 +1,156 @@
+package com.mock.model.schema;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An object with named fields, in declaration order. The root of an endpoint's schema is one.
+ */
+public final class ObjectSchema extends SchemaNode
+{
+    private static final Set<String> KEYS = Set.of("type", "fields");
+
+    private final String[] names;
+    private final SchemaNode[] fields;
+    private final Map<String, Integer> positions;
+    private final Map<String, String> relations;
+
+    /**
+     * @throws IllegalArgumentException if a relation name is taken by a field or another relation
+     */
+    private ObjectSchema(String[] names, SchemaNode[] fields)
+    {
+        this.names = names;
+        this.fields = fields;
+        this.positions = new HashMap<>(names.length * 2);
+        for (int i = 0; i < names.length; i++)
+        {
+            positions.put(names[i], i);
+        }
+        Map<String, String> relations = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++)
+        {
+            if (fields[i] instanceof ScalarSchema scalar && scalar.getRelation() != null)
+            {
+                String relation = scalar.getRelation();
+                if (positions.containsKey(relation) || relations.put(relation, names[i]) != null)
+                {
+                    throw invalid(names[i], "has the relation name of another field or reference: " + relation);
+                }
+            }
+        }
+        this.relations = Collections.unmodifiableMap(relations);
+    }
+
+    /**
+     * Compiles the {@code fields} of an endpoint configuration.
+     *
+     * @param fields the fields in declaration order, each a type name or a field spec
+     * @throws IllegalArgumentException if a field is invalid
+     */
+    public static ObjectSchema compile(Map<String, ?> fields)
+    {
+        return compileFields("", fields);
+    }
+
+    static ObjectSchema compile(String path, Map<?, ?> spec)
+    {
+        checkKeys(path, spec, KEYS);
+        if (!(spec.get("fields") instanceof Map<?, ?> fields))
+        {
+            throw invalid(path, "must have fields");
+        }
+        return compileFields(path, fields);
+    }
+
+    private static ObjectSchema compileFields(String path, Map<?, ?> fields)
+    {
+        String[] names = new String[fields.size()];
+        SchemaNode[] nodes = new SchemaNode[fields.size()];
+        int i = 0;
+        for (Map.Entry<?, ?> field : fields.entrySet())
+        {
+            names[i] = String.valueOf(field.getKey());
+            nodes[i] = SchemaNode.compile(child(path, names[i]), field.getValue());
+            i++;
+        }
+        return new ObjectSchema(names, nodes);
+    }
+
+    public int size()
+    {
+        return names.length;
+    }
+
+    /**
+     * Returns the name of the field at the position, in declaration order.
+     */
+    public String getName(int position)
+    {
+        return names[position];
+    }
+
+    public SchemaNode getField(int position)
+    {
+        return fields[position];
+    }
+
+    /**
+     * Returns the field, or null if the object has none of that name.
+     */
+    public SchemaNode getField(String name)
+    {
+        Integer position = positions.get(name);
+        return position == null ? null : fields[position];
+    }
+
+    /**
+     * Returns the position of the field, or -1 if the object has none of that name.
+     */
+    public int indexOf(String name)
+    {
+        Integer position = positions.get(name);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Returns the names of the reference fields, by relation name, in declaration order.
+     */
+    public Map<String, String> getRelations()
+    {
+        return relations;
+    }
+
+    public List<String> getNames()
+    {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof ObjectSchema other && Arrays.equals(names, other.names) && Arrays.equals(fields, other.fields);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * Arrays.hashCode(names) + Arrays.hashCode(fields);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < names.length; i++)
+        {
+            text.append(i == 0 ? "" : ", ").append(names[i]).append('=').append(fields[i]);
+        }
+        return text.append('}').toString();
+    }
+}
@@ -0,0 +1,447 @@
+package com.mock.model.schema;
+
+import com.mock.model.util.FieldTypeConverter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A single value of one of the types of {@link FieldTypeConverter}, with the constraints its
+ * field spec sets:
+ * <ul>
+ *     <li>{@code min} and {@code max}, inclusive, for numbers; whole numbers within the type range
+ *     for the integer types</li>
+ *     <li>{@code minLength} and {@code maxLength} for strings</li>
+ *     <li>{@code enum}, the only values allowed, for strings, characters and integer types</li>
+ *     <li>{@code provider}, the Faker provider generating the values of a string, such as
+ *     {@code name.fullName}; it may be combined with {@code maxLength}, its values are cut to it</li>
+ * </ul>
+ * The {@code reference} type is an integer holding the ID of an entry of another endpoint, named by
+ * its {@code endpoint} setting (its endpoint or logical name). Its values are drawn from the IDs of
+ * that endpoint, and {@code ?expand=} embeds the entry under the relation name: the {@code as}
+ * setting, by default the field name without its {@code Id} or {@code _id} suffix. References are
+ * top-level fields only.
+ */
+public final class ScalarSchema extends SchemaNode
+{
+    private static final Set<String> KEYS = Set.of("type", "min", "max", "minLength", "maxLength", "enum", "provider");
+    private static final Set<String> REFERENCE_KEYS = Set.of("type", "endpoint", "as");
+
+    private final Class<?> type;
+    private final double minimum;
+    private final double maximum;
+    private final long minimumLong;
+    private final long maximumLong;
+    private final int minLength;
+    private final int maxLength;
+    private final List<Object> values;
+    private final Set<Object> valueSet;
+    private final String provider;
+    private final String reference;
+    private final String relation;
+
+    private ScalarSchema(Class<?> type, Number minimum, Number maximum, int minLength, int maxLength,
+                         List<Object> values, String provider)
+    {
+        this(type, minimum, maximum, minLength, maxLength, values, provider, null, null);
+    }
+
+    private ScalarSchema(Class<?> type, Number minimum, Number maximum, int minLength, int maxLength,
+                         List<Object> values, String provider, String reference, String relation)
+    {
+        this.type = type;
+        this.minimum = minimum.doubleValue();
+        this.maximum = maximum.doubleValue();
+        // Exact for the integer types, whose bounds may not fit in a double
+        this.minimumLong = minimum.longValue();
+        this.maximumLong = maximum.longValue();
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.values = values;
+        this.valueSet = values == null ? null : new HashSet<>(values);
+        this.provider = provider;
+        this.reference = reference;
+        this.relation = relation;
+    }
+
+    /* A reference field, whose IDs start at 1 */
+    static ScalarSchema compileReference(String path, Map<?, ?> spec)
+    {
+        checkKeys(path, spec, REFERENCE_KEYS);
+        if (path.contains(".") || path.contains("[]"))
+        {
+            throw invalid(path, "can only be a reference as a top-level field");
+        }
+        if (!(spec.get("endpoint") instanceof String target) || target.isBlank())
+        {
+            throw invalid(path, "must name the endpoint it references");
+        }
+        Object relation = spec.get("as");
+        if (relation == null)
+        {
+            relation = path.endsWith("_id") ? path.substring(0, path.length() - 3)
+                    : path.endsWith("Id") ? path.substring(0, path.length() - 2) : null;
+        }
+        if (!(relation instanceof String name) || name.isBlank() || name.contains(",") || name.equals(path))
+        {
+            throw invalid(path, "must have a relation name for expand in as, other than its own name");
+        }
+        return new ScalarSchema(Integer.class, 1L, (long) Integer.MAX_VALUE, 0, Integer.MAX_VALUE, null, null, target, name);
+    }
+
+    static ScalarSchema compile(String path, String typeName, Map<?, ?> spec)
+    {
+        Class<?> type = FieldTypeConverter.convertToClass(typeName);
+        if (type == null)
+        {
+            throw invalid(path, "has an unsupported type: " + typeName);
+        }
+        checkKeys(path, spec, KEYS);
+
+        Number[] range = range(type);
+        Number minimum = bound(path, spec, "min", type, range, range[0]);
+        Number maximum = bound(path, spec, "max", type, range, range[1]);
+        if (range[0] instanceof Long ? minimum.longValue() > maximum.longValue() : minimum.doubleValue() > maximum.doubleValue())
+        {
+            throw invalid(path, "has min above max");
+        }
+
+        boolean lengths = spec.containsKey("minLength") || spec.containsKey("maxLength");
+        if (lengths && type != String.class)
+        {
+            throw invalid(path, "can only have minLength and maxLength as a string");
+        }
+        int minLength = count(path, spec, "minLength", 0);
+        int maxLength = count(path, spec, "maxLength", Integer.MAX_VALUE);
+        if (minLength > maxLength)
+        {
+            throw invalid(path, "has minLength above maxLength");
+        }
+
+        Object provider = spec.get("provider");
+        if (provider != null)
+        {
+            if (type != String.class || !(provider instanceof String) || ((String) provider).isBlank())
+            {
+                throw invalid(path, "can only have a provider name as a string");
+            }
+            if (spec.containsKey("enum") || minLength > 0)
+            {
+                throw invalid(path, "cannot have a provider with enum or minLength");
+            }
+        }
+
+        ScalarSchema schema = new ScalarSchema(type, minimum, maximum, minLength, maxLength, null, (String) provider);
+        if (spec.containsKey("enum"))
+        {
+            schema = new ScalarSchema(type, minimum, maximum, minLength, maxLength, schema.values(path, spec.get("enum")), null);
+        }
+        return schema;
+    }
+
+    /* The enum values, each checked against the type and the other constraints */
+    private List<Object> values(String path, Object spec)
+    {
+        if (!(spec instanceof List<?> list) || list.isEmpty())
+        {
+            throw invalid(path, "must have a non-empty list as enum");
+        }
+        if (!isIntegral() && type != String.class && type != Character.class)
+        {
+            throw invalid(path, "can only have enum values as a string, a character or an integer type");
+        }
+        List<Object> values = new ArrayList<>(list.size());
+        for (Object value : list)
+        {
+            Object normalized;
+            if (isIntegral() && value instanceof Number number && number.doubleValue() == Math.rint(number.doubleValue()))
+            {
+                normalized = number.longValue();
+            }
+            else if (!isIntegral() && value instanceof String string)
+            {
+                normalized = string;
+            }
+            else
+            {
+                throw invalid(path, "has an enum value that is not a " + type.getSimpleName() + ": " + value);
+            }
+            boolean valid = normalized instanceof Long number
+                    ? inRange(number)
+                    : type == Character.class ? ((String) normalized).length() == 1 : lengthAllowed(((String) normalized).length());
+            if (!valid)
+            {
+                throw invalid(path, "has an enum value outside its constraints: " + value);
+            }
+            values.add(normalized);
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    /* The range of the type, longs for the integer types */
+    private static Number[] range(Class<?> type)
+    {
+        if (type == Byte.class)
+        {
+            return new Number[] {(long) Byte.MIN_VALUE, (long) Byte.MAX_VALUE};
+        }
+        else if (type == Short.class)
+        {
+            return new Number[] {(long) Short.MIN_VALUE, (long) Short.MAX_VALUE};
+        }
+        else if (type == Integer.class)
+        {
+            return new Number[] {(long) Integer.MIN_VALUE, (long) Integer.MAX_VALUE};
+        }
+        else if (type == Long.class)
+        {
+            return new Number[] {Long.MIN_VALUE, Long.MAX_VALUE};
+        }
+        return new Number[] {Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+    }
+
+    private static Number bound(String path, Map<?, ?> spec, String key, Class<?> type, Number[] range, Number absent)
+    {
+        Object value = spec.get(key);
+        if (value == null)
+        {
+            return absent;
+        }
+        if (!Number.class.isAssignableFrom(type))
+        {
+            throw invalid(path, "can only have " + key + " as a number");
+        }
+        if (!(value instanceof Number number) || !Double.isFinite(number.doubleValue()))
+        {
+            throw invalid(path, key + " must be a number");
+        }
+        if (range[0] instanceof Long)
+        {
+            BigDecimal bound = new BigDecimal(number.toString());
+            if (bound.signum() != 0 && bound.stripTrailingZeros().scale() > 0
+                || bound.compareTo(BigDecimal.valueOf(range[0].longValue())) < 0
+                || bound.compareTo(BigDecimal.valueOf(range[1].longValue())) > 0)
+            {
+                throw invalid(path, key + " must be a whole number within the range of " + type.getSimpleName());
+            }
+            return bound.longValue();
+        }
+        return number.doubleValue();
+    }
+
+    public Class<?> getType()
+    {
+        return type;
+    }
+
+    public boolean isIntegral()
+    {
+        return type == Integer.class || type == Long.class || type == Short.class || type == Byte.class;
+    }
+
+    public boolean isNumeric()
+    {
+        return isIntegral() || type == Double.class || type == Float.class;
+    }
+
+    /**
+     * Returns true if the spec sets any constraint or provider, false for a plain value of the type.
+     */
+    public boolean isConstrained()
+    {
+        return hasMinimum() || hasMaximum() || minLength > 0 || maxLength < Integer.MAX_VALUE || values != null
+                || provider != null;
+    }
+
+    public boolean hasMinimum()
+    {
+        return isIntegral() ? minimumLong > range(type)[0].longValue() : minimum > Double.NEGATIVE_INFINITY;
+    }
+
+    public boolean hasMaximum()
+    {
+        return isIntegral() ? maximumLong < range(type)[1].longValue() : maximum < Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the inclusive minimum of a number, the lowest value of the type if not set; see
+     * {@link #getMinimumLong()} for the exact bound of an integer type.
+     */
+    public double getMinimum()
+    {
+        return minimum;
+    }
+
+    /**
+     * Returns the inclusive maximum of a number, the highest value of the type if not set; see
+     * {@link #getMaximumLong()} for the exact bound of an integer type.
+     */
+    public double getMaximum()
+    {
+        return maximum;
+    }
+
+    /**
+     * Returns the inclusive minimum of an integer type, exact; the lowest value of the type if not set.
+     */
+    public long getMinimumLong()
+    {
+        return minimumLong;
+    }
+
+    /**
+     * Returns the inclusive maximum of an integer type, exact; the highest value of the type if not set.
+     */
+    public long getMaximumLong()
+    {
+        return maximumLong;
+    }
+
+    /**
+     * Checks an integer against the bounds of an integer type.
+     */
+    public boolean inRange(long value)
+    {
+        return value >= minimumLong && value <= maximumLong;
+    }
+
+    /**
+     * Checks a number against the bounds of a floating point type.
+     */
+    public boolean inRange(double value)
+    {
+        return value >= minimum && value <= maximum;
+    }
+
+    public int getMinLength()
+    {
+        return minLength;
+    }
+
+    /**
+     * Returns the maximum length of a string, {@link Integer#MAX_VALUE} if not limited.
+     */
+    public int getMaxLength()
+    {
+        return maxLength;
+    }
+
+    public boolean lengthAllowed(int length)
+    {
+        return length >= minLength && length <= maxLength;
+    }
+
+    /**
+     * Returns the enum values, as strings or longs, or null if any value of the type is allowed.
+     */
+    public List<Object> getValues()
+    {
+        return values;
+    }
+
+    /**
+     * Returns true if the string is one of the enum values, or there are none.
+     */
+    public boolean allows(String value)
+    {
+        return valueSet == null || valueSet.contains(value);
+    }
+
+    /**
+     * Returns true if the integer is one of the enum values, or there are none.
+     */
+    public boolean allows(long value)
+    {
+        return valueSet == null || valueSet.contains(value);
+    }
+
+    /**
+     * Returns the Faker provider of the values, such as {@code name.fullName}, or null.
+     */
+    public String getProvider()
+    {
+        return provider;
+    }
+
+    /**
+     * Returns the endpoint or logical name of the endpoint a reference points into, or null if
+     * the value is not a reference.
+     */
+    public String getReference()
+    {
+        return reference;
+    }
+
+    /**
+     * Returns the name a reference is expanded under, or null if the value is not a reference.
+     */
+    public String getRelation()
+    {
+        return relation;
+    }
+
+    /**
+     * Describes the constraints of the value for an error message, such as "Integer between 18 and 99".
+     */
+    public String describe()
+    {
+        String text = type.getSimpleName();
+        if (reference != null)
+        {
+            return "an ID of " + reference;
+        }
+        if (values != null)
+        {
+            return text + " among " + values;
+        }
+        if (hasMinimum() || hasMaximum())
+        {
+            text += isIntegral()
+                    ? " between " + minimumLong + " and " + maximumLong
+                    : " between " + format(minimum) + " and " + format(maximum);
+        }
+        if (minLength > 0 || maxLength < Integer.MAX_VALUE)
+        {
+            text += " of " + minLength + " to " + (maxLength == Integer.MAX_VALUE ? "any" : Integer.toString(maxLength)) + " characters";
+        }
+        return text;
+    }
+
+    private static String format(double value)
+    {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof ScalarSchema other && type == other.type
+                && Double.compare(minimum, other.minimum) == 0 && Double.compare(maximum, other.maximum) == 0
+                && minimumLong == other.minimumLong && maximumLong == other.maximumLong
+                && minLength == other.minLength && maxLength == other.maxLength
+                && Objects.equals(values, other.values) && Objects.equals(provider, other.provider)
+                && Objects.equals(reference, other.reference) && Objects.equals(relation, other.relation);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(type, minimum, maximum, minimumLong, maximumLong, minLength, maxLength, values, provider, reference);
+    }
+
+    @Override
+    public String toString()
+    {
+        if (reference != null)
+        {
+            return "Reference to " + reference + " as " + relation;
+        }
+        return isConstrained() ? describe() + (provider != null ? " from " + provider : "") : type.getSimpleName();
+    }
+}
@@ -0,0 +1,104 @@
+package com.mock.model.schema;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A node of the schema of an endpoint's entries: a {@link ScalarSchema} value, an
+ * {@link ObjectSchema} with named fields or an {@link ArraySchema} of items.
+ * <p>
+ * The schema is compiled once from the {@code fields} of the configuration, which is checked as a
+ * whole at that point: types are resolved, constraints are checked against them and against each
+ * other, and enum values are indexed. The generator, the request body reader and the projection
+ * then each compile their own per-node writers, readers or selectors from the same tree, so none
+ * of them interprets the configuration again per entry.
+ * <p>
+ * In the configuration a field is either a type name ({@code "integer"}) or a field spec, an object
+ * with a {@code type} and the constraints of that type:
+ * <pre>
+ * "fields": {
+ *   "id": "integer",
+ *   "age": {"type": "integer", "min": 18, "max": 99},
+ *   "name": {"type": "string", "provider": "name.fullName", "maxLength": 40},
+ *   "status": {"type": "string", "enum": ["active", "blocked"]},
+ *   "address": {"type": "object", "fields": {"city": "string", "zip": {"type": "string", "minLength": 5, "maxLength": 5}}},
+ *   "tags": {"type": "array", "items": "word", "maxItems": 5},
+ *   "ownerId": {"type": "reference", "endpoint": "people", "as": "owner"}
+ * }
+ * </pre>
+ * Nodes are immutable and compare by value.
+ */
+public abstract class SchemaNode
+{
+    SchemaNode()
+    {
+    }
+
+    /**
+     * Compiles one field of the configuration.
+     *
+     * @param path the dotted path of the field, for error messages
+     * @param spec a type name, or a field spec as a map
+     * @throws IllegalArgumentException if the field is invalid
+     */
+    static SchemaNode compile(String path, Object spec)
+    {
+        if (spec instanceof String type)
+        {
+            return ScalarSchema.compile(path, type, Map.of());
+        }
+        if (spec instanceof Map<?, ?> map)
+        {
+            if (!(map.get("type") instanceof String type))
+            {
+                throw invalid(path, "has no type");
+            }
+            return switch (type.toLowerCase())
+            {
+                case "object" -> ObjectSchema.compile(path, map);
+                case "array" -> ArraySchema.compile(path, map);
+                case "reference" -> ScalarSchema.compileReference(path, map);
+                default -> ScalarSchema.compile(path, type, map);
+            };
+        }
+        throw invalid(path, "must be a type name or a field spec");
+    }
+
+    /* Rejects the keys of the spec that do not apply to its type, mostly typos */
+    static void checkKeys(String path, Map<?, ?> spec, Set<String> allowed)
+    {
+        for (Object key : spec.keySet())
+        {
+            if (!allowed.contains(key))
+            {
+                throw invalid(path, "has an unknown or unsupported setting: " + key);
+            }
+        }
+    }
+
+    /* Reads a count setting (length, items) */
+    static int count(String path, Map<?, ?> spec, String key, int absent)
+    {
+        Object value = spec.get(key);
+        if (value == null)
+        {
+            return absent;
+        }
+        if (!(value instanceof Number number) || number.doubleValue() != Math.rint(number.doubleValue())
+            || number.doubleValue() < 0 || number.doubleValue() > Integer.MAX_VALUE)
+        {
+            throw invalid(path, key + " must be a non-negative integer");
+        }
+        return number.intValue();
+    }
+
+    static String child(String path, String name)
+    {
+        return path.isEmpty() ? name : path + "." + name;
+    }
+
+    static IllegalArgumentException invalid(String path, String message)
+    {
+        return new IllegalArgumentException("Field " + path + " " + message);
+    }
+}
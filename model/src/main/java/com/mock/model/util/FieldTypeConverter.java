@@ -62,8 +62,9 @@ public final class FieldTypeConverter
      */
     public static Class<?> convertToClass(String typeName)
     {
-        LOG.trace("Converting type name {} to {}", typeName, TYPE_MAP.get(typeName.toLowerCase()).toGenericString());
-        return TYPE_MAP.get(typeName.toLowerCase());
+        Class<?> type = TYPE_MAP.get(typeName.toLowerCase());
+        LOG.trace("Converting type name {} to {}", typeName, type);
+        return type;
     }
 
     /**
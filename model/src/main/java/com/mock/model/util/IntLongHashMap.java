@@ -0,0 +1,127 @@
+package com.mock.model.util;
+
+/**
+ * Open-addressing hash map from positive {@code int} IDs to {@code long} values, for the values of
+ * a field index by entry. Its size follows the number of entries, not the highest ID.
+ * <p>
+ * Linear probing over parallel key/value arrays, with 0 marking a free slot; removal shifts the
+ * following entries back instead of leaving tombstones. Not thread-safe.
+ */
+public final class IntLongHashMap
+{
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys = new int[MIN_CAPACITY];
+    private long[] values = new long[MIN_CAPACITY];
+    private int size;
+
+    /**
+     * Returns the value of the ID, or 0 if there is none.
+     */
+    public long get(int id)
+    {
+        int mask = keys.length - 1;
+        for (int index = slot(id, mask); keys[index] != 0; index = (index + 1) & mask)
+        {
+            if (keys[index] == id)
+            {
+                return values[index];
+            }
+        }
+        return 0;
+    }
+
+    public void put(int id, long value)
+    {
+        int mask = keys.length - 1;
+        int index = slot(id, mask);
+        while (keys[index] != 0)
+        {
+            if (keys[index] == id)
+            {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = id;
+        values[index] = value;
+        if (++size > keys.length * LOAD_FACTOR)
+        {
+            resize(keys.length << 1);
+        }
+    }
+
+    public void remove(int id)
+    {
+        int mask = keys.length - 1;
+        for (int index = slot(id, mask); keys[index] != 0; index = (index + 1) & mask)
+        {
+            if (keys[index] == id)
+            {
+                shiftBack(index);
+                size--;
+                return;
+            }
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /* Moves every following entry of the cluster that its home slot no longer reaches into the gap */
+    private void shiftBack(int gap)
+    {
+        int mask = keys.length - 1;
+        int index = gap;
+        while (true)
+        {
+            index = (index + 1) & mask;
+            if (keys[index] == 0)
+            {
+                break;
+            }
+            int home = slot(keys[index], mask);
+            boolean reachable = gap <= index ? (gap < home && home <= index) : (gap < home || home <= index);
+            if (!reachable)
+            {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+        keys[gap] = 0;
+    }
+
+    private void resize(int capacity)
+    {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new int[capacity];
+        values = new long[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] != 0)
+            {
+                int index = slot(oldKeys[i], mask);
+                while (keys[index] != 0)
+                {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /* Fibonacci hashing: consecutive IDs are spread over the whole table */
+    static int slot(int id, int mask)
+    {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
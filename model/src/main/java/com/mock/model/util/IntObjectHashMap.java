@@ -0,0 +1,221 @@
+package com.mock.model.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive {@code int} keys to non-null values, the object
+ * counterpart of {@link IntLongHashMap}.
+ * <p>
+ * Linear probing over parallel key/value arrays: a lookup is a few array reads with no boxing and
+ * no per-entry node objects. Removal shifts the following entries back instead of leaving
+ * tombstones, so probe chains never degrade.
+ * <p>
+ * Not thread-safe. The arrays are swapped as one immutable {@link Table} reference on resize, so
+ * a reader validated by an external lock (e.g. an optimistic {@code StampedLock} read) never sees
+ * keys and values of different generations.
+ *
+ * @param <V> the value type
+ */
+public final class IntObjectHashMap<V>
+{
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private Table table;
+    private int size;
+    private int resizeThreshold;
+
+    public IntObjectHashMap()
+    {
+        this(MIN_CAPACITY);
+    }
+
+    public IntObjectHashMap(int expectedSize)
+    {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize)
+        {
+            capacity <<= 1;
+        }
+        setTable(new Table(capacity));
+    }
+
+    /**
+     * Returns the value for the key, or null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key)
+    {
+        Table t = table;
+        int mask = t.mask;
+        int index = IntLongHashMap.slot(key, mask);
+        // Bounded, so that a torn read under an optimistic lock cannot spin forever
+        for (int probes = 0; probes <= mask; probes++)
+        {
+            Object value = t.values[index];
+            if (value == null)
+            {
+                return null;
+            }
+            if (t.keys[index] == key)
+            {
+                return (V) value;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Associates the value with the key.
+     *
+     * @return the previous value, or null if the key was not present
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value)
+    {
+        if (value == null)
+        {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+
+        Table t = table;
+        int index = IntLongHashMap.slot(key, t.mask);
+        while (t.values[index] != null)
+        {
+            if (t.keys[index] == key)
+            {
+                V previous = (V) t.values[index];
+                t.values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & t.mask;
+        }
+
+        t.keys[index] = key;
+        t.values[index] = value;
+        if (++size > resizeThreshold)
+        {
+            resize(t.keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the key.
+     *
+     * @return the removed value, or null if the key was not present
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key)
+    {
+        Table t = table;
+        int mask = t.mask;
+        int index = IntLongHashMap.slot(key, mask);
+        while (t.values[index] != null)
+        {
+            if (t.keys[index] == key)
+            {
+                V previous = (V) t.values[index];
+                shiftBack(t, index);
+                size--;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns all keys, in no particular order.
+     */
+    public int[] keys()
+    {
+        Table t = table;
+        int[] keys = new int[size];
+        int n = 0;
+        for (int i = 0; i < t.values.length; i++)
+        {
+            if (t.values[i] != null)
+            {
+                keys[n++] = t.keys[i];
+            }
+        }
+        return n == keys.length ? keys : Arrays.copyOf(keys, n);
+    }
+
+    /*
+     * Closes the gap left at the removed slot: every following entry of the cluster that would
+     * not be reachable from its home slot anymore is moved into the gap.
+     */
+    private static void shiftBack(Table t, int gap)
+    {
+        int mask = t.mask;
+        int index = gap;
+        while (true)
+        {
+            index = (index + 1) & mask;
+            if (t.values[index] == null)
+            {
+                break;
+            }
+            int home = IntLongHashMap.slot(t.keys[index], mask);
+            // Move the entry if its home slot is not within (gap, index], cyclically
+            boolean reachable = gap <= index ? (gap < home && home <= index) : (gap < home || home <= index);
+            if (!reachable)
+            {
+                t.keys[gap] = t.keys[index];
+                t.values[gap] = t.values[index];
+                gap = index;
+            }
+        }
+        t.values[gap] = null;
+    }
+
+    private void resize(int capacity)
+    {
+        Table old = table;
+        Table resized = new Table(capacity);
+        for (int i = 0; i < old.values.length; i++)
+        {
+            Object value = old.values[i];
+            if (value != null)
+            {
+                int index = IntLongHashMap.slot(old.keys[i], resized.mask);
+                while (resized.values[index] != null)
+                {
+                    index = (index + 1) & resized.mask;
+                }
+                resized.keys[index] = old.keys[i];
+                resized.values[index] = value;
+            }
+        }
+        setTable(resized);
+    }
+
+    private void setTable(Table table)
+    {
+        this.table = table;
+        this.resizeThreshold = (int) (table.keys.length * LOAD_FACTOR);
+    }
+
+
+    private static final class Table
+    {
+        private final int[] keys;
+        private final Object[] values;
+        private final int mask;
+
+        private Table(int capacity)
+        {
+            this.keys = new int[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.mock.model.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectHashMapTest
+{
+    @Test
+    void checkPutGetRemove()
+    {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+
+        assertNull(map.put(1, "a"));
+        assertNull(map.put(2, "b"));
+        assertEquals("a", map.put(1, "c"));
+        assertEquals("c", map.get(1));
+        assertEquals("b", map.get(2));
+        assertNull(map.get(3));
+        assertEquals(2, map.size());
+
+        assertEquals("b", map.remove(2));
+        assertNull(map.remove(2));
+        assertNull(map.get(2));
+        assertEquals(1, map.size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(4, null));
+    }
+
+    @Test
+    void checkRemoveShiftsClusterBack()
+    {
+        // Keys with the same home slot form one probe chain; removing from its middle must keep the rest reachable
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(4);
+        int[] colliding = new int[5];
+        int found = 0;
+        int home = slot(1, 15);
+        for (int key = 1; found < colliding.length; key++)
+        {
+            if (slot(key, 15) == home)
+            {
+                colliding[found++] = key;
+            }
+        }
+        for (int key : colliding)
+        {
+            map.put(key, Integer.toString(key));
+        }
+
+        assertEquals(Integer.toString(colliding[2]), map.remove(colliding[2]));
+        assertEquals(Integer.toString(colliding[0]), map.remove(colliding[0]));
+        for (int i : new int[]{1, 3, 4})
+        {
+            assertEquals(Integer.toString(colliding[i]), map.get(colliding[i]));
+        }
+        assertNull(map.get(colliding[0]));
+        assertNull(map.get(colliding[2]));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void checkAgainstHashMap()
+    {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++)
+        {
+            int key = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0)
+            {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            else
+            {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (int key = -100; key < 4_900; key++)
+        {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        int[] keys = map.keys();
+        Arrays.sort(keys);
+        assertEquals(Arrays.toString(expected.keySet().stream().mapToInt(Integer::intValue).sorted().toArray()), Arrays.toString(keys));
+    }
+
+    /* The home slot of a key in a table of mask + 1 slots, as IntObjectHashMap computes it */
+    private static int slot(int key, int mask)
+    {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
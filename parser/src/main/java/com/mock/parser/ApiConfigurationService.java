@@ -1,6 +1,7 @@
 package com.mock.parser;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.mock.model.DatasetMode;
 import com.mock.model.MockApiDefinition;
 import com.mock.model.MockApiDefinitionRegistry;
 import jakarta.annotation.PostConstruct;
@@ -9,20 +10,31 @@ import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Service class responsible for processing and managing API endpoint configurations.
  * This service reads configuration from a JSON file at startup and maintains endpoint
  * metadata including available fields and their types.
  *
- * <p>The service expects a JSON configuration file with the following structure:
+ * <p>The definitions are read by the {@link EndpointConfigLoader}, from one or several files.
+ * The service expects each JSON configuration file to hold an array of endpoints with the following structure:
  * <pre>
  * {
  *   "endpoint": "string",     // API endpoint path
  *   "methods": "string",      // Supported HTTP methods
  *   "fields": {              // Field definitions
  *     "fieldName": "type",   // Each field and its corresponding data type
+ *     "other": {"type": "integer", "min": 1, "max": 9}, // or a field spec, see SchemaNode
  *     ...
- *   }
+ *   },
+ *   "mode": "virtual",        // Optional: "stored" (default) or "virtual"
+ *   "seed": 42,               // Optional: seed of a virtual dataset
+ *   "latency": 100,           // Optional: response delay in ms, or a fixed, uniform or percentile profile
+ *   "throughput": {"rps": 50} // Optional: token bucket cap, with optional burst and maxWaitMs
  * }
  * </pre>
  *
@@ -33,6 +45,8 @@ import org.springframework.stereotype.Service;
 public class ApiConfigurationService
 {
     private final ConfigFileParser configFileParser;
+    private final EndpointConfigLoader configLoader;
+    private final MockApiDefinitionRegistry registry;
     private final Logger LOG = LogManager.getLogger();
 
     /**
@@ -40,11 +54,22 @@ public class ApiConfigurationService
      *
      * @param configFileParser the service used to read and parse the configuration file
      */
+    public ApiConfigurationService(ConfigFileParser configFileParser)
+    {
+        this(configFileParser, null, new MockApiDefinitionRegistry());
+    }
 
+    /**
+     * @param configLoader the loader of the definitions, null to read them through the configFileParser
+     * @param registry     the registry the definitions are registered in
+     */
     @Autowired
-    public ApiConfigurationService(ConfigFileParser configFileParser)
+    public ApiConfigurationService(ConfigFileParser configFileParser, EndpointConfigLoader configLoader,
+                                   MockApiDefinitionRegistry registry)
     {
         this.configFileParser = configFileParser;
+        this.configLoader = configLoader;
+        this.registry = registry;
     }
 
     /**
@@ -60,28 +85,62 @@ public class ApiConfigurationService
     @PostConstruct
     public void processData()
     {
-        for (JsonNode config : configFileParser.getAllEndpoints())
+        List<MockApiDefinition> definitions;
+        try
+        {
+            definitions = loadDefinitions();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Failed to read the endpoint configuration", e);
+        }
+
+        // Register the definitions in one snapshot
+        registry.addDefinitions(definitions);
+        for (MockApiDefinition definition : definitions)
         {
-            //Register the com.mock.model.MockApiDefinition
-            MockApiDefinitionRegistry mockApiDefinitionRegistry = MockApiDefinitionRegistry.getInstance();
-            mockApiDefinitionRegistry.addDefinition(new MockApiDefinition(configFileParser.getName(config),
-                                                                        configFileParser.getEndpoint(config),
-                                                                        configFileParser.getFields(config),
-                                                                        configFileParser.getMethods(config),
-                                                                        configFileParser.getCount(config)));
+            LOG.debug("Registered endpoint: {}", definition);
+        }
+    }
 
-            LOG.debug("Registered endpoint: {}", configFileParser.getName(config));
-            LOG.debug("Endpoint: {}", configFileParser.getEndpoint(config));
-            LOG.debug("Methods: {}", configFileParser.getMethods(config));
-            LOG.debug("Fields: {}", configFileParser.getFields(config));
-            LOG.debug("Count: {}", configFileParser.getCount(config));
+    /**
+     * Reads the configuration again and returns its definitions, without registering them.
+     *
+     * @throws IOException if a file cannot be read
+     * @throws RuntimeException if an endpoint configuration is invalid
+     */
+    public List<MockApiDefinition> loadDefinitions() throws IOException
+    {
+        if (configLoader != null)
+        {
+            return configLoader.load();
         }
+        configFileParser.initializeRootNode();
+        List<MockApiDefinition> definitions = new ArrayList<>();
+        for (JsonNode config : configFileParser.getAllEndpoints())
+        {
+            definitions.add(toDefinition(config));
+        }
+        return definitions;
+    }
+
+    private MockApiDefinition toDefinition(JsonNode config)
+    {
+        return new MockApiDefinition(configFileParser.getName(config),
+                                     configFileParser.getEndpoint(config),
+                                     configFileParser.getSchema(config),
+                                     configFileParser.getMethods(config),
+                                     configFileParser.getCount(config),
+                                     DatasetMode.fromString(configFileParser.getMode(config)),
+                                     configFileParser.getSeed(config),
+                                     configFileParser.getLatency(config),
+                                     configFileParser.getThroughput(config));
     }
 
     // Add a method to get the registry for testing
     MockApiDefinitionRegistry getRegistry()
     {
-        return MockApiDefinitionRegistry.getInstance();
+        return registry;
     }
 
     public ConfigFileParser getConfigFileParser()
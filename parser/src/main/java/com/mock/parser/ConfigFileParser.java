@@ -1,8 +1,11 @@
 package com.mock.parser;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.annotation.PostConstruct;
+import com.mock.model.LatencyProfile;
+import com.mock.model.ThroughputLimit;
+import com.mock.model.schema.ObjectSchema;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
@@ -10,9 +13,13 @@ import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 
@@ -23,30 +30,58 @@ public class ConfigFileParser
 
     private final String jsonFilePath;
 
+    /* The configuration file on the filesystem, null to read jsonFilePath from the classpath */
+    private final Path configPath;
+
     private final ObjectMapper objectMapper;
 
+    public ConfigFileParser(ObjectMapper objectMapper, String jsonFilePath)
+    {
+        this(objectMapper, jsonFilePath, "");
+    }
+
+    /**
+     * @param configPath the {@code mock.config.path} setting: when not blank, the file it names is read
+     *                   instead of {@code jsonFilePath} from the classpath
+     */
     @Autowired
-    public ConfigFileParser(ObjectMapper objectMapper, @Value("${json.file.path:data.json}") String jsonFilePath)
+    public ConfigFileParser(ObjectMapper objectMapper,
+                            @Value("${json.file.path:data.json}") String jsonFilePath,
+                            @Value("${mock.config.path:}") String configPath)
     {
         this.objectMapper = Objects.requireNonNull(objectMapper, "ObjectMapper must not be null");
         this.jsonFilePath = Objects.requireNonNull(jsonFilePath, "JSON file path must not be null");
+        this.configPath = configPath == null || configPath.isBlank() ? null : Path.of(configPath.trim()).toAbsolutePath();
     }
 
-    @PostConstruct
+    /*
+     * Reads the whole configuration file into a tree, for the getters. The application loads its definitions
+     * through the EndpointConfigLoader instead, which streams any number of files
+     */
     public void initializeRootNode() throws IOException
     {
-        ClassPathResource resource = new ClassPathResource(jsonFilePath);
-        try (InputStream inputStream = resource.getInputStream())
+        try (InputStream inputStream = configPath != null
+                ? Files.newInputStream(configPath)
+                : new ClassPathResource(jsonFilePath).getInputStream())
         {
             this.rootNode = objectMapper.readTree(inputStream);
         }
         catch (IOException e)
         {
-            System.err.println("Error reading JSON file: " + jsonFilePath);
+            System.err.println("Error reading JSON file: " + (configPath != null ? configPath : jsonFilePath));
             throw e;
         }
     }
     
+    /**
+     * Returns the configuration file on the filesystem, or null if the configuration is read from
+     * the classpath.
+     */
+    public Path getConfigPath()
+    {
+        return configPath;
+    }
+
     public List<JsonNode> getAllEndpoints()
     {
         if (rootNode == null)
@@ -98,6 +133,16 @@ public class ConfigFileParser
         return fieldsMap;
     }
 
+    /* The fields as a compiled schema, with nested objects, arrays and field specs, in declaration order */
+    public ObjectSchema getSchema(JsonNode node)
+    {
+        if (node == null)
+        {
+            return null;
+        }
+        return ObjectSchema.compile(objectMapper.convertValue(node.get("fields"), new TypeReference<LinkedHashMap<String, Object>>() {}));
+    }
+
     public Integer getCount(JsonNode node)
     {
         if (node == null)
@@ -106,4 +151,108 @@ public class ConfigFileParser
         }
         return node.get("count").asInt();
     }
+
+    /* Optional: the dataset mode ("stored" or "virtual"), null when not configured */
+    public String getMode(JsonNode node)
+    {
+        if (node == null || !node.hasNonNull("mode"))
+        {
+            return null;
+        }
+        return node.get("mode").asText();
+    }
+
+    /* Optional: the seed of a virtual dataset, 0 when not configured */
+    public long getSeed(JsonNode node)
+    {
+        if (node == null || !node.hasNonNull("seed"))
+        {
+            return 0L;
+        }
+        return node.get("seed").asLong();
+    }
+
+    /*
+     * Optional: the simulated latency, null when not configured. Either a number of milliseconds, or one of
+     * {"type": "fixed", "ms": 100}, {"type": "uniform", "min": 50, "max": 250} and
+     * {"type": "percentiles", "p50": 40, "p90": 120, "p99.9": 800}
+     */
+    public LatencyProfile getLatency(JsonNode node)
+    {
+        if (node == null || !node.hasNonNull("latency"))
+        {
+            return null;
+        }
+        return parseLatency(node.get("latency"));
+    }
+
+    /* The latency profile of the value of a "latency" key, see getLatency */
+    static LatencyProfile parseLatency(JsonNode latency)
+    {
+        if (latency.isNumber())
+        {
+            return LatencyProfile.fixed(latency.asLong());
+        }
+
+        String type = (latency.hasNonNull("type") ? latency.get("type").asText() : "fixed").toLowerCase(Locale.ROOT);
+        switch (type)
+        {
+            case "fixed":
+                return LatencyProfile.fixed(requiredLong(latency, "ms"));
+            case "uniform":
+                return LatencyProfile.uniform(requiredLong(latency, "min"), requiredLong(latency, "max"));
+            case "percentiles":
+                Map<Double, Long> percentiles = new HashMap<>();
+                latency.fields().forEachRemaining(entry -> {
+                    if (entry.getKey().startsWith("p"))
+                    {
+                        try
+                        {
+                            percentiles.put(Double.parseDouble(entry.getKey().substring(1)), entry.getValue().asLong());
+                        }
+                        catch (NumberFormatException e)
+                        {
+                            throw new IllegalArgumentException("Invalid latency percentile: " + entry.getKey());
+                        }
+                    }
+                });
+                return LatencyProfile.percentiles(percentiles);
+            default:
+                throw new IllegalArgumentException("Unsupported latency type: " + type);
+        }
+    }
+
+    /*
+     * Optional: the throughput cap, null when not configured, e.g. {"rps": 100, "burst": 20, "maxWaitMs": 500}.
+     * The burst defaults to one second of requests, the wait to 0 (requests over the cap are rejected at once)
+     */
+    public ThroughputLimit getThroughput(JsonNode node)
+    {
+        if (node == null || !node.hasNonNull("throughput"))
+        {
+            return null;
+        }
+        return parseThroughput(node.get("throughput"));
+    }
+
+    /* The throughput limit of the value of a "throughput" key, see getThroughput */
+    static ThroughputLimit parseThroughput(JsonNode throughput)
+    {
+        if (!throughput.hasNonNull("rps"))
+        {
+            throw new IllegalArgumentException("Throughput requires rps");
+        }
+        double rps = throughput.get("rps").asDouble();
+        int burst = throughput.path("burst").asInt((int) Math.max(1, Math.ceil(rps)));
+        return new ThroughputLimit(rps, burst, throughput.path("maxWaitMs").asLong(0));
+    }
+
+    private static long requiredLong(JsonNode node, String field)
+    {
+        if (!node.hasNonNull(field))
+        {
+            throw new IllegalArgumentException("Missing latency field: " + field);
+        }
+        return node.get(field).asLong();
+    }
 }
@@ -0,0 +1,161 @@
+package com.mock.parser;
+
+import com.mock.model.DefinitionsReloadedEvent;
+import com.mock.model.MockApiDefinition;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the endpoint configuration when its files change, for a configuration read from the
+ * filesystem ({@code mock.config.path}, see {@link ConfigSource}) with {@code mock.config.watch}
+ * enabled.
+ * <p>
+ * The directories of the files are watched with a {@link WatchService}, so files added or removed
+ * count as changes too. Editors tend to write a file in several steps, so a change is acted on
+ * once the files have been quiet for {@code mock.config.reload.debounce-ms}. The files are then
+ * read again and their definitions are published as a {@link DefinitionsReloadedEvent}, whose
+ * listeners update only the endpoints that changed. A configuration that cannot be read or parsed
+ * is reported and the endpoints are left as they are.
+ * <p>
+ * Watching starts once the application is ready, after the startup data generation.
+ */
+@Component
+public class ConfigFileWatcher
+{
+    private final ApiConfigurationService configurationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConfigSource source;
+    private final boolean enabled;
+    private final long debounceMillis;
+    private WatchService watchService;
+    private Thread worker;
+    private static final Logger LOG = LogManager.getLogger();
+
+    public ConfigFileWatcher(ApiConfigurationService configurationService,
+                             EndpointConfigLoader configLoader,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${mock.config.watch:true}") boolean enabled,
+                             @Value("${mock.config.reload.debounce-ms:500}") long debounceMillis)
+    {
+        this.configurationService = configurationService;
+        this.eventPublisher = eventPublisher;
+        this.source = configLoader.getSource();
+        this.enabled = enabled;
+        this.debounceMillis = debounceMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() throws IOException
+    {
+        if (source == null || !enabled || worker != null)
+        {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path directory : source.directories())
+        {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                               StandardWatchEventKinds.ENTRY_DELETE);
+        }
+        worker = new Thread(this::watch, "config-watcher");
+        worker.setDaemon(true);
+        worker.start();
+        LOG.info("Watching {} for configuration changes", source);
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws IOException
+    {
+        if (watchService != null)
+        {
+            watchService.close();
+        }
+    }
+
+    private void watch()
+    {
+        try
+        {
+            while (true)
+            {
+                if (!changed(watchService.take()))
+                {
+                    continue;
+                }
+                // Wait for the writes to settle, then reload once
+                WatchKey key;
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null)
+                {
+                    changed(key);
+                }
+                reload();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ClosedWatchServiceException e)
+        {
+            LOG.debug("Stopped watching {}", source);
+        }
+    }
+
+    /* Returns true if the events of the key concern a configuration file, and resets the key */
+    private boolean changed(WatchKey key)
+    {
+        boolean changed = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || source.selects(directory.resolve((Path) event.context())))
+            {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload()
+    {
+        long startNanos = System.nanoTime();
+        List<MockApiDefinition> definitions;
+        try
+        {
+            definitions = configurationService.loadDefinitions();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            LOG.error("Failed to reload {}, keeping the current endpoints: {}", source, e.getMessage());
+            return;
+        }
+        LOG.info("Reloaded {} endpoint definitions from {} in {} ms", definitions.size(), source,
+                 (System.nanoTime() - startNanos) / 1_000_000);
+        try
+        {
+            eventPublisher.publishEvent(new DefinitionsReloadedEvent(this, definitions));
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Failed to apply the configuration of {}: {}", source, e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.mock.parser;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The configuration files selected by {@code mock.config.path}, which is one of:
+ * <ul>
+ *     <li>a file</li>
+ *     <li>a directory: every {@code *.json} file directly in it</li>
+ *     <li>a glob, e.g. {@code config/endpoints/**.json}: every file under the part of the path
+ *     before the first wildcard that matches it</li>
+ * </ul>
+ * The files are listed again on every load, so files added to a directory are picked up.
+ * Immutable.
+ */
+public final class ConfigSource
+{
+    private static final String JSON_EXTENSION = ".json";
+
+    private final String setting;
+    private final Path path;
+    private final PathMatcher glob;
+
+    private ConfigSource(String setting, Path path, PathMatcher glob)
+    {
+        this.setting = setting;
+        this.path = path;
+        this.glob = glob;
+    }
+
+    /**
+     * Resolves the setting against the working directory.
+     */
+    static ConfigSource of(String setting)
+    {
+        String trimmed = setting.trim();
+        int wildcard = firstWildcard(trimmed);
+        if (wildcard < 0)
+        {
+            return new ConfigSource(trimmed, Path.of(trimmed).toAbsolutePath().normalize(), null);
+        }
+
+        // The directory part before the first wildcard is walked, the whole pattern is matched against the files
+        int separator = Math.max(trimmed.lastIndexOf('/', wildcard), trimmed.lastIndexOf('\\', wildcard));
+        Path base = Path.of(separator < 0 ? "" : trimmed.substring(0, separator + 1)).toAbsolutePath().normalize();
+        String pattern = base.toString().replace("\\", "\\\\") + base.getFileSystem().getSeparator().replace("\\", "\\\\")
+                + trimmed.substring(separator + 1);
+        return new ConfigSource(trimmed, base, FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+    }
+
+    private static int firstWildcard(String setting)
+    {
+        for (int i = 0; i < setting.length(); i++)
+        {
+            char c = setting.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{')
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the configuration files, in path order.
+     *
+     * @throws IOException if the path does not exist or a directory cannot be listed
+     */
+    public List<Path> files() throws IOException
+    {
+        if (glob != null)
+        {
+            try (Stream<Path> files = Files.walk(path))
+            {
+                return files.filter(Files::isRegularFile).filter(glob::matches).sorted().toList();
+            }
+        }
+        if (Files.isDirectory(path))
+        {
+            try (Stream<Path> files = Files.list(path))
+            {
+                return files.filter(Files::isRegularFile).filter(ConfigSource::isJson).sorted().toList();
+            }
+        }
+        if (!Files.isRegularFile(path))
+        {
+            throw new IOException("Configuration file not found: " + path);
+        }
+        return List.of(path);
+    }
+
+    /**
+     * Returns the directories to watch for changes to the selected files. For a glob these are the
+     * directories under its base that exist now.
+     */
+    public List<Path> directories() throws IOException
+    {
+        if (glob != null)
+        {
+            try (Stream<Path> directories = Files.walk(path))
+            {
+                return directories.filter(Files::isDirectory).toList();
+            }
+        }
+        return List.of(Files.isDirectory(path) ? path : path.getParent());
+    }
+
+    /**
+     * Returns true if a change to the given file changes the configuration.
+     */
+    public boolean selects(Path file)
+    {
+        Path normalized = file.toAbsolutePath().normalize();
+        if (glob != null)
+        {
+            return glob.matches(normalized);
+        }
+        if (Files.isDirectory(path))
+        {
+            return path.equals(normalized.getParent()) && isJson(normalized);
+        }
+        return path.equals(normalized);
+    }
+
+    private static boolean isJson(Path file)
+    {
+        return file.getFileName().toString().endsWith(JSON_EXTENSION);
+    }
+
+    @Override
+    public String toString()
+    {
+        return setting;
+    }
+}
@@ -0,0 +1,283 @@
+package com.mock.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mock.model.DatasetMode;
+import com.mock.model.LatencyProfile;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.ThroughputLimit;
+import com.mock.model.schema.ObjectSchema;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the endpoint definitions of the configuration, from {@code mock.config.path} (a file, a
+ * directory or a glob, see {@link ConfigSource}) or else from {@code json.file.path} on the
+ * classpath.
+ * <p>
+ * Each file holds an array of endpoint objects, in the format described on
+ * {@link ApiConfigurationService}. Files are read with Jackson's streaming parser, one endpoint at a
+ * time, and each endpoint becomes a {@link MockApiDefinition} as soon as its object ends: the
+ * file is never held as a tree. Several files are read in parallel on up to
+ * {@code mock.config.load.threads} threads (0 means one per available core), and the time spent
+ * on each is logged.
+ */
+@Component
+public class EndpointConfigLoader
+{
+    /* Read into insertion-ordered maps, so the fields keep their declaration order */
+    private static final TypeReference<LinkedHashMap<String, Object>> FIELDS_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final String jsonFilePath;
+    private final ConfigSource source;
+    private final int threads;
+    private static final Logger LOG = LogManager.getLogger();
+
+    public EndpointConfigLoader(ObjectMapper objectMapper,
+                                @Value("${json.file.path:data.json}") String jsonFilePath,
+                                @Value("${mock.config.path:}") String configPath,
+                                @Value("${mock.config.load.threads:0}") int threads)
+    {
+        this.objectMapper = Objects.requireNonNull(objectMapper, "ObjectMapper must not be null");
+        this.jsonFilePath = Objects.requireNonNull(jsonFilePath, "JSON file path must not be null");
+        this.source = configPath == null || configPath.isBlank() ? null : ConfigSource.of(configPath);
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Returns the configuration files on the filesystem, or null if the configuration is read from
+     * the classpath.
+     */
+    public ConfigSource getSource()
+    {
+        return source;
+    }
+
+    /**
+     * Reads every configuration file.
+     *
+     * @return the definitions, in file order and in order within each file
+     * @throws IOException              if a file cannot be read or is not valid JSON
+     * @throws IllegalArgumentException if an endpoint configuration is invalid, or an endpoint is
+     *                                  configured twice
+     */
+    public List<MockApiDefinition> load() throws IOException
+    {
+        long startNanos = System.nanoTime();
+        List<MockApiDefinition> definitions;
+        int fileCount;
+        if (source == null)
+        {
+            try (InputStream in = new ClassPathResource(jsonFilePath).getInputStream())
+            {
+                definitions = read(in, "classpath:" + jsonFilePath);
+            }
+            fileCount = 1;
+        }
+        else
+        {
+            List<Path> files = source.files();
+            definitions = files.size() == 1 ? readFile(files.get(0)) : readInParallel(files);
+            fileCount = files.size();
+        }
+
+        Map<String, String> seen = new HashMap<>();
+        for (MockApiDefinition definition : definitions)
+        {
+            if (seen.put(definition.getEndpointName(), definition.getName()) != null)
+            {
+                throw new IllegalArgumentException("Endpoint " + definition.getEndpointName() + " is configured more than once");
+            }
+        }
+        LOG.info("Loaded {} endpoint definitions from {} files in {} ms", definitions.size(), fileCount,
+                 (System.nanoTime() - startNanos) / 1_000_000);
+        return definitions;
+    }
+
+    private List<MockApiDefinition> readInParallel(List<Path> files) throws IOException
+    {
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, files.size()), runnable -> {
+            Thread thread = new Thread(runnable, "config-loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try
+        {
+            List<Future<List<MockApiDefinition>>> tasks = new ArrayList<>(files.size());
+            for (Path file : files)
+            {
+                tasks.add(pool.submit(() -> readFile(file)));
+            }
+            List<MockApiDefinition> definitions = new ArrayList<>();
+            for (Future<List<MockApiDefinition>> task : tasks)
+            {
+                definitions.addAll(task.get());
+            }
+            return definitions;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading the configuration", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException cause)
+            {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause)
+            {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<MockApiDefinition> readFile(Path file) throws IOException
+    {
+        long startNanos = System.nanoTime();
+        List<MockApiDefinition> definitions;
+        try (InputStream in = Files.newInputStream(file))
+        {
+            definitions = read(in, file.toString());
+        }
+        LOG.info("Read {} endpoint definitions from {} ({} bytes) in {} ms", definitions.size(), file, Files.size(file),
+                 (System.nanoTime() - startNanos) / 1_000_000);
+        return definitions;
+    }
+
+    /* Reads an array of endpoint objects, or a single endpoint object */
+    private List<MockApiDefinition> read(InputStream in, String origin) throws IOException
+    {
+        List<MockApiDefinition> definitions = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in))
+        {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT)
+            {
+                definitions.add(readEndpoint(parser, origin, 0));
+            }
+            else if (token == JsonToken.START_ARRAY)
+            {
+                while ((token = parser.nextToken()) == JsonToken.START_OBJECT)
+                {
+                    definitions.add(readEndpoint(parser, origin, definitions.size()));
+                }
+                if (token != JsonToken.END_ARRAY)
+                {
+                    throw new IllegalArgumentException("Expected endpoint objects in " + origin + ", found " + token);
+                }
+            }
+            else if (token != null)
+            {
+                throw new IllegalArgumentException("Expected an array of endpoints in " + origin + ", found " + token);
+            }
+        }
+        return definitions;
+    }
+
+    /* Reads one endpoint object, the parser on its START_OBJECT, up to its END_OBJECT */
+    private MockApiDefinition readEndpoint(JsonParser parser, String origin, int index) throws IOException
+    {
+        String name = null;
+        String endpoint = null;
+        String methods = null;
+        ObjectSchema fields = null;
+        Integer count = null;
+        String mode = null;
+        long seed = 0L;
+        LatencyProfile latency = null;
+        ThroughputLimit throughput = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String key = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL)
+            {
+                continue;
+            }
+            switch (key)
+            {
+                case "name" -> name = parser.getValueAsString();
+                case "endpoint" -> endpoint = parser.getValueAsString();
+                case "methods" -> methods = parser.getValueAsString();
+                case "count" -> count = parser.getValueAsInt();
+                case "mode" -> mode = parser.getValueAsString();
+                case "seed" -> seed = parser.getValueAsLong();
+                case "fields" -> fields = readFields(parser, origin, index);
+                // Small nested objects, read as trees so they are interpreted exactly like ConfigFileParser does
+                case "latency" -> latency = ConfigFileParser.parseLatency(parser.readValueAs(JsonNode.class));
+                case "throughput" -> throughput = ConfigFileParser.parseThroughput(parser.readValueAs(JsonNode.class));
+                default -> parser.skipChildren();
+            }
+        }
+
+        String location = "endpoint #" + (index + 1) + " of " + origin;
+        return new MockApiDefinition(name,
+                                     required(endpoint, "endpoint", location),
+                                     required(fields, "fields", location),
+                                     required(methods, "methods", location),
+                                     required(count, "count", location),
+                                     DatasetMode.fromString(mode),
+                                     seed,
+                                     latency,
+                                     throughput);
+    }
+
+    /* Reads the fields object, small and possibly nested, and compiles its schema */
+    private static ObjectSchema readFields(JsonParser parser, String origin, int index) throws IOException
+    {
+        if (parser.currentToken() != JsonToken.START_OBJECT)
+        {
+            throw new IllegalArgumentException("fields of endpoint #" + (index + 1) + " of " + origin + " must be an object");
+        }
+        Map<String, Object> fields = parser.readValueAs(FIELDS_TYPE);
+        try
+        {
+            return ObjectSchema.compile(fields);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException(e.getMessage() + " in endpoint #" + (index + 1) + " of " + origin, e);
+        }
+    }
+
+    private static <T> T required(T value, String key, String location)
+    {
+        if (value == null)
+        {
+            throw new IllegalArgumentException("Missing " + key + " in " + location);
+        }
+        return value;
+    }
+}
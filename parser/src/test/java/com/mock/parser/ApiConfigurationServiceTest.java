@@ -1,13 +1,17 @@
 package com.mock.parser;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mock.model.DefinitionSnapshot;
 import com.mock.model.MockApiDefinition;
 import com.mock.model.MockApiDefinitionRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.web.bind.annotation.RequestMethod;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,8 +27,7 @@ class ApiConfigurationServiceTest
         ConfigFileParser configFileParser = new ConfigFileParser(objectMapper, TEST_JSON_PATH);
         configFileParser.initializeRootNode();
         apiConfigurationService = new ApiConfigurationService(configFileParser);
-        //TODO
-//        apiConfigurationService.processData();
+        apiConfigurationService.processData();
     }
 
     @Test
@@ -39,22 +42,86 @@ class ApiConfigurationServiceTest
     {
         MockApiDefinitionRegistry mockApiDefinitionRegistry = apiConfigurationService.getRegistry();
 
-        //TODO Fix this UT
-        assertNull(mockApiDefinitionRegistry);
-//        List<MockApiDefinition> definitions = mockApiDefinitionRegistry.getDefinitions();
-//
-//        assertNotNull(definitions);
-//        assertEquals(2, definitions.size());
-//
-//        MockApiDefinition def1 = definitions.get(0);
-//        MockApiDefinition def2 = definitions.get(1);
-//
-//        assertEquals("/api/users", def1.getEndpointName());
-//        assertEquals("GET,POST", def1.getMethods().toString());
-//        assertEquals(3, def1.getFields().size());
-//        assertEquals("name", def1.getFields().get("name").toString());
-//
-//        assertEquals("/api/products", def2.getEndpointName());
+        List<MockApiDefinition> definitions = mockApiDefinitionRegistry.getDefinitions();
+
+        assertNotNull(definitions);
+        assertEquals(2, definitions.size());
+        assertEquals(1, mockApiDefinitionRegistry.getVersion());
+
+        MockApiDefinition def1 = definitions.get(0);
+        MockApiDefinition def2 = definitions.get(1);
+
+        assertEquals("/api/users", def1.getEndpointName());
+        assertEquals(Set.of(RequestMethod.GET, RequestMethod.POST), def1.getMethods());
+        assertEquals(3, def1.getFields().size());
+        assertEquals(String.class, def1.getFields().get("name"));
+
+        assertEquals("/api/products", def2.getEndpointName());
+        assertSame(def2, mockApiDefinitionRegistry.getDefinition("/api/products"));
+        assertSame(def1, mockApiDefinitionRegistry.getDefinitionByName("users"));
+    }
+
+    @Test
+    void testRegistrySnapshots()
+    {
+        MockApiDefinitionRegistry mockApiDefinitionRegistry = apiConfigurationService.getRegistry();
+        DefinitionSnapshot before = mockApiDefinitionRegistry.snapshot();
+        MockApiDefinition users = mockApiDefinitionRegistry.getDefinition("/api/users");
+
+        // A registered endpoint cannot be registered again, and a failed change publishes nothing
+        MockApiDefinition orders = new MockApiDefinition("orders", "/api/orders", Map.of("id", "Integer"), "GET", 1);
+        MockApiDefinition duplicate = new MockApiDefinition("users", "/api/users", Map.of("id", "Integer"), "GET", 1);
+        assertThrows(IllegalArgumentException.class, () -> mockApiDefinitionRegistry.addDefinitions(List.of(orders, duplicate)));
+        assertSame(before, mockApiDefinitionRegistry.snapshot());
+
+        assertTrue(mockApiDefinitionRegistry.removeDefinition(users));
+        assertFalse(mockApiDefinitionRegistry.removeDefinition(users));
+        mockApiDefinitionRegistry.addDefinition(orders);
+
+        assertEquals(3, mockApiDefinitionRegistry.getVersion());
+        assertNull(mockApiDefinitionRegistry.getDefinition("/api/users"));
+        assertSame(orders, mockApiDefinitionRegistry.getDefinitionByName("orders"));
+        assertEquals(List.of("/api/products", "/api/orders"),
+                     mockApiDefinitionRegistry.getDefinitions().stream().map(MockApiDefinition::getEndpointName).toList());
+
+        // The earlier snapshot is unchanged
+        assertEquals(2, before.size());
+        assertSame(users, before.getByEndpoint("/api/users"));
+    }
+
+    @Test
+    void testReplaceDefinitions()
+    {
+        MockApiDefinitionRegistry mockApiDefinitionRegistry = apiConfigurationService.getRegistry();
+        MockApiDefinition users = mockApiDefinitionRegistry.getDefinition("/api/users");
+        MockApiDefinition products = mockApiDefinitionRegistry.getDefinition("/api/products");
+        MockApiDefinition orders = new MockApiDefinition("orders", "/api/orders", Map.of("id", "Integer"), "GET", 1);
+
+        // An added endpoint that is still registered fails the whole change
+        MockApiDefinition duplicate = new MockApiDefinition("users", "/api/users", Map.of("id", "Integer"), "GET", 1);
+        assertThrows(IllegalArgumentException.class, () -> mockApiDefinitionRegistry.replaceDefinitions(List.of(products), List.of(orders, duplicate)));
+        assertEquals(1, mockApiDefinitionRegistry.getVersion());
+
+        mockApiDefinitionRegistry.replaceDefinitions(List.of(users, products), List.of(duplicate, orders));
+        assertEquals(2, mockApiDefinitionRegistry.getVersion());
+        assertSame(duplicate, mockApiDefinitionRegistry.getDefinition("/api/users"));
+        assertNull(mockApiDefinitionRegistry.getDefinition("/api/products"));
+        assertSame(orders, mockApiDefinitionRegistry.getDefinitionByName("orders"));
+    }
+
+    @Test
+    void testSameData()
+    {
+        MockApiDefinition orders = new MockApiDefinition("orders", "/api/orders", Map.of("id", "Integer"), "GET", 1);
+        MockApiDefinition moreMethods = new MockApiDefinition("orders", "/api/orders", Map.of("id", "Integer"), "GET,POST", 1);
+        MockApiDefinition moreEntries = new MockApiDefinition("orders", "/api/orders", Map.of("id", "Integer"), "GET", 2);
+        MockApiDefinition moreFields = new MockApiDefinition("orders", "/api/orders", Map.of("id", "Integer", "name", "String"), "GET", 1);
+
+        // Only the entries matter, not how they are served
+        assertNotEquals(orders, moreMethods);
+        assertTrue(orders.hasSameData(moreMethods));
+        assertFalse(orders.hasSameData(moreEntries));
+        assertFalse(orders.hasSameData(moreFields));
     }
 
-}
\ No newline at end of file
+}
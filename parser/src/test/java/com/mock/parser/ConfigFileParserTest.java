@@ -2,10 +2,15 @@ package com.mock.parser;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mock.model.LatencyProfile;
+import com.mock.model.ThroughputLimit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -65,6 +70,24 @@ class ConfigFileParserTest
         assertNull(configFileParser.getAllEndpoints());
     }
 
+    @Test
+    void checkReadFromConfigPath(@TempDir Path directory) throws IOException
+    {
+        Path config = directory.resolve("data.json");
+        Files.writeString(config, "[{\"name\": \"Cars\", \"endpoint\": \"cars\", \"methods\": \"GET\", \"fields\": {\"year\": \"integer\"}, \"count\": 5}]");
+        configFileParser = new ConfigFileParser(objectMapper, TEST_JSON_PATH, config.toString());
+        configFileParser.initializeRootNode();
+
+        assertEquals(config.toAbsolutePath(), configFileParser.getConfigPath());
+        assertEquals(1, configFileParser.getAllEndpoints().size());
+        assertEquals("cars", configFileParser.getEndpoint(configFileParser.getAllEndpoints().get(0)));
+
+        // Read again after a change
+        Files.writeString(config, "[]");
+        configFileParser.initializeRootNode();
+        assertEquals(0, configFileParser.getAllEndpoints().size());
+    }
+
     @Test
     void checkGetMethods()
     {
@@ -115,4 +138,46 @@ class ConfigFileParserTest
         assertEquals(2, allEndpoints.size());
     }
 
-}
\ No newline at end of file
+    @Test
+    void checkGetLatency() throws IOException
+    {
+        List<JsonNode> allEndpoints = configFileParser.getAllEndpoints();
+
+        LatencyProfile latency = configFileParser.getLatency(allEndpoints.get(0));
+        assertNotNull(latency);
+        assertEquals(20, latency.millisAt(0.25), 1e-9);
+        assertEquals(40, latency.millisAt(0.5), 1e-9);
+        assertEquals(400, latency.millisAt(0.99), 1e-9);
+        assertEquals(400, latency.millisAt(0.999), 1e-9);
+        assertNull(configFileParser.getLatency(allEndpoints.get(1)));
+
+        assertEquals(75, configFileParser.getLatency(objectMapper.readTree("{\"latency\": 75}")).millisAt(0.3), 1e-9);
+        LatencyProfile uniform = configFileParser.getLatency(objectMapper.readTree("{\"latency\": {\"type\": \"uniform\", \"min\": 50, \"max\": 150}}"));
+        assertEquals(100, uniform.millisAt(0.5), 1e-9);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                configFileParser.getLatency(objectMapper.readTree("{\"latency\": {\"type\": \"percentiles\", \"p50\": 100, \"p90\": 10}}")));
+        assertThrows(IllegalArgumentException.class, () ->
+                configFileParser.getLatency(objectMapper.readTree("{\"latency\": {\"type\": \"gaussian\"}}")));
+    }
+
+    @Test
+    void checkGetThroughput() throws IOException
+    {
+        List<JsonNode> allEndpoints = configFileParser.getAllEndpoints();
+
+        ThroughputLimit throughput = configFileParser.getThroughput(allEndpoints.get(0));
+        assertNotNull(throughput);
+        assertEquals(50, throughput.getRequestsPerSecond(), 1e-9);
+        assertEquals(10, throughput.getBurst());
+        assertEquals(200, throughput.getMaxWaitMillis());
+        assertNull(configFileParser.getThroughput(allEndpoints.get(1)));
+
+        ThroughputLimit defaults = configFileParser.getThroughput(objectMapper.readTree("{\"throughput\": {\"rps\": 2.5}}"));
+        assertEquals(3, defaults.getBurst());
+        assertEquals(0, defaults.getMaxWaitMillis());
+
+        assertThrows(IllegalArgumentException.class, () ->
+                configFileParser.getThroughput(objectMapper.readTree("{\"throughput\": {\"rps\": 0}}")));
+    }
+}
@@ -0,0 +1,149 @@
+package com.mock.parser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mock.model.MockApiDefinition;
+import com.mock.model.schema.ArraySchema;
+import com.mock.model.schema.ObjectSchema;
+import com.mock.model.schema.ScalarSchema;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointConfigLoaderTest
+{
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String TEST_JSON_PATH = "test-data.json";
+
+    @Test
+    void checkLoadFromClasspath() throws IOException
+    {
+        EndpointConfigLoader loader = new EndpointConfigLoader(objectMapper, TEST_JSON_PATH, "", 0);
+        List<MockApiDefinition> definitions = loader.load();
+
+        assertNull(loader.getSource());
+        assertEquals(2, definitions.size());
+        assertEquals("/api/users", definitions.get(0).getEndpointName());
+        assertEquals(10, definitions.get(0).getCount());
+        assertEquals(3, definitions.get(0).getFields().size());
+        assertEquals(400.0, definitions.get(0).getLatency().millisAt(0.99));
+        assertEquals(50.0, definitions.get(0).getThroughput().getRequestsPerSecond());
+        assertEquals("/api/products", definitions.get(1).getEndpointName());
+        assertNull(definitions.get(1).getLatency());
+    }
+
+    @Test
+    void checkLoadDirectoryAndGlob(@TempDir Path directory) throws IOException
+    {
+        Files.writeString(directory.resolve("a.json"), endpoint("cars", 5));
+        Files.writeString(directory.resolve("b.json"), "[" + endpoint("trucks", 7) + "," + endpoint("bikes", 3) + "]");
+        Files.writeString(directory.resolve("notes.txt"), "not a configuration");
+        Files.createDirectory(directory.resolve("more"));
+        Files.writeString(directory.resolve("more").resolve("c.json"), "[" + endpoint("boats", 2) + "]");
+
+        List<MockApiDefinition> inDirectory = new EndpointConfigLoader(objectMapper, TEST_JSON_PATH, directory.toString(), 2).load();
+        assertEquals(List.of("cars", "trucks", "bikes"), inDirectory.stream().map(MockApiDefinition::getEndpointName).toList());
+
+        List<MockApiDefinition> globbed = new EndpointConfigLoader(objectMapper, TEST_JSON_PATH, directory + "/**.json", 2).load();
+        assertEquals(List.of("cars", "trucks", "bikes", "boats"), globbed.stream().map(MockApiDefinition::getEndpointName).toList());
+    }
+
+    @Test
+    void checkLoadErrors(@TempDir Path directory) throws IOException
+    {
+        Files.writeString(directory.resolve("a.json"), endpoint("cars", 5));
+        Files.writeString(directory.resolve("b.json"), endpoint("cars", 6));
+        EndpointConfigLoader duplicates = new EndpointConfigLoader(objectMapper, TEST_JSON_PATH, directory.toString(), 0);
+        assertThrows(IllegalArgumentException.class, duplicates::load);
+
+        Files.writeString(directory.resolve("b.json"), "[{\"endpoint\": \"trucks\", \"methods\": \"GET\", \"count\": 1}]");
+        Exception exception = assertThrows(IllegalArgumentException.class, duplicates::load);
+        assertTrue(exception.getMessage().contains("Missing fields"));
+
+        EndpointConfigLoader missing = new EndpointConfigLoader(objectMapper, TEST_JSON_PATH, directory.resolve("none.json").toString(), 0);
+        assertThrows(IOException.class, missing::load);
+    }
+
+    @Test
+    void checkLoadNestedSchema(@TempDir Path directory) throws IOException
+    {
+        Files.writeString(directory.resolve("orders.json"), """
+                [{"endpoint": "orders", "methods": "GET", "count": 3, "fields": {
+                    "id": "integer",
+                    "status": {"type": "string", "enum": ["open", "paid"]},
+                    "customer": {"type": "object", "fields": {"name": {"type": "string", "provider": "name.fullName"}}},
+                    "lines": {"type": "array", "maxItems": 5, "items": {"type": "object", "fields": {
+                        "quantity": {"type": "integer", "min": 1, "max": 10}}}}
+                }}]
+                """);
+        MockApiDefinition definition = new EndpointConfigLoader(objectMapper, TEST_JSON_PATH, directory.toString(), 0).load().get(0);
+
+        ObjectSchema schema = definition.getSchema();
+        assertEquals(List.of("id", "status", "customer", "lines"), schema.getNames());
+        assertEquals(List.of("open", "paid"), ((ScalarSchema) schema.getField("status")).getValues());
+        assertEquals("name.fullName", ((ScalarSchema) ((ObjectSchema) schema.getField("customer")).getField("name")).getProvider());
+        ArraySchema lines = (ArraySchema) schema.getField("lines");
+        assertEquals(5, lines.getMaxItems());
+        ScalarSchema quantity = (ScalarSchema) ((ObjectSchema) lines.getItems()).getField("quantity");
+        assertEquals(1, quantity.getMinimumLong());
+        assertEquals(10, quantity.getMaximumLong());
+        assertEquals(Map.class, definition.getFields().get("customer"));
+        assertEquals(List.class, definition.getFields().get("lines"));
+
+        Files.writeString(directory.resolve("orders.json"), "[" + endpoint("orders", 1).replace("\"string\"", "{\"type\": \"string\", \"min\": 1}") + "]");
+        EndpointConfigLoader invalid = new EndpointConfigLoader(objectMapper, TEST_JSON_PATH, directory.toString(), 0);
+        Exception exception = assertThrows(IllegalArgumentException.class, invalid::load);
+        assertTrue(exception.getMessage().contains("Field model can only have min as a number"));
+    }
+
+    @Test
+    void checkLoadReferences(@TempDir Path directory) throws IOException
+    {
+        Files.writeString(directory.resolve("houses.json"), """
+                [{"endpoint": "houses", "methods": "GET", "count": 3, "fields": {
+                    "street": "string",
+                    "ownerId": {"type": "reference", "endpoint": "people"},
+                    "agent_id": {"type": "reference", "endpoint": "people", "as": "broker"}
+                }}]
+                """);
+        ObjectSchema schema = new EndpointConfigLoader(objectMapper, TEST_JSON_PATH, directory.toString(), 0).load().get(0).getSchema();
+
+        ScalarSchema owner = (ScalarSchema) schema.getField("ownerId");
+        assertEquals("people", owner.getReference());
+        assertEquals("owner", owner.getRelation());
+        assertEquals(1, owner.getMinimumLong());
+        assertEquals(Map.of("owner", "ownerId", "broker", "agent_id"), schema.getRelations());
+
+        Files.writeString(directory.resolve("houses.json"), """
+                [{"endpoint": "houses", "methods": "GET", "count": 3, "fields": {
+                    "owner": "string",
+                    "ownerId": {"type": "reference", "endpoint": "people"}
+                }}]
+                """);
+        EndpointConfigLoader collision = new EndpointConfigLoader(objectMapper, TEST_JSON_PATH, directory.toString(), 0);
+        Exception exception = assertThrows(IllegalArgumentException.class, collision::load);
+        assertTrue(exception.getMessage().contains("relation name of another field"));
+
+        Files.writeString(directory.resolve("houses.json"), """
+                [{"endpoint": "houses", "methods": "GET", "count": 3, "fields": {
+                    "address": {"type": "object", "fields": {"ownerId": {"type": "reference", "endpoint": "people"}}}
+                }}]
+                """);
+        EndpointConfigLoader nested = new EndpointConfigLoader(objectMapper, TEST_JSON_PATH, directory.toString(), 0);
+        exception = assertThrows(IllegalArgumentException.class, nested::load);
+        assertTrue(exception.getMessage().contains("Field address.ownerId can only be a reference as a top-level field"));
+    }
+
+    private static String endpoint(String name, int count)
+    {
+        return "{\"name\": \"" + name + "\", \"endpoint\": \"" + name + "\", \"methods\": \"GET\", "
+                + "\"fields\": {\"model\": \"string\", \"year\": \"integer\"}, \"count\": " + count + "}";
+    }
+}